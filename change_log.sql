@@ -0,0 +1,180 @@
+-- Hospital Management System Change Log
+-- Every write to the tables the windows show is recorded in change_log, whichever program or
+-- desk makes it. Each client polls the rows after the last id it has seen and patches its
+-- caches and open tables (see HospitalManagementSystem.events.ChangeLogPoller), so clients can
+-- cache without showing other desks' data stale.
+-- Run after enhanced_database_schema.sql or database_migration.sql, and after
+-- report_rollups.sql and patient_summary.sql. The script can be run again at any time.
+
+USE hospital;
+
+-- client_id is the @hms_client session variable of the writing connection, which the
+-- application sets on every connection so each client can skip its own writes. It is NULL for
+-- other programs and for rows removed by ON DELETE CASCADE, which every client applies.
+CREATE TABLE IF NOT EXISTS change_log (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    table_name VARCHAR(30) NOT NULL,
+    row_id INT NOT NULL,
+    change_type VARCHAR(10) NOT NULL, -- ADDED, UPDATED or DELETED
+    client_id VARCHAR(36) NULL,
+    changed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    KEY idx_change_log_changed_at (changed_at)
+);
+
+-- Rows removed by ON DELETE CASCADE do not fire triggers, so deleting a patient, doctor or
+-- appointment logs its dependent rows first. Prescriptions of a deleted appointment are logged
+-- as UPDATED because both schemas only clear their appointment_id; clients read an updated row
+-- again and drop it if it is gone.
+
+DROP TRIGGER IF EXISTS patients_log_insert;
+DROP TRIGGER IF EXISTS patients_log_update;
+DROP TRIGGER IF EXISTS patients_log_delete;
+DROP TRIGGER IF EXISTS patients_log_cascade;
+DROP TRIGGER IF EXISTS doctors_log_insert;
+DROP TRIGGER IF EXISTS doctors_log_update;
+DROP TRIGGER IF EXISTS doctors_log_delete;
+DROP TRIGGER IF EXISTS doctors_log_cascade;
+DROP TRIGGER IF EXISTS appointments_log_insert;
+DROP TRIGGER IF EXISTS appointments_log_update;
+DROP TRIGGER IF EXISTS appointments_log_delete;
+DROP TRIGGER IF EXISTS appointments_log_cascade;
+DROP TRIGGER IF EXISTS prescriptions_log_insert;
+DROP TRIGGER IF EXISTS prescriptions_log_update;
+DROP TRIGGER IF EXISTS prescriptions_log_delete;
+DROP TRIGGER IF EXISTS lab_tests_log_insert;
+DROP TRIGGER IF EXISTS lab_tests_log_update;
+DROP TRIGGER IF EXISTS lab_tests_log_delete;
+DROP TRIGGER IF EXISTS billing_log_insert;
+DROP TRIGGER IF EXISTS billing_log_update;
+DROP TRIGGER IF EXISTS billing_log_delete;
+
+DELIMITER //
+
+CREATE TRIGGER patients_log_insert AFTER INSERT ON patients FOR EACH ROW
+BEGIN
+    INSERT INTO change_log (table_name, row_id, change_type, client_id) VALUES ('patients', NEW.id, 'ADDED', @hms_client);
+END//
+
+CREATE TRIGGER patients_log_update AFTER UPDATE ON patients FOR EACH ROW
+BEGIN
+    INSERT INTO change_log (table_name, row_id, change_type, client_id) VALUES ('patients', NEW.id, 'UPDATED', @hms_client);
+END//
+
+CREATE TRIGGER patients_log_delete AFTER DELETE ON patients FOR EACH ROW
+BEGIN
+    INSERT INTO change_log (table_name, row_id, change_type, client_id) VALUES ('patients', OLD.id, 'DELETED', @hms_client);
+END//
+
+CREATE TRIGGER patients_log_cascade BEFORE DELETE ON patients FOR EACH ROW
+BEGIN
+    INSERT INTO change_log (table_name, row_id, change_type)
+    SELECT 'appointments', id, 'DELETED' FROM appointments WHERE patient_id = OLD.id;
+    INSERT INTO change_log (table_name, row_id, change_type)
+    SELECT 'prescriptions', id, 'DELETED' FROM prescriptions WHERE patient_id = OLD.id;
+    INSERT INTO change_log (table_name, row_id, change_type)
+    SELECT 'lab_tests', id, 'DELETED' FROM lab_tests WHERE patient_id = OLD.id;
+    INSERT INTO change_log (table_name, row_id, change_type)
+    SELECT 'billing', id, 'DELETED' FROM billing WHERE patient_id = OLD.id;
+END//
+
+CREATE TRIGGER doctors_log_insert AFTER INSERT ON doctors FOR EACH ROW
+BEGIN
+    INSERT INTO change_log (table_name, row_id, change_type, client_id) VALUES ('doctors', NEW.id, 'ADDED', @hms_client);
+END//
+
+CREATE TRIGGER doctors_log_update AFTER UPDATE ON doctors FOR EACH ROW
+BEGIN
+    INSERT INTO change_log (table_name, row_id, change_type, client_id) VALUES ('doctors', NEW.id, 'UPDATED', @hms_client);
+END//
+
+CREATE TRIGGER doctors_log_delete AFTER DELETE ON doctors FOR EACH ROW
+BEGIN
+    INSERT INTO change_log (table_name, row_id, change_type, client_id) VALUES ('doctors', OLD.id, 'DELETED', @hms_client);
+END//
+
+CREATE TRIGGER doctors_log_cascade BEFORE DELETE ON doctors FOR EACH ROW
+BEGIN
+    INSERT INTO change_log (table_name, row_id, change_type)
+    SELECT 'appointments', id, 'DELETED' FROM appointments WHERE doctor_id = OLD.id;
+    INSERT INTO change_log (table_name, row_id, change_type)
+    SELECT 'prescriptions', id, 'DELETED' FROM prescriptions WHERE doctor_id = OLD.id;
+    INSERT INTO change_log (table_name, row_id, change_type)
+    SELECT 'lab_tests', id, 'DELETED' FROM lab_tests WHERE doctor_id = OLD.id;
+END//
+
+CREATE TRIGGER appointments_log_insert AFTER INSERT ON appointments FOR EACH ROW
+BEGIN
+    INSERT INTO change_log (table_name, row_id, change_type, client_id) VALUES ('appointments', NEW.id, 'ADDED', @hms_client);
+END//
+
+CREATE TRIGGER appointments_log_update AFTER UPDATE ON appointments FOR EACH ROW
+BEGIN
+    INSERT INTO change_log (table_name, row_id, change_type, client_id) VALUES ('appointments', NEW.id, 'UPDATED', @hms_client);
+END//
+
+CREATE TRIGGER appointments_log_delete AFTER DELETE ON appointments FOR EACH ROW
+BEGIN
+    INSERT INTO change_log (table_name, row_id, change_type, client_id) VALUES ('appointments', OLD.id, 'DELETED', @hms_client);
+END//
+
+CREATE TRIGGER appointments_log_cascade BEFORE DELETE ON appointments FOR EACH ROW
+BEGIN
+    INSERT INTO change_log (table_name, row_id, change_type)
+    SELECT 'prescriptions', id, 'UPDATED' FROM prescriptions WHERE appointment_id = OLD.id;
+END//
+
+CREATE TRIGGER prescriptions_log_insert AFTER INSERT ON prescriptions FOR EACH ROW
+BEGIN
+    INSERT INTO change_log (table_name, row_id, change_type, client_id) VALUES ('prescriptions', NEW.id, 'ADDED', @hms_client);
+END//
+
+CREATE TRIGGER prescriptions_log_update AFTER UPDATE ON prescriptions FOR EACH ROW
+BEGIN
+    INSERT INTO change_log (table_name, row_id, change_type, client_id) VALUES ('prescriptions', NEW.id, 'UPDATED', @hms_client);
+END//
+
+CREATE TRIGGER prescriptions_log_delete AFTER DELETE ON prescriptions FOR EACH ROW
+BEGIN
+    INSERT INTO change_log (table_name, row_id, change_type, client_id) VALUES ('prescriptions', OLD.id, 'DELETED', @hms_client);
+END//
+
+CREATE TRIGGER lab_tests_log_insert AFTER INSERT ON lab_tests FOR EACH ROW
+BEGIN
+    INSERT INTO change_log (table_name, row_id, change_type, client_id) VALUES ('lab_tests', NEW.id, 'ADDED', @hms_client);
+END//
+
+CREATE TRIGGER lab_tests_log_update AFTER UPDATE ON lab_tests FOR EACH ROW
+BEGIN
+    INSERT INTO change_log (table_name, row_id, change_type, client_id) VALUES ('lab_tests', NEW.id, 'UPDATED', @hms_client);
+END//
+
+CREATE TRIGGER lab_tests_log_delete AFTER DELETE ON lab_tests FOR EACH ROW
+BEGIN
+    INSERT INTO change_log (table_name, row_id, change_type, client_id) VALUES ('lab_tests', OLD.id, 'DELETED', @hms_client);
+END//
+
+CREATE TRIGGER billing_log_insert AFTER INSERT ON billing FOR EACH ROW
+BEGIN
+    INSERT INTO change_log (table_name, row_id, change_type, client_id) VALUES ('billing', NEW.id, 'ADDED', @hms_client);
+END//
+
+CREATE TRIGGER billing_log_update AFTER UPDATE ON billing FOR EACH ROW
+BEGIN
+    INSERT INTO change_log (table_name, row_id, change_type, client_id) VALUES ('billing', NEW.id, 'UPDATED', @hms_client);
+END//
+
+CREATE TRIGGER billing_log_delete AFTER DELETE ON billing FOR EACH ROW
+BEGIN
+    INSERT INTO change_log (table_name, row_id, change_type, client_id) VALUES ('billing', OLD.id, 'DELETED', @hms_client);
+END//
+
+DELIMITER ;
+
+-- Clients that fall further behind than this reload everything instead of replaying the log.
+-- Needs the event scheduler (SET GLOBAL event_scheduler = ON); otherwise run the DELETE from
+-- a scheduled job.
+DROP EVENT IF EXISTS change_log_purge;
+CREATE EVENT change_log_purge ON SCHEDULE EVERY 1 HOUR
+DO DELETE FROM change_log WHERE changed_at < NOW() - INTERVAL 1 DAY;
+
+SELECT 'Change log rows' AS status, COUNT(*) AS count FROM change_log;
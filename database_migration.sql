@@ -52,6 +52,23 @@ CREATE TABLE IF NOT EXISTS prescriptions (
 -- Fix existing prescriptions table if appointment_id is NOT NULL
 ALTER TABLE prescriptions MODIFY COLUMN appointment_id INT NULL;
 
+-- Keep prescriptions when their appointment is deleted: older schemas created this key with
+-- ON DELETE CASCADE, and the patient_summary.sql triggers count on SET NULL
+SET @prescription_appointment_fk = (
+    SELECT CONSTRAINT_NAME FROM information_schema.REFERENTIAL_CONSTRAINTS
+    WHERE CONSTRAINT_SCHEMA = DATABASE() AND TABLE_NAME = 'prescriptions'
+    AND REFERENCED_TABLE_NAME = 'appointments' AND DELETE_RULE <> 'SET NULL' LIMIT 1);
+SET @sql = IF(@prescription_appointment_fk IS NULL, 'DO 0',
+    CONCAT('ALTER TABLE prescriptions DROP FOREIGN KEY ', @prescription_appointment_fk));
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+SET @sql = IF(@prescription_appointment_fk IS NULL, 'DO 0',
+    'ALTER TABLE prescriptions ADD FOREIGN KEY (appointment_id) REFERENCES appointments(id) ON DELETE SET NULL');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
 -- Prescription medicines table
 CREATE TABLE IF NOT EXISTS prescription_medicines (
     id INT AUTO_INCREMENT PRIMARY KEY,
@@ -149,6 +166,17 @@ CREATE TABLE IF NOT EXISTS drug_interactions (
     FOREIGN KEY (medicine2_id) REFERENCES medicines(id) ON DELETE CASCADE
 );
 
+-- Progress of bulk patient imports, committed with each group of imported records so an
+-- interrupted import resumes after the last commit
+CREATE TABLE IF NOT EXISTS patient_imports (
+    source VARCHAR(500) PRIMARY KEY,
+    records_done BIGINT NOT NULL DEFAULT 0,
+    imported BIGINT NOT NULL DEFAULT 0,
+    rejected BIGINT NOT NULL DEFAULT 0,
+    completed_at TIMESTAMP NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
 -- Step 5: Update existing doctors with enhanced data
 UPDATE doctors SET 
     license_number = CONCAT('LIC00', id),
@@ -209,29 +237,24 @@ CREATE INDEX IF NOT EXISTS idx_medical_history_patient ON medical_history(patien
 CREATE INDEX IF NOT EXISTS idx_lab_tests_patient ON lab_tests(patient_id);
 CREATE INDEX IF NOT EXISTS idx_billing_patient ON billing(patient_id);
 
+-- One active appointment per doctor and time slot. active_slot is NULL for cancelled
+-- appointments, so they never block the slot. If this fails, list the double bookings with:
+-- SELECT doctor_id, appointment_date, appointment_time, COUNT(*) FROM appointments
+-- WHERE status <> 'Cancelled' GROUP BY doctor_id, appointment_date, appointment_time HAVING COUNT(*) > 1;
+ALTER TABLE appointments
+ADD COLUMN IF NOT EXISTS active_slot TINYINT AS (IF(status = 'Cancelled', NULL, 1)) STORED;
+CREATE UNIQUE INDEX IF NOT EXISTS uq_doctor_slot ON appointments(doctor_id, appointment_date, appointment_time, active_slot);
+
 -- Step 9: Create views for common queries
-DROP VIEW IF EXISTS patient_summary;
-CREATE VIEW patient_summary AS
-SELECT 
-    p.id,
-    p.name,
-    p.age,
-    p.gender,
-    p.phone,
-    p.blood_group,
-    COUNT(DISTINCT a.id) as total_appointments,
-    COUNT(DISTINCT pr.id) as total_prescriptions,
-    COUNT(DISTINCT lt.id) as total_lab_tests,
-    COALESCE(SUM(b.total_amount), 0) as total_billing
-FROM patients p
-LEFT JOIN appointments a ON p.id = a.patient_id
-LEFT JOIN prescriptions pr ON p.id = pr.patient_id
-LEFT JOIN lab_tests lt ON p.id = lt.patient_id
-LEFT JOIN billing b ON p.id = b.patient_id
-GROUP BY p.id;
+-- patient_summary is created by patient_summary.sql, backed by per-patient totals kept
+-- current by triggers
 
 COMMIT;
 
+-- Reports and patient totals read pre-aggregated counters: run report_rollups.sql and
+-- patient_summary.sql after this script.
+-- Clients follow each other's writes through change_log: run change_log.sql after those.
+
 -- Verification queries to check the migration
 SELECT 'Patients table updated' as status, COUNT(*) as count FROM patients;
 SELECT 'Doctors table updated' as status, COUNT(*) as count FROM doctors;
@@ -0,0 +1,81 @@
+-- Report period filter benchmark
+-- Compares the query plans of the old report period condition and the half-open range the
+-- reports now use (DateRange in the Java code), on a scratch database seeded with 2 million
+-- appointments spread over five years. Needs MySQL 8.0.18+ for EXPLAIN ANALYZE.
+--
+--   mysql -u root < date_filter_benchmark.sql
+--
+-- Expected: the old condition reads every row (type ALL, ~2,000,000 rows) because
+-- DATE(appointment_date) and the OR hide the column from idx_appointment_date. The range reads
+-- only the last 30 days through the index (type range, ~34,000 rows).
+
+DROP DATABASE IF EXISTS hospital_bench;
+CREATE DATABASE hospital_bench;
+USE hospital_bench;
+
+CREATE TABLE appointments (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    patient_id INT NOT NULL,
+    doctor_id INT NOT NULL,
+    appointment_date DATE NOT NULL,
+    appointment_time TIME DEFAULT '09:00:00',
+    status VARCHAR(20) DEFAULT 'Scheduled',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_appointment_date (appointment_date)
+);
+
+-- 2,000,000 rows: 0..999999 from six digit tables, twice, with dates going back up to 1824 days
+CREATE TABLE digits (d INT PRIMARY KEY);
+INSERT INTO digits VALUES (0), (1), (2), (3), (4), (5), (6), (7), (8), (9);
+
+INSERT INTO appointments (patient_id, doctor_id, appointment_date, appointment_time, status, created_at)
+SELECT 1 + n MOD 50000,
+       1 + n MOD 40,
+       DATE_SUB(CURDATE(), INTERVAL n MOD 1825 DAY),
+       MAKETIME(9 + n MOD 8, (n MOD 2) * 30, 0),
+       ELT(1 + n MOD 4, 'Scheduled', 'Completed', 'Cancelled', 'Pending'),
+       DATE_SUB(NOW(), INTERVAL n MOD 1825 DAY)
+FROM (SELECT a.d + b.d * 10 + c.d * 100 + e.d * 1000 + f.d * 10000 + g.d * 100000 AS n
+      FROM digits a, digits b, digits c, digits e, digits f, digits g) numbers
+CROSS JOIN (SELECT 0 AS copy UNION ALL SELECT 1) copies;
+
+ANALYZE TABLE appointments;
+
+-- Before: the "Last 30 Days" condition built by the old getDateCondition()
+EXPLAIN
+SELECT COUNT(*) FROM appointments
+WHERE DATE(created_at) >= DATE_SUB(CURDATE(), INTERVAL 30 DAY)
+   OR DATE(appointment_date) >= DATE_SUB(CURDATE(), INTERVAL 30 DAY);
+
+EXPLAIN ANALYZE
+SELECT COUNT(*) FROM appointments
+WHERE DATE(created_at) >= DATE_SUB(CURDATE(), INTERVAL 30 DAY)
+   OR DATE(appointment_date) >= DATE_SUB(CURDATE(), INTERVAL 30 DAY);
+
+-- After: DateRange.lastDays(30).condition("appointment_date"), bound to [today - 30, tomorrow)
+SET @range_from = DATE_SUB(CURDATE(), INTERVAL 30 DAY);
+SET @range_until = DATE_ADD(CURDATE(), INTERVAL 1 DAY);
+
+EXPLAIN
+SELECT COUNT(*) FROM appointments
+WHERE appointment_date >= @range_from AND appointment_date < @range_until;
+
+EXPLAIN ANALYZE
+SELECT COUNT(*) FROM appointments
+WHERE appointment_date >= @range_from AND appointment_date < @range_until;
+
+-- Same for the monthly trends query (YEAR(...) = YEAR(CURDATE()) before, DateRange.thisYear() after)
+EXPLAIN ANALYZE
+SELECT MONTH(appointment_date) AS month, COUNT(*) FROM appointments
+WHERE YEAR(appointment_date) = YEAR(CURDATE())
+GROUP BY MONTH(appointment_date);
+
+SET @year_from = MAKEDATE(YEAR(CURDATE()), 1);
+SET @year_until = MAKEDATE(YEAR(CURDATE()) + 1, 1);
+
+EXPLAIN ANALYZE
+SELECT MONTH(appointment_date) AS month, COUNT(*) FROM appointments
+WHERE appointment_date >= @year_from AND appointment_date < @year_until
+GROUP BY MONTH(appointment_date);
+
+DROP DATABASE hospital_bench;
@@ -52,6 +52,9 @@ CREATE TABLE IF NOT EXISTS appointments (
     follow_up_date DATE,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    -- NULL for cancelled appointments, so they never block the slot
+    active_slot TINYINT AS (IF(status = 'Cancelled', NULL, 1)) STORED,
+    UNIQUE KEY uq_doctor_slot (doctor_id, appointment_date, appointment_time, active_slot),
     FOREIGN KEY (patient_id) REFERENCES patients(id) ON DELETE CASCADE,
     FOREIGN KEY (doctor_id) REFERENCES doctors(id) ON DELETE CASCADE
 );
@@ -59,7 +62,7 @@ CREATE TABLE IF NOT EXISTS appointments (
 -- NEW: Prescriptions table
 CREATE TABLE IF NOT EXISTS prescriptions (
     id INT AUTO_INCREMENT PRIMARY KEY,
-    appointment_id INT NOT NULL,
+    appointment_id INT,
     patient_id INT NOT NULL,
     doctor_id INT NOT NULL,
     prescription_date DATE NOT NULL,
@@ -69,7 +72,7 @@ CREATE TABLE IF NOT EXISTS prescriptions (
     notes TEXT,
     next_visit_date DATE,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    FOREIGN KEY (appointment_id) REFERENCES appointments(id) ON DELETE CASCADE,
+    FOREIGN KEY (appointment_id) REFERENCES appointments(id) ON DELETE SET NULL,
     FOREIGN KEY (patient_id) REFERENCES patients(id) ON DELETE CASCADE,
     FOREIGN KEY (doctor_id) REFERENCES doctors(id) ON DELETE CASCADE
 );
@@ -171,6 +174,17 @@ CREATE TABLE IF NOT EXISTS drug_interactions (
     FOREIGN KEY (medicine2_id) REFERENCES medicines(id) ON DELETE CASCADE
 );
 
+-- Progress of bulk patient imports, committed with each group of imported records so an
+-- interrupted import resumes after the last commit
+CREATE TABLE IF NOT EXISTS patient_imports (
+    source VARCHAR(500) PRIMARY KEY,
+    records_done BIGINT NOT NULL DEFAULT 0,
+    imported BIGINT NOT NULL DEFAULT 0,
+    rejected BIGINT NOT NULL DEFAULT 0,
+    completed_at TIMESTAMP NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
 -- Insert sample enhanced doctors data
 INSERT INTO doctors (name, specialization, phone, email, license_number, qualification, experience_years, consultation_fee) VALUES
 ('Dr. John Smith', 'Cardiology', '555-0101', 'john.smith@hospital.com', 'LIC001', 'MD Cardiology, MBBS', 15, 500.00),
@@ -209,23 +223,11 @@ CREATE INDEX idx_lab_tests_patient ON lab_tests(patient_id);
 CREATE INDEX idx_billing_patient ON billing(patient_id);
 
 -- Create views for common queries
-CREATE VIEW patient_summary AS
-SELECT 
-    p.id,
-    p.name,
-    p.age,
-    p.gender,
-    p.phone,
-    p.blood_group,
-    COUNT(DISTINCT a.id) as total_appointments,
-    COUNT(DISTINCT pr.id) as total_prescriptions,
-    COUNT(DISTINCT lt.id) as total_lab_tests,
-    COALESCE(SUM(b.total_amount), 0) as total_billing
-FROM patients p
-LEFT JOIN appointments a ON p.id = a.patient_id
-LEFT JOIN prescriptions pr ON p.id = pr.patient_id
-LEFT JOIN lab_tests lt ON p.id = lt.patient_id
-LEFT JOIN billing b ON p.id = b.patient_id
-GROUP BY p.id;
-
-COMMIT;
\ No newline at end of file
+-- patient_summary is created by patient_summary.sql, backed by per-patient totals kept
+-- current by triggers
+
+COMMIT;
+
+-- Reports and patient totals read pre-aggregated counters: run report_rollups.sql and
+-- patient_summary.sql after this script.
+-- Clients follow each other's writes through change_log: run change_log.sql after those.
\ No newline at end of file
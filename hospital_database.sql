@@ -35,10 +35,25 @@ CREATE TABLE IF NOT EXISTS appointments (
     appointment_time TIME DEFAULT '09:00:00',
     status VARCHAR(20) DEFAULT 'Scheduled',
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    -- NULL for cancelled appointments, so they never block the slot
+    active_slot TINYINT AS (IF(status = 'Cancelled', NULL, 1)) STORED,
+    UNIQUE KEY uq_doctor_slot (doctor_id, appointment_date, appointment_time, active_slot),
+    INDEX idx_appointment_date (appointment_date),
     FOREIGN KEY (patient_id) REFERENCES patients(id) ON DELETE CASCADE,
     FOREIGN KEY (doctor_id) REFERENCES doctors(id) ON DELETE CASCADE
 );
 
+-- Progress of bulk patient imports, committed with each group of imported records so an
+-- interrupted import resumes after the last commit
+CREATE TABLE IF NOT EXISTS patient_imports (
+    source VARCHAR(500) PRIMARY KEY,
+    records_done BIGINT NOT NULL DEFAULT 0,
+    imported BIGINT NOT NULL DEFAULT 0,
+    rejected BIGINT NOT NULL DEFAULT 0,
+    completed_at TIMESTAMP NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
 -- Insert sample doctors
 INSERT INTO doctors (name, specialization, phone, email) VALUES
 ('Dr. John Smith', 'Cardiology', '555-0101', 'john.smith@hospital.com'),
@@ -53,4 +68,6 @@ INSERT INTO patients (name, age, gender, phone, address) VALUES
 ('Bob Johnson', 45, 'Male', '555-1002', '456 Oak Ave, City'),
 ('Carol White', 32, 'Female', '555-1003', '789 Pine Rd, City');
 
+-- The reports read pre-aggregated counters: run report_rollups.sql after this script.
+
 SELECT 'Database setup completed successfully!' AS message;
\ No newline at end of file
@@ -0,0 +1,171 @@
+-- Hospital Management System Patient Summary
+-- Per-patient totals kept in a table instead of the old patient_summary view, which joined
+-- appointments, prescriptions, lab tests and billing per patient: that multiplied the rows
+-- (and inflated SUM(total_amount)) for every patient with more than one of each.
+-- Run after enhanced_database_schema.sql or database_migration.sql. The script can be run again
+-- at any time to rebuild the totals from the raw tables; run it while nobody is writing.
+
+USE hospital;
+
+CREATE TABLE IF NOT EXISTS patient_totals (
+    patient_id INT PRIMARY KEY,
+    total_appointments INT NOT NULL DEFAULT 0,
+    total_prescriptions INT NOT NULL DEFAULT 0,
+    total_lab_tests INT NOT NULL DEFAULT 0,
+    total_billing DECIMAL(12,2) NOT NULL DEFAULT 0.00,
+    FOREIGN KEY (patient_id) REFERENCES patients(id) ON DELETE CASCADE
+);
+
+-- Same columns as the old view, now one primary key lookup per patient
+DROP VIEW IF EXISTS patient_summary;
+CREATE VIEW patient_summary AS
+SELECT
+    p.id,
+    p.name,
+    p.age,
+    p.gender,
+    p.phone,
+    p.blood_group,
+    COALESCE(t.total_appointments, 0) as total_appointments,
+    COALESCE(t.total_prescriptions, 0) as total_prescriptions,
+    COALESCE(t.total_lab_tests, 0) as total_lab_tests,
+    COALESCE(t.total_billing, 0) as total_billing
+FROM patients p
+LEFT JOIN patient_totals t ON p.id = t.patient_id;
+
+-- Triggers keep the totals current on every write. Rows removed by ON DELETE CASCADE do not
+-- fire triggers, so deleting a doctor takes their appointments, prescriptions and lab tests off
+-- first. Rows of a deleted patient go with the patient. Both schemas keep the prescriptions of
+-- a deleted appointment (prescriptions.appointment_id is ON DELETE SET NULL, and
+-- database_migration.sql converts older databases), so deleting an appointment leaves
+-- total_prescriptions alone.
+DROP TRIGGER IF EXISTS appointments_totals_insert;
+DROP TRIGGER IF EXISTS appointments_totals_update;
+DROP TRIGGER IF EXISTS appointments_totals_delete;
+DROP TRIGGER IF EXISTS prescriptions_totals_insert;
+DROP TRIGGER IF EXISTS prescriptions_totals_update;
+DROP TRIGGER IF EXISTS prescriptions_totals_delete;
+DROP TRIGGER IF EXISTS lab_tests_totals_insert;
+DROP TRIGGER IF EXISTS lab_tests_totals_update;
+DROP TRIGGER IF EXISTS lab_tests_totals_delete;
+DROP TRIGGER IF EXISTS billing_totals_insert;
+DROP TRIGGER IF EXISTS billing_totals_update;
+DROP TRIGGER IF EXISTS billing_totals_delete;
+DROP TRIGGER IF EXISTS doctors_totals_delete;
+
+DELIMITER //
+
+CREATE TRIGGER appointments_totals_insert AFTER INSERT ON appointments FOR EACH ROW
+BEGIN
+    INSERT INTO patient_totals (patient_id, total_appointments) VALUES (NEW.patient_id, 1)
+    ON DUPLICATE KEY UPDATE total_appointments = total_appointments + 1;
+END//
+
+CREATE TRIGGER appointments_totals_update AFTER UPDATE ON appointments FOR EACH ROW
+BEGIN
+    IF OLD.patient_id <> NEW.patient_id THEN
+        UPDATE patient_totals SET total_appointments = total_appointments - 1 WHERE patient_id = OLD.patient_id;
+        INSERT INTO patient_totals (patient_id, total_appointments) VALUES (NEW.patient_id, 1)
+        ON DUPLICATE KEY UPDATE total_appointments = total_appointments + 1;
+    END IF;
+END//
+
+CREATE TRIGGER appointments_totals_delete BEFORE DELETE ON appointments FOR EACH ROW
+BEGIN
+    UPDATE patient_totals SET total_appointments = total_appointments - 1 WHERE patient_id = OLD.patient_id;
+END//
+
+CREATE TRIGGER prescriptions_totals_insert AFTER INSERT ON prescriptions FOR EACH ROW
+BEGIN
+    INSERT INTO patient_totals (patient_id, total_prescriptions) VALUES (NEW.patient_id, 1)
+    ON DUPLICATE KEY UPDATE total_prescriptions = total_prescriptions + 1;
+END//
+
+CREATE TRIGGER prescriptions_totals_update AFTER UPDATE ON prescriptions FOR EACH ROW
+BEGIN
+    IF OLD.patient_id <> NEW.patient_id THEN
+        UPDATE patient_totals SET total_prescriptions = total_prescriptions - 1 WHERE patient_id = OLD.patient_id;
+        INSERT INTO patient_totals (patient_id, total_prescriptions) VALUES (NEW.patient_id, 1)
+        ON DUPLICATE KEY UPDATE total_prescriptions = total_prescriptions + 1;
+    END IF;
+END//
+
+CREATE TRIGGER prescriptions_totals_delete AFTER DELETE ON prescriptions FOR EACH ROW
+BEGIN
+    UPDATE patient_totals SET total_prescriptions = total_prescriptions - 1 WHERE patient_id = OLD.patient_id;
+END//
+
+CREATE TRIGGER lab_tests_totals_insert AFTER INSERT ON lab_tests FOR EACH ROW
+BEGIN
+    INSERT INTO patient_totals (patient_id, total_lab_tests) VALUES (NEW.patient_id, 1)
+    ON DUPLICATE KEY UPDATE total_lab_tests = total_lab_tests + 1;
+END//
+
+CREATE TRIGGER lab_tests_totals_update AFTER UPDATE ON lab_tests FOR EACH ROW
+BEGIN
+    IF OLD.patient_id <> NEW.patient_id THEN
+        UPDATE patient_totals SET total_lab_tests = total_lab_tests - 1 WHERE patient_id = OLD.patient_id;
+        INSERT INTO patient_totals (patient_id, total_lab_tests) VALUES (NEW.patient_id, 1)
+        ON DUPLICATE KEY UPDATE total_lab_tests = total_lab_tests + 1;
+    END IF;
+END//
+
+CREATE TRIGGER lab_tests_totals_delete AFTER DELETE ON lab_tests FOR EACH ROW
+BEGIN
+    UPDATE patient_totals SET total_lab_tests = total_lab_tests - 1 WHERE patient_id = OLD.patient_id;
+END//
+
+CREATE TRIGGER billing_totals_insert AFTER INSERT ON billing FOR EACH ROW
+BEGIN
+    INSERT INTO patient_totals (patient_id, total_billing) VALUES (NEW.patient_id, NEW.total_amount)
+    ON DUPLICATE KEY UPDATE total_billing = total_billing + NEW.total_amount;
+END//
+
+CREATE TRIGGER billing_totals_update AFTER UPDATE ON billing FOR EACH ROW
+BEGIN
+    IF OLD.patient_id <> NEW.patient_id OR OLD.total_amount <> NEW.total_amount THEN
+        UPDATE patient_totals SET total_billing = total_billing - OLD.total_amount WHERE patient_id = OLD.patient_id;
+        INSERT INTO patient_totals (patient_id, total_billing) VALUES (NEW.patient_id, NEW.total_amount)
+        ON DUPLICATE KEY UPDATE total_billing = total_billing + NEW.total_amount;
+    END IF;
+END//
+
+CREATE TRIGGER billing_totals_delete AFTER DELETE ON billing FOR EACH ROW
+BEGIN
+    UPDATE patient_totals SET total_billing = total_billing - OLD.total_amount WHERE patient_id = OLD.patient_id;
+END//
+
+CREATE TRIGGER doctors_totals_delete BEFORE DELETE ON doctors FOR EACH ROW
+BEGIN
+    UPDATE patient_totals t
+    JOIN (SELECT patient_id, COUNT(*) AS removed FROM appointments
+          WHERE doctor_id = OLD.id GROUP BY patient_id) a ON t.patient_id = a.patient_id
+    SET t.total_appointments = t.total_appointments - a.removed;
+    UPDATE patient_totals t
+    JOIN (SELECT patient_id, COUNT(*) AS removed FROM prescriptions
+          WHERE doctor_id = OLD.id
+          GROUP BY patient_id) pr ON t.patient_id = pr.patient_id
+    SET t.total_prescriptions = t.total_prescriptions - pr.removed;
+    UPDATE patient_totals t
+    JOIN (SELECT patient_id, COUNT(*) AS removed FROM lab_tests
+          WHERE doctor_id = OLD.id GROUP BY patient_id) lt ON t.patient_id = lt.patient_id
+    SET t.total_lab_tests = t.total_lab_tests - lt.removed;
+END//
+
+DELIMITER ;
+
+-- Rebuild the totals from the raw tables, each counted on its own so nothing is multiplied
+START TRANSACTION;
+
+DELETE FROM patient_totals;
+INSERT INTO patient_totals (patient_id, total_appointments, total_prescriptions, total_lab_tests, total_billing)
+SELECT p.id,
+       (SELECT COUNT(*) FROM appointments a WHERE a.patient_id = p.id),
+       (SELECT COUNT(*) FROM prescriptions pr WHERE pr.patient_id = p.id),
+       (SELECT COUNT(*) FROM lab_tests lt WHERE lt.patient_id = p.id),
+       (SELECT COALESCE(SUM(b.total_amount), 0) FROM billing b WHERE b.patient_id = p.id)
+FROM patients p;
+
+COMMIT;
+
+SELECT 'Patient totals rows' AS status, COUNT(*) AS count FROM patient_totals;
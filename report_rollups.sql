@@ -0,0 +1,118 @@
+-- Hospital Management System Report Rollups
+-- Pre-aggregated counters the reports read instead of scanning appointments and patients.
+-- Run after hospital_database.sql or database_migration.sql. The script can be run again at
+-- any time to rebuild the counters from the raw tables; run it while nobody is writing.
+
+USE hospital;
+
+-- Appointments per day, doctor, starting hour and status. appointment_hour is -1 for
+-- appointments without a time.
+CREATE TABLE IF NOT EXISTS appointment_daily_rollup (
+    appointment_date DATE NOT NULL,
+    doctor_id INT NOT NULL,
+    appointment_hour TINYINT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    appointment_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (appointment_date, doctor_id, appointment_hour, status),
+    KEY idx_rollup_doctor (doctor_id, appointment_date)
+);
+
+-- Patients per age and gender
+CREATE TABLE IF NOT EXISTS patient_age_rollup (
+    age INT NOT NULL,
+    gender VARCHAR(10) NOT NULL,
+    patient_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (age, gender)
+);
+
+-- Triggers keep the counters current on every write, whichever program makes it.
+-- Rows deleted by ON DELETE CASCADE do not fire triggers, so deleting a patient or doctor
+-- takes their appointments off the counters first.
+DROP TRIGGER IF EXISTS appointments_rollup_insert;
+DROP TRIGGER IF EXISTS appointments_rollup_update;
+DROP TRIGGER IF EXISTS appointments_rollup_delete;
+DROP TRIGGER IF EXISTS patients_rollup_insert;
+DROP TRIGGER IF EXISTS patients_rollup_update;
+DROP TRIGGER IF EXISTS patients_rollup_delete;
+DROP TRIGGER IF EXISTS doctors_rollup_delete;
+
+DELIMITER //
+
+CREATE TRIGGER appointments_rollup_insert AFTER INSERT ON appointments FOR EACH ROW
+BEGIN
+    INSERT INTO appointment_daily_rollup (appointment_date, doctor_id, appointment_hour, status, appointment_count)
+    VALUES (NEW.appointment_date, NEW.doctor_id, COALESCE(HOUR(NEW.appointment_time), -1), COALESCE(NEW.status, ''), 1)
+    ON DUPLICATE KEY UPDATE appointment_count = appointment_count + 1;
+END//
+
+CREATE TRIGGER appointments_rollup_update AFTER UPDATE ON appointments FOR EACH ROW
+BEGIN
+    UPDATE appointment_daily_rollup SET appointment_count = appointment_count - 1
+    WHERE appointment_date = OLD.appointment_date AND doctor_id = OLD.doctor_id
+      AND appointment_hour = COALESCE(HOUR(OLD.appointment_time), -1) AND status = COALESCE(OLD.status, '');
+    INSERT INTO appointment_daily_rollup (appointment_date, doctor_id, appointment_hour, status, appointment_count)
+    VALUES (NEW.appointment_date, NEW.doctor_id, COALESCE(HOUR(NEW.appointment_time), -1), COALESCE(NEW.status, ''), 1)
+    ON DUPLICATE KEY UPDATE appointment_count = appointment_count + 1;
+END//
+
+CREATE TRIGGER appointments_rollup_delete AFTER DELETE ON appointments FOR EACH ROW
+BEGIN
+    UPDATE appointment_daily_rollup SET appointment_count = appointment_count - 1
+    WHERE appointment_date = OLD.appointment_date AND doctor_id = OLD.doctor_id
+      AND appointment_hour = COALESCE(HOUR(OLD.appointment_time), -1) AND status = COALESCE(OLD.status, '');
+END//
+
+CREATE TRIGGER patients_rollup_insert AFTER INSERT ON patients FOR EACH ROW
+BEGIN
+    INSERT INTO patient_age_rollup (age, gender, patient_count) VALUES (NEW.age, NEW.gender, 1)
+    ON DUPLICATE KEY UPDATE patient_count = patient_count + 1;
+END//
+
+CREATE TRIGGER patients_rollup_update AFTER UPDATE ON patients FOR EACH ROW
+BEGIN
+    IF OLD.age <> NEW.age OR OLD.gender <> NEW.gender THEN
+        UPDATE patient_age_rollup SET patient_count = patient_count - 1
+        WHERE age = OLD.age AND gender = OLD.gender;
+        INSERT INTO patient_age_rollup (age, gender, patient_count) VALUES (NEW.age, NEW.gender, 1)
+        ON DUPLICATE KEY UPDATE patient_count = patient_count + 1;
+    END IF;
+END//
+
+CREATE TRIGGER patients_rollup_delete BEFORE DELETE ON patients FOR EACH ROW
+BEGIN
+    UPDATE patient_age_rollup SET patient_count = patient_count - 1
+    WHERE age = OLD.age AND gender = OLD.gender;
+    UPDATE appointment_daily_rollup r
+    JOIN (SELECT appointment_date, doctor_id, COALESCE(HOUR(appointment_time), -1) AS appointment_hour,
+                 COALESCE(status, '') AS status, COUNT(*) AS removed
+          FROM appointments WHERE patient_id = OLD.id
+          GROUP BY appointment_date, doctor_id, COALESCE(HOUR(appointment_time), -1), COALESCE(status, '')) a
+      ON r.appointment_date = a.appointment_date AND r.doctor_id = a.doctor_id
+     AND r.appointment_hour = a.appointment_hour AND r.status = a.status
+    SET r.appointment_count = r.appointment_count - a.removed;
+END//
+
+CREATE TRIGGER doctors_rollup_delete BEFORE DELETE ON doctors FOR EACH ROW
+BEGIN
+    DELETE FROM appointment_daily_rollup WHERE doctor_id = OLD.id;
+END//
+
+DELIMITER ;
+
+-- Rebuild the counters from the raw tables
+START TRANSACTION;
+
+DELETE FROM appointment_daily_rollup;
+INSERT INTO appointment_daily_rollup (appointment_date, doctor_id, appointment_hour, status, appointment_count)
+SELECT appointment_date, doctor_id, COALESCE(HOUR(appointment_time), -1), COALESCE(status, ''), COUNT(*)
+FROM appointments
+GROUP BY appointment_date, doctor_id, COALESCE(HOUR(appointment_time), -1), COALESCE(status, '');
+
+DELETE FROM patient_age_rollup;
+INSERT INTO patient_age_rollup (age, gender, patient_count)
+SELECT age, gender, COUNT(*) FROM patients GROUP BY age, gender;
+
+COMMIT;
+
+SELECT 'Appointment rollup rows' AS status, COUNT(*) AS count FROM appointment_daily_rollup;
+SELECT 'Patient rollup rows' AS status, COUNT(*) AS count FROM patient_age_rollup;
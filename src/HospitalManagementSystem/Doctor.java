@@ -1,34 +1,30 @@
 package HospitalManagementSystem;
 
+import HospitalManagementSystem.core.DoctorRepository;
+import HospitalManagementSystem.db.ConnectionPool;
+
 import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Scanner;
 
 public class Doctor {
-    private Connection connection;
+    private ConnectionPool pool;
 
-    public Doctor(Connection connection){
-        this.connection = connection;
+    public Doctor(ConnectionPool pool){
+        this.pool = pool;
     }
 
     public void viewDoctors(){
-        String query = "select * from doctors";
-        try{
-            PreparedStatement preparedStatement = connection.prepareStatement(query);
-            ResultSet resultSet = preparedStatement.executeQuery();
+        try (Connection connection = pool.getConnection()) {
             System.out.println("Doctors: ");
             System.out.println("+------------+--------------------+------------------+");
             System.out.println("| Doctor Id  | Name               | Specialization   |");
             System.out.println("+------------+--------------------+------------------+");
-            while(resultSet.next()){
-                int id = resultSet.getInt("id");
-                String name = resultSet.getString("name");
-                String specialization = resultSet.getString("specialization");
-                System.out.printf("| %-10s | %-18s | %-16s |\n", id, name, specialization);
+            DoctorRepository.forEach(connection, doctor -> {
+                System.out.printf("| %-10s | %-18s | %-16s |\n",
+                        doctor.getId(), doctor.getName(), doctor.getSpecialization());
                 System.out.println("+------------+--------------------+------------------+");
-            }
+            });
 
         }catch (SQLException e){
             e.printStackTrace();
@@ -36,16 +32,8 @@ public class Doctor {
     }
 
     public boolean getDoctorById(int id){
-        String query = "SELECT * FROM doctors WHERE id = ?";
-        try{
-            PreparedStatement preparedStatement = connection.prepareStatement(query);
-            preparedStatement.setInt(1, id);
-            ResultSet resultSet = preparedStatement.executeQuery();
-            if(resultSet.next()){
-                return true;
-            }else{
-                return false;
-            }
+        try (Connection connection = pool.getConnection()) {
+            return DoctorRepository.exists(connection, id);
         }catch (SQLException e){
             e.printStackTrace();
         }
@@ -1,24 +1,21 @@
 package HospitalManagementSystem;
 
+import HospitalManagementSystem.db.ConnectionPool;
+import HospitalManagementSystem.db.Database;
+import HospitalManagementSystem.scheduling.SlotReservations;
+
 import java.sql.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.Scanner;
 
 public class HospitalManagementSystem {
-    private static final String url = "jdbc:mysql://localhost:3306/hospital";
-    private static final String username = "root";
-    private static final String password = "";
-
     public static void main(String[] args) {
-        try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-        } catch (ClassNotFoundException e) {
-            e.printStackTrace();
-        }
         Scanner scanner = new Scanner(System.in);
         try {
-            Connection connection = DriverManager.getConnection(url, username, password);
-            Patient patient = new Patient(connection, scanner);
-            Doctor doctor = new Doctor(connection);
+            ConnectionPool pool = Database.getPool();
+            Patient patient = new Patient(pool, scanner);
+            Doctor doctor = new Doctor(pool);
             while (true) {
                 System.out.println("HOSPITAL MANAGEMENT SYSTEM ");
                 System.out.println("1. Add Patient");
@@ -47,7 +44,7 @@ public class HospitalManagementSystem {
                         break;
                     case 4:
                         // Book Appointment
-                        bookAppointment(patient, doctor, connection, scanner);
+                        bookAppointment(patient, doctor, pool, scanner);
                         System.out.println();
                         break;
                     case 5:
@@ -65,7 +62,7 @@ public class HospitalManagementSystem {
         }
     }
 
-    public static void bookAppointment(Patient patient, Doctor doctor, Connection connection, Scanner scanner) {
+    public static void bookAppointment(Patient patient, Doctor doctor, ConnectionPool pool, Scanner scanner) {
         System.out.print("Enter Patient Id: ");
         int patientId = scanner.nextInt();
         System.out.print("Enter Doctor Id: ");
@@ -73,48 +70,22 @@ public class HospitalManagementSystem {
         System.out.print("Enter appointment date (YYYY-MM-DD): ");
         String appointmentDate = scanner.next();
         if (patient.getPatientById(patientId) && doctor.getDoctorById(doctorId)) {
-            if (checkDoctorAvailability(doctorId, appointmentDate, connection)) {
-                String appointmentQuery = "INSERT INTO appointments(patient_id, doctor_id, appointment_date) VALUES(?, ?, ?)";
-                try {
-                    PreparedStatement preparedStatement = connection.prepareStatement(appointmentQuery);
-                    preparedStatement.setInt(1, patientId);
-                    preparedStatement.setInt(2, doctorId);
-                    preparedStatement.setString(3, appointmentDate);
-                    int rowsAffected = preparedStatement.executeUpdate();
-                    if (rowsAffected > 0) {
-                        System.out.println("Appointment Booked!");
-                    } else {
-                        System.out.println("Failed to Book Appointment!");
-                    }
-                } catch (SQLException e) {
-                    e.printStackTrace();
+            try (Connection connection = pool.getConnection()) {
+                // Checks and books in one statement, so a concurrent booking cannot take the same day
+                int appointmentId = SlotReservations.bookDay(connection, patientId, doctorId,
+                        LocalDate.parse(appointmentDate));
+                if (appointmentId > 0) {
+                    System.out.println("Appointment Booked!");
+                } else {
+                    System.out.println("Doctor not available on this date!!");
                 }
-            } else {
-                System.out.println("Doctor not available on this date!!");
+            } catch (DateTimeParseException e) {
+                System.out.println("Enter a valid date (YYYY-MM-DD)!!");
+            } catch (SQLException e) {
+                e.printStackTrace();
             }
         } else {
             System.out.println("Either doctor or patient doesn't exist!!!");
         }
     }
-
-    public static boolean checkDoctorAvailability(int doctorId, String appointmentDate, Connection connection) {
-        String query = "SELECT COUNT(*) FROM appointments WHERE doctor_id = ? AND appointment_date = ?";
-        try {
-            PreparedStatement preparedStatement = connection.prepareStatement(query);
-            preparedStatement.setInt(1, doctorId);
-            preparedStatement.setString(2, appointmentDate);
-            ResultSet resultSet = preparedStatement.executeQuery();
-            if (resultSet.next()) {
-                int count = resultSet.getInt(1);
-                if (count == 0) {
-                    return true;
-                } else {
-                    return false;
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return false;
-    }
 }
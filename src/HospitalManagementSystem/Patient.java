@@ -1,14 +1,19 @@
 package HospitalManagementSystem;
 
-import java.sql.*;
+import HospitalManagementSystem.core.PatientRecord;
+import HospitalManagementSystem.core.PatientRepository;
+import HospitalManagementSystem.db.ConnectionPool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.Scanner;
 
 public class Patient {
-    private Connection connection;
+    private ConnectionPool pool;
     private Scanner scanner;
 
-    public Patient(Connection connection, Scanner scanner){
-        this.connection = connection;
+    public Patient(ConnectionPool pool, Scanner scanner){
+        this.pool = pool;
         this.scanner = scanner;
     }
 
@@ -20,14 +25,9 @@ public class Patient {
         System.out.print("Enter Patient Gender: ");
         String gender = scanner.next();
 
-        try{
-            String query = "INSERT INTO patients(name, age, gender) VALUES(?, ?, ?)";
-            PreparedStatement preparedStatement = connection.prepareStatement(query);
-            preparedStatement.setString(1, name);
-            preparedStatement.setInt(2, age);
-            preparedStatement.setString(3, gender);
-            int affectedRows = preparedStatement.executeUpdate();
-            if(affectedRows>0){
+        try (Connection connection = pool.getConnection()) {
+            int patientId = PatientRepository.insert(connection, new PatientRecord(0, name, age, gender, null, null));
+            if(patientId>0){
                 System.out.println("Patient Added Successfully!!");
             }else{
                 System.out.println("Failed to add Patient!!");
@@ -39,22 +39,16 @@ public class Patient {
     }
 
     public void viewPatients(){
-        String query = "select * from patients";
-        try{
-            PreparedStatement preparedStatement = connection.prepareStatement(query);
-            ResultSet resultSet = preparedStatement.executeQuery();
+        try (Connection connection = pool.getConnection()) {
             System.out.println("Patients: ");
             System.out.println("+------------+--------------------+----------+------------+");
             System.out.println("| Patient Id | Name               | Age      | Gender     |");
             System.out.println("+------------+--------------------+----------+------------+");
-            while(resultSet.next()){
-                int id = resultSet.getInt("id");
-                String name = resultSet.getString("name");
-                int age = resultSet.getInt("age");
-                String gender = resultSet.getString("gender");
-                System.out.printf("| %-10s | %-18s | %-8s | %-10s |\n", id, name, age, gender);
+            PatientRepository.forEach(connection, patient -> {
+                System.out.printf("| %-10s | %-18s | %-8s | %-10s |\n",
+                        patient.getId(), patient.getName(), patient.getAge(), patient.getGender());
                 System.out.println("+------------+--------------------+----------+------------+");
-            }
+            });
 
         }catch (SQLException e){
             e.printStackTrace();
@@ -62,16 +56,8 @@ public class Patient {
     }
 
     public boolean getPatientById(int id){
-        String query = "SELECT * FROM patients WHERE id = ?";
-        try{
-            PreparedStatement preparedStatement = connection.prepareStatement(query);
-            preparedStatement.setInt(1, id);
-            ResultSet resultSet = preparedStatement.executeQuery();
-            if(resultSet.next()){
-                return true;
-            }else{
-                return false;
-            }
+        try (Connection connection = pool.getConnection()) {
+            return PatientRepository.exists(connection, id);
         }catch (SQLException e){
             e.printStackTrace();
         }
@@ -0,0 +1,67 @@
+package HospitalManagementSystem.core;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * A row of the appointments table with the names of its patient and doctor. The names are
+ * only read, so records built to be written leave them null.
+ */
+public class AppointmentRecord {
+    private final int id;
+    private final int patientId;
+    private final String patientName;
+    private final int doctorId;
+    private final String doctorName;
+    private final LocalDate date;
+    private final LocalTime time;
+    private final String status;
+
+    public AppointmentRecord(int id, int patientId, String patientName, int doctorId, String doctorName,
+            LocalDate date, LocalTime time, String status) {
+        this.id = id;
+        this.patientId = patientId;
+        this.patientName = patientName;
+        this.doctorId = doctorId;
+        this.doctorName = doctorName;
+        this.date = date;
+        this.time = time;
+        this.status = status;
+    }
+
+    public AppointmentRecord(int id, int patientId, int doctorId, LocalDate date, LocalTime time, String status) {
+        this(id, patientId, null, doctorId, null, date, time, status);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getPatientId() {
+        return patientId;
+    }
+
+    public String getPatientName() {
+        return patientName;
+    }
+
+    public int getDoctorId() {
+        return doctorId;
+    }
+
+    public String getDoctorName() {
+        return doctorName;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public LocalTime getTime() {
+        return time;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,74 @@
+package HospitalManagementSystem.core;
+
+import HospitalManagementSystem.db.Jdbc;
+import HospitalManagementSystem.db.KeysetQuery;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Reads, changes and deletes appointments. New appointments are booked through
+ * {@link HospitalManagementSystem.scheduling.SlotReservations}, which checks the doctor's slot
+ * in the same statement.
+ */
+public final class AppointmentRepository {
+    private static final String COLUMNS = "SELECT a.id, a.patient_id, p.name as patient_name, a.doctor_id, " +
+            "d.name as doctor_name, a.appointment_date, a.appointment_time, a.status";
+    private static final String FROM = "FROM appointments a " +
+            "JOIN patients p ON a.patient_id = p.id " +
+            "JOIN doctors d ON a.doctor_id = d.id";
+
+    /** All appointments, latest day first, one page at a time; rows map with {@link #map}. */
+    public static final KeysetQuery PAGES = new KeysetQuery(COLUMNS, FROM,
+            "a.appointment_date DESC", "a.appointment_time", "a.id");
+    /** Condition on {@link #PAGES} matching a lower-case LIKE pattern on patient, doctor and status. */
+    public static final String SEARCH = "LOWER(p.name) LIKE ? OR LOWER(d.name) LIKE ? OR LOWER(a.status) LIKE ?";
+
+    private AppointmentRepository() {
+    }
+
+    public static AppointmentRecord map(ResultSet rs) throws SQLException {
+        return new AppointmentRecord(rs.getInt("id"), rs.getInt("patient_id"), rs.getString("patient_name"),
+                rs.getInt("doctor_id"), rs.getString("doctor_name"),
+                rs.getObject("appointment_date", LocalDate.class), rs.getObject("appointment_time", LocalTime.class),
+                rs.getString("status"));
+    }
+
+    /** The appointment with {@code id}, or null if there is none. */
+    public static AppointmentRecord find(Connection connection, int id) throws SQLException {
+        return Jdbc.queryOne(connection, COLUMNS + " " + FROM + " WHERE a.id = ?", AppointmentRepository::map, id);
+    }
+
+    /** All appointments, latest day first. */
+    public static List<AppointmentRecord> findAll(Connection connection) throws SQLException {
+        return Jdbc.query(connection, COLUMNS + " " + FROM + " ORDER BY a.appointment_date DESC",
+                AppointmentRepository::map);
+    }
+
+    /** The appointments of {@code patientId}, latest day first. */
+    public static List<AppointmentRecord> findByPatient(Connection connection, int patientId) throws SQLException {
+        return Jdbc.query(connection, COLUMNS + " " + FROM + " WHERE a.patient_id = ? ORDER BY a.appointment_date DESC",
+                AppointmentRepository::map, patientId);
+    }
+
+    /**
+     * Stores {@code appointment} under its id; false if there is no such appointment. Moving it
+     * into a slot the doctor already has fails with an exception that
+     * {@link HospitalManagementSystem.scheduling.SlotReservations#isSlotTaken} recognizes.
+     */
+    public static boolean update(Connection connection, AppointmentRecord appointment) throws SQLException {
+        return Jdbc.update(connection, "UPDATE appointments SET patient_id=?, doctor_id=?, appointment_date=?, " +
+                "appointment_time=?, status=? WHERE id=?",
+                appointment.getPatientId(), appointment.getDoctorId(), appointment.getDate(), appointment.getTime(),
+                appointment.getStatus(), appointment.getId()) > 0;
+    }
+
+    /** Deletes the appointment; false if there is no such appointment. */
+    public static boolean delete(Connection connection, int id) throws SQLException {
+        return Jdbc.update(connection, "DELETE FROM appointments WHERE id=?", id) > 0;
+    }
+}
@@ -0,0 +1,118 @@
+package HospitalManagementSystem.core;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A row of the billing table with the name of its patient. The name and the creation time are
+ * filled in by the database, so records built to be written leave them null.
+ */
+public class BillRecord {
+    private final int id;
+    private final int patientId;
+    private final String patientName;
+    private final Integer appointmentId;
+    private final LocalDate billDate;
+    private final double consultationFee;
+    private final double medicineCharges;
+    private final double labCharges;
+    private final double otherCharges;
+    private final double totalAmount;
+    private final double paidAmount;
+    private final String paymentStatus;
+    private final String paymentMethod;
+    private final double insuranceClaimAmount;
+    private final String notes;
+    private final LocalDateTime createdAt;
+
+    public BillRecord(int id, int patientId, String patientName, Integer appointmentId, LocalDate billDate,
+            double consultationFee, double medicineCharges, double labCharges, double otherCharges,
+            double totalAmount, double paidAmount, String paymentStatus, String paymentMethod,
+            double insuranceClaimAmount, String notes, LocalDateTime createdAt) {
+        this.id = id;
+        this.patientId = patientId;
+        this.patientName = patientName;
+        this.appointmentId = appointmentId;
+        this.billDate = billDate;
+        this.consultationFee = consultationFee;
+        this.medicineCharges = medicineCharges;
+        this.labCharges = labCharges;
+        this.otherCharges = otherCharges;
+        this.totalAmount = totalAmount;
+        this.paidAmount = paidAmount;
+        this.paymentStatus = paymentStatus;
+        this.paymentMethod = paymentMethod;
+        this.insuranceClaimAmount = insuranceClaimAmount;
+        this.notes = notes;
+        this.createdAt = createdAt;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getPatientId() {
+        return patientId;
+    }
+
+    public String getPatientName() {
+        return patientName;
+    }
+
+    /** The appointment billed, or null for charges outside an appointment. */
+    public Integer getAppointmentId() {
+        return appointmentId;
+    }
+
+    public LocalDate getBillDate() {
+        return billDate;
+    }
+
+    public double getConsultationFee() {
+        return consultationFee;
+    }
+
+    public double getMedicineCharges() {
+        return medicineCharges;
+    }
+
+    public double getLabCharges() {
+        return labCharges;
+    }
+
+    public double getOtherCharges() {
+        return otherCharges;
+    }
+
+    public double getTotalAmount() {
+        return totalAmount;
+    }
+
+    public double getPaidAmount() {
+        return paidAmount;
+    }
+
+    public double getBalance() {
+        return totalAmount - paidAmount;
+    }
+
+    public String getPaymentStatus() {
+        return paymentStatus;
+    }
+
+    public String getPaymentMethod() {
+        return paymentMethod;
+    }
+
+    public double getInsuranceClaimAmount() {
+        return insuranceClaimAmount;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
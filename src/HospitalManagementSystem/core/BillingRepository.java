@@ -0,0 +1,68 @@
+package HospitalManagementSystem.core;
+
+import HospitalManagementSystem.db.Jdbc;
+import HospitalManagementSystem.db.KeysetQuery;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+/** Reads and writes bills and their payments. */
+public final class BillingRepository {
+    private static final String COLUMNS = "SELECT b.*, p.name as patient_name";
+    private static final String FROM = "FROM billing b JOIN patients p ON b.patient_id = p.id";
+
+    /** All bills, latest first, one page at a time; rows map with {@link #map}. */
+    public static final KeysetQuery PAGES = new KeysetQuery(COLUMNS, FROM, "b.bill_date DESC", "b.id");
+    /** Condition on {@link #PAGES}: bills of one patient id. */
+    public static final String BY_PATIENT = "b.patient_id = ?";
+    /** Condition on {@link #PAGES}: bills with one payment status. */
+    public static final String BY_PAYMENT_STATUS = "b.payment_status = ?";
+
+    private BillingRepository() {
+    }
+
+    public static BillRecord map(ResultSet rs) throws SQLException {
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        return new BillRecord(rs.getInt("id"), rs.getInt("patient_id"), rs.getString("patient_name"),
+                rs.getObject("appointment_id", Integer.class), rs.getObject("bill_date", LocalDate.class),
+                rs.getDouble("consultation_fee"), rs.getDouble("medicine_charges"), rs.getDouble("lab_charges"),
+                rs.getDouble("other_charges"), rs.getDouble("total_amount"), rs.getDouble("paid_amount"),
+                rs.getString("payment_status"), rs.getString("payment_method"),
+                rs.getDouble("insurance_claim_amount"), rs.getString("notes"),
+                createdAt == null ? null : createdAt.toLocalDateTime());
+    }
+
+    /** The bill with {@code id}, or null if there is none. */
+    public static BillRecord find(Connection connection, int id) throws SQLException {
+        return Jdbc.queryOne(connection, COLUMNS + " " + FROM + " WHERE b.id = ?", BillingRepository::map, id);
+    }
+
+    /** The consultation fee of the doctor of appointment {@code appointmentId}, or null if there is none. */
+    public static Double consultationFee(Connection connection, int appointmentId) throws SQLException {
+        return Jdbc.queryOne(connection, "SELECT d.consultation_fee FROM appointments a " +
+                "JOIN doctors d ON a.doctor_id = d.id WHERE a.id = ?",
+                rs -> rs.getDouble("consultation_fee"), appointmentId);
+    }
+
+    /** Inserts {@code bill}, ignoring its id, and returns the new id. */
+    public static int insert(Connection connection, BillRecord bill) throws SQLException {
+        return Jdbc.insert(connection, "INSERT INTO billing (patient_id, appointment_id, bill_date, " +
+                "consultation_fee, medicine_charges, lab_charges, other_charges, " +
+                "total_amount, paid_amount, payment_status, payment_method, " +
+                "insurance_claim_amount, notes) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                bill.getPatientId(), bill.getAppointmentId(), bill.getBillDate(), bill.getConsultationFee(),
+                bill.getMedicineCharges(), bill.getLabCharges(), bill.getOtherCharges(), bill.getTotalAmount(),
+                bill.getPaidAmount(), bill.getPaymentStatus(), bill.getPaymentMethod(),
+                bill.getInsuranceClaimAmount(), bill.getNotes());
+    }
+
+    /** Records a payment on bill {@code id}; false if there is no such bill. */
+    public static boolean updatePayment(Connection connection, int id, double paidAmount, String paymentMethod,
+            String paymentStatus) throws SQLException {
+        return Jdbc.update(connection, "UPDATE billing SET paid_amount = ?, payment_method = ?, payment_status = ? " +
+                "WHERE id = ?", paidAmount, paymentMethod, paymentStatus, id) > 0;
+    }
+}
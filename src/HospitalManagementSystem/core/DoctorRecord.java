@@ -0,0 +1,38 @@
+package HospitalManagementSystem.core;
+
+/** A row of the doctors table. New doctors have id 0 until they are inserted. */
+public class DoctorRecord {
+    private final int id;
+    private final String name;
+    private final String specialization;
+    private final String phone;
+    private final String email;
+
+    public DoctorRecord(int id, String name, String specialization, String phone, String email) {
+        this.id = id;
+        this.name = name;
+        this.specialization = specialization;
+        this.phone = phone;
+        this.email = email;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSpecialization() {
+        return specialization;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+}
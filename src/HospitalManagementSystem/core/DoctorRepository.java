@@ -0,0 +1,66 @@
+package HospitalManagementSystem.core;
+
+import HospitalManagementSystem.db.Jdbc;
+import HospitalManagementSystem.db.KeysetQuery;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/** Reads and writes doctors. */
+public final class DoctorRepository {
+    private static final String COLUMNS = "SELECT id, name, specialization, phone, email";
+
+    /** All doctors by id, one page at a time; rows map with {@link #map}. */
+    public static final KeysetQuery PAGES = new KeysetQuery(COLUMNS, "FROM doctors", "id");
+    /** Condition on {@link #PAGES} matching a lower-case LIKE pattern on name, specialization and phone. */
+    public static final String SEARCH = "LOWER(name) LIKE ? OR LOWER(specialization) LIKE ? OR LOWER(phone) LIKE ?";
+
+    private DoctorRepository() {
+    }
+
+    public static DoctorRecord map(ResultSet rs) throws SQLException {
+        return new DoctorRecord(rs.getInt("id"), rs.getString("name"), rs.getString("specialization"),
+                rs.getString("phone"), rs.getString("email"));
+    }
+
+    /** The doctor with {@code id}, or null if there is none. */
+    public static DoctorRecord find(Connection connection, int id) throws SQLException {
+        return Jdbc.queryOne(connection, COLUMNS + " FROM doctors WHERE id = ?", DoctorRepository::map, id);
+    }
+
+    public static boolean exists(Connection connection, int id) throws SQLException {
+        return Jdbc.queryOne(connection, "SELECT 1 FROM doctors WHERE id = ?", rs -> true, id) != null;
+    }
+
+    /** Passes every doctor to {@code action} in id order without collecting them. */
+    public static void forEach(Connection connection, Consumer<DoctorRecord> action) throws SQLException {
+        Jdbc.forEach(connection, COLUMNS + " FROM doctors ORDER BY id", rs -> action.accept(map(rs)));
+    }
+
+    /** The distinct specializations of all doctors, in order. */
+    public static List<String> specializations(Connection connection) throws SQLException {
+        return Jdbc.query(connection, "SELECT DISTINCT specialization FROM doctors WHERE specialization IS NOT NULL " +
+                "ORDER BY specialization", rs -> rs.getString("specialization"));
+    }
+
+    /** Inserts {@code doctor}, ignoring its id, and returns the new id. */
+    public static int insert(Connection connection, DoctorRecord doctor) throws SQLException {
+        return Jdbc.insert(connection, "INSERT INTO doctors (name, specialization, phone, email) VALUES (?, ?, ?, ?)",
+                doctor.getName(), doctor.getSpecialization(), doctor.getPhone(), doctor.getEmail());
+    }
+
+    /** Stores {@code doctor} under its id; false if there is no such doctor. */
+    public static boolean update(Connection connection, DoctorRecord doctor) throws SQLException {
+        return Jdbc.update(connection, "UPDATE doctors SET name=?, specialization=?, phone=?, email=? WHERE id=?",
+                doctor.getName(), doctor.getSpecialization(), doctor.getPhone(), doctor.getEmail(),
+                doctor.getId()) > 0;
+    }
+
+    /** Deletes the doctor with their appointments, prescriptions and lab tests; false if there is no such doctor. */
+    public static boolean delete(Connection connection, int id) throws SQLException {
+        return Jdbc.update(connection, "DELETE FROM doctors WHERE id=?", id) > 0;
+    }
+}
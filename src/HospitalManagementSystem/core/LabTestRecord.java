@@ -0,0 +1,101 @@
+package HospitalManagementSystem.core;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A row of the lab_tests table with the names of its patient and doctor. The names and the
+ * creation time are filled in by the database, so records built to be written leave them null.
+ */
+public class LabTestRecord {
+    private final int id;
+    private final int patientId;
+    private final String patientName;
+    private final int doctorId;
+    private final String doctorName;
+    private final String testName;
+    private final String testType;
+    private final LocalDate testDate;
+    private final String resultValue;
+    private final String normalRange;
+    private final String status;
+    private final String reportFilePath;
+    private final String notes;
+    private final LocalDateTime createdAt;
+
+    public LabTestRecord(int id, int patientId, String patientName, int doctorId, String doctorName, String testName,
+            String testType, LocalDate testDate, String resultValue, String normalRange, String status,
+            String reportFilePath, String notes, LocalDateTime createdAt) {
+        this.id = id;
+        this.patientId = patientId;
+        this.patientName = patientName;
+        this.doctorId = doctorId;
+        this.doctorName = doctorName;
+        this.testName = testName;
+        this.testType = testType;
+        this.testDate = testDate;
+        this.resultValue = resultValue;
+        this.normalRange = normalRange;
+        this.status = status;
+        this.reportFilePath = reportFilePath;
+        this.notes = notes;
+        this.createdAt = createdAt;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getPatientId() {
+        return patientId;
+    }
+
+    public String getPatientName() {
+        return patientName;
+    }
+
+    public int getDoctorId() {
+        return doctorId;
+    }
+
+    public String getDoctorName() {
+        return doctorName;
+    }
+
+    public String getTestName() {
+        return testName;
+    }
+
+    public String getTestType() {
+        return testType;
+    }
+
+    public LocalDate getTestDate() {
+        return testDate;
+    }
+
+    /** Null until a result is entered. */
+    public String getResultValue() {
+        return resultValue;
+    }
+
+    public String getNormalRange() {
+        return normalRange;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getReportFilePath() {
+        return reportFilePath;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
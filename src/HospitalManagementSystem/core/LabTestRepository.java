@@ -0,0 +1,82 @@
+package HospitalManagementSystem.core;
+
+import HospitalManagementSystem.db.Jdbc;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/** Reads and writes lab tests. */
+public final class LabTestRepository {
+    private static final String SELECT = "SELECT lt.*, p.name as patient_name, d.name as doctor_name " +
+            "FROM lab_tests lt " +
+            "JOIN patients p ON lt.patient_id = p.id " +
+            "JOIN doctors d ON lt.doctor_id = d.id";
+    private static final String ORDER = " ORDER BY lt.test_date DESC, lt.id DESC";
+
+    /** Condition for {@link #forEach} and {@link #find}: tests of one patient id. */
+    public static final String BY_PATIENT = "lt.patient_id = ?";
+    /** Condition for {@link #forEach} and {@link #find}: tests with one status. */
+    public static final String BY_STATUS = "lt.status = ?";
+
+    private LabTestRepository() {
+    }
+
+    public static LabTestRecord map(ResultSet rs) throws SQLException {
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        return new LabTestRecord(rs.getInt("id"), rs.getInt("patient_id"), rs.getString("patient_name"),
+                rs.getInt("doctor_id"), rs.getString("doctor_name"), rs.getString("test_name"),
+                rs.getString("test_type"), rs.getObject("test_date", LocalDate.class), rs.getString("result_value"),
+                rs.getString("normal_range"), rs.getString("status"), rs.getString("report_file_path"),
+                rs.getString("notes"), createdAt == null ? null : createdAt.toLocalDateTime());
+    }
+
+    /**
+     * Passes the tests matching {@code where} (null for all) to {@code action}, latest test date
+     * first, without collecting them.
+     */
+    public static void forEach(Connection connection, String where, Object[] params, Consumer<LabTestRecord> action)
+            throws SQLException {
+        Jdbc.forEach(connection, SELECT + (where == null ? "" : " WHERE " + where) + ORDER,
+                rs -> action.accept(map(rs)), params);
+    }
+
+    /** The test with {@code id}, or null if there is none or it does not match {@code where}. */
+    public static LabTestRecord find(Connection connection, int id, String where, Object[] params)
+            throws SQLException {
+        List<Object> allParams = new ArrayList<>();
+        allParams.add(id);
+        if (params != null) {
+            Collections.addAll(allParams, params);
+        }
+        return Jdbc.queryOne(connection, SELECT + " WHERE lt.id = ?" + (where == null ? "" : " AND " + where),
+                LabTestRepository::map, allParams.toArray());
+    }
+
+    public static LabTestRecord find(Connection connection, int id) throws SQLException {
+        return find(connection, id, null, null);
+    }
+
+    /** Inserts {@code test}, ignoring its id, and returns the new id. */
+    public static int insert(Connection connection, LabTestRecord test) throws SQLException {
+        return Jdbc.insert(connection, "INSERT INTO lab_tests (patient_id, doctor_id, test_name, test_type, " +
+                "test_date, result_value, normal_range, status, report_file_path, notes) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                test.getPatientId(), test.getDoctorId(), test.getTestName(), test.getTestType(), test.getTestDate(),
+                test.getResultValue(), test.getNormalRange(), test.getStatus(), test.getReportFilePath(),
+                test.getNotes());
+    }
+
+    /** Records the result of test {@code id}; false if there is no such test. */
+    public static boolean updateResult(Connection connection, int id, String resultValue, String status)
+            throws SQLException {
+        return Jdbc.update(connection, "UPDATE lab_tests SET result_value = ?, status = ? WHERE id = ?",
+                resultValue, status, id) > 0;
+    }
+}
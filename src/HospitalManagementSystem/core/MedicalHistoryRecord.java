@@ -0,0 +1,96 @@
+package HospitalManagementSystem.core;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A row of the medical_history table, one visit, with the names of its patient and doctor. The
+ * names and the creation time are filled in by the database, so records built to be written
+ * leave them null.
+ */
+public class MedicalHistoryRecord {
+    private final int id;
+    private final int patientId;
+    private final String patientName;
+    private final int doctorId;
+    private final String doctorName;
+    private final LocalDate visitDate;
+    private final String diagnosis;
+    private final String treatment;
+    private final String symptoms;
+    private final String vitalSigns;
+    private final String conditionStatus;
+    private final String notes;
+    private final LocalDateTime createdAt;
+
+    public MedicalHistoryRecord(int id, int patientId, String patientName, int doctorId, String doctorName,
+            LocalDate visitDate, String diagnosis, String treatment, String symptoms, String vitalSigns,
+            String conditionStatus, String notes, LocalDateTime createdAt) {
+        this.id = id;
+        this.patientId = patientId;
+        this.patientName = patientName;
+        this.doctorId = doctorId;
+        this.doctorName = doctorName;
+        this.visitDate = visitDate;
+        this.diagnosis = diagnosis;
+        this.treatment = treatment;
+        this.symptoms = symptoms;
+        this.vitalSigns = vitalSigns;
+        this.conditionStatus = conditionStatus;
+        this.notes = notes;
+        this.createdAt = createdAt;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getPatientId() {
+        return patientId;
+    }
+
+    public String getPatientName() {
+        return patientName;
+    }
+
+    public int getDoctorId() {
+        return doctorId;
+    }
+
+    public String getDoctorName() {
+        return doctorName;
+    }
+
+    public LocalDate getVisitDate() {
+        return visitDate;
+    }
+
+    public String getDiagnosis() {
+        return diagnosis;
+    }
+
+    public String getTreatment() {
+        return treatment;
+    }
+
+    public String getSymptoms() {
+        return symptoms;
+    }
+
+    /** A JSON object of the measured vital signs, or null if none were taken. */
+    public String getVitalSigns() {
+        return vitalSigns;
+    }
+
+    public String getConditionStatus() {
+        return conditionStatus;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
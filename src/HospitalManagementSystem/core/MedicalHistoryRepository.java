@@ -0,0 +1,57 @@
+package HospitalManagementSystem.core;
+
+import HospitalManagementSystem.db.Jdbc;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+/** Reads and writes the visits of the medical history. */
+public final class MedicalHistoryRepository {
+    private static final String SELECT = "SELECT mh.*, p.name as patient_name, d.name as doctor_name " +
+            "FROM medical_history mh " +
+            "JOIN patients p ON mh.patient_id = p.id " +
+            "JOIN doctors d ON mh.doctor_id = d.id";
+
+    /** Condition for {@link #forEach}: visits of one patient id. */
+    public static final String BY_PATIENT = "mh.patient_id = ?";
+
+    private MedicalHistoryRepository() {
+    }
+
+    public static MedicalHistoryRecord map(ResultSet rs) throws SQLException {
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        return new MedicalHistoryRecord(rs.getInt("id"), rs.getInt("patient_id"), rs.getString("patient_name"),
+                rs.getInt("doctor_id"), rs.getString("doctor_name"), rs.getObject("visit_date", LocalDate.class),
+                rs.getString("diagnosis"), rs.getString("treatment"), rs.getString("symptoms"),
+                rs.getString("vital_signs"), rs.getString("condition_status"), rs.getString("notes"),
+                createdAt == null ? null : createdAt.toLocalDateTime());
+    }
+
+    /**
+     * Passes the visits matching {@code where} (null for all) to {@code action}, latest first,
+     * without collecting them.
+     */
+    public static void forEach(Connection connection, String where, Object[] params,
+            Consumer<MedicalHistoryRecord> action) throws SQLException {
+        Jdbc.forEach(connection, SELECT + (where == null ? "" : " WHERE " + where) + " ORDER BY mh.visit_date DESC",
+                rs -> action.accept(map(rs)), params);
+    }
+
+    /** The visit with {@code id}, or null if there is none. */
+    public static MedicalHistoryRecord find(Connection connection, int id) throws SQLException {
+        return Jdbc.queryOne(connection, SELECT + " WHERE mh.id = ?", MedicalHistoryRepository::map, id);
+    }
+
+    /** Inserts {@code visit}, ignoring its id, and returns the new id. */
+    public static int insert(Connection connection, MedicalHistoryRecord visit) throws SQLException {
+        return Jdbc.insert(connection, "INSERT INTO medical_history (patient_id, doctor_id, visit_date, diagnosis, " +
+                "treatment, symptoms, vital_signs, condition_status, notes) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                visit.getPatientId(), visit.getDoctorId(), visit.getVisitDate(), visit.getDiagnosis(),
+                visit.getTreatment(), visit.getSymptoms(), visit.getVitalSigns(), visit.getConditionStatus(),
+                visit.getNotes());
+    }
+}
@@ -0,0 +1,44 @@
+package HospitalManagementSystem.core;
+
+/** A row of the patients table. New patients have id 0 until they are inserted. */
+public class PatientRecord {
+    private final int id;
+    private final String name;
+    private final int age;
+    private final String gender;
+    private final String phone;
+    private final String address;
+
+    public PatientRecord(int id, String name, int age, String gender, String phone, String address) {
+        this.id = id;
+        this.name = name;
+        this.age = age;
+        this.gender = gender;
+        this.phone = phone;
+        this.address = address;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public String getGender() {
+        return gender;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+}
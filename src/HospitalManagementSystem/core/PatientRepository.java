@@ -0,0 +1,59 @@
+package HospitalManagementSystem.core;
+
+import HospitalManagementSystem.db.Jdbc;
+import HospitalManagementSystem.db.KeysetQuery;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.Consumer;
+
+/** Reads and writes patients. */
+public final class PatientRepository {
+    private static final String COLUMNS = "SELECT id, name, age, gender, phone, address";
+
+    /** All patients by id, one page at a time; rows map with {@link #map}. */
+    public static final KeysetQuery PAGES = new KeysetQuery(COLUMNS, "FROM patients", "id");
+    /** Condition on {@link #PAGES} matching a lower-case LIKE pattern on name, phone and address. */
+    public static final String SEARCH = "LOWER(name) LIKE ? OR LOWER(phone) LIKE ? OR LOWER(address) LIKE ?";
+
+    private PatientRepository() {
+    }
+
+    public static PatientRecord map(ResultSet rs) throws SQLException {
+        return new PatientRecord(rs.getInt("id"), rs.getString("name"), rs.getInt("age"), rs.getString("gender"),
+                rs.getString("phone"), rs.getString("address"));
+    }
+
+    /** The patient with {@code id}, or null if there is none. */
+    public static PatientRecord find(Connection connection, int id) throws SQLException {
+        return Jdbc.queryOne(connection, COLUMNS + " FROM patients WHERE id = ?", PatientRepository::map, id);
+    }
+
+    public static boolean exists(Connection connection, int id) throws SQLException {
+        return Jdbc.queryOne(connection, "SELECT 1 FROM patients WHERE id = ?", rs -> true, id) != null;
+    }
+
+    /** Passes every patient to {@code action} in id order without collecting them. */
+    public static void forEach(Connection connection, Consumer<PatientRecord> action) throws SQLException {
+        Jdbc.forEach(connection, COLUMNS + " FROM patients ORDER BY id", rs -> action.accept(map(rs)));
+    }
+
+    /** Inserts {@code patient}, ignoring its id, and returns the new id. */
+    public static int insert(Connection connection, PatientRecord patient) throws SQLException {
+        return Jdbc.insert(connection, "INSERT INTO patients (name, age, gender, phone, address) VALUES (?, ?, ?, ?, ?)",
+                patient.getName(), patient.getAge(), patient.getGender(), patient.getPhone(), patient.getAddress());
+    }
+
+    /** Stores {@code patient} under its id; false if there is no such patient. */
+    public static boolean update(Connection connection, PatientRecord patient) throws SQLException {
+        return Jdbc.update(connection, "UPDATE patients SET name=?, age=?, gender=?, phone=?, address=? WHERE id=?",
+                patient.getName(), patient.getAge(), patient.getGender(), patient.getPhone(), patient.getAddress(),
+                patient.getId()) > 0;
+    }
+
+    /** Deletes the patient with everything recorded for them; false if there is no such patient. */
+    public static boolean delete(Connection connection, int id) throws SQLException {
+        return Jdbc.update(connection, "DELETE FROM patients WHERE id=?", id) > 0;
+    }
+}
@@ -0,0 +1,51 @@
+package HospitalManagementSystem.core;
+
+/** A row of the prescription_medicines table: one medicine of a prescription. */
+public class PrescribedMedicine {
+    private final int id;
+    private final String medicineName;
+    private final String dosage;
+    private final String frequency;
+    private final String duration;
+    private final String instructions;
+    private final int quantity;
+
+    public PrescribedMedicine(int id, String medicineName, String dosage, String frequency, String duration,
+            String instructions, int quantity) {
+        this.id = id;
+        this.medicineName = medicineName;
+        this.dosage = dosage;
+        this.frequency = frequency;
+        this.duration = duration;
+        this.instructions = instructions;
+        this.quantity = quantity;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getMedicineName() {
+        return medicineName;
+    }
+
+    public String getDosage() {
+        return dosage;
+    }
+
+    public String getFrequency() {
+        return frequency;
+    }
+
+    public String getDuration() {
+        return duration;
+    }
+
+    public String getInstructions() {
+        return instructions;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+}
@@ -0,0 +1,90 @@
+package HospitalManagementSystem.core;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * A row of the prescriptions table with the names of its patient and doctor. The names and the
+ * time are filled in by the database, so records built to be written leave them null.
+ */
+public class PrescriptionRecord {
+    private final int id;
+    private final Integer appointmentId;
+    private final int patientId;
+    private final String patientName;
+    private final int doctorId;
+    private final String doctorName;
+    private final LocalDate date;
+    private final LocalTime time;
+    private final String chiefComplaint;
+    private final String diagnosis;
+    private final String notes;
+    private final LocalDate nextVisitDate;
+
+    public PrescriptionRecord(int id, Integer appointmentId, int patientId, String patientName, int doctorId,
+            String doctorName, LocalDate date, LocalTime time, String chiefComplaint, String diagnosis, String notes,
+            LocalDate nextVisitDate) {
+        this.id = id;
+        this.appointmentId = appointmentId;
+        this.patientId = patientId;
+        this.patientName = patientName;
+        this.doctorId = doctorId;
+        this.doctorName = doctorName;
+        this.date = date;
+        this.time = time;
+        this.chiefComplaint = chiefComplaint;
+        this.diagnosis = diagnosis;
+        this.notes = notes;
+        this.nextVisitDate = nextVisitDate;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /** The appointment the prescription was written in, or null. */
+    public Integer getAppointmentId() {
+        return appointmentId;
+    }
+
+    public int getPatientId() {
+        return patientId;
+    }
+
+    public String getPatientName() {
+        return patientName;
+    }
+
+    public int getDoctorId() {
+        return doctorId;
+    }
+
+    public String getDoctorName() {
+        return doctorName;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public LocalTime getTime() {
+        return time;
+    }
+
+    public String getChiefComplaint() {
+        return chiefComplaint;
+    }
+
+    public String getDiagnosis() {
+        return diagnosis;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+
+    /** Null if no follow-up visit was set. */
+    public LocalDate getNextVisitDate() {
+        return nextVisitDate;
+    }
+}
@@ -0,0 +1,91 @@
+package HospitalManagementSystem.core;
+
+import HospitalManagementSystem.db.Jdbc;
+import HospitalManagementSystem.db.KeysetQuery;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Reads and writes prescriptions together with their medicines. */
+public final class PrescriptionRepository {
+    private static final String COLUMNS = "SELECT p.id, p.appointment_id, p.patient_id, pt.name as patient_name, " +
+            "p.doctor_id, d.name as doctor_name, p.prescription_date, p.prescription_time, p.chief_complaint, " +
+            "p.diagnosis, p.notes, p.next_visit_date";
+    private static final String FROM = "FROM prescriptions p " +
+            "JOIN patients pt ON p.patient_id = pt.id " +
+            "JOIN doctors d ON p.doctor_id = d.id";
+
+    /** All prescriptions, latest first, one page at a time; rows map with {@link #map}. */
+    public static final KeysetQuery PAGES = new KeysetQuery(COLUMNS, FROM, "p.prescription_date DESC", "p.id");
+
+    private PrescriptionRepository() {
+    }
+
+    public static PrescriptionRecord map(ResultSet rs) throws SQLException {
+        return new PrescriptionRecord(rs.getInt("id"), rs.getObject("appointment_id", Integer.class),
+                rs.getInt("patient_id"), rs.getString("patient_name"), rs.getInt("doctor_id"),
+                rs.getString("doctor_name"), rs.getObject("prescription_date", LocalDate.class),
+                rs.getObject("prescription_time", LocalTime.class), rs.getString("chief_complaint"),
+                rs.getString("diagnosis"), rs.getString("notes"), rs.getObject("next_visit_date", LocalDate.class));
+    }
+
+    /** The prescription with {@code id}, or null if there is none. */
+    public static PrescriptionRecord find(Connection connection, int id) throws SQLException {
+        return Jdbc.queryOne(connection, COLUMNS + " " + FROM + " WHERE p.id = ?", PrescriptionRepository::map, id);
+    }
+
+    /** The medicines of prescription {@code prescriptionId}, in the order they were prescribed. */
+    public static List<PrescribedMedicine> medicines(Connection connection, int prescriptionId) throws SQLException {
+        return Jdbc.query(connection, "SELECT id, medicine_name, dosage, frequency, duration, instructions, quantity " +
+                "FROM prescription_medicines WHERE prescription_id = ? ORDER BY id",
+                rs -> new PrescribedMedicine(rs.getInt("id"), rs.getString("medicine_name"), rs.getString("dosage"),
+                        rs.getString("frequency"), rs.getString("duration"), rs.getString("instructions"),
+                        rs.getInt("quantity")),
+                prescriptionId);
+    }
+
+    /**
+     * Inserts {@code prescription} and its {@code medicines}, ignoring their ids, and returns the
+     * new prescription id. Both are written in one transaction, which is committed here unless
+     * the caller already has one open.
+     */
+    public static int insert(Connection connection, PrescriptionRecord prescription, List<PrescribedMedicine> medicines)
+            throws SQLException {
+        boolean ownTransaction = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            int id = Jdbc.insert(connection, "INSERT INTO prescriptions (appointment_id, patient_id, doctor_id, " +
+                    "prescription_date, chief_complaint, diagnosis, notes, next_visit_date) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                    prescription.getAppointmentId(), prescription.getPatientId(), prescription.getDoctorId(),
+                    prescription.getDate(), prescription.getChiefComplaint(), prescription.getDiagnosis(),
+                    prescription.getNotes(), prescription.getNextVisitDate());
+
+            List<Object[]> rows = new ArrayList<>();
+            for (PrescribedMedicine medicine : medicines) {
+                rows.add(new Object[] { id, medicine.getMedicineName(), medicine.getDosage(), medicine.getFrequency(),
+                        medicine.getDuration(), medicine.getInstructions(), medicine.getQuantity() });
+            }
+            Jdbc.batch(connection, "INSERT INTO prescription_medicines (prescription_id, medicine_name, " +
+                    "dosage, frequency, duration, instructions, quantity) VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+            if (ownTransaction) {
+                connection.commit();
+            }
+            return id;
+        } catch (SQLException | RuntimeException e) {
+            if (ownTransaction) {
+                connection.rollback();
+            }
+            throw e;
+        } finally {
+            if (ownTransaction) {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,482 @@
+package HospitalManagementSystem.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded JDBC connection pool shared by the GUI windows and the console app.
+ *
+ * Connections handed out by {@link #getConnection()} are lightweight handles;
+ * calling {@code close()} on them returns the physical connection to the pool.
+ *
+ * Each physical connection also keeps up to {@code statementCacheSize} prepared statements,
+ * keyed by SQL text. Closing a statement from {@code prepareStatement(String)} puts it back in
+ * that cache, so the next caller preparing the same SQL on the connection reuses it.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private final String url;
+    private final String username;
+    private final String password;
+
+    private final int maxSize;
+    private final int minIdle;
+    private final long borrowTimeoutMillis;
+    private final long validationIntervalMillis;
+    private final long idleTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final int statementCacheSize;
+    private volatile String initSql;
+
+    // Most recently returned connections sit at the head, so the tail holds the longest idle ones
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> leased = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    // Metrics
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong destroyedCount = new AtomicLong();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong validationFailureCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final AtomicLong statementCount = new AtomicLong();
+    private final AtomicLong statementLeakCount = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private long reportedStatementLeaks; // housekeeper thread only
+
+    public ConnectionPool(String url, String username, String password) {
+        this(url, username, password, 10, 2, 30_000, 5_000, 300_000, 60_000, 50);
+    }
+
+    public ConnectionPool(String url, String username, String password, int maxSize, int minIdle,
+            long borrowTimeoutMillis, long validationIntervalMillis, long idleTimeoutMillis,
+            long leakThresholdMillis, int statementCacheSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.minIdle = Math.min(minIdle, maxSize);
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.validationIntervalMillis = validationIntervalMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "hms-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1_000, Math.min(idleTimeoutMillis, 30_000));
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * SQL run once on every new physical connection, such as setting session variables. Set it
+     * before the first connection is borrowed.
+     */
+    public void setInitSql(String initSql) {
+        this.initSql = initSql;
+    }
+
+    /**
+     * Borrows a connection, waiting up to the configured timeout if the pool is exhausted.
+     * The caller must close the returned connection (try-with-resources) to give it back.
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new SQLException("Timed out after " + borrowTimeoutMillis
+                        + "ms waiting for a database connection (" + getStats() + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                if (isUsable(pooled)) {
+                    break;
+                }
+                validationFailureCount.incrementAndGet();
+                destroy(pooled);
+            }
+            if (pooled == null) {
+                pooled = create();
+            }
+
+            pooled.borrowedAt = System.currentTimeMillis();
+            pooled.borrowSite = leakThresholdMillis > 0 ? new Throwable("Connection borrowed here") : null;
+            pooled.leakReported = false;
+            leased.add(pooled);
+
+            borrowCount.incrementAndGet();
+            totalWaitNanos.addAndGet(System.nanoTime() - start);
+            return pooled.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public PoolStats getStats() {
+        long borrows = borrowCount.get();
+        int openStatements = 0;
+        for (PooledConnection pooled : leased) {
+            openStatements += pooled.countOpenStatements();
+        }
+        return new PoolStats(maxSize, leased.size(), idle.size(), permits.getQueueLength(),
+                createdCount.get(), destroyedCount.get(), borrows, timeoutCount.get(),
+                validationFailureCount.get(), evictionCount.get(), leakCount.get(),
+                borrows > 0 ? totalWaitNanos.get() / borrows / 1_000_000.0 : 0.0,
+                statementCount.get(), openStatements, statementLeakCount.get(),
+                statementCacheHits.get(), statementCacheMisses.get());
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        housekeeper.shutdownNow();
+
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+        // Leased connections are closed when their handles are returned
+    }
+
+    private PooledConnection create() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, username, password);
+        if (initSql != null) {
+            try (Statement statement = physical.createStatement()) {
+                statement.execute(initSql);
+            } catch (SQLException e) {
+                physical.close();
+                throw e;
+            }
+        }
+        createdCount.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        try {
+            if (pooled.physical.isClosed()) {
+                return false;
+            }
+            // Skip the round trip for connections that were in use a moment ago
+            if (System.currentTimeMillis() - pooled.lastUsedAt < validationIntervalMillis) {
+                return true;
+            }
+            return pooled.physical.isValid(5);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(PooledConnection pooled) {
+        leased.remove(pooled);
+        closeStatements(pooled);
+        pooled.borrowSite = null;
+        pooled.lastUsedAt = System.currentTimeMillis();
+
+        if (!closed && resetState(pooled)) {
+            idle.offerFirst(pooled);
+        } else {
+            destroy(pooled);
+        }
+        permits.release();
+    }
+
+    // Statements left open would otherwise keep their cursors on the physical connection for good
+    private void closeStatements(PooledConnection pooled) {
+        for (Statement statement : pooled.takeStatements()) {
+            try {
+                if (!statement.isClosed()) {
+                    statementLeakCount.incrementAndGet();
+                    statement.close();
+                }
+            } catch (SQLException e) {
+                // Connection is broken; resetState() will discard it
+            }
+        }
+    }
+
+    private boolean resetState(PooledConnection pooled) {
+        try {
+            if (pooled.physical.isClosed()) {
+                return false;
+            }
+            if (!pooled.physical.getAutoCommit()) {
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void destroy(PooledConnection pooled) {
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            // Already broken, nothing else to do
+        }
+        destroyedCount.incrementAndGet();
+    }
+
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+
+        // Evict connections that have been idle too long, oldest first, keeping minIdle warm
+        Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+        while (oldestFirst.hasNext() && idle.size() > minIdle) {
+            PooledConnection pooled = oldestFirst.next();
+            if (now - pooled.lastUsedAt > idleTimeoutMillis && idle.remove(pooled)) {
+                evictionCount.incrementAndGet();
+                destroy(pooled);
+            }
+        }
+
+        long statementLeaks = statementLeakCount.get();
+        if (statementLeaks > reportedStatementLeaks) {
+            System.err.println("Statement leak: " + (statementLeaks - reportedStatementLeaks)
+                    + " statement(s) were still open when their connection was returned (" + getStats() + ")");
+            reportedStatementLeaks = statementLeaks;
+        }
+
+        if (leakThresholdMillis > 0) {
+            for (PooledConnection pooled : leased) {
+                Throwable site = pooled.borrowSite;
+                if (!pooled.leakReported && site != null && now - pooled.borrowedAt > leakThresholdMillis) {
+                    pooled.leakReported = true;
+                    leakCount.incrementAndGet();
+                    System.err.println("Possible connection leak: connection held for "
+                            + (now - pooled.borrowedAt) + "ms");
+                    site.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private final class PooledConnection {
+        private final Connection physical;
+        private volatile long lastUsedAt = System.currentTimeMillis();
+        private volatile long borrowedAt;
+        private volatile Throwable borrowSite;
+        private volatile boolean leakReported;
+        // Statements created during the current borrow
+        private final List<Statement> statements = new ArrayList<>();
+        // Prepared statements not in use, by SQL, least recently used first
+        private final LinkedHashMap<String, PreparedStatement> statementCache = new LinkedHashMap<>(16, 0.75f, true);
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        synchronized void track(Statement statement) {
+            statements.add(statement);
+            statementCount.incrementAndGet();
+        }
+
+        synchronized int countOpenStatements() {
+            statements.removeIf(statement -> {
+                try {
+                    return statement.isClosed();
+                } catch (SQLException e) {
+                    return true;
+                }
+            });
+            return statements.size();
+        }
+
+        synchronized List<Statement> takeStatements() {
+            List<Statement> taken = new ArrayList<>(statements);
+            statements.clear();
+            return taken;
+        }
+
+        synchronized PreparedStatement prepareCached(String sql, Connection handle) throws SQLException {
+            PreparedStatement statement = statementCache.remove(sql);
+            if (statement != null && !statement.isClosed()) {
+                statementCacheHits.incrementAndGet();
+            } else {
+                statementCacheMisses.incrementAndGet();
+                statement = physical.prepareStatement(sql);
+            }
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class }, new CachedStatement(this, sql, statement, handle));
+        }
+
+        synchronized void returnToCache(String sql, PreparedStatement statement) {
+            try {
+                if (physical.isClosed()) {
+                    return;
+                }
+                statement.clearParameters();
+                PreparedStatement displaced = statementCache.put(sql, statement);
+                if (displaced != null) {
+                    displaced.close();
+                }
+                if (statementCache.size() > statementCacheSize) {
+                    Iterator<PreparedStatement> eldest = statementCache.values().iterator();
+                    PreparedStatement evicted = eldest.next();
+                    eldest.remove();
+                    evicted.close();
+                }
+            } catch (SQLException e) {
+                // Statement or connection is broken; leave it out of the cache
+                statementCache.remove(sql, statement);
+            }
+        }
+
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, new Handle(this));
+        }
+    }
+
+    // One handle per borrow, so a stale reference cannot touch a connection that was handed to someone else
+    private final class Handle implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean returned;
+
+        Handle(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    synchronized (this) {
+                        if (!returned) {
+                            returned = true;
+                            release(pooled);
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + (returned ? ", returned" : "") + "]";
+                default:
+                    break;
+            }
+
+            if (returned) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            if (statementCacheSize > 0 && method.getName().equals("prepareStatement") && args.length == 1) {
+                PreparedStatement statement = pooled.prepareCached((String) args[0], (Connection) proxy);
+                pooled.track(statement);
+                return statement;
+            }
+            Object result;
+            try {
+                result = method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Statement) {
+                pooled.track((Statement) result);
+            }
+            return result;
+        }
+    }
+
+    // A prepared statement from the connection's cache; close() hands it back instead of closing it
+    private static final class CachedStatement implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final String sql;
+        private final PreparedStatement physical;
+        private final Connection handle;
+        private volatile boolean closed;
+
+        CachedStatement(PooledConnection pooled, String sql, PreparedStatement physical, Connection handle) {
+            this.pooled = pooled;
+            this.sql = sql;
+            this.physical = physical;
+            this.handle = handle;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    synchronized (this) {
+                        if (!closed) {
+                            closed = true;
+                            pooled.returnToCache(sql, physical);
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || physical.isClosed();
+                case "getConnection":
+                    return handle;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + sql + (closed ? ", closed" : "") + "]";
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Statement is closed");
+            }
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package HospitalManagementSystem.db;
+
+import java.sql.SQLException;
+import java.util.UUID;
+
+/**
+ * Holds the database settings and the application-wide {@link ConnectionPool}.
+ * Settings can be overridden with -Dhms.db.url, -Dhms.db.user, -Dhms.db.password,
+ * -Dhms.db.poolSize and -Dhms.db.statementCacheSize (prepared statements kept per
+ * connection, 0 to disable).
+ *
+ * Server-side prepared statements are enabled on the URL unless it already sets
+ * useServerPrepStmts, so a cached statement is parsed by the server only once.
+ * Batched inserts are rewritten into multi-row INSERTs unless the URL sets
+ * rewriteBatchedStatements.
+ *
+ * Every connection sets the session variable {@code @hms_client} to {@link #getClientId()}, which
+ * the change_log triggers record so this process can tell its own writes from other clients'.
+ */
+public final class Database {
+    private static final String url = System.getProperty("hms.db.url", "jdbc:mysql://localhost:3306/hospital");
+    private static final String username = System.getProperty("hms.db.user", "root");
+    private static final String password = System.getProperty("hms.db.password", "");
+    private static final int poolSize = Integer.getInteger("hms.db.poolSize", 10);
+    private static final int statementCacheSize = Integer.getInteger("hms.db.statementCacheSize", 50);
+    private static final String clientId = UUID.randomUUID().toString();
+
+    private static ConnectionPool pool;
+
+    private Database() {
+    }
+
+    public static synchronized ConnectionPool getPool() throws SQLException {
+        if (pool == null) {
+            try {
+                Class.forName("com.mysql.cj.jdbc.Driver");
+            } catch (ClassNotFoundException e) {
+                throw new SQLException("MySQL JDBC driver not found on the classpath", e);
+            }
+            pool = new ConnectionPool(withBatchRewrites(withServerPrepares(url)), username, password, poolSize, 2,
+                    30_000, 5_000, 300_000, 60_000, statementCacheSize);
+            pool.setInitSql("SET @hms_client = '" + clientId + "'");
+            Runtime.getRuntime().addShutdownHook(new Thread(pool::close, "hms-pool-shutdown"));
+        }
+        return pool;
+    }
+
+    /** Identifies this process in change_log. */
+    public static String getClientId() {
+        return clientId;
+    }
+
+    private static String withBatchRewrites(String url) {
+        if (url.contains("rewriteBatchedStatements")) {
+            return url;
+        }
+        return url + (url.contains("?") ? "&" : "?") + "rewriteBatchedStatements=true";
+    }
+
+    /** Statements are cached by the pool (hms.db.statementCacheSize), so the driver's own cache stays off. */
+    private static String withServerPrepares(String url) {
+        if (url.contains("useServerPrepStmts")) {
+            return url;
+        }
+        return url + (url.contains("?") ? "&" : "?") + "useServerPrepStmts=true";
+    }
+}
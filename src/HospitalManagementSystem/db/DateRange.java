@@ -0,0 +1,111 @@
+package HospitalManagementSystem.db;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+/**
+ * A half-open range of days, {@code from <= day < until}, turned into a parameterized
+ * condition on one column. The column is compared as is, never wrapped in a function, so an
+ * index on it can be used for the range.
+ *
+ * DATETIME and TIMESTAMP columns work too: the bounds are midnight of {@code from} and
+ * {@code until}, so the whole last day is included.
+ */
+public final class DateRange {
+    private static final DateRange ALL = new DateRange(null, null);
+
+    private final LocalDate from;
+    private final LocalDate until;
+
+    private DateRange(LocalDate from, LocalDate until) {
+        this.from = from;
+        this.until = until;
+    }
+
+    /** No restriction. */
+    public static DateRange all() {
+        return ALL;
+    }
+
+    /** {@code first} to {@code last}, both days included. */
+    public static DateRange between(LocalDate first, LocalDate last) {
+        return new DateRange(first, last.plusDays(1));
+    }
+
+    /** The {@code days} days before today, and today. */
+    public static DateRange lastDays(int days) {
+        LocalDate today = LocalDate.now();
+        return new DateRange(today.minusDays(days), today.plusDays(1));
+    }
+
+    /** The {@code months} months before today, and today. */
+    public static DateRange lastMonths(int months) {
+        LocalDate today = LocalDate.now();
+        return new DateRange(today.minusMonths(months), today.plusDays(1));
+    }
+
+    public static DateRange thisMonth() {
+        LocalDate first = LocalDate.now().withDayOfMonth(1);
+        return new DateRange(first, first.plusMonths(1));
+    }
+
+    public static DateRange thisYear() {
+        LocalDate first = LocalDate.now().withDayOfYear(1);
+        return new DateRange(first, first.plusYears(1));
+    }
+
+    /**
+     * The range for a report period label: "Last 7 Days", "Last 30 Days", "Last 3 Months",
+     * "Last 6 Months" or "Last Year". Anything else, such as "All Time", is unrestricted.
+     */
+    public static DateRange forPeriod(String period) {
+        switch (period) {
+            case "Last 7 Days":
+                return lastDays(7);
+            case "Last 30 Days":
+                return lastDays(30);
+            case "Last 3 Months":
+                return lastMonths(3);
+            case "Last 6 Months":
+                return lastMonths(6);
+            case "Last Year":
+                return lastMonths(12);
+            default:
+                return ALL;
+        }
+    }
+
+    /** First day in the range, or null if it is unrestricted. */
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    /** First day after the range, or null if it is unrestricted. */
+    public LocalDate getUntil() {
+        return until;
+    }
+
+    /**
+     * Condition restricting {@code column} to the range, with one {@code ?} per bound in
+     * {@link #params()} order; {@code 1 = 1} when the range is unrestricted.
+     */
+    public String condition(String column) {
+        if (this == ALL) {
+            return "1 = 1";
+        }
+        return column + " >= ? AND " + column + " < ?";
+    }
+
+    /** Values for the placeholders of {@link #condition(String)}. */
+    public Object[] params() {
+        if (this == ALL) {
+            return new Object[0];
+        }
+        return new Object[] { Date.valueOf(from), Date.valueOf(until) };
+    }
+
+    @Override
+    public String toString() {
+        return this == ALL ? "all" : from + ".." + until;
+    }
+}
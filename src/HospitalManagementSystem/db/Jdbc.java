@@ -0,0 +1,141 @@
+package HospitalManagementSystem.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Query helpers that always close their statement and result set, so callers only deal
+ * with SQL, parameters and row mapping.
+ */
+public final class Jdbc {
+    private Jdbc() {
+    }
+
+    /** Receives each row of a result set in turn. */
+    public interface RowCallback {
+        void row(ResultSet rs) throws SQLException;
+    }
+
+    /** All rows of {@code sql}, mapped with {@code mapper}. */
+    public static <T> List<T> query(Connection connection, String sql, RowMapper<T> mapper, Object... params)
+            throws SQLException {
+        List<T> rows = new ArrayList<>();
+        forEach(connection, sql, rs -> rows.add(mapper.map(rs)), params);
+        return rows;
+    }
+
+    /** The first row of {@code sql}, mapped with {@code mapper}, or null if there is none. */
+    public static <T> T queryOne(Connection connection, String sql, RowMapper<T> mapper, Object... params)
+            throws SQLException {
+        try (PreparedStatement stmt = prepare(connection, sql, params);
+                ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? mapper.map(rs) : null;
+        }
+    }
+
+    /** Passes every row of {@code sql} to {@code callback} without collecting them. */
+    public static void forEach(Connection connection, String sql, RowCallback callback, Object... params)
+            throws SQLException {
+        try (PreparedStatement stmt = prepare(connection, sql, params);
+                ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                callback.row(rs);
+            }
+        }
+    }
+
+    /**
+     * Like {@link #forEach} but streams rows from the server one at a time on a forward-only,
+     * read-only result set, so memory stays flat however many rows there are. No other query can
+     * run on {@code connection} until it returns.
+     */
+    public static void stream(Connection connection, String sql, RowCallback callback, Object... params)
+            throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(Integer.MIN_VALUE); // Connector/J: stream instead of buffering the result
+            bind(stmt, params);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    callback.row(rs);
+                }
+            }
+        }
+    }
+
+    /** Runs an INSERT, UPDATE or DELETE and returns the number of affected rows. */
+    public static int update(Connection connection, String sql, Object... params) throws SQLException {
+        try (PreparedStatement stmt = prepare(connection, sql, params)) {
+            return stmt.executeUpdate();
+        }
+    }
+
+    /** Runs an INSERT and returns the generated key, or -1 if no row was inserted. */
+    public static int insert(Connection connection, String sql, Object... params) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            bind(stmt, params);
+            if (stmt.executeUpdate() == 0) {
+                return -1;
+            }
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                return keys.next() ? keys.getInt(1) : -1;
+            }
+        }
+    }
+
+    /** Runs {@code sql} once per parameter row in a single JDBC batch. */
+    public static void batch(Connection connection, String sql, List<Object[]> rows) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (Object[] params : rows) {
+                bind(stmt, params);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Runs an INSERT once per parameter row in a single JDBC batch and returns the generated keys
+     * in row order.
+     */
+    public static int[] batchInsert(Connection connection, String sql, List<Object[]> rows) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            for (Object[] params : rows) {
+                bind(stmt, params);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            int[] ids = new int[rows.size()];
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                for (int i = 0; i < ids.length && keys.next(); i++) {
+                    ids[i] = keys.getInt(1);
+                }
+            }
+            return ids;
+        }
+    }
+
+    private static PreparedStatement prepare(Connection connection, String sql, Object[] params) throws SQLException {
+        PreparedStatement stmt = connection.prepareStatement(sql);
+        try {
+            bind(stmt, params);
+        } catch (SQLException e) {
+            stmt.close();
+            throw e;
+        }
+        return stmt;
+    }
+
+    private static void bind(PreparedStatement stmt, Object[] params) throws SQLException {
+        if (params != null) {
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+        }
+    }
+}
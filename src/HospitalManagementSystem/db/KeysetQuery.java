@@ -0,0 +1,241 @@
+package HospitalManagementSystem.db;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A query read one page at a time with keyset pagination: each page starts at the sort key
+ * of its first row ({@code WHERE key >= ?}) instead of an {@code OFFSET}, so any page costs
+ * the same no matter how deep into the result it is.
+ *
+ * The last sort column must be unique (normally the id) so every row has a distinct key.
+ */
+public class KeysetQuery {
+    private final String select;
+    private final String from;
+    private final String[] sortColumns;
+    private final boolean[] descending;
+    private final String orderBy;
+
+    /**
+     * @param select  select list, e.g. {@code "SELECT *"}
+     * @param from    from clause including joins, without a WHERE
+     * @param orderBy sort columns, each optionally followed by {@code DESC}
+     */
+    public KeysetQuery(String select, String from, String... orderBy) {
+        this.select = select;
+        this.from = from;
+        this.sortColumns = new String[orderBy.length];
+        this.descending = new boolean[orderBy.length];
+        for (int i = 0; i < orderBy.length; i++) {
+            String column = orderBy[i].trim();
+            descending[i] = column.toUpperCase().endsWith(" DESC");
+            sortColumns[i] = descending[i] ? column.substring(0, column.length() - 5).trim() : column;
+        }
+        this.orderBy = String.join(", ", orderBy);
+    }
+
+    /** Row count and first sort key of every page of the filtered result. */
+    public static class Directory {
+        private final int rowCount;
+        private final List<Object[]> pageKeys;
+
+        Directory(int rowCount, List<Object[]> pageKeys) {
+            this.rowCount = rowCount;
+            this.pageKeys = pageKeys;
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        public int getPageCount() {
+            return pageKeys.size();
+        }
+
+        public Object[] getPageKey(int page) {
+            return pageKeys.get(page);
+        }
+    }
+
+    /**
+     * Reads the page directory in one pass over the sort keys. Only one key per page is kept,
+     * so the directory stays small however many rows match.
+     */
+    public Directory directory(Connection connection, String where, Object[] params, int pageSize)
+            throws SQLException {
+        StringBuilder keys = new StringBuilder();
+        StringBuilder outer = new StringBuilder();
+        for (int i = 0; i < sortColumns.length; i++) {
+            keys.append(sortColumns[i]).append(" AS k").append(i).append(", ");
+            outer.append("k").append(i).append(", ");
+        }
+        String sql = "SELECT " + outer + "total_rows FROM (" +
+                "SELECT " + keys + "ROW_NUMBER() OVER (ORDER BY " + orderBy + ") AS rn, COUNT(*) OVER () AS total_rows " +
+                from + whereClause(where) + ") t " +
+                "WHERE MOD(rn - 1, ?) = 0 ORDER BY rn";
+
+        List<Object> allParams = new ArrayList<>();
+        addAll(allParams, params);
+        allParams.add(pageSize);
+
+        int[] rowCount = new int[1];
+        List<Object[]> pageKeys = new ArrayList<>();
+        Jdbc.forEach(connection, sql, rs -> {
+            Object[] key = new Object[sortColumns.length];
+            for (int i = 0; i < key.length; i++) {
+                key[i] = rs.getObject(i + 1);
+            }
+            pageKeys.add(key);
+            rowCount[0] = rs.getInt("total_rows");
+        }, allParams.toArray());
+        return new Directory(rowCount[0], pageKeys);
+    }
+
+    /** A row together with its sort key. */
+    public static class Keyed<T> {
+        private final T row;
+        private final Object[] key;
+
+        Keyed(T row, Object[] key) {
+            this.row = row;
+            this.key = key;
+        }
+
+        public T getRow() {
+            return row;
+        }
+
+        public Object[] getKey() {
+            return key;
+        }
+    }
+
+    /** Fetches page {@code page} of the directory's result. */
+    public <T> List<T> page(Connection connection, String where, Object[] params, Directory directory, int page,
+            int pageSize, RowMapper<T> mapper) throws SQLException {
+        return page(connection, where, params, directory.getPageKey(page), pageSize, mapper);
+    }
+
+    /** Fetches up to {@code limit} rows, starting at the row with sort key {@code pageKey}. */
+    public <T> List<T> page(Connection connection, String where, Object[] params, Object[] pageKey, int limit,
+            RowMapper<T> mapper) throws SQLException {
+        List<Object> allParams = new ArrayList<>();
+        addAll(allParams, params);
+        String seek = atOrAfter(0, pageKey, allParams);
+        allParams.add(limit);
+
+        String sql = select + " " + from + whereClause(where) + (where == null ? " WHERE " : " AND ") + seek +
+                " ORDER BY " + orderBy + " LIMIT ?";
+        return Jdbc.query(connection, sql, mapper, allParams.toArray());
+    }
+
+    /** Fetches the rows whose unique (last) sort column is one of {@code ids}, in no particular order. */
+    public <T> List<T> byIds(Connection connection, int[] ids, RowMapper<T> mapper) throws SQLException {
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        String placeholders = String.join(",", Collections.nCopies(ids.length, "?"));
+        String sql = select + " " + from + " WHERE " + sortColumns[sortColumns.length - 1] + " IN (" + placeholders + ")";
+        Object[] params = new Object[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            params[i] = ids[i];
+        }
+        return Jdbc.query(connection, sql, mapper, params);
+    }
+
+    /**
+     * Fetches the row whose unique (last) sort column is {@code id} together with its sort key,
+     * or null if there is no such row or it does not match {@code where}.
+     */
+    public <T> Keyed<T> find(Connection connection, String where, Object[] params, int id, RowMapper<T> mapper)
+            throws SQLException {
+        StringBuilder keys = new StringBuilder();
+        for (int i = 0; i < sortColumns.length; i++) {
+            keys.append(", ").append(sortColumns[i]).append(" AS keyset_k").append(i);
+        }
+        String sql = select + keys + " " + from + whereClause(where) + (where == null ? " WHERE " : " AND ") +
+                sortColumns[sortColumns.length - 1] + " = ?";
+        List<Object> allParams = new ArrayList<>();
+        addAll(allParams, params);
+        allParams.add(id);
+        return Jdbc.queryOne(connection, sql, rs -> {
+            Object[] key = new Object[sortColumns.length];
+            for (int i = 0; i < key.length; i++) {
+                key[i] = rs.getObject("keyset_k" + i);
+            }
+            return new Keyed<>(mapper.map(rs), key);
+        }, allParams.toArray());
+    }
+
+    /**
+     * Compares two sort keys in the order of the query. Strings compare ignoring case, like the
+     * default MySQL collations.
+     */
+    public int compare(Object[] a, Object[] b) {
+        for (int i = 0; i < sortColumns.length; i++) {
+            int result = compareValues(a[i], b[i]);
+            if (result != 0) {
+                return descending[i] ? -result : result;
+            }
+        }
+        return 0;
+    }
+
+    // NULLs sort first ascending and so last descending, as in MySQL
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static int compareValues(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == b ? 0 : a == null ? -1 : 1;
+        }
+        if (a instanceof String && b instanceof String) {
+            return String.CASE_INSENSITIVE_ORDER.compare((String) a, (String) b);
+        }
+        if (a instanceof Number && b instanceof Number) {
+            return new BigDecimal(a.toString()).compareTo(new BigDecimal(b.toString()));
+        }
+        return ((Comparable) a).compareTo(b);
+    }
+
+    // Rows sorting at or after key, column by column; MySQL sorts NULLs first ascending and last descending
+    private String atOrAfter(int i, Object[] key, List<Object> params) {
+        String column = sortColumns[i];
+        Object value = key[i];
+        String equal = value == null ? column + " IS NULL" : column + " = ?";
+
+        if (i == sortColumns.length - 1) {
+            if (value == null) {
+                return equal;
+            }
+            params.add(value);
+            return "(" + column + (descending[i] ? " <= ?" : " >= ?") + (descending[i] ? " OR " + column + " IS NULL)" : ")");
+        }
+
+        String after;
+        if (value == null) {
+            after = descending[i] ? null : column + " IS NOT NULL";
+        } else {
+            params.add(value);
+            after = descending[i] ? "(" + column + " < ? OR " + column + " IS NULL)" : column + " > ?";
+        }
+        if (value != null) {
+            params.add(value);
+        }
+        String rest = equal + " AND " + atOrAfter(i + 1, key, params);
+        return after == null ? "(" + rest + ")" : "(" + after + " OR (" + rest + "))";
+    }
+
+    private static String whereClause(String where) {
+        return where == null ? "" : " WHERE (" + where + ")";
+    }
+
+    private static void addAll(List<Object> list, Object[] params) {
+        if (params != null) {
+            Collections.addAll(list, params);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package HospitalManagementSystem.db;
+
+/**
+ * Point-in-time snapshot of {@link ConnectionPool} metrics.
+ */
+public class PoolStats {
+    private final int maxSize;
+    private final int active;
+    private final int idle;
+    private final int waiting;
+    private final long created;
+    private final long destroyed;
+    private final long borrows;
+    private final long timeouts;
+    private final long validationFailures;
+    private final long evictions;
+    private final long leaks;
+    private final double averageWaitMillis;
+    private final long statements;
+    private final int openStatements;
+    private final long statementLeaks;
+    private final long statementCacheHits;
+    private final long statementCacheMisses;
+
+    public PoolStats(int maxSize, int active, int idle, int waiting, long created, long destroyed,
+            long borrows, long timeouts, long validationFailures, long evictions, long leaks,
+            double averageWaitMillis, long statements, int openStatements, long statementLeaks,
+            long statementCacheHits, long statementCacheMisses) {
+        this.maxSize = maxSize;
+        this.active = active;
+        this.idle = idle;
+        this.waiting = waiting;
+        this.created = created;
+        this.destroyed = destroyed;
+        this.borrows = borrows;
+        this.timeouts = timeouts;
+        this.validationFailures = validationFailures;
+        this.evictions = evictions;
+        this.leaks = leaks;
+        this.averageWaitMillis = averageWaitMillis;
+        this.statements = statements;
+        this.openStatements = openStatements;
+        this.statementLeaks = statementLeaks;
+        this.statementCacheHits = statementCacheHits;
+        this.statementCacheMisses = statementCacheMisses;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public int getWaiting() {
+        return waiting;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public long getDestroyed() {
+        return destroyed;
+    }
+
+    public long getBorrows() {
+        return borrows;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    public long getValidationFailures() {
+        return validationFailures;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getLeaks() {
+        return leaks;
+    }
+
+    public double getAverageWaitMillis() {
+        return averageWaitMillis;
+    }
+
+    /** Statements created on pooled connections since the pool started. */
+    public long getStatements() {
+        return statements;
+    }
+
+    /** Statements currently open on borrowed connections. */
+    public int getOpenStatements() {
+        return openStatements;
+    }
+
+    /** Statements still open when their connection was returned, which the pool then closed. */
+    public long getStatementLeaks() {
+        return statementLeaks;
+    }
+
+    /** {@code prepareStatement} calls served from a connection's statement cache. */
+    public long getStatementCacheHits() {
+        return statementCacheHits;
+    }
+
+    /** {@code prepareStatement} calls that had to prepare a new statement. */
+    public long getStatementCacheMisses() {
+        return statementCacheMisses;
+    }
+
+    /** Share of {@code prepareStatement} calls served from the cache, 0 to 1; 0 before the first call. */
+    public double getStatementCacheHitRate() {
+        long calls = statementCacheHits + statementCacheMisses;
+        return calls == 0 ? 0 : (double) statementCacheHits / calls;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("active=%d, idle=%d, max=%d, waiting=%d, created=%d, destroyed=%d, borrows=%d, "
+                + "timeouts=%d, validationFailures=%d, evictions=%d, leaks=%d, avgWait=%.2fms, "
+                + "statements=%d, openStatements=%d, statementLeaks=%d, statementCacheHits=%d, "
+                + "statementCacheMisses=%d",
+                active, idle, maxSize, waiting, created, destroyed, borrows, timeouts,
+                validationFailures, evictions, leaks, averageWaitMillis, statements, openStatements,
+                statementLeaks, statementCacheHits, statementCacheMisses);
+    }
+}
@@ -0,0 +1,11 @@
+package HospitalManagementSystem.db;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a {@link ResultSet} to an object.
+ */
+public interface RowMapper<T> {
+    T map(ResultSet rs) throws SQLException;
+}
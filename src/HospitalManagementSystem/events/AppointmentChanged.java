@@ -0,0 +1,8 @@
+package HospitalManagementSystem.events;
+
+/** An appointment was booked (added), rescheduled or had its status changed (updated), or was cancelled (deleted). */
+public class AppointmentChanged extends EntityChanged {
+    public AppointmentChanged(int id, Change change) {
+        super(id, change);
+    }
+}
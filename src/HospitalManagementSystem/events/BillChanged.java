@@ -0,0 +1,8 @@
+package HospitalManagementSystem.events;
+
+/** A bill was added, or a payment was recorded on it (updated). */
+public class BillChanged extends EntityChanged {
+    public BillChanged(int id, Change change) {
+        super(id, change);
+    }
+}
@@ -0,0 +1,227 @@
+package HospitalManagementSystem.events;
+
+import HospitalManagementSystem.db.ConnectionPool;
+import HospitalManagementSystem.db.Jdbc;
+import HospitalManagementSystem.events.EntityChanged.Change;
+import HospitalManagementSystem.scheduling.DoctorCalendar;
+import HospitalManagementSystem.search.SearchIndexes;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the writes of other clients on the {@link EventBus}, so every desk's open windows and
+ * caches follow the changes made at the other desks as they follow their own.
+ *
+ * The change_log table kept by change_log.sql is polled every -Dhms.changes.pollMillis (default
+ * 2000, 0 to turn polling off) for the rows after the highest id seen so far, which is one index
+ * range read when nothing changed. Rows written by this process were published when they were
+ * written and are skipped. When one poll finds more than -Dhms.changes.maxRows (default 200)
+ * changes to a table, or the client fell so far behind that the log was purged past the last id
+ * it saw, one bulk event per table is published instead so windows reload once. The search
+ * index entries of changed patients and doctors are read again here, and the doctor calendar
+ * days of changed appointments dropped, since the log only holds ids.
+ *
+ * Log ids are taken when a row is inserted but become visible when its transaction commits, so
+ * a smaller id can appear after a larger one. Ids missing below the highest seen are asked for
+ * again for a minute before they are taken to be rolled back writes.
+ */
+public class ChangeLogPoller {
+    private static final long POLL_MILLIS = Long.getLong("hms.changes.pollMillis", 2000);
+    private static final int MAX_ROWS = Integer.getInteger("hms.changes.maxRows", 200);
+    private static final int BATCH_SIZE = 1000;
+    private static final long GAP_RETRY_MILLIS = 60_000;
+    private static final int MAX_GAPS = 100;
+    // change_log.sql keeps a day of changes, so only a client that stopped polling for a while can miss some
+    private static final long PURGE_CHECK_MILLIS = 60 * 60 * 1000;
+    private static final int NO_SUCH_TABLE = 1146;
+
+    private static final String[] TABLES = { "patients", "doctors", "appointments", "prescriptions", "lab_tests",
+            "billing" };
+
+    private final ConnectionPool pool;
+    private final EventBus bus;
+    private final String clientId;
+
+    // Poller thread only
+    private long watermark = -1;
+    private final Map<Long, Long> gaps = new TreeMap<>(); // missing id -> when it was first missed
+    private long polledAt;
+    private boolean failing;
+
+    private ScheduledExecutorService executor;
+
+    public ChangeLogPoller(ConnectionPool pool, EventBus bus, String clientId) {
+        this.pool = pool;
+        this.bus = bus;
+        this.clientId = clientId;
+    }
+
+    /** Starts polling in the background, unless polling is turned off. */
+    public synchronized void start() {
+        if (POLL_MILLIS <= 0 || executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "hms-change-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::pollOnce, 0, POLL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private void pollOnce() {
+        try (Connection connection = pool.getConnection()) {
+            poll(connection);
+            failing = false;
+        } catch (SQLException e) {
+            if (e.getErrorCode() == NO_SUCH_TABLE) {
+                System.err.println("No change_log table (run change_log.sql); changes made by other clients "
+                        + "show after a refresh");
+                stop();
+            } else if (!failing) {
+                failing = true; // reported once until polling works again
+                System.err.println("Change log polling failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reads the changes logged since the last call and publishes them. The first call only notes
+     * where the log ends, since everything shown so far was read after that.
+     */
+    public void poll(Connection connection) throws SQLException {
+        if (watermark < 0) {
+            watermark = lastId(connection);
+            return;
+        }
+
+        List<Object> params = new ArrayList<>();
+        params.add(watermark);
+        params.addAll(gaps.keySet());
+        params.add(BATCH_SIZE);
+        String sql = "SELECT id, table_name, row_id, change_type, client_id FROM change_log WHERE id > ?"
+                + (gaps.isEmpty() ? "" : " OR id IN (" + String.join(",", Collections.nCopies(gaps.size(), "?")) + ")")
+                + " ORDER BY id LIMIT ?";
+        List<Object[]> rows = Jdbc.query(connection, sql, rs -> new Object[] { rs.getLong("id"),
+                rs.getString("table_name"), rs.getInt("row_id"), rs.getString("change_type"),
+                rs.getString("client_id") }, params.toArray());
+
+        long now = System.currentTimeMillis();
+        boolean idle = now - polledAt > PURGE_CHECK_MILLIS;
+        polledAt = now;
+        if (rows.size() == BATCH_SIZE || (idle && watermark > 0 && purgedPast(connection, watermark))) {
+            // Too far behind to replay: everything is read again
+            watermark = lastId(connection);
+            gaps.clear();
+            SearchIndexes.refreshAll(connection);
+            DoctorCalendar.shared().invalidate();
+            for (String table : TABLES) {
+                bus.publish(event(table, EntityChanged.MANY_ROWS, Change.UPDATED));
+            }
+            return;
+        }
+
+        // Last change per row, for each table, in log order
+        Map<String, Map<Integer, Change>> changes = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            long id = (Long) row[0];
+            if (gaps.remove(id) == null) {
+                for (long missing = watermark + 1; missing < id && gaps.size() < MAX_GAPS; missing++) {
+                    gaps.put(missing, now);
+                }
+                watermark = id;
+            }
+            if (!clientId.equals(row[4])) {
+                Map<Integer, Change> ofTable = changes.computeIfAbsent((String) row[1], t -> new LinkedHashMap<>());
+                merge(ofTable, (Integer) row[2], Change.valueOf((String) row[3]));
+            }
+        }
+        for (Iterator<Long> missedAt = gaps.values().iterator(); missedAt.hasNext();) {
+            if (now - missedAt.next() > GAP_RETRY_MILLIS) {
+                missedAt.remove();
+            }
+        }
+
+        for (Map.Entry<String, Map<Integer, Change>> ofTable : changes.entrySet()) {
+            String table = ofTable.getKey();
+            Map<Integer, Change> changed = ofTable.getValue();
+            int[] ids = changed.keySet().stream().mapToInt(Integer::intValue).toArray();
+            if (table.equals("patients")) {
+                SearchIndexes.refreshPatients(connection, ids);
+            } else if (table.equals("doctors")) {
+                SearchIndexes.refreshDoctors(connection, ids);
+            } else if (table.equals("appointments")) {
+                DoctorCalendar.shared().forgetAppointments(connection, ids);
+            }
+
+            if (event(table, EntityChanged.MANY_ROWS, Change.UPDATED) == null) {
+                continue;
+            }
+            if (changed.size() > MAX_ROWS) {
+                bus.publish(event(table, EntityChanged.MANY_ROWS, Change.UPDATED));
+                continue;
+            }
+            for (Map.Entry<Integer, Change> change : changed.entrySet()) {
+                bus.publish(event(table, change.getKey(), change.getValue()));
+            }
+        }
+    }
+
+    // A row added and changed again is still new to this client; one added and deleted was never seen
+    private static void merge(Map<Integer, Change> changed, int rowId, Change change) {
+        Change earlier = changed.remove(rowId);
+        if (earlier == Change.ADDED && change == Change.DELETED) {
+            return;
+        }
+        changed.put(rowId, earlier == Change.ADDED ? Change.ADDED : change);
+    }
+
+    private static long lastId(Connection connection) throws SQLException {
+        return Jdbc.queryOne(connection, "SELECT COALESCE(MAX(id), 0) AS last_id FROM change_log",
+                rs -> rs.getLong("last_id"));
+    }
+
+    // The purge removes the oldest rows first, so if the last row seen is gone, rows after it may be too
+    private static boolean purgedPast(Connection connection, long id) throws SQLException {
+        return Jdbc.queryOne(connection, "SELECT COUNT(*) AS kept FROM change_log WHERE id = ?",
+                rs -> rs.getInt("kept"), id) == 0;
+    }
+
+    // Null for tables no window shows
+    private static EntityChanged event(String table, int id, Change change) {
+        switch (table) {
+            case "patients":
+                return new PatientChanged(id, change);
+            case "doctors":
+                return new DoctorChanged(id, change);
+            case "appointments":
+                return new AppointmentChanged(id, change);
+            case "prescriptions":
+                return new PrescriptionChanged(id, change);
+            case "lab_tests":
+                return new LabTestChanged(id, change);
+            case "billing":
+                return new BillChanged(id, change);
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package HospitalManagementSystem.events;
+
+/** A doctor was added, updated or deleted. */
+public class DoctorChanged extends EntityChanged {
+    public DoctorChanged(int id, Change change) {
+        super(id, change);
+    }
+}
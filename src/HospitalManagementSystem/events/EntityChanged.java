@@ -0,0 +1,41 @@
+package HospitalManagementSystem.events;
+
+/**
+ * A row of one of the application's tables was added, updated or deleted by this application.
+ * Published on the {@link EventBus} after the write has been committed.
+ */
+public abstract class EntityChanged {
+    /** Id of events that stand for many rows changed at once, such as an import. */
+    public static final int MANY_ROWS = 0;
+
+    public enum Change {
+        ADDED, UPDATED, DELETED
+    }
+
+    private final int id;
+    private final Change change;
+
+    protected EntityChanged(int id, Change change) {
+        this.id = id;
+        this.change = change;
+    }
+
+    /** Id of the changed row, or {@link #MANY_ROWS}. */
+    public int getId() {
+        return id;
+    }
+
+    public Change getChange() {
+        return change;
+    }
+
+    /** True if many rows changed, so listeners should reload rather than patch one row. */
+    public boolean isBulk() {
+        return id == MANY_ROWS;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(" + change + " " + (isBulk() ? "many" : String.valueOf(id)) + ")";
+    }
+}
@@ -0,0 +1,80 @@
+package HospitalManagementSystem.events;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process publish/subscribe for the changes this application makes, so that every open window
+ * and cache patches itself after a write made anywhere in the application.
+ *
+ * A listener receives the events of the type it subscribed to and of its subtypes, so subscribing
+ * to {@link EntityChanged} receives every change. Listeners run on the EDT, in the order they
+ * subscribed; events published on other threads are handed over to the EDT.
+ */
+public class EventBus {
+    private static final EventBus shared = new EventBus();
+
+    /** Stops a listener from receiving further events. */
+    public interface Subscription {
+        void unsubscribe();
+    }
+
+    private final Map<Class<?>, List<Consumer<Object>>> listeners = new ConcurrentHashMap<>();
+
+    /** The bus shared by all windows of the application. */
+    public static EventBus shared() {
+        return shared;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <E> Subscription subscribe(Class<E> type, Consumer<? super E> listener) {
+        Consumer<Object> untyped = event -> listener.accept((E) event);
+        List<Consumer<Object>> ofType = listeners.computeIfAbsent(type, t -> new CopyOnWriteArrayList<>());
+        ofType.add(untyped);
+        return () -> ofType.remove(untyped);
+    }
+
+    /** Same as above, and unsubscribes when {@code owner} is closed. */
+    public <E> Subscription subscribe(Window owner, Class<E> type, Consumer<? super E> listener) {
+        Subscription subscription = subscribe(type, listener);
+        owner.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                subscription.unsubscribe();
+            }
+        });
+        return subscription;
+    }
+
+    public void publish(Object event) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            deliver(event);
+        } else {
+            SwingUtilities.invokeLater(() -> deliver(event));
+        }
+    }
+
+    private void deliver(Object event) {
+        for (Class<?> type = event.getClass(); type != null; type = type.getSuperclass()) {
+            List<Consumer<Object>> ofType = listeners.get(type);
+            if (ofType == null) {
+                continue;
+            }
+            for (Consumer<Object> listener : ofType) {
+                try {
+                    listener.accept(event);
+                } catch (RuntimeException e) {
+                    // One failing window must not keep the others from updating
+                    System.err.println("Error handling " + event + ": " + e);
+                }
+            }
+        }
+    }
+}
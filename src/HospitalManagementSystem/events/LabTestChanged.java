@@ -0,0 +1,8 @@
+package HospitalManagementSystem.events;
+
+/** A lab test was ordered (added) or had its result recorded (updated). */
+public class LabTestChanged extends EntityChanged {
+    public LabTestChanged(int id, Change change) {
+        super(id, change);
+    }
+}
@@ -0,0 +1,8 @@
+package HospitalManagementSystem.events;
+
+/** A patient was added, updated or deleted. Bulk events are published after an import. */
+public class PatientChanged extends EntityChanged {
+    public PatientChanged(int id, Change change) {
+        super(id, change);
+    }
+}
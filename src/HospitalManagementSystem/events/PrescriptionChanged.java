@@ -0,0 +1,8 @@
+package HospitalManagementSystem.events;
+
+/** A prescription was written (added). */
+public class PrescriptionChanged extends EntityChanged {
+    public PrescriptionChanged(int id, Change change) {
+        super(id, change);
+    }
+}
@@ -0,0 +1,97 @@
+package HospitalManagementSystem.export;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes CSV records as described in RFC 4180: fields holding a comma, quote or line break are
+ * quoted with inner quotes doubled, and records end with CRLF. Output is buffered and written as
+ * UTF-8, gzip-compressed when the file name ends in {@code .gz}.
+ */
+public class CsvWriter implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Writer out;
+    private long records;
+
+    public CsvWriter(Writer out) {
+        this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out, BUFFER_SIZE);
+    }
+
+    /** Opens {@code file} for writing, replacing any existing content. */
+    public static CsvWriter open(Path file) throws IOException {
+        OutputStream stream = Files.newOutputStream(file);
+        try {
+            if (file.getFileName().toString().toLowerCase().endsWith(".gz")) {
+                stream = new GZIPOutputStream(stream, BUFFER_SIZE);
+            }
+        } catch (IOException e) {
+            stream.close();
+            throw e;
+        }
+        return new CsvWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+    }
+
+    /** Writes one record; null values become empty fields. */
+    public void write(Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            if (values[i] != null) {
+                writeField(values[i].toString());
+            }
+        }
+        out.write("\r\n");
+        records++;
+    }
+
+    /** Number of records written so far, header included. */
+    public long getRecords() {
+        return records;
+    }
+
+    /** Writes out any buffered records. */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeField(String value) throws IOException {
+        if (!needsQuotes(value)) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,195 @@
+package HospitalManagementSystem.export;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes a PDF file of text pages without going through a printer. Each page is compressed and
+ * written as soon as it is finished, so only the current page is held in memory; the page tree
+ * and cross-reference table are written on {@link #close()}.
+ *
+ * Text is set in Courier and Courier-Bold, two of the standard PDF fonts every viewer provides,
+ * so no font data is embedded. Courier is fixed width: every character is {@link #charWidth}
+ * wide. Characters outside the Windows-1252 set print as '?', except box-drawing characters,
+ * which print as their closest ASCII equivalent.
+ */
+public class PdfWriter implements Closeable {
+    /** US Letter, in points (1/72 inch). */
+    public static final float PAGE_WIDTH = 612;
+    public static final float PAGE_HEIGHT = 792;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Charset WIN_ANSI = Charset.forName("windows-1252");
+
+    // Objects 1 to 4 are fixed; pages are numbered from 5 as they are written
+    private static final int CATALOG = 1;
+    private static final int PAGES = 2;
+    private static final int REGULAR_FONT = 3;
+    private static final int BOLD_FONT = 4;
+
+    private final OutputStream out;
+    private final List<Long> offsets = new ArrayList<>();
+    private final List<Integer> pageObjects = new ArrayList<>();
+    private long written;
+    private ByteArrayOutputStream content;
+
+    public PdfWriter(OutputStream out) throws IOException {
+        this.out = out instanceof BufferedOutputStream ? out : new BufferedOutputStream(out, BUFFER_SIZE);
+        for (int i = 0; i < BOLD_FONT; i++) {
+            offsets.add(null);
+        }
+        write("%PDF-1.4\n%âãÏÓ\n");
+        writeObject(REGULAR_FONT, "<< /Type /Font /Subtype /Type1 /BaseFont /Courier /Encoding /WinAnsiEncoding >>");
+        writeObject(BOLD_FONT, "<< /Type /Font /Subtype /Type1 /BaseFont /Courier-Bold /Encoding /WinAnsiEncoding >>");
+    }
+
+    /** Opens {@code file} for writing, replacing any existing content. */
+    public static PdfWriter open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            return new PdfWriter(Channels.newOutputStream(channel));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** Width of one character at {@code size} points. */
+    public static double charWidth(float size) {
+        return size * 0.6;
+    }
+
+    public void beginPage() {
+        if (content != null) {
+            throw new IllegalStateException("Page already started");
+        }
+        content = new ByteArrayOutputStream(8 * 1024);
+    }
+
+    /** Draws {@code text} with its baseline starting at ({@code x}, {@code y}), measured from the bottom left. */
+    public void text(float x, float y, boolean bold, float size, String text) {
+        if (content == null) {
+            throw new IllegalStateException("No page started");
+        }
+        String operators = String.format(Locale.ROOT, "BT /F%d %.1f Tf %.2f %.2f Td (", bold ? 2 : 1, size, x, y);
+        content.write(operators.getBytes(StandardCharsets.US_ASCII), 0, operators.length());
+        for (byte b : encode(text)) {
+            if (b == '(' || b == ')' || b == '\\') {
+                content.write('\\');
+            }
+            content.write(b);
+        }
+        content.write(") Tj ET\n".getBytes(StandardCharsets.US_ASCII), 0, 8);
+    }
+
+    public void endPage() throws IOException {
+        if (content == null) {
+            throw new IllegalStateException("No page started");
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.size() / 2 + 64);
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(compressed)) {
+            content.writeTo(deflater);
+        }
+        content = null;
+
+        int contentObject = offsets.size() + 1;
+        offsets.add(written);
+        write(contentObject + " 0 obj\n<< /Length " + compressed.size() + " /Filter /FlateDecode >>\nstream\n");
+        compressed.writeTo(out);
+        written += compressed.size();
+        write("\nendstream\nendobj\n");
+
+        int pageObject = contentObject + 1;
+        offsets.add(null);
+        writeObject(pageObject, String.format(Locale.ROOT,
+                "<< /Type /Page /Parent %d 0 R /MediaBox [0 0 %.0f %.0f] /Contents %d 0 R"
+                        + " /Resources << /Font << /F1 %d 0 R /F2 %d 0 R >> >> >>",
+                PAGES, PAGE_WIDTH, PAGE_HEIGHT, contentObject, REGULAR_FONT, BOLD_FONT));
+        pageObjects.add(pageObject);
+    }
+
+    public int getPageCount() {
+        return pageObjects.size();
+    }
+
+    /** Finishes the document and closes the file. */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (content != null) {
+                endPage();
+            }
+            StringBuilder kids = new StringBuilder();
+            for (int page : pageObjects) {
+                kids.append(page).append(" 0 R ");
+            }
+            writeObject(PAGES, "<< /Type /Pages /Kids [" + kids + "] /Count " + pageObjects.size() + " >>");
+            writeObject(CATALOG, "<< /Type /Catalog /Pages " + PAGES + " 0 R >>");
+
+            long xref = written;
+            StringBuilder table = new StringBuilder();
+            table.append("xref\n0 ").append(offsets.size() + 1).append("\n0000000000 65535 f\r\n");
+            for (Long offset : offsets) {
+                table.append(String.format(Locale.ROOT, "%010d 00000 n\r\n", offset));
+            }
+            table.append("trailer\n<< /Size ").append(offsets.size() + 1).append(" /Root ").append(CATALOG)
+                    .append(" 0 R >>\nstartxref\n").append(xref).append("\n%%EOF\n");
+            write(table.toString());
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeObject(int number, String body) throws IOException {
+        offsets.set(number - 1, written);
+        write(number + " 0 obj\n" + body + "\nendobj\n");
+    }
+
+    private void write(String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+        out.write(bytes);
+        written += bytes.length;
+    }
+
+    private static byte[] encode(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            char c = chars[i];
+            if (c >= '─' && c <= '╿') {
+                chars[i] = boxCharacter(c);
+            } else if (c == '\t') {
+                chars[i] = ' ';
+            }
+        }
+        return new String(chars).getBytes(WIN_ANSI);
+    }
+
+    private static char boxCharacter(char c) {
+        switch (c) {
+            case '─':
+            case '━':
+            case '═':
+                return '-';
+            case '│':
+            case '┃':
+            case '║':
+                return '|';
+            default:
+                return '+';
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package HospitalManagementSystem.export;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Writes report text to a PDF file with the same page design as {@link ReportPrintable}: a
+ * heading on the first page, the wrapped lines, and a page number at the foot of every page.
+ * Needs no display or printer, so reports can be written from batch jobs.
+ */
+public final class ReportPdf {
+    private static final float MARGIN = 50;
+    private static final float TITLE_SIZE = 16;
+    private static final float CONTENT_SIZE = 10;
+    private static final float LEADING = 12;
+
+    private static final float TOP = PdfWriter.PAGE_HEIGHT - MARGIN;
+    private static final float TITLE_BASELINE = TOP - TITLE_SIZE;
+    private static final float SUBTITLE_BASELINE = TITLE_BASELINE - TITLE_SIZE - 10;
+    private static final float FIRST_PAGE_BASELINE = SUBTITLE_BASELINE - LEADING - 20;
+    private static final float PAGE_BASELINE = TOP - CONTENT_SIZE;
+    private static final float BOTTOM = MARGIN + LEADING;
+    private static final float FOOTER_BASELINE = MARGIN - CONTENT_SIZE;
+
+    private ReportPdf() {
+    }
+
+    /** Writes the report read from {@code source} to {@code file} and returns the number of pages. */
+    public static int write(Path file, String title, String subtitle, TextSource source) throws IOException {
+        double charWidth = PdfWriter.charWidth(CONTENT_SIZE);
+        TextPageLayout layout = new TextPageLayout(source, c -> charWidth, PdfWriter.PAGE_WIDTH - 2 * MARGIN,
+                linesBetween(FIRST_PAGE_BASELINE, BOTTOM), linesBetween(PAGE_BASELINE, BOTTOM));
+        int pageCount = layout.getPageCount();
+
+        try (PdfWriter pdf = PdfWriter.open(file)) {
+            for (int index = 0; index < pageCount; index++) {
+                pdf.beginPage();
+                float y = PAGE_BASELINE;
+                if (index == 0) {
+                    pdf.text(MARGIN, TITLE_BASELINE, true, TITLE_SIZE, title);
+                    pdf.text(MARGIN, SUBTITLE_BASELINE, false, CONTENT_SIZE, subtitle);
+                    y = FIRST_PAGE_BASELINE;
+                }
+                for (String line : layout.page(index)) {
+                    pdf.text(MARGIN, y, false, CONTENT_SIZE, line);
+                    y -= LEADING;
+                }
+
+                String footer = "Page " + (index + 1) + " of " + pageCount;
+                float footerWidth = (float) (footer.length() * charWidth);
+                pdf.text((PdfWriter.PAGE_WIDTH - footerWidth) / 2, FOOTER_BASELINE, false, CONTENT_SIZE, footer);
+                pdf.endPage();
+            }
+        }
+        return pageCount;
+    }
+
+    private static int linesBetween(float firstBaseline, float lowestBaseline) {
+        return Math.max(1, (int) ((firstBaseline - lowestBaseline) / LEADING) + 1);
+    }
+}
@@ -0,0 +1,106 @@
+package HospitalManagementSystem.export;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.print.PageFormat;
+import java.awt.print.Printable;
+import java.awt.print.PrinterException;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Prints report text over as many pages as it needs: a heading on the first page, then the
+ * wrapped lines, with a page number at the foot of every page.
+ *
+ * Pages are laid out once for the page format in use (see {@link TextPageLayout}), so printing
+ * any page only reads and draws that page's lines.
+ */
+public class ReportPrintable implements Printable {
+    private static final int INDENT = 50;
+    private static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 16);
+    private static final Font CONTENT_FONT = new Font("Arial", Font.PLAIN, 10);
+
+    private final String title;
+    private final String subtitle;
+    private final TextSource source;
+
+    private TextPageLayout layout;
+    private double laidOutWidth;
+    private double laidOutHeight;
+
+    public ReportPrintable(String title, String subtitle, TextSource source) {
+        this.title = title;
+        this.subtitle = subtitle;
+        this.source = source;
+    }
+
+    @Override
+    public int print(Graphics graphics, PageFormat pageFormat, int pageIndex) throws PrinterException {
+        Graphics2D g2d = (Graphics2D) graphics;
+        FontMetrics titleMetrics = g2d.getFontMetrics(TITLE_FONT);
+        FontMetrics contentMetrics = g2d.getFontMetrics(CONTENT_FONT);
+
+        List<String> lines;
+        int pageCount;
+        try {
+            TextPageLayout layout = layout(pageFormat, titleMetrics, contentMetrics);
+            if (pageIndex >= layout.getPageCount()) {
+                return NO_SUCH_PAGE;
+            }
+            lines = layout.page(pageIndex);
+            pageCount = layout.getPageCount();
+        } catch (IOException e) {
+            throw new PrinterException("Error reading report: " + e.getMessage());
+        }
+
+        g2d.translate(pageFormat.getImageableX(), pageFormat.getImageableY());
+        int lineHeight = contentMetrics.getHeight();
+        int y = lineHeight;
+
+        if (pageIndex == 0) {
+            g2d.setFont(TITLE_FONT);
+            y = titleMetrics.getHeight();
+            g2d.drawString(title, INDENT, y);
+            y += titleMetrics.getHeight() + 10;
+
+            g2d.setFont(CONTENT_FONT);
+            g2d.drawString(subtitle, INDENT, y);
+            y += lineHeight + 20;
+        }
+
+        g2d.setFont(CONTENT_FONT);
+        for (String line : lines) {
+            g2d.drawString(line, INDENT, y);
+            y += lineHeight;
+        }
+
+        String footer = "Page " + (pageIndex + 1) + " of " + pageCount;
+        g2d.drawString(footer, (int) (pageFormat.getImageableWidth() - contentMetrics.stringWidth(footer)) / 2,
+                (int) pageFormat.getImageableHeight() - contentMetrics.getDescent());
+
+        return PAGE_EXISTS;
+    }
+
+    // Laid out again only if the page size changes between calls
+    private synchronized TextPageLayout layout(PageFormat pageFormat, FontMetrics titleMetrics,
+            FontMetrics contentMetrics) throws IOException {
+        double width = pageFormat.getImageableWidth();
+        double height = pageFormat.getImageableHeight();
+        if (layout == null || width != laidOutWidth || height != laidOutHeight) {
+            int lineHeight = contentMetrics.getHeight();
+            // Last line baseline must stay above the page number line
+            double bodyBottom = height - 2 * lineHeight;
+            int firstBaseline = titleMetrics.getHeight() * 2 + 10 + lineHeight + 20;
+            int firstPageLines = Math.max(1, (int) ((bodyBottom - firstBaseline) / lineHeight) + 1);
+            int linesPerPage = Math.max(1, (int) ((bodyBottom - lineHeight) / lineHeight) + 1);
+
+            layout = new TextPageLayout(source, contentMetrics::charWidth, width - 2 * INDENT, firstPageLines,
+                    linesPerPage);
+            laidOutWidth = width;
+            laidOutHeight = height;
+        }
+        return layout;
+    }
+}
@@ -0,0 +1,136 @@
+package HospitalManagementSystem.export;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Splits report text into pages of wrapped lines. The text is read once up front to find where
+ * each page starts; afterwards any page is produced by reading only its own lines, and nothing
+ * but the page offsets is kept in memory.
+ *
+ * Lines longer than the page width wrap at the last space that fits, or mid-word if there is
+ * none. The first page may hold fewer lines than the others, to leave room for a heading.
+ */
+public class TextPageLayout {
+    /** Width of one character in the units of the page width. */
+    public interface Measure {
+        double charWidth(char c);
+    }
+
+    private final TextSource source;
+    private final Measure measure;
+    private final double lineWidth;
+    private final int firstPageLines;
+    private final int linesPerPage;
+
+    // Page i starts at source position pagePositions[i], skipping pageRows[i] wrapped rows of that line
+    private long[] pagePositions = new long[16];
+    private int[] pageRows = new int[16];
+    private int pageCount;
+
+    public TextPageLayout(TextSource source, Measure measure, double lineWidth, int firstPageLines,
+            int linesPerPage) throws IOException {
+        if (firstPageLines < 1 || linesPerPage < 1) {
+            throw new IllegalArgumentException("Pages must hold at least one line");
+        }
+        this.source = source;
+        this.measure = measure;
+        this.lineWidth = lineWidth;
+        this.firstPageLines = firstPageLines;
+        this.linesPerPage = linesPerPage;
+        paginate();
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /** The wrapped lines of page {@code index}, counting from 0. */
+    public List<String> page(int index) throws IOException {
+        if (index < 0 || index >= pageCount) {
+            throw new IndexOutOfBoundsException("Page " + index + " of " + pageCount);
+        }
+        int capacity = index == 0 ? firstPageLines : linesPerPage;
+        List<String> rows = new ArrayList<>(capacity);
+        try (TextSource.Cursor cursor = source.open(pagePositions[index])) {
+            int skip = pageRows[index];
+            String line;
+            while (rows.size() < capacity && (line = cursor.nextLine()) != null) {
+                List<String> wrapped = wrap(line);
+                for (int i = skip; i < wrapped.size() && rows.size() < capacity; i++) {
+                    rows.add(wrapped.get(i));
+                }
+                skip = 0;
+            }
+        }
+        return rows;
+    }
+
+    /** {@code line} broken into rows that each fit the page width. */
+    public List<String> wrap(String line) {
+        List<String> rows = new ArrayList<>(1);
+        int start = 0;
+        while (true) {
+            double width = 0;
+            int lastSpace = -1;
+            int end = start;
+            while (end < line.length()) {
+                char c = line.charAt(end);
+                width += measure.charWidth(c);
+                if (width > lineWidth && end > start) {
+                    if (c == ' ') {
+                        lastSpace = end;
+                    }
+                    break;
+                }
+                if (c == ' ') {
+                    lastSpace = end;
+                }
+                end++;
+            }
+            if (end == line.length()) {
+                rows.add(line.substring(start));
+                return rows;
+            }
+            int breakAt = lastSpace > start ? lastSpace : end;
+            rows.add(line.substring(start, breakAt));
+            start = lastSpace > start ? lastSpace + 1 : end;
+        }
+    }
+
+    private void paginate() throws IOException {
+        addPage(0, 0);
+        int rowsLeft = firstPageLines;
+        try (TextSource.Cursor cursor = source.open(0)) {
+            long position = cursor.position();
+            String line;
+            while ((line = cursor.nextLine()) != null) {
+                if (rowsLeft == 0) {
+                    addPage(position, 0);
+                    rowsLeft = linesPerPage;
+                }
+                int rows = wrap(line).size();
+                int row = 0;
+                while (rows - row > rowsLeft) {
+                    row += rowsLeft;
+                    addPage(position, row);
+                    rowsLeft = linesPerPage;
+                }
+                rowsLeft -= rows - row;
+                position = cursor.position();
+            }
+        }
+    }
+
+    private void addPage(long position, int row) {
+        if (pageCount == pagePositions.length) {
+            pagePositions = Arrays.copyOf(pagePositions, pageCount * 2);
+            pageRows = Arrays.copyOf(pageRows, pageCount * 2);
+        }
+        pagePositions[pageCount] = position;
+        pageRows[pageCount] = row;
+        pageCount++;
+    }
+}
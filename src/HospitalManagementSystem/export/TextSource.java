@@ -0,0 +1,104 @@
+package HospitalManagementSystem.export;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Report text read line by line from any position, so a report can be laid out and printed
+ * without holding it all in memory. Positions are opaque: take them from
+ * {@link Cursor#position()} and pass them back to {@link #open(long)}.
+ */
+public interface TextSource {
+
+    /** Reads lines in order from one position. */
+    interface Cursor extends Closeable {
+        /** The next line without its line break, or null at the end of the text. */
+        String nextLine() throws IOException;
+
+        /** Position of the line {@link #nextLine()} returns next. */
+        long position();
+
+        @Override
+        void close() throws IOException;
+    }
+
+    Cursor open(long position) throws IOException;
+
+    /** Text already in memory; positions are character indexes. */
+    static TextSource of(CharSequence text) {
+        return position -> new Cursor() {
+            private int next = (int) position;
+
+            @Override
+            public String nextLine() {
+                if (next >= text.length()) {
+                    return null;
+                }
+                int end = next;
+                while (end < text.length() && text.charAt(end) != '\n') {
+                    end++;
+                }
+                String line = text.subSequence(next, end > next && text.charAt(end - 1) == '\r' ? end - 1 : end)
+                        .toString();
+                next = end + 1;
+                return line;
+            }
+
+            @Override
+            public long position() {
+                return next;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /** A UTF-8 text file, read through a buffer from the requested offset; positions are byte offsets. */
+    static TextSource of(Path file) {
+        return position -> {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            channel.position(position);
+            InputStream in = new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024);
+            return new Cursor() {
+                private final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+                private long next = position;
+
+                @Override
+                public String nextLine() throws IOException {
+                    line.reset();
+                    int b = in.read();
+                    if (b == -1) {
+                        return null;
+                    }
+                    while (b != -1 && b != '\n') {
+                        line.write(b);
+                        b = in.read();
+                    }
+                    next += line.size() + (b == '\n' ? 1 : 0);
+                    String text = new String(line.toByteArray(), StandardCharsets.UTF_8);
+                    return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+                }
+
+                @Override
+                public long position() {
+                    return next;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    in.close();
+                }
+            };
+        };
+    }
+}
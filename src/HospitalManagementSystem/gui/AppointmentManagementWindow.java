@@ -1,30 +1,59 @@
 package HospitalManagementSystem.gui;
 
+import HospitalManagementSystem.core.AppointmentRecord;
+import HospitalManagementSystem.core.AppointmentRepository;
+import HospitalManagementSystem.core.DoctorRepository;
+import HospitalManagementSystem.db.ConnectionPool;
+import HospitalManagementSystem.events.AppointmentChanged;
+import HospitalManagementSystem.events.DoctorChanged;
+import HospitalManagementSystem.events.EntityChanged.Change;
+import HospitalManagementSystem.events.EventBus;
+import HospitalManagementSystem.events.PatientChanged;
+import HospitalManagementSystem.scheduling.DoctorCalendar;
+import HospitalManagementSystem.scheduling.FreeSlotSearch;
+import HospitalManagementSystem.scheduling.SlotReservations;
+
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.sql.*;
-import java.util.Vector;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.Calendar;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 
 public class AppointmentManagementWindow extends JFrame {
-    private Connection connection;
+    private static final int FREE_SLOT_DAYS = 7;
+    private static final int FREE_SLOT_LIMIT = 10;
+
+    private final ConnectionPool pool;
+    private final BackgroundQueries queries;
+    private final IncrementalSearch search;
     private JTable appointmentTable;
-    private DefaultTableModel tableModel;
+    private PagedTableModel tableModel;
     private JTextField searchField;
-    private JComboBox<String> patientCombo, doctorCombo, statusCombo;
+    private JComboBox<String> patientCombo, doctorCombo, statusCombo, specializationCombo;
+    private DefaultListModel<FreeSlotSearch.Slot> freeSlotModel;
     private JSpinner dateSpinner, timeSpinner;
     private JButton addButton, updateButton, deleteButton, clearButton;
     private int selectedAppointmentId = -1;
 
-    public AppointmentManagementWindow(Connection connection) {
-        this.connection = connection;
+    public AppointmentManagementWindow(ConnectionPool pool) {
+        this.pool = pool;
+        this.queries = new BackgroundQueries(pool, this);
         initializeGUI();
-        loadComboBoxData();
+        this.search = new IncrementalSearch(tableModel, AppointmentRepository.SEARCH, 1, 2, 5);
+        search.attach(searchField);
+        loadPatientCombo();
+        loadDoctorCombos();
         loadAppointmentData();
+        EventBus.shared().subscribe(this, AppointmentChanged.class, tableModel::apply);
+        EventBus.shared().subscribe(this, PatientChanged.class, event -> loadPatientCombo());
+        EventBus.shared().subscribe(this, DoctorChanged.class, event -> loadDoctorCombos());
     }
 
     private void initializeGUI() {
@@ -63,11 +92,6 @@ public class AppointmentManagementWindow extends JFrame {
 
         searchField = new JTextField(20);
         searchField.setFont(new Font("Arial", Font.PLAIN, 14));
-        searchField.addKeyListener(new java.awt.event.KeyAdapter() {
-            public void keyReleased(java.awt.event.KeyEvent evt) {
-                searchAppointments();
-            }
-        });
 
         panel.add(titleLabel);
         panel.add(Box.createHorizontalStrut(30));
@@ -83,12 +107,8 @@ public class AppointmentManagementWindow extends JFrame {
         panel.setBorder(new EmptyBorder(20, 20, 20, 10));
 
         String[] columnNames = { "ID", "Patient", "Doctor", "Date", "Time", "Status" };
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new PagedTableModel(queries, "appointments", "appointments", columnNames,
+                AppointmentRepository.PAGES, rs -> appointmentRow(AppointmentRepository.map(rs)));
 
         appointmentTable = new JTable(tableModel);
         appointmentTable.setFont(new Font("Arial", Font.PLAIN, 14));
@@ -162,6 +182,34 @@ public class AppointmentManagementWindow extends JFrame {
         panel.add(createFieldPanel("Status:", statusCombo));
         panel.add(Box.createVerticalStrut(15));
 
+        // Free slot search: picking a result fills doctor, date and time
+        specializationCombo = new JComboBox<>();
+        specializationCombo.setFont(new Font("Arial", Font.PLAIN, 14));
+        panel.add(createFieldPanel("Specialty:", specializationCombo));
+        panel.add(Box.createVerticalStrut(10));
+
+        JButton findSlotsButton = new JButton("Find Free Slots");
+        findSlotsButton.setFont(new Font("Arial", Font.PLAIN, 14));
+        findSlotsButton.addActionListener(e -> findFreeSlots());
+        JPanel findPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        findPanel.setBackground(new Color(245, 245, 245));
+        findPanel.add(findSlotsButton);
+        panel.add(findPanel);
+        panel.add(Box.createVerticalStrut(10));
+
+        freeSlotModel = new DefaultListModel<>();
+        JList<FreeSlotSearch.Slot> freeSlotList = new JList<>(freeSlotModel);
+        freeSlotList.setFont(new Font("Arial", Font.PLAIN, 12));
+        freeSlotList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        freeSlotList.addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting() && freeSlotList.getSelectedValue() != null) {
+                useFreeSlot(freeSlotList.getSelectedValue());
+            }
+        });
+        JScrollPane freeSlotScrollPane = new JScrollPane(freeSlotList);
+        freeSlotScrollPane.setPreferredSize(new Dimension(300, 150));
+        panel.add(freeSlotScrollPane);
+
         return panel;
     }
 
@@ -206,6 +254,7 @@ public class AppointmentManagementWindow extends JFrame {
         panel.add(deleteButton);
         panel.add(prescriptionButton);
         panel.add(clearButton);
+        panel.add(queries.getProgressBar());
 
         return panel;
     }
@@ -220,117 +269,50 @@ public class AppointmentManagementWindow extends JFrame {
         return button;
     }
 
-    private void loadComboBoxData() {
-        // Load patients
-        try {
-            String patientQuery = "SELECT id, name FROM patients ORDER BY name";
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery(patientQuery);
-
-            patientCombo.removeAllItems();
-            patientCombo.addItem("Select Patient");
+    private void loadPatientCombo() {
+        ReferenceData.patients().get(queries, "patientCombo",
+                items -> fillCombo(patientCombo, "Select Patient", items), "Error loading patients");
+    }
 
-            while (rs.next()) {
-                patientCombo.addItem(rs.getInt("id") + " - " + rs.getString("name"));
-            }
+    private void loadDoctorCombos() {
+        ReferenceData.doctors().get(queries, "doctorCombo",
+                items -> fillCombo(doctorCombo, "Select Doctor", items), "Error loading doctors");
+        queries.run("specializationCombo", "Loading specializations",
+                DoctorRepository::specializations,
+                items -> fillCombo(specializationCombo, "Any Specialty", items), "Error loading specializations");
+    }
 
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error loading patients: " + e.getMessage(),
-                    "Database Error", JOptionPane.ERROR_MESSAGE);
+    private void fillCombo(JComboBox<String> combo, String placeholder, List<String> items) {
+        Object selected = combo.getSelectedItem(); // kept when the list is refilled after a change
+        combo.removeAllItems();
+        combo.addItem(placeholder);
+        for (String item : items) {
+            combo.addItem(item);
         }
-
-        // Load doctors
-        try {
-            String doctorQuery = "SELECT id, name, specialization FROM doctors ORDER BY name";
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery(doctorQuery);
-
-            doctorCombo.removeAllItems();
-            doctorCombo.addItem("Select Doctor");
-
-            while (rs.next()) {
-                doctorCombo.addItem(
-                        rs.getInt("id") + " - " + rs.getString("name") + " (" + rs.getString("specialization") + ")");
-            }
-
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error loading doctors: " + e.getMessage(),
-                    "Database Error", JOptionPane.ERROR_MESSAGE);
+        if (selected != null) {
+            combo.setSelectedItem(selected);
         }
     }
 
     private void loadAppointmentData() {
-        try {
-            String query = "SELECT a.id, p.name as patient_name, d.name as doctor_name, " +
-                    "a.appointment_date, a.appointment_time, a.status, " +
-                    "a.patient_id, a.doctor_id " +
-                    "FROM appointments a " +
-                    "JOIN patients p ON a.patient_id = p.id " +
-                    "JOIN doctors d ON a.doctor_id = d.id " +
-                    "ORDER BY a.appointment_date DESC, a.appointment_time";
-
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-
-            tableModel.setRowCount(0);
-
-            while (rs.next()) {
-                Vector<Object> row = new Vector<>();
-                row.add(rs.getInt("id"));
-                row.add(rs.getString("patient_name"));
-                row.add(rs.getString("doctor_name"));
-                row.add(rs.getDate("appointment_date"));
-                row.add(rs.getTime("appointment_time"));
-                row.add(rs.getString("status"));
-                tableModel.addRow(row);
-            }
-
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error loading appointment data: " + e.getMessage(),
-                    "Database Error", JOptionPane.ERROR_MESSAGE);
-        }
+        search.refresh();
     }
 
-    private void searchAppointments() {
-        String searchText = searchField.getText().toLowerCase();
-
-        try {
-            String query = "SELECT a.id, p.name as patient_name, d.name as doctor_name, " +
-                    "a.appointment_date, a.appointment_time, a.status " +
-                    "FROM appointments a " +
-                    "JOIN patients p ON a.patient_id = p.id " +
-                    "JOIN doctors d ON a.doctor_id = d.id " +
-                    "WHERE LOWER(p.name) LIKE ? OR LOWER(d.name) LIKE ? OR LOWER(a.status) LIKE ? " +
-                    "ORDER BY a.appointment_date DESC, a.appointment_time";
-
-            PreparedStatement pstmt = connection.prepareStatement(query);
-            String searchPattern = "%" + searchText + "%";
-            pstmt.setString(1, searchPattern);
-            pstmt.setString(2, searchPattern);
-            pstmt.setString(3, searchPattern);
-
-            ResultSet rs = pstmt.executeQuery();
-
-            tableModel.setRowCount(0);
-
-            while (rs.next()) {
-                Vector<Object> row = new Vector<>();
-                row.add(rs.getInt("id"));
-                row.add(rs.getString("patient_name"));
-                row.add(rs.getString("doctor_name"));
-                row.add(rs.getDate("appointment_date"));
-                row.add(rs.getTime("appointment_time"));
-                row.add(rs.getString("status"));
-                tableModel.addRow(row);
-            }
-
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error searching appointments: " + e.getMessage(),
-                    "Database Error", JOptionPane.ERROR_MESSAGE);
-        }
+    private Object[] appointmentRow(AppointmentRecord appointment) {
+        return new Object[] {
+                appointment.getId(),
+                appointment.getPatientName(),
+                appointment.getDoctorName(),
+                appointment.getDate(),
+                appointment.getTime(),
+                appointment.getStatus()
+        };
     }
 
     private void populateFormFromTable(int selectedRow) {
+        if (tableModel.getRow(selectedRow) == null)
+            return; // page not loaded yet
+
         selectedAppointmentId = (Integer) tableModel.getValueAt(selectedRow, 0);
 
         // Find and select patient and doctor in combo boxes
@@ -352,14 +334,12 @@ public class AppointmentManagementWindow extends JFrame {
         }
 
         // Set date and time
-        Date appointmentDate = (Date) tableModel.getValueAt(selectedRow, 3);
-        Time appointmentTime = (Time) tableModel.getValueAt(selectedRow, 4);
+        LocalDate appointmentDate = (LocalDate) tableModel.getValueAt(selectedRow, 3);
+        LocalTime appointmentTime = (LocalTime) tableModel.getValueAt(selectedRow, 4);
 
-        dateSpinner.setValue(appointmentDate);
-
-        Calendar cal = Calendar.getInstance();
-        cal.setTime(appointmentTime);
-        timeSpinner.setValue(cal.getTime());
+        ZoneId zone = ZoneId.systemDefault();
+        dateSpinner.setValue(Date.from(appointmentDate.atStartOfDay(zone).toInstant()));
+        timeSpinner.setValue(Date.from(appointmentDate.atTime(appointmentTime).atZone(zone).toInstant()));
 
         // Set status
         String status = (String) tableModel.getValueAt(selectedRow, 5);
@@ -370,29 +350,28 @@ public class AppointmentManagementWindow extends JFrame {
         if (!validateForm())
             return;
 
-        try {
-            // Check if doctor is available at this time
-            if (!checkDoctorAvailability()) {
+        int doctorId = getSelectedDoctorId();
+        LocalDate date = getSelectedDate();
+        LocalTime time = getSelectedTime();
+
+        try (Connection connection = pool.getConnection()) {
+            // Quick answer from the doctor's calendar; the booking itself re-checks atomically
+            if (!DoctorCalendar.shared().isFree(connection, doctorId, date, time)) {
                 JOptionPane.showMessageDialog(this, "Doctor is not available at this date and time!",
                         "Scheduling Conflict", JOptionPane.WARNING_MESSAGE);
                 return;
             }
 
-            String query = "INSERT INTO appointments (patient_id, doctor_id, appointment_date, appointment_time, status) VALUES (?, ?, ?, ?, ?)";
-            PreparedStatement pstmt = connection.prepareStatement(query);
-
-            pstmt.setInt(1, getSelectedPatientId());
-            pstmt.setInt(2, getSelectedDoctorId());
-            pstmt.setDate(3, new java.sql.Date(((Date) dateSpinner.getValue()).getTime()));
-            pstmt.setTime(4, new java.sql.Time(((Date) timeSpinner.getValue()).getTime()));
-            pstmt.setString(5, (String) statusCombo.getSelectedItem());
-
-            int result = pstmt.executeUpdate();
-            if (result > 0) {
+            int appointmentId = SlotReservations.book(connection, getSelectedPatientId(), doctorId, date, time,
+                    (String) statusCombo.getSelectedItem());
+            if (appointmentId > 0) {
+                EventBus.shared().publish(new AppointmentChanged(appointmentId, Change.ADDED));
                 JOptionPane.showMessageDialog(this, "Appointment booked successfully!",
                         "Success", JOptionPane.INFORMATION_MESSAGE);
-                loadAppointmentData();
                 clearForm();
+            } else {
+                JOptionPane.showMessageDialog(this, "Doctor was just booked at this date and time by another user!",
+                        "Scheduling Conflict", JOptionPane.WARNING_MESSAGE);
             }
 
         } catch (SQLException e) {
@@ -411,26 +390,29 @@ public class AppointmentManagementWindow extends JFrame {
         if (!validateForm())
             return;
 
-        try {
-            String query = "UPDATE appointments SET patient_id=?, doctor_id=?, appointment_date=?, appointment_time=?, status=? WHERE id=?";
-            PreparedStatement pstmt = connection.prepareStatement(query);
-
-            pstmt.setInt(1, getSelectedPatientId());
-            pstmt.setInt(2, getSelectedDoctorId());
-            pstmt.setDate(3, new java.sql.Date(((Date) dateSpinner.getValue()).getTime()));
-            pstmt.setTime(4, new java.sql.Time(((Date) timeSpinner.getValue()).getTime()));
-            pstmt.setString(5, (String) statusCombo.getSelectedItem());
-            pstmt.setInt(6, selectedAppointmentId);
-
-            int result = pstmt.executeUpdate();
-            if (result > 0) {
+        try (Connection connection = pool.getConnection()) {
+            AppointmentRecord appointment = new AppointmentRecord(selectedAppointmentId,
+                    getSelectedPatientId(),
+                    getSelectedDoctorId(),
+                    getSelectedDate(),
+                    getSelectedTime(),
+                    (String) statusCombo.getSelectedItem());
+            if (AppointmentRepository.update(connection, appointment)) {
+                // The slot it left and the day it is on now
+                DoctorCalendar.shared().forgetAppointment(selectedAppointmentId);
+                DoctorCalendar.shared().forget(appointment.getDoctorId(), appointment.getDate());
+                EventBus.shared().publish(new AppointmentChanged(selectedAppointmentId, Change.UPDATED));
                 JOptionPane.showMessageDialog(this, "Appointment updated successfully!",
                         "Success", JOptionPane.INFORMATION_MESSAGE);
-                loadAppointmentData();
                 clearForm();
             }
 
         } catch (SQLException e) {
+            if (SlotReservations.isSlotTaken(e)) {
+                JOptionPane.showMessageDialog(this, "Doctor is not available at this date and time!",
+                        "Scheduling Conflict", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
             JOptionPane.showMessageDialog(this, "Error updating appointment: " + e.getMessage(),
                     "Database Error", JOptionPane.ERROR_MESSAGE);
         }
@@ -448,16 +430,12 @@ public class AppointmentManagementWindow extends JFrame {
                 "Confirm Cancellation", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            try {
-                String query = "DELETE FROM appointments WHERE id=?";
-                PreparedStatement pstmt = connection.prepareStatement(query);
-                pstmt.setInt(1, selectedAppointmentId);
-
-                int result = pstmt.executeUpdate();
-                if (result > 0) {
+            try (Connection connection = pool.getConnection()) {
+                if (AppointmentRepository.delete(connection, selectedAppointmentId)) {
+                    DoctorCalendar.shared().forgetAppointment(selectedAppointmentId);
+                    EventBus.shared().publish(new AppointmentChanged(selectedAppointmentId, Change.DELETED));
                     JOptionPane.showMessageDialog(this, "Appointment cancelled successfully!",
                             "Success", JOptionPane.INFORMATION_MESSAGE);
-                    loadAppointmentData();
                     clearForm();
                 }
 
@@ -468,22 +446,47 @@ public class AppointmentManagementWindow extends JFrame {
         }
     }
 
-    private boolean checkDoctorAvailability() {
-        try {
-            String query = "SELECT COUNT(*) FROM appointments WHERE doctor_id=? AND appointment_date=? AND appointment_time=? AND status != 'Cancelled'";
-            PreparedStatement pstmt = connection.prepareStatement(query);
-            pstmt.setInt(1, getSelectedDoctorId());
-            pstmt.setDate(2, new java.sql.Date(((Date) dateSpinner.getValue()).getTime()));
-            pstmt.setTime(3, new java.sql.Time(((Date) timeSpinner.getValue()).getTime()));
-
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return rs.getInt(1) == 0;
+    private void findFreeSlots() {
+        String specialization = specializationCombo.getSelectedIndex() > 0
+                ? (String) specializationCombo.getSelectedItem()
+                : null;
+        LocalDate from = LocalDate.now();
+
+        queries.run("freeSlots", "Finding free slots",
+                connection -> FreeSlotSearch.earliest(connection, specialization, from,
+                        from.plusDays(FREE_SLOT_DAYS - 1), FREE_SLOT_LIMIT),
+                slots -> {
+                    freeSlotModel.clear();
+                    for (FreeSlotSearch.Slot slot : slots) {
+                        freeSlotModel.addElement(slot);
+                    }
+                    if (slots.isEmpty()) {
+                        JOptionPane.showMessageDialog(this, "No free slots in the next " + FREE_SLOT_DAYS + " days!",
+                                "Free Slots", JOptionPane.INFORMATION_MESSAGE);
+                    }
+                }, "Error finding free slots");
+    }
+
+    private void useFreeSlot(FreeSlotSearch.Slot slot) {
+        for (int i = 1; i < doctorCombo.getItemCount(); i++) {
+            if (doctorCombo.getItemAt(i).startsWith(slot.getDoctorId() + " - ")) {
+                doctorCombo.setSelectedIndex(i);
+                break;
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
-        return false;
+        ZoneId zone = ZoneId.systemDefault();
+        dateSpinner.setValue(Date.from(slot.getDate().atStartOfDay(zone).toInstant()));
+        timeSpinner.setValue(Date.from(slot.getDate().atTime(slot.getTime()).atZone(zone).toInstant()));
+    }
+
+    private LocalDate getSelectedDate() {
+        return ((Date) dateSpinner.getValue()).toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    // Appointments are booked to the minute, whatever seconds the spinner's Date carries
+    private LocalTime getSelectedTime() {
+        return ((Date) timeSpinner.getValue()).toInstant().atZone(ZoneId.systemDefault()).toLocalTime()
+                .truncatedTo(ChronoUnit.MINUTES);
     }
 
     private int getSelectedPatientId() {
@@ -540,24 +543,17 @@ public class AppointmentManagementWindow extends JFrame {
             return;
         }
 
-        try {
+        try (Connection connection = pool.getConnection()) {
             // Get appointment details
             int appointmentId = (Integer) tableModel.getValueAt(selectedRow, 0);
             String patientInfo = tableModel.getValueAt(selectedRow, 1).toString();
             String doctorInfo = tableModel.getValueAt(selectedRow, 2).toString();
 
-            // Extract patient and doctor IDs
-            String patientQuery = "SELECT patient_id, doctor_id FROM appointments WHERE id = ?";
-            PreparedStatement stmt = connection.prepareStatement(patientQuery);
-            stmt.setInt(1, appointmentId);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                int patientId = rs.getInt("patient_id");
-                int doctorId = rs.getInt("doctor_id");
-
+            AppointmentRecord appointment = AppointmentRepository.find(connection, appointmentId);
+            if (appointment != null) {
                 // Open prescription window with pre-selected patient and doctor
-                new PrescriptionManagementWindow(connection, appointmentId, patientId, doctorId).setVisible(true);
+                new PrescriptionManagementWindow(pool, appointmentId, appointment.getPatientId(),
+                        appointment.getDoctorId()).setVisible(true);
             }
 
         } catch (SQLException e) {
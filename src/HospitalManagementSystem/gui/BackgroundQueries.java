@@ -0,0 +1,434 @@
+package HospitalManagementSystem.gui;
+
+import HospitalManagementSystem.db.ConnectionPool;
+import HospitalManagementSystem.db.Jdbc;
+import HospitalManagementSystem.db.RowMapper;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Vector;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs a window's database work off the event dispatch thread.
+ *
+ * Each task borrows its own pooled connection, delivers results back on the EDT and is
+ * cancelled (including any statement still executing on the server) when the owning
+ * window closes or when a newer task with the same key replaces it.
+ */
+public class BackgroundQueries {
+    private static final int CHUNK_SIZE = 250;
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static final ExecutorService executor = Executors.newFixedThreadPool(4, r -> {
+        Thread thread = new Thread(r, "hms-query-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public interface Work<T> {
+        T execute(Connection connection) throws SQLException;
+    }
+
+    /** Background work that borrows its own connections, such as a {@link ReportPipeline}. */
+    public interface Job<T> {
+        T execute() throws SQLException;
+    }
+
+    /** Passes rows to {@code action} one at a time, as the repositories' {@code forEach} methods do. */
+    public interface RowSource<T> {
+        void forEach(Connection connection, Consumer<T> action) throws SQLException;
+    }
+
+    /** A SQL statement and its parameters. */
+    public static class Query {
+        private final String sql;
+        private final Object[] params;
+
+        public Query(String sql, Object[] params) {
+            this.sql = sql;
+            this.params = params;
+        }
+    }
+
+    private final ConnectionPool pool;
+    private final Component owner;
+    private final Map<String, Task<?>> running = new HashMap<>();
+    private final JProgressBar progressBar;
+
+    public BackgroundQueries(ConnectionPool pool, Window owner) {
+        this.pool = pool;
+        this.owner = owner;
+
+        progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        progressBar.setStringPainted(true);
+        progressBar.setFont(new Font("Arial", Font.PLAIN, 11));
+        progressBar.setPreferredSize(new Dimension(220, 18));
+        progressBar.setVisible(false);
+
+        owner.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                cancelAll();
+            }
+        });
+    }
+
+    public ConnectionPool getPool() {
+        return pool;
+    }
+
+    /** Progress indicator that is shown while any task of this window is running. */
+    public JProgressBar getProgressBar() {
+        return progressBar;
+    }
+
+    /**
+     * Runs {@code work} in the background and passes its result to {@code onSuccess} on the EDT.
+     * A task still running under the same key is cancelled first.
+     */
+    public <T> Task<T> run(String key, String label, Work<T> work, Consumer<T> onSuccess, String errorMessage) {
+        return start(new Task<>(key, label, work, onSuccess, errorHandler(errorMessage)));
+    }
+
+    public <T> Task<T> run(String key, String label, Work<T> work, Consumer<T> onSuccess,
+            Consumer<Exception> onError) {
+        return start(new Task<>(key, label, work, onSuccess, onError));
+    }
+
+    /** Same as above for work that borrows its own connections, so the task itself leases none. */
+    public <T> Task<T> runJob(String key, String label, Job<T> job, Consumer<T> onSuccess, String errorMessage) {
+        return start(new Task<T>(key, label, null, onSuccess, errorHandler(errorMessage)) {
+            @Override
+            protected T doInBackground() throws Exception {
+                return job.execute();
+            }
+        });
+    }
+
+    /**
+     * Streams the rows of {@code sql} into {@code model}, replacing its contents. Rows are
+     * delivered in chunks so the table fills progressively on large result sets.
+     */
+    public Task<Integer> loadTable(String key, String label, DefaultTableModel model, String sql, Object[] params,
+            RowMapper<Object[]> mapper, String errorMessage) {
+        return loadTable(key, label, model, sql, params, mapper, null, errorMessage);
+    }
+
+    /** Same as above, then passes the number of loaded rows to {@code onSuccess} on the EDT. */
+    public Task<Integer> loadTable(String key, String label, DefaultTableModel model, String sql, Object[] params,
+            RowMapper<Object[]> mapper, Consumer<Integer> onSuccess, String errorMessage) {
+        return loadTable(key, label, model, Collections.singletonList(new Query(sql, params)), mapper, onSuccess,
+                errorMessage);
+    }
+
+    /** Runs {@code statements} in order on one connection and appends all of their rows to {@code model}. */
+    public Task<Integer> loadTable(String key, String label, DefaultTableModel model, List<Query> statements,
+            RowMapper<Object[]> mapper, Consumer<Integer> onSuccess, String errorMessage) {
+        RowSource<Object[]> rows = (connection, action) -> {
+            for (Query query : statements) {
+                Jdbc.forEach(connection, query.sql, rs -> action.accept(mapper.map(rs)), query.params);
+            }
+        };
+        return start(new TableLoad(key, label, model, rows, onSuccess, errorHandler(errorMessage)));
+    }
+
+    /** Streams the records of {@code source} into {@code model}, one row each made by {@code toRow}. */
+    public <T> Task<Integer> loadTable(String key, String label, DefaultTableModel model, RowSource<T> source,
+            Function<T, Object[]> toRow, String errorMessage) {
+        RowSource<Object[]> rows = (connection, action) -> source.forEach(connection,
+                record -> action.accept(toRow.apply(record)));
+        return start(new TableLoad(key, label, model, rows, null, errorHandler(errorMessage)));
+    }
+
+    /**
+     * Reads row {@code id} again with {@code sql}, which must select at most that row, and patches
+     * just that row of {@code model} instead of reloading it: the row is removed if it is gone,
+     * updated in place if it still sorts there, and otherwise moved to where {@code order} puts it
+     * among the other rows. The first column of the model must be the id.
+     */
+    public Task<Object[]> patchRow(String key, DefaultTableModel model, String sql, Object[] params, int id,
+            RowMapper<Object[]> mapper, Comparator<Object[]> order, String errorMessage) {
+        return patchRow(key, model, id, connection -> Jdbc.queryOne(connection, sql, mapper, params), order,
+                errorMessage);
+    }
+
+    /** Same as above, with the row read by {@code row}, which returns null if the row is gone. */
+    public Task<Object[]> patchRow(String key, DefaultTableModel model, int id, Work<Object[]> row,
+            Comparator<Object[]> order, String errorMessage) {
+        return run(key + ":row" + id, "Updating", row, patched -> patch(model, id, patched, order), errorMessage);
+    }
+
+    public void cancel(String key) {
+        Task<?> task = running.remove(key);
+        if (task != null) {
+            task.stop();
+        }
+        updateProgress();
+    }
+
+    public void cancelAll() {
+        for (Task<?> task : new ArrayList<>(running.values())) {
+            task.stop();
+        }
+        running.clear();
+        updateProgress();
+    }
+
+    private static void patch(DefaultTableModel model, int id, Object[] row, Comparator<Object[]> order) {
+        int index = -1;
+        for (int i = 0; i < model.getRowCount() && index < 0; i++) {
+            if (Integer.valueOf(id).equals(model.getValueAt(i, 0))) {
+                index = i;
+            }
+        }
+        if (row == null) {
+            if (index >= 0) {
+                model.removeRow(index);
+            }
+            return;
+        }
+        if (index >= 0 && (index == 0 || order.compare(rowAt(model, index - 1), row) <= 0)
+                && (index == model.getRowCount() - 1 || order.compare(row, rowAt(model, index + 1)) <= 0)) {
+            model.getDataVector().set(index, new Vector<>(Arrays.asList(row)));
+            model.fireTableRowsUpdated(index, index); // keeps the selection
+            return;
+        }
+        if (index >= 0) {
+            model.removeRow(index);
+        }
+        // After the last row that sorts at or before it
+        int low = 0;
+        int high = model.getRowCount();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (order.compare(rowAt(model, middle), row) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        model.insertRow(low, row);
+    }
+
+    private static Object[] rowAt(DefaultTableModel model, int index) {
+        return model.getDataVector().get(index).toArray();
+    }
+
+    private <T> Task<T> start(Task<T> task) {
+        Task<?> previous = running.put(task.getKey(), task);
+        if (previous != null) {
+            previous.stop();
+        }
+        updateProgress();
+        executor.execute(task);
+        return task;
+    }
+
+    private Consumer<Exception> errorHandler(String errorMessage) {
+        return e -> JOptionPane.showMessageDialog(owner, errorMessage + ": " + e.getMessage(),
+                "Database Error", JOptionPane.ERROR_MESSAGE);
+    }
+
+    private void finished(Task<?> task) {
+        running.remove(task.getKey(), task);
+        updateProgress();
+    }
+
+    private void updateProgress() {
+        if (running.isEmpty()) {
+            progressBar.setVisible(false);
+            return;
+        }
+        Task<?> latest = null;
+        for (Task<?> task : running.values()) {
+            latest = task;
+        }
+        progressBar.setString(latest.getStatus());
+        progressBar.setVisible(true);
+    }
+
+    public class Task<T> extends SwingWorker<T, Object[]> {
+        private final String key;
+        private final String label;
+        private final Work<T> work;
+        private final Consumer<T> onSuccess;
+        private final Consumer<Exception> onError;
+        private final List<Statement> statements = new CopyOnWriteArrayList<>();
+
+        Task(String key, String label, Work<T> work, Consumer<T> onSuccess, Consumer<Exception> onError) {
+            this.key = key;
+            this.label = label;
+            this.work = work;
+            this.onSuccess = onSuccess;
+            this.onError = onError;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        protected T compute(Connection connection) throws SQLException {
+            return work.execute(connection);
+        }
+
+        protected String getStatus() {
+            return label + "...";
+        }
+
+        @Override
+        protected T doInBackground() throws Exception {
+            try (Connection connection = pool.getConnection()) {
+                return compute(track(connection));
+            } catch (SQLException e) {
+                if (isCancelled()) {
+                    return null; // statement was cancelled on purpose
+                }
+                throw e;
+            }
+        }
+
+        @Override
+        protected void done() {
+            finished(this);
+            if (isCancelled()) {
+                return;
+            }
+            try {
+                T result = get();
+                if (onSuccess != null) {
+                    onSuccess.accept(result);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                onError.accept(cause instanceof Exception ? (Exception) cause : new Exception(cause));
+            }
+        }
+
+        /** Cancels the task and any statement it is still executing. */
+        public void stop() {
+            cancel(true);
+            for (Statement statement : statements) {
+                try {
+                    statement.cancel();
+                } catch (SQLException e) {
+                    // Statement already finished or closed
+                }
+            }
+        }
+
+        // Records statements created through the connection so stop() can cancel them server-side
+        private Connection track(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                        Object result;
+                        try {
+                            result = method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                        if (result instanceof Statement) {
+                            statements.add((Statement) result);
+                        }
+                        return result;
+                    });
+        }
+    }
+
+    private class TableLoad extends Task<Integer> {
+        private final DefaultTableModel model;
+        private final RowSource<Object[]> rows;
+        // Rows not yet added to the model; drained by process() and finally by done()
+        private final Queue<Object[]> pending = new ConcurrentLinkedQueue<>();
+        private volatile int loaded;
+        private boolean cleared;
+
+        TableLoad(String key, String label, DefaultTableModel model, RowSource<Object[]> rows,
+                Consumer<Integer> onSuccess, Consumer<Exception> onError) {
+            super(key, label, null, onSuccess, onError);
+            this.model = model;
+            this.rows = rows;
+        }
+
+        @Override
+        protected Integer compute(Connection connection) throws SQLException {
+            int[] count = new int[1];
+            rows.forEach(connection, row -> {
+                if (isCancelled()) {
+                    throw new CancellationException(); // stops reading; done() ignores cancelled tasks
+                }
+                pending.add(row);
+                publish(row);
+                count[0]++;
+                if (count[0] % CHUNK_SIZE == 0) {
+                    loaded = count[0];
+                }
+            });
+            return count[0];
+        }
+
+        @Override
+        protected String getStatus() {
+            return loaded > 0 ? super.getStatus() + " " + loaded + " rows" : super.getStatus();
+        }
+
+        @Override
+        protected void process(List<Object[]> rows) {
+            if (!isCancelled()) {
+                drain();
+                updateProgress();
+            }
+        }
+
+        @Override
+        protected void done() {
+            // process() may still be queued behind done(), so flush here to keep the model complete
+            if (!isCancelled()) {
+                drain();
+            }
+            super.done();
+        }
+
+        private void drain() {
+            clearOnce(); // empty result sets still need the old rows removed
+            Object[] row;
+            while ((row = pending.poll()) != null) {
+                model.addRow(row);
+            }
+        }
+
+        private void clearOnce() {
+            if (!cleared) {
+                cleared = true;
+                model.setRowCount(0);
+            }
+        }
+    }
+}
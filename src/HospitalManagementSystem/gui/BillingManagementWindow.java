@@ -1,17 +1,34 @@
 package HospitalManagementSystem.gui;
 
+import HospitalManagementSystem.core.AppointmentRecord;
+import HospitalManagementSystem.core.AppointmentRepository;
+import HospitalManagementSystem.core.BillRecord;
+import HospitalManagementSystem.core.BillingRepository;
+import HospitalManagementSystem.core.PatientRecord;
+import HospitalManagementSystem.core.PatientRepository;
+import HospitalManagementSystem.db.ConnectionPool;
+import HospitalManagementSystem.events.BillChanged;
+import HospitalManagementSystem.events.EntityChanged.Change;
+import HospitalManagementSystem.events.EventBus;
+import HospitalManagementSystem.events.PatientChanged;
+
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.sql.*;
 import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 import java.text.DecimalFormat;
 
 public class BillingManagementWindow extends JFrame {
-    private Connection connection;
+    private static final DateTimeFormatter CREATED_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final ConnectionPool pool;
+    private final BackgroundQueries queries;
     private JComboBox<String> patientComboBox;
     private JComboBox<String> appointmentComboBox;
     private JTextField billDateField;
@@ -27,17 +44,22 @@ public class BillingManagementWindow extends JFrame {
     private JTextArea notesArea;
 
     private JTable billingTable;
-    private DefaultTableModel tableModel;
+    private PagedTableModel tableModel;
     private JTextArea billDetailsArea;
 
-    private DecimalFormat currencyFormat = new DecimalFormat("#,##0.00");
+    // DecimalFormat is not thread-safe, and pages of bills are formatted on several query threads at once
+    private final ThreadLocal<DecimalFormat> currencyFormat =
+            ThreadLocal.withInitial(() -> new DecimalFormat("#,##0.00"));
 
-    public BillingManagementWindow(Connection connection) {
-        this.connection = connection;
+    public BillingManagementWindow(ConnectionPool pool) {
+        this.pool = pool;
+        this.queries = new BackgroundQueries(pool, this);
         initializeGUI();
         loadPatients();
         loadAppointments();
         loadBillingRecords();
+        EventBus.shared().subscribe(this, BillChanged.class, tableModel::apply);
+        EventBus.shared().subscribe(this, PatientChanged.class, event -> loadPatients());
     }
 
     private void initializeGUI() {
@@ -68,6 +90,7 @@ public class BillingManagementWindow extends JFrame {
         tabbedPane.addTab("View Bills", viewBillsPanel);
 
         mainPanel.add(tabbedPane, BorderLayout.CENTER);
+        mainPanel.add(queries.getProgressBar(), BorderLayout.SOUTH);
         add(mainPanel);
     }
 
@@ -313,12 +336,8 @@ public class BillingManagementWindow extends JFrame {
         // Table panel
         String[] columns = { "Bill ID", "Patient", "Date", "Total Amount", "Paid Amount", "Balance", "Status",
                 "Method" };
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new PagedTableModel(queries, "bills", "billing records", columns,
+                BillingRepository.PAGES, rs -> billRow(BillingRepository.map(rs)));
 
         billingTable = new JTable(tableModel);
         billingTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
@@ -383,104 +402,76 @@ public class BillingManagementWindow extends JFrame {
     }
 
     private void loadPatientsToComboBox(JComboBox<String> comboBox) {
-        try {
-            String query = "SELECT id, name FROM patients ORDER BY name";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            ResultSet rs = stmt.executeQuery();
-
+        String key = comboBox == patientComboBox ? "patientCombo" : "filterPatientCombo";
+        ReferenceData.patients().get(queries, key, items -> {
+            Object selected = comboBox.getSelectedItem(); // kept when the list is refilled after a change
+            comboBox.removeAllItems();
             if (comboBox != patientComboBox) {
-                comboBox.removeAllItems();
                 comboBox.addItem("All Patients");
-            } else {
-                comboBox.removeAllItems();
             }
-
-            while (rs.next()) {
-                comboBox.addItem(rs.getInt("id") + " - " + rs.getString("name"));
+            for (String item : items) {
+                comboBox.addItem(item);
             }
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error loading patients: " + e.getMessage());
-        }
+            if (selected != null) {
+                comboBox.setSelectedItem(selected);
+            }
+        }, "Error loading patients");
     }
 
     private void loadAppointments() {
-        try {
-            String query = "SELECT a.id, p.name as patient_name, d.name as doctor_name, " +
-                    "a.appointment_date FROM appointments a " +
-                    "JOIN patients p ON a.patient_id = p.id " +
-                    "JOIN doctors d ON a.doctor_id = d.id " +
-                    "ORDER BY a.appointment_date DESC";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            ResultSet rs = stmt.executeQuery();
-
-            appointmentComboBox.removeAllItems();
-            appointmentComboBox.addItem("No Appointment");
-
-            while (rs.next()) {
-                appointmentComboBox.addItem(rs.getInt("id") + " - " +
-                        rs.getString("patient_name") + " with Dr. " +
-                        rs.getString("doctor_name") + " (" + rs.getDate("appointment_date") + ")");
+        queries.run("appointmentCombo", "Loading appointments", AppointmentRepository::findAll, appointments -> {
+            List<String> items = new ArrayList<>();
+            for (AppointmentRecord appointment : appointments) {
+                items.add(appointment.getId() + " - " + appointment.getPatientName() + " with Dr. " +
+                        appointment.getDoctorName() + " (" + appointment.getDate() + ")");
             }
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error loading appointments: " + e.getMessage());
-        }
+            fillAppointmentCombo(items);
+        }, "Error loading appointments");
     }
 
     private void loadAppointmentsForPatient() {
         if (patientComboBox.getSelectedItem() == null)
             return;
 
-        try {
-            String patientStr = patientComboBox.getSelectedItem().toString();
-            int patientId = Integer.parseInt(patientStr.split(" - ")[0]);
-
-            String query = "SELECT a.id, d.name as doctor_name, a.appointment_date " +
-                    "FROM appointments a " +
-                    "JOIN doctors d ON a.doctor_id = d.id " +
-                    "WHERE a.patient_id = ? " +
-                    "ORDER BY a.appointment_date DESC";
-
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setInt(1, patientId);
-            ResultSet rs = stmt.executeQuery();
-
-            appointmentComboBox.removeAllItems();
-            appointmentComboBox.addItem("No Appointment");
+        String patientStr = patientComboBox.getSelectedItem().toString();
+        int patientId = Integer.parseInt(patientStr.split(" - ")[0]);
+
+        queries.run("appointmentCombo", "Loading patient appointments",
+                connection -> AppointmentRepository.findByPatient(connection, patientId), appointments -> {
+                    List<String> items = new ArrayList<>();
+                    for (AppointmentRecord appointment : appointments) {
+                        items.add(appointment.getId() + " - Dr. " + appointment.getDoctorName() + " (" +
+                                appointment.getDate() + ")");
+                    }
+                    fillAppointmentCombo(items);
+                }, "Error loading patient appointments");
+    }
 
-            while (rs.next()) {
-                appointmentComboBox.addItem(rs.getInt("id") + " - Dr. " +
-                        rs.getString("doctor_name") + " (" + rs.getDate("appointment_date") + ")");
-            }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error loading patient appointments: " + e.getMessage());
+    private void fillAppointmentCombo(List<String> items) {
+        appointmentComboBox.removeAllItems();
+        appointmentComboBox.addItem("No Appointment");
+        for (String item : items) {
+            appointmentComboBox.addItem(item);
         }
     }
 
     private void loadConsultationFee() {
         if (appointmentComboBox.getSelectedItem() == null ||
                 appointmentComboBox.getSelectedItem().toString().equals("No Appointment")) {
+            queries.cancel("consultationFee");
             consultationFeeField.setText("0.00");
             return;
         }
 
-        try {
-            String appointmentStr = appointmentComboBox.getSelectedItem().toString();
-            int appointmentId = Integer.parseInt(appointmentStr.split(" - ")[0]);
-
-            String query = "SELECT d.consultation_fee FROM appointments a " +
-                    "JOIN doctors d ON a.doctor_id = d.id WHERE a.id = ?";
+        String appointmentStr = appointmentComboBox.getSelectedItem().toString();
+        int appointmentId = Integer.parseInt(appointmentStr.split(" - ")[0]);
 
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setInt(1, appointmentId);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                double fee = rs.getDouble("consultation_fee");
-                consultationFeeField.setText(currencyFormat.format(fee));
+        queries.run("consultationFee", "Loading consultation fee",
+                connection -> BillingRepository.consultationFee(connection, appointmentId), fee -> {
+            if (fee != null) {
+                consultationFeeField.setText(currencyFormat.get().format(fee));
             }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error loading consultation fee: " + e.getMessage());
-        }
+        }, "Error loading consultation fee");
     }
 
     private void calculateTotal() {
@@ -491,7 +482,7 @@ public class BillingManagementWindow extends JFrame {
             double other = parseAmount(otherChargesField.getText());
 
             double total = consultation + medicine + lab + other;
-            totalAmountField.setText(currencyFormat.format(total));
+            totalAmountField.setText(currencyFormat.get().format(total));
 
         } catch (NumberFormatException e) {
             JOptionPane.showMessageDialog(this, "Please enter valid amounts!");
@@ -514,7 +505,7 @@ public class BillingManagementWindow extends JFrame {
 
         calculateTotal(); // Ensure total is calculated
 
-        try {
+        try (Connection connection = pool.getConnection()) {
             // Extract patient ID
             String patientStr = patientComboBox.getSelectedItem().toString();
             int patientId = Integer.parseInt(patientStr.split(" - ")[0]);
@@ -527,31 +518,27 @@ public class BillingManagementWindow extends JFrame {
                 appointmentId = Integer.parseInt(appointmentStr.split(" - ")[0]);
             }
 
-            String query = "INSERT INTO billing (patient_id, appointment_id, bill_date, " +
-                    "consultation_fee, medicine_charges, lab_charges, other_charges, " +
-                    "total_amount, paid_amount, payment_status, payment_method, " +
-                    "insurance_claim_amount, notes) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setInt(1, patientId);
-            stmt.setObject(2, appointmentId);
-            stmt.setDate(3, Date.valueOf(billDateField.getText().trim()));
-            stmt.setDouble(4, parseAmount(consultationFeeField.getText()));
-            stmt.setDouble(5, parseAmount(medicineChargesField.getText()));
-            stmt.setDouble(6, parseAmount(labChargesField.getText()));
-            stmt.setDouble(7, parseAmount(otherChargesField.getText()));
-            stmt.setDouble(8, parseAmount(totalAmountField.getText()));
-            stmt.setDouble(9, parseAmount(paidAmountField.getText()));
-            stmt.setString(10, paymentStatusComboBox.getSelectedItem().toString());
-            stmt.setString(11, paymentMethodComboBox.getSelectedItem().toString());
-            stmt.setDouble(12, parseAmount(insuranceClaimField.getText()));
-            stmt.setString(13, notesArea.getText().trim().isEmpty() ? null : notesArea.getText().trim());
-
-            stmt.executeUpdate();
-
+            BillRecord bill = new BillRecord(0,
+                    patientId,
+                    null,
+                    appointmentId,
+                    LocalDate.parse(billDateField.getText().trim()),
+                    parseAmount(consultationFeeField.getText()),
+                    parseAmount(medicineChargesField.getText()),
+                    parseAmount(labChargesField.getText()),
+                    parseAmount(otherChargesField.getText()),
+                    parseAmount(totalAmountField.getText()),
+                    parseAmount(paidAmountField.getText()),
+                    paymentStatusComboBox.getSelectedItem().toString(),
+                    paymentMethodComboBox.getSelectedItem().toString(),
+                    parseAmount(insuranceClaimField.getText()),
+                    notesArea.getText().trim().isEmpty() ? null : notesArea.getText().trim(),
+                    null);
+
+            int billId = BillingRepository.insert(connection, bill);
+            EventBus.shared().publish(new BillChanged(billId, Change.ADDED));
             JOptionPane.showMessageDialog(this, "Bill saved successfully!");
             clearForm();
-            loadBillingRecords();
 
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, "Error saving bill: " + e.getMessage());
@@ -559,35 +546,7 @@ public class BillingManagementWindow extends JFrame {
     }
 
     private void loadBillingRecords() {
-        try {
-            String query = "SELECT b.id, p.name as patient_name, b.bill_date, " +
-                    "b.total_amount, b.paid_amount, " +
-                    "(b.total_amount - b.paid_amount) as balance, " +
-                    "b.payment_status, b.payment_method " +
-                    "FROM billing b " +
-                    "JOIN patients p ON b.patient_id = p.id " +
-                    "ORDER BY b.bill_date DESC";
-
-            PreparedStatement stmt = connection.prepareStatement(query);
-            ResultSet rs = stmt.executeQuery();
-
-            tableModel.setRowCount(0);
-            while (rs.next()) {
-                Object[] row = {
-                        rs.getInt("id"),
-                        rs.getString("patient_name"),
-                        rs.getDate("bill_date"),
-                        currencyFormat.format(rs.getDouble("total_amount")),
-                        currencyFormat.format(rs.getDouble("paid_amount")),
-                        currencyFormat.format(rs.getDouble("balance")),
-                        rs.getString("payment_status"),
-                        rs.getString("payment_method")
-                };
-                tableModel.addRow(row);
-            }
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error loading billing records: " + e.getMessage());
-        }
+        tableModel.load();
     }
 
     private void filterBillingRecords(JComboBox<String> filterComboBox) {
@@ -597,40 +556,10 @@ public class BillingManagementWindow extends JFrame {
             return;
         }
 
-        try {
-            String patientStr = filterComboBox.getSelectedItem().toString();
-            int patientId = Integer.parseInt(patientStr.split(" - ")[0]);
+        String patientStr = filterComboBox.getSelectedItem().toString();
+        int patientId = Integer.parseInt(patientStr.split(" - ")[0]);
 
-            String query = "SELECT b.id, p.name as patient_name, b.bill_date, " +
-                    "b.total_amount, b.paid_amount, " +
-                    "(b.total_amount - b.paid_amount) as balance, " +
-                    "b.payment_status, b.payment_method " +
-                    "FROM billing b " +
-                    "JOIN patients p ON b.patient_id = p.id " +
-                    "WHERE b.patient_id = ? " +
-                    "ORDER BY b.bill_date DESC";
-
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setInt(1, patientId);
-            ResultSet rs = stmt.executeQuery();
-
-            tableModel.setRowCount(0);
-            while (rs.next()) {
-                Object[] row = {
-                        rs.getInt("id"),
-                        rs.getString("patient_name"),
-                        rs.getDate("bill_date"),
-                        currencyFormat.format(rs.getDouble("total_amount")),
-                        currencyFormat.format(rs.getDouble("paid_amount")),
-                        currencyFormat.format(rs.getDouble("balance")),
-                        rs.getString("payment_status"),
-                        rs.getString("payment_method")
-                };
-                tableModel.addRow(row);
-            }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error filtering billing records: " + e.getMessage());
-        }
+        tableModel.load(BillingRepository.BY_PATIENT, new Object[] { patientId }, null);
     }
 
     private void filterByPaymentStatus(JComboBox<String> statusComboBox) {
@@ -640,44 +569,27 @@ public class BillingManagementWindow extends JFrame {
             return;
         }
 
-        try {
-            String status = statusComboBox.getSelectedItem().toString();
-
-            String query = "SELECT b.id, p.name as patient_name, b.bill_date, " +
-                    "b.total_amount, b.paid_amount, " +
-                    "(b.total_amount - b.paid_amount) as balance, " +
-                    "b.payment_status, b.payment_method " +
-                    "FROM billing b " +
-                    "JOIN patients p ON b.patient_id = p.id " +
-                    "WHERE b.payment_status = ? " +
-                    "ORDER BY b.bill_date DESC";
-
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setString(1, status);
-            ResultSet rs = stmt.executeQuery();
-
-            tableModel.setRowCount(0);
-            while (rs.next()) {
-                Object[] row = {
-                        rs.getInt("id"),
-                        rs.getString("patient_name"),
-                        rs.getDate("bill_date"),
-                        currencyFormat.format(rs.getDouble("total_amount")),
-                        currencyFormat.format(rs.getDouble("paid_amount")),
-                        currencyFormat.format(rs.getDouble("balance")),
-                        rs.getString("payment_status"),
-                        rs.getString("payment_method")
-                };
-                tableModel.addRow(row);
-            }
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error filtering by status: " + e.getMessage());
-        }
+        String status = statusComboBox.getSelectedItem().toString();
+
+        tableModel.load(BillingRepository.BY_PAYMENT_STATUS, new Object[] { status }, null);
+    }
+
+    private Object[] billRow(BillRecord bill) {
+        return new Object[] {
+                bill.getId(),
+                bill.getPatientName(),
+                bill.getBillDate(),
+                currencyFormat.get().format(bill.getTotalAmount()),
+                currencyFormat.get().format(bill.getPaidAmount()),
+                currencyFormat.get().format(bill.getBalance()),
+                bill.getPaymentStatus(),
+                bill.getPaymentMethod()
+        };
     }
 
     private void showBillDetails() {
         int selectedRow = billingTable.getSelectedRow();
-        if (selectedRow < 0)
+        if (selectedRow < 0 || tableModel.getRow(selectedRow) == null)
             return;
 
         int billId = (Integer) tableModel.getValueAt(selectedRow, 0);
@@ -685,70 +597,64 @@ public class BillingManagementWindow extends JFrame {
     }
 
     private void loadBillDetails(int billId) {
-        try {
-            String query = "SELECT b.*, p.name as patient_name, p.phone, p.address " +
-                    "FROM billing b " +
-                    "JOIN patients p ON b.patient_id = p.id " +
-                    "WHERE b.id = ?";
-
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setInt(1, billId);
-            ResultSet rs = stmt.executeQuery();
-
-            StringBuilder details = new StringBuilder();
-            if (rs.next()) {
-                details.append("===================== HOSPITAL BILL =====================\n\n");
-                details.append("Bill ID: ").append(rs.getInt("id")).append("\n");
-                details.append("Date: ").append(rs.getDate("bill_date")).append("\n\n");
-
-                details.append("PATIENT INFORMATION:\n");
-                details.append("Name: ").append(rs.getString("patient_name")).append("\n");
-                details.append("Phone: ").append(rs.getString("phone")).append("\n");
-                details.append("Address: ").append(rs.getString("address")).append("\n\n");
-
-                details.append("CHARGES BREAKDOWN:\n");
-                details.append("──────────────────────────────────────────────────────\n");
-                details.append("Consultation Fee:      ")
-                        .append(currencyFormat.format(rs.getDouble("consultation_fee"))).append("\n");
-                details.append("Medicine Charges:      ")
-                        .append(currencyFormat.format(rs.getDouble("medicine_charges"))).append("\n");
-                details.append("Lab Charges:           ").append(currencyFormat.format(rs.getDouble("lab_charges")))
-                        .append("\n");
-                details.append("Other Charges:         ").append(currencyFormat.format(rs.getDouble("other_charges")))
-                        .append("\n");
-                details.append("──────────────────────────────────────────────────────\n");
-                details.append("TOTAL AMOUNT:          ").append(currencyFormat.format(rs.getDouble("total_amount")))
-                        .append("\n\n");
-
-                details.append("PAYMENT INFORMATION:\n");
-                details.append("──────────────────────────────────────────────────────\n");
-                details.append("Paid Amount:           ").append(currencyFormat.format(rs.getDouble("paid_amount")))
-                        .append("\n");
-                details.append("Balance Due:           ").append(currencyFormat.format(
-                        rs.getDouble("total_amount") - rs.getDouble("paid_amount"))).append("\n");
-                details.append("Payment Status:        ").append(rs.getString("payment_status")).append("\n");
-                details.append("Payment Method:        ").append(rs.getString("payment_method")).append("\n");
-
-                if (rs.getDouble("insurance_claim_amount") > 0) {
-                    details.append("Insurance Claim:       ")
-                            .append(currencyFormat.format(rs.getDouble("insurance_claim_amount"))).append("\n");
-                }
-
-                if (rs.getString("notes") != null && !rs.getString("notes").trim().isEmpty()) {
-                    details.append("\nNOTES:\n");
-                    details.append(rs.getString("notes")).append("\n");
-                }
+        queries.run("billDetails", "Loading bill details", connection -> {
+            BillRecord bill = BillingRepository.find(connection, billId);
+            if (bill == null) {
+                return "";
+            }
+            PatientRecord patient = PatientRepository.find(connection, bill.getPatientId());
+
+            StringBuilder text = new StringBuilder();
+            text.append("===================== HOSPITAL BILL =====================\n\n");
+            text.append("Bill ID: ").append(bill.getId()).append("\n");
+            text.append("Date: ").append(bill.getBillDate()).append("\n\n");
+
+            text.append("PATIENT INFORMATION:\n");
+            text.append("Name: ").append(bill.getPatientName()).append("\n");
+            text.append("Phone: ").append(patient == null ? null : patient.getPhone()).append("\n");
+            text.append("Address: ").append(patient == null ? null : patient.getAddress()).append("\n\n");
+
+            text.append("CHARGES BREAKDOWN:\n");
+            text.append("──────────────────────────────────────────────────────\n");
+            text.append("Consultation Fee:      ")
+                    .append(currencyFormat.get().format(bill.getConsultationFee())).append("\n");
+            text.append("Medicine Charges:      ")
+                    .append(currencyFormat.get().format(bill.getMedicineCharges())).append("\n");
+            text.append("Lab Charges:           ")
+                    .append(currencyFormat.get().format(bill.getLabCharges())).append("\n");
+            text.append("Other Charges:         ")
+                    .append(currencyFormat.get().format(bill.getOtherCharges())).append("\n");
+            text.append("──────────────────────────────────────────────────────\n");
+            text.append("TOTAL AMOUNT:          ")
+                    .append(currencyFormat.get().format(bill.getTotalAmount())).append("\n\n");
+
+            text.append("PAYMENT INFORMATION:\n");
+            text.append("──────────────────────────────────────────────────────\n");
+            text.append("Paid Amount:           ")
+                    .append(currencyFormat.get().format(bill.getPaidAmount())).append("\n");
+            text.append("Balance Due:           ")
+                    .append(currencyFormat.get().format(bill.getBalance())).append("\n");
+            text.append("Payment Status:        ").append(bill.getPaymentStatus()).append("\n");
+            text.append("Payment Method:        ").append(bill.getPaymentMethod()).append("\n");
+
+            if (bill.getInsuranceClaimAmount() > 0) {
+                text.append("Insurance Claim:       ")
+                        .append(currencyFormat.get().format(bill.getInsuranceClaimAmount())).append("\n");
+            }
 
-                details.append("\nGenerated: ").append(rs.getTimestamp("created_at"));
-                details.append("\n======================================================");
+            if (bill.getNotes() != null && !bill.getNotes().trim().isEmpty()) {
+                text.append("\nNOTES:\n");
+                text.append(bill.getNotes()).append("\n");
             }
 
-            billDetailsArea.setText(details.toString());
+            text.append("\nGenerated: ")
+                    .append(bill.getCreatedAt() == null ? null : CREATED_FORMAT.format(bill.getCreatedAt()));
+            text.append("\n======================================================");
+            return text.toString();
+        }, details -> {
+            billDetailsArea.setText(details);
             billDetailsArea.setCaretPosition(0);
-
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error loading bill details: " + e.getMessage());
-        }
+        }, "Error loading bill details");
     }
 
     private void updatePayment() {
@@ -778,17 +684,10 @@ public class BillingManagementWindow extends JFrame {
         if (status == null)
             return;
 
-        try {
-            String query = "UPDATE billing SET paid_amount = ?, payment_method = ?, payment_status = ? WHERE id = ?";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setDouble(1, parseAmount(paidAmount));
-            stmt.setString(2, paymentMethod);
-            stmt.setString(3, status);
-            stmt.setInt(4, billId);
-
-            stmt.executeUpdate();
+        try (Connection connection = pool.getConnection()) {
+            BillingRepository.updatePayment(connection, billId, parseAmount(paidAmount), paymentMethod, status);
+            EventBus.shared().publish(new BillChanged(billId, Change.UPDATED));
             JOptionPane.showMessageDialog(this, "Payment updated successfully!");
-            loadBillingRecords();
             showBillDetails(); // Refresh details
 
         } catch (Exception e) {
@@ -1,5 +1,9 @@
 package HospitalManagementSystem.gui;
 
+import HospitalManagementSystem.db.ConnectionPool;
+import HospitalManagementSystem.db.DateRange;
+import HospitalManagementSystem.db.Jdbc;
+
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
@@ -8,15 +12,18 @@ import java.io.IOException;
 import java.sql.*;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.Map;
 
 public class ComprehensiveReportGenerator extends JFrame {
-    private Connection connection;
+    private final ConnectionPool pool;
+    private final BackgroundQueries queries;
     private JTextArea reportTextArea;
     private JComboBox<String> reportPeriodCombo;
     private JButton generateButton, saveButton, printButton;
 
-    public ComprehensiveReportGenerator(Connection connection) {
-        this.connection = connection;
+    public ComprehensiveReportGenerator(ConnectionPool pool) {
+        this.pool = pool;
+        this.queries = new BackgroundQueries(pool, this);
         initializeGUI();
     }
 
@@ -144,71 +151,43 @@ public class ComprehensiveReportGenerator extends JFrame {
         panel.add(printButton);
         panel.add(Box.createHorizontalStrut(20));
         panel.add(closeButton);
+        panel.add(queries.getProgressBar());
 
         return panel;
     }
 
     private void generateComprehensiveReport() {
-        try {
-            StringBuilder report = new StringBuilder();
-            String period = (String) reportPeriodCombo.getSelectedItem();
-            String dateCondition = getDateCondition(period);
+        String period = (String) reportPeriodCombo.getSelectedItem();
+        DateRange range = DateRange.forPeriod(period);
+
+        // Counters come from one aggregated query shared by all sections; the sections that query
+        // further then render side by side, each on its own connection
+        queries.runJob("report", "Generating report", () -> {
+            ReportPipeline pipeline = new ReportPipeline(pool);
+            ReportMetrics metrics = pipeline.load(connection -> ReportMetrics.load(connection, range));
+            ReportPipeline.Result sections = pipeline
+                    .add("Executive Summary", out -> generateExecutiveSummary(out, metrics))
+                    .add("Key Performance Indicators", out -> generateKPISection(out, metrics))
+                    .add("Detailed Statistics", (c, out) -> generateDetailedStatistics(c, out, metrics))
+                    .add("Patient Demographics", (c, out) -> generatePatientDemographics(c, out, metrics))
+                    .add("Doctor Performance", (c, out) -> generateDoctorPerformance(c, out, range))
+                    .add("Appointment Analytics", (c, out) -> generateAppointmentAnalytics(c, out, metrics, range))
+                    .add("Financial Overview", out -> generateFinancialOverview(out, metrics))
+                    .add("System Health", this::generateSystemHealth)
+                    .run();
 
-            // Report Header
+            StringBuilder report = new StringBuilder();
             generateReportHeader(report, period);
+            report.append(sections.getText());
+            generateReportFooter(report, sections.getTimings());
 
-            // Executive Summary
-            generateExecutiveSummary(report, dateCondition);
-
-            // Key Performance Indicators
-            generateKPISection(report, dateCondition);
-
-            // Detailed Statistics
-            generateDetailedStatistics(report, dateCondition);
-
-            // Patient Demographics
-            generatePatientDemographics(report);
-
-            // Doctor Performance
-            generateDoctorPerformance(report, dateCondition);
-
-            // Appointment Analytics
-            generateAppointmentAnalytics(report, dateCondition);
-
-            // Financial Overview (Simulated)
-            generateFinancialOverview(report, dateCondition);
-
-            // System Health
-            generateSystemHealth(report);
-
-            // Report Footer
-            generateReportFooter(report);
-
-            reportTextArea.setText(report.toString());
+            return report.toString();
+        }, report -> {
+            reportTextArea.setText(report);
+            reportTextArea.setCaretPosition(0);
             saveButton.setEnabled(true);
             printButton.setEnabled(true);
-
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error generating report: " + e.getMessage(),
-                    "Database Error", JOptionPane.ERROR_MESSAGE);
-        }
-    }
-
-    private String getDateCondition(String period) {
-        switch (period) {
-            case "Last 7 Days":
-                return "WHERE DATE(created_at) >= DATE_SUB(CURDATE(), INTERVAL 7 DAY) OR DATE(appointment_date) >= DATE_SUB(CURDATE(), INTERVAL 7 DAY)";
-            case "Last 30 Days":
-                return "WHERE DATE(created_at) >= DATE_SUB(CURDATE(), INTERVAL 30 DAY) OR DATE(appointment_date) >= DATE_SUB(CURDATE(), INTERVAL 30 DAY)";
-            case "Last 3 Months":
-                return "WHERE DATE(created_at) >= DATE_SUB(CURDATE(), INTERVAL 3 MONTH) OR DATE(appointment_date) >= DATE_SUB(CURDATE(), INTERVAL 3 MONTH)";
-            case "Last 6 Months":
-                return "WHERE DATE(created_at) >= DATE_SUB(CURDATE(), INTERVAL 6 MONTH) OR DATE(appointment_date) >= DATE_SUB(CURDATE(), INTERVAL 6 MONTH)";
-            case "Last Year":
-                return "WHERE DATE(created_at) >= DATE_SUB(CURDATE(), INTERVAL 1 YEAR) OR DATE(appointment_date) >= DATE_SUB(CURDATE(), INTERVAL 1 YEAR)";
-            default:
-                return "";
-        }
+        }, "Error generating report");
     }
 
     private void generateReportHeader(StringBuilder report, String period) {
@@ -226,15 +205,15 @@ public class ComprehensiveReportGenerator extends JFrame {
         report.append("================================================================================\n\n");
     }
 
-    private void generateExecutiveSummary(StringBuilder report, String dateCondition) throws SQLException {
+    private void generateExecutiveSummary(StringBuilder report, ReportMetrics metrics) {
         report.append("EXECUTIVE SUMMARY\n");
         report.append("================================================================================\n\n");
 
         // Get key metrics
-        int totalPatients = getCount("SELECT COUNT(*) FROM patients");
-        int totalDoctors = getCount("SELECT COUNT(*) FROM doctors");
-        int totalAppointments = getCount("SELECT COUNT(*) FROM appointments");
-        int completedAppointments = getCount("SELECT COUNT(*) FROM appointments WHERE status = 'Completed'");
+        int totalPatients = metrics.getPatientCount();
+        int totalDoctors = metrics.getDoctorCount();
+        int totalAppointments = metrics.getAppointmentCount();
+        int completedAppointments = metrics.getCompletedCount();
 
         double completionRate = totalAppointments > 0 ? (completedAppointments * 100.0 / totalAppointments) : 0;
 
@@ -253,30 +232,29 @@ public class ComprehensiveReportGenerator extends JFrame {
         report.append("================================================================================\n\n");
     }
 
-    private void generateKPISection(StringBuilder report, String dateCondition) throws SQLException {
+    private void generateKPISection(StringBuilder report, ReportMetrics metrics) {
         report.append("KEY PERFORMANCE INDICATORS (KPIs)\n");
         report.append("================================================================================\n\n");
 
         // Patient KPIs
         report.append("PATIENT METRICS:\n");
-        report.append("├─ Total Patients: ").append(getCount("SELECT COUNT(*) FROM patients")).append("\n");
-        report.append("├─ Male Patients: ").append(getCount("SELECT COUNT(*) FROM patients WHERE gender = 'Male'"))
-                .append("\n");
-        report.append("├─ Female Patients: ").append(getCount("SELECT COUNT(*) FROM patients WHERE gender = 'Female'"))
-                .append("\n");
-        report.append("└─ Average Age: ").append(getAverageAge()).append(" years\n\n");
+        report.append("├─ Total Patients: ").append(metrics.getPatientCount()).append("\n");
+        report.append("├─ Male Patients: ").append(metrics.getMaleCount()).append("\n");
+        report.append("├─ Female Patients: ").append(metrics.getFemaleCount()).append("\n");
+        report.append("└─ Average Age: ").append(metrics.getAverageAge()).append(" years\n\n");
 
         // Doctor KPIs
         report.append("MEDICAL STAFF METRICS:\n");
-        report.append("├─ Total Doctors: ").append(getCount("SELECT COUNT(*) FROM doctors")).append("\n");
-        report.append("├─ Specializations: ").append(getSpecializationCount()).append("\n");
-        report.append("└─ Average Patients per Doctor: ").append(getAveragePatientsPerDoctor()).append("\n\n");
+        report.append("├─ Total Doctors: ").append(metrics.getDoctorCount()).append("\n");
+        report.append("├─ Specializations: ").append(metrics.getSpecializationCount()).append("\n");
+        report.append("└─ Average Patients per Doctor: ").append(metrics.getAveragePatientsPerDoctor())
+                .append("\n\n");
 
         // Appointment KPIs
         report.append("APPOINTMENT METRICS:\n");
-        int scheduled = getCount("SELECT COUNT(*) FROM appointments WHERE status = 'Scheduled'");
-        int completed = getCount("SELECT COUNT(*) FROM appointments WHERE status = 'Completed'");
-        int cancelled = getCount("SELECT COUNT(*) FROM appointments WHERE status = 'Cancelled'");
+        int scheduled = metrics.getScheduledCount();
+        int completed = metrics.getCompletedCount();
+        int cancelled = metrics.getCancelledCount();
 
         report.append("├─ Scheduled: ").append(scheduled).append("\n");
         report.append("├─ Completed: ").append(completed).append("\n");
@@ -288,37 +266,33 @@ public class ComprehensiveReportGenerator extends JFrame {
         report.append("================================================================================\n\n");
     }
 
-    private void generateDetailedStatistics(StringBuilder report, String dateCondition) throws SQLException {
+    private void generateDetailedStatistics(Connection connection, StringBuilder report, ReportMetrics metrics) {
         report.append("DETAILED STATISTICAL ANALYSIS\n");
         report.append("================================================================================\n\n");
 
         // Age Distribution
         report.append("PATIENT AGE DISTRIBUTION:\n");
-        report.append("├─ 0-18 years: ").append(getCount("SELECT COUNT(*) FROM patients WHERE age BETWEEN 0 AND 18"))
-                .append(" patients\n");
-        report.append("├─ 19-35 years: ").append(getCount("SELECT COUNT(*) FROM patients WHERE age BETWEEN 19 AND 35"))
-                .append(" patients\n");
-        report.append("├─ 36-55 years: ").append(getCount("SELECT COUNT(*) FROM patients WHERE age BETWEEN 36 AND 55"))
-                .append(" patients\n");
-        report.append("├─ 56-70 years: ").append(getCount("SELECT COUNT(*) FROM patients WHERE age BETWEEN 56 AND 70"))
-                .append(" patients\n");
-        report.append("└─ 70+ years: ").append(getCount("SELECT COUNT(*) FROM patients WHERE age > 70"))
-                .append(" patients\n\n");
+        int[] ageGroups = metrics.getAgeGroups();
+        report.append("├─ 0-18 years: ").append(ageGroups[0]).append(" patients\n");
+        report.append("├─ 19-35 years: ").append(ageGroups[1]).append(" patients\n");
+        report.append("├─ 36-55 years: ").append(ageGroups[2]).append(" patients\n");
+        report.append("├─ 56-70 years: ").append(ageGroups[3]).append(" patients\n");
+        report.append("└─ 70+ years: ").append(ageGroups[4]).append(" patients\n\n");
 
         // Monthly Trends
         report.append("MONTHLY APPOINTMENT TRENDS:\n");
-        generateMonthlyTrends(report);
+        generateMonthlyTrends(connection, report);
 
         report.append("================================================================================\n\n");
     }
 
-    private void generatePatientDemographics(StringBuilder report) throws SQLException {
+    private void generatePatientDemographics(Connection connection, StringBuilder report, ReportMetrics metrics) {
         report.append("PATIENT DEMOGRAPHICS ANALYSIS\n");
         report.append("================================================================================\n\n");
 
         report.append("GENDER DISTRIBUTION:\n");
-        int maleCount = getCount("SELECT COUNT(*) FROM patients WHERE gender = 'Male'");
-        int femaleCount = getCount("SELECT COUNT(*) FROM patients WHERE gender = 'Female'");
+        int maleCount = metrics.getMaleCount();
+        int femaleCount = metrics.getFemaleCount();
         int totalPatients = maleCount + femaleCount;
 
         if (totalPatients > 0) {
@@ -333,46 +307,44 @@ public class ComprehensiveReportGenerator extends JFrame {
 
         // Geographic Distribution (simulated based on address patterns)
         report.append("TOP PATIENT LOCATIONS:\n");
-        generateLocationAnalysis(report);
+        generateLocationAnalysis(connection, report);
 
         report.append("================================================================================\n\n");
     }
 
-    private void generateDoctorPerformance(StringBuilder report, String dateCondition) throws SQLException {
+    private void generateDoctorPerformance(Connection connection, StringBuilder report, DateRange range) {
         report.append("DOCTOR PERFORMANCE ANALYSIS\n");
         report.append("================================================================================\n\n");
 
         report.append("SPECIALIZATION BREAKDOWN:\n");
         try {
             String query = "SELECT specialization, COUNT(*) as count FROM doctors GROUP BY specialization ORDER BY count DESC";
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-
-            while (rs.next()) {
+            Jdbc.forEach(connection, query, rs -> {
                 String specialization = rs.getString("specialization");
                 int count = rs.getInt("count");
                 report.append("├─ ").append(specialization).append(": ").append(count).append(" doctors\n");
-            }
+            });
         } catch (SQLException e) {
             report.append("├─ Unable to retrieve specialization data\n");
         }
 
         report.append("\nTOP PERFORMING DOCTORS (by appointment count):\n");
-        generateTopDoctors(report);
+        generateTopDoctors(connection, report, range);
 
         report.append("================================================================================\n\n");
     }
 
-    private void generateAppointmentAnalytics(StringBuilder report, String dateCondition) throws SQLException {
+    private void generateAppointmentAnalytics(Connection connection, StringBuilder report, ReportMetrics metrics,
+            DateRange range) {
         report.append("APPOINTMENT ANALYTICS\n");
         report.append("================================================================================\n\n");
 
         // Status Distribution
         report.append("APPOINTMENT STATUS DISTRIBUTION:\n");
-        int scheduled = getCount("SELECT COUNT(*) FROM appointments WHERE status = 'Scheduled'");
-        int completed = getCount("SELECT COUNT(*) FROM appointments WHERE status = 'Completed'");
-        int cancelled = getCount("SELECT COUNT(*) FROM appointments WHERE status = 'Cancelled'");
-        int pending = getCount("SELECT COUNT(*) FROM appointments WHERE status = 'Pending'");
+        int scheduled = metrics.getScheduledCount();
+        int completed = metrics.getCompletedCount();
+        int cancelled = metrics.getCancelledCount();
+        int pending = metrics.getPendingCount();
 
         report.append("├─ Scheduled: ").append(scheduled).append("\n");
         report.append("├─ Completed: ").append(completed).append("\n");
@@ -381,22 +353,17 @@ public class ComprehensiveReportGenerator extends JFrame {
 
         // Peak Hours Analysis
         report.append("PEAK APPOINTMENT HOURS:\n");
-        generatePeakHoursAnalysis(report);
+        generatePeakHoursAnalysis(connection, report, range);
 
         report.append("================================================================================\n\n");
     }
 
-    private void generateFinancialOverview(StringBuilder report, String dateCondition) {
+    private void generateFinancialOverview(StringBuilder report, ReportMetrics metrics) {
         report.append("FINANCIAL OVERVIEW (ESTIMATED)\n");
         report.append("================================================================================\n\n");
 
         // Simulated financial data
-        int totalAppointments = 0;
-        try {
-            totalAppointments = getCount("SELECT COUNT(*) FROM appointments WHERE status = 'Completed'");
-        } catch (SQLException e) {
-            totalAppointments = 0;
-        }
+        int totalAppointments = metrics.getCompletedCount();
 
         double avgConsultationFee = 50.0; // Estimated
         double totalRevenue = totalAppointments * avgConsultationFee;
@@ -415,14 +382,14 @@ public class ComprehensiveReportGenerator extends JFrame {
         report.append("================================================================================\n\n");
     }
 
-    private void generateSystemHealth(StringBuilder report) {
+    private void generateSystemHealth(Connection connection, StringBuilder report) {
         report.append("SYSTEM HEALTH & PERFORMANCE\n");
         report.append("================================================================================\n\n");
 
         // Database connectivity and performance
         long startTime = System.currentTimeMillis();
         try {
-            getCount("SELECT 1");
+            Jdbc.queryOne(connection, "SELECT 1", rs -> rs.getInt(1));
             long responseTime = System.currentTimeMillis() - startTime;
 
             report.append("DATABASE PERFORMANCE:\n");
@@ -445,7 +412,7 @@ public class ComprehensiveReportGenerator extends JFrame {
         report.append("================================================================================\n\n");
     }
 
-    private void generateReportFooter(StringBuilder report) {
+    private void generateReportFooter(StringBuilder report, Map<String, Long> timings) {
         SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
         String timestamp = sdf.format(new Date());
 
@@ -462,6 +429,14 @@ public class ComprehensiveReportGenerator extends JFrame {
         report.append("• Monitor appointment cancellation rates\n");
         report.append("• Schedule system maintenance during off-peak hours\n\n");
 
+        report.append("SECTION TIMINGS:\n");
+        int remaining = timings.size();
+        for (Map.Entry<String, Long> timing : timings.entrySet()) {
+            report.append(--remaining > 0 ? "├─ " : "└─ ").append(timing.getKey()).append(": ")
+                    .append(timing.getValue()).append("ms\n");
+        }
+        report.append("\n");
+
         report.append("================================================================================\n");
         report.append("Report generated by Hospital Management System v2.0.1\n");
         report.append("Generated on: ").append(timestamp).append("\n");
@@ -470,63 +445,32 @@ public class ComprehensiveReportGenerator extends JFrame {
     }
 
     // Helper methods
-    private int getCount(String query) throws SQLException {
-        Statement stmt = connection.createStatement();
-        ResultSet rs = stmt.executeQuery(query);
-        if (rs.next()) {
-            return rs.getInt(1);
-        }
-        return 0;
-    }
-
-    private double getAverageAge() throws SQLException {
-        String query = "SELECT AVG(age) FROM patients";
-        Statement stmt = connection.createStatement();
-        ResultSet rs = stmt.executeQuery(query);
-        if (rs.next()) {
-            return rs.getDouble(1);
-        }
-        return 0.0;
-    }
-
-    private int getSpecializationCount() throws SQLException {
-        return getCount("SELECT COUNT(DISTINCT specialization) FROM doctors");
-    }
-
-    private double getAveragePatientsPerDoctor() throws SQLException {
-        int totalPatients = getCount("SELECT COUNT(*) FROM patients");
-        int totalDoctors = getCount("SELECT COUNT(*) FROM doctors");
-        return totalDoctors > 0 ? (double) totalPatients / totalDoctors : 0;
-    }
-
-    private void generateMonthlyTrends(StringBuilder report) throws SQLException {
+    private void generateMonthlyTrends(Connection connection, StringBuilder report) {
         try {
-            String query = "SELECT MONTH(appointment_date) as month, COUNT(*) as count " +
-                    "FROM appointments " +
-                    "WHERE YEAR(appointment_date) = YEAR(CURDATE()) " +
+            DateRange thisYear = DateRange.thisYear();
+            String query = "SELECT MONTH(appointment_date) as month, SUM(appointment_count) as count " +
+                    "FROM appointment_daily_rollup " +
+                    "WHERE " + thisYear.condition("appointment_date") + " " +
                     "GROUP BY MONTH(appointment_date) " +
                     "ORDER BY month";
 
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-
             String[] months = { "Jan", "Feb", "Mar", "Apr", "May", "Jun",
                     "Jul", "Aug", "Sep", "Oct", "Nov", "Dec" };
 
-            while (rs.next()) {
+            Jdbc.forEach(connection, query, rs -> {
                 int month = rs.getInt("month");
                 int count = rs.getInt("count");
                 if (month >= 1 && month <= 12) {
                     report.append("├─ ").append(months[month - 1]).append(": ").append(count).append(" appointments\n");
                 }
-            }
+            }, thisYear.params());
         } catch (SQLException e) {
             report.append("├─ Unable to retrieve monthly trends\n");
         }
         report.append("\n");
     }
 
-    private void generateLocationAnalysis(StringBuilder report) throws SQLException {
+    private void generateLocationAnalysis(Connection connection, StringBuilder report) {
         try {
             String query = "SELECT SUBSTRING_INDEX(address, ',', -1) as location, COUNT(*) as count " +
                     "FROM patients " +
@@ -534,62 +478,55 @@ public class ComprehensiveReportGenerator extends JFrame {
                     "ORDER BY count DESC " +
                     "LIMIT 5";
 
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-
-            while (rs.next()) {
+            Jdbc.forEach(connection, query, rs -> {
                 String location = rs.getString("location").trim();
                 int count = rs.getInt("count");
                 report.append("├─ ").append(location).append(": ").append(count).append(" patients\n");
-            }
+            });
         } catch (SQLException e) {
             report.append("├─ Unable to retrieve location data\n");
         }
         report.append("\n");
     }
 
-    private void generateTopDoctors(StringBuilder report) throws SQLException {
+    private void generateTopDoctors(Connection connection, StringBuilder report, DateRange range) {
         try {
-            String query = "SELECT d.name, d.specialization, COUNT(a.id) as appointment_count " +
+            String query = "SELECT d.name, d.specialization, COALESCE(SUM(r.appointment_count), 0) as appointment_count " +
                     "FROM doctors d " +
-                    "LEFT JOIN appointments a ON d.id = a.doctor_id " +
+                    "LEFT JOIN appointment_daily_rollup r ON d.id = r.doctor_id AND " +
+                    range.condition("r.appointment_date") + " " +
                     "GROUP BY d.id, d.name, d.specialization " +
                     "ORDER BY appointment_count DESC " +
                     "LIMIT 5";
 
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-
-            while (rs.next()) {
+            Jdbc.forEach(connection, query, rs -> {
                 String name = rs.getString("name");
                 String specialization = rs.getString("specialization");
                 int appointmentCount = rs.getInt("appointment_count");
                 report.append("├─ Dr. ").append(name).append(" (").append(specialization).append("): ")
                         .append(appointmentCount).append(" appointments\n");
-            }
+            }, range.params());
         } catch (SQLException e) {
             report.append("├─ Unable to retrieve doctor performance data\n");
         }
         report.append("\n");
     }
 
-    private void generatePeakHoursAnalysis(StringBuilder report) throws SQLException {
+    private void generatePeakHoursAnalysis(Connection connection, StringBuilder report, DateRange range) {
         try {
-            String query = "SELECT HOUR(appointment_time) as hour, COUNT(*) as count " +
-                    "FROM appointments " +
-                    "GROUP BY HOUR(appointment_time) " +
+            String query = "SELECT appointment_hour as hour, SUM(appointment_count) as count " +
+                    "FROM appointment_daily_rollup " +
+                    "WHERE " + range.condition("appointment_date") + " AND appointment_hour >= 0 " +
+                    "GROUP BY appointment_hour " +
                     "ORDER BY count DESC " +
                     "LIMIT 5";
 
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-
-            while (rs.next()) {
+            Jdbc.forEach(connection, query, rs -> {
                 int hour = rs.getInt("hour");
                 int count = rs.getInt("count");
                 String timeSlot = String.format("%02d:00 - %02d:00", hour, hour + 1);
                 report.append("├─ ").append(timeSlot).append(": ").append(count).append(" appointments\n");
-            }
+            }, range.params());
         } catch (SQLException e) {
             report.append("├─ Unable to retrieve peak hours data\n");
         }
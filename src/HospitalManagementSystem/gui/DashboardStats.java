@@ -0,0 +1,126 @@
+package HospitalManagementSystem.gui;
+
+import HospitalManagementSystem.db.Jdbc;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Snapshot of the dashboard figures, read with a single query. Patients and doctors are each
+ * read once, and every appointment figure except the busiest doctor comes from one pass over
+ * appointments. The busiest doctor takes a second pass, grouped by doctor_id, whose winner's
+ * name is then read by primary key. The most common gender is picked here from the per-gender
+ * counts of the patients pass, so genders other than those the forms offer are not counted.
+ */
+public class DashboardStats {
+    private static final String[] GENDERS = { "Male", "Female", "Other" };
+
+    private static final String QUERY = "SELECT p.patient_count, p.avg_age, " +
+            "p.male_count, p.female_count, p.other_count, d.doctor_count, " +
+            "a.today_count, a.week_count, a.completed_count, a.pending_count, a.next_date, " +
+            "(SELECT dr.name FROM (SELECT doctor_id FROM appointments " +
+            "GROUP BY doctor_id ORDER BY COUNT(*) DESC LIMIT 1) top " +
+            "JOIN doctors dr ON dr.id = top.doctor_id) AS busiest_doctor " +
+            "FROM (SELECT COUNT(*) AS patient_count, AVG(age) AS avg_age, " +
+            "COALESCE(SUM(gender = 'Male'), 0) AS male_count, " +
+            "COALESCE(SUM(gender = 'Female'), 0) AS female_count, " +
+            "COALESCE(SUM(gender = 'Other'), 0) AS other_count FROM patients) p " +
+            "CROSS JOIN (SELECT COUNT(*) AS doctor_count FROM doctors) d " +
+            "CROSS JOIN (SELECT " +
+            "COALESCE(SUM(appointment_date = CURDATE()), 0) AS today_count, " +
+            "COALESCE(SUM(YEARWEEK(appointment_date) = YEARWEEK(CURDATE())), 0) AS week_count, " +
+            "COALESCE(SUM(status = 'Completed'), 0) AS completed_count, " +
+            "COALESCE(SUM(status = 'Scheduled' AND appointment_date >= CURDATE()), 0) AS pending_count, " +
+            "MIN(CASE WHEN appointment_date > CURDATE() THEN appointment_date END) AS next_date " +
+            "FROM appointments) a";
+
+    private final int patientCount;
+    private final int doctorCount;
+    private final int todayAppointments;
+    private final int thisWeekAppointments;
+    private final int completedAppointments;
+    private final int pendingAppointments;
+    private final double averageAge;
+    private final String mostCommonGender;
+    private final String busiestDoctor;
+    private final Date nextAppointment;
+    private final long loadedAt;
+
+    private DashboardStats(ResultSet rs) throws SQLException {
+        patientCount = rs.getInt("patient_count");
+        doctorCount = rs.getInt("doctor_count");
+        todayAppointments = rs.getInt("today_count");
+        thisWeekAppointments = rs.getInt("week_count");
+        completedAppointments = rs.getInt("completed_count");
+        pendingAppointments = rs.getInt("pending_count");
+        averageAge = rs.getDouble("avg_age");
+        mostCommonGender = mostCommon(rs.getInt("male_count"), rs.getInt("female_count"), rs.getInt("other_count"));
+        busiestDoctor = rs.getString("busiest_doctor");
+        nextAppointment = rs.getDate("next_date");
+        loadedAt = System.currentTimeMillis();
+    }
+
+    // The first of the largest counts, in GENDERS order; null if all are zero
+    private static String mostCommon(int... counts) {
+        int best = 0;
+        for (int i = 1; i < counts.length; i++) {
+            if (counts[i] > counts[best]) {
+                best = i;
+            }
+        }
+        return counts[best] == 0 ? null : GENDERS[best];
+    }
+
+    public static DashboardStats load(Connection connection) throws SQLException {
+        return Jdbc.queryOne(connection, QUERY, DashboardStats::new);
+    }
+
+    public int getPatientCount() {
+        return patientCount;
+    }
+
+    public int getDoctorCount() {
+        return doctorCount;
+    }
+
+    public int getTodayAppointments() {
+        return todayAppointments;
+    }
+
+    public int getThisWeekAppointments() {
+        return thisWeekAppointments;
+    }
+
+    public int getCompletedAppointments() {
+        return completedAppointments;
+    }
+
+    public int getPendingAppointments() {
+        return pendingAppointments;
+    }
+
+    public double getAverageAge() {
+        return averageAge;
+    }
+
+    /** Null when no patient has one of the genders the forms offer. */
+    public String getMostCommonGender() {
+        return mostCommonGender;
+    }
+
+    /** Null when there are no appointments. */
+    public String getBusiestDoctor() {
+        return busiestDoctor;
+    }
+
+    /** Null when no appointment is scheduled after today. */
+    public Date getNextAppointment() {
+        return nextAppointment;
+    }
+
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+}
@@ -1,25 +1,38 @@
 package HospitalManagementSystem.gui;
 
+import HospitalManagementSystem.core.DoctorRecord;
+import HospitalManagementSystem.core.DoctorRepository;
+import HospitalManagementSystem.db.ConnectionPool;
+import HospitalManagementSystem.events.DoctorChanged;
+import HospitalManagementSystem.events.EntityChanged.Change;
+import HospitalManagementSystem.events.EventBus;
+import HospitalManagementSystem.search.SearchIndexes;
+
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.sql.*;
-import java.util.Vector;
 
 public class DoctorManagementWindow extends JFrame {
-    private Connection connection;
+    private final ConnectionPool pool;
+    private final BackgroundQueries queries;
+    private final IncrementalSearch search;
     private JTable doctorTable;
-    private DefaultTableModel tableModel;
+    private PagedTableModel tableModel;
     private JTextField searchField;
     private JTextField nameField, specializationField, phoneField, emailField;
     private JButton addButton, updateButton, deleteButton, clearButton;
     private int selectedDoctorId = -1;
 
-    public DoctorManagementWindow(Connection connection) {
-        this.connection = connection;
+    public DoctorManagementWindow(ConnectionPool pool) {
+        this.pool = pool;
+        this.queries = new BackgroundQueries(pool, this);
         initializeGUI();
+        this.search = new IncrementalSearch(tableModel, DoctorRepository.SEARCH, 1, 2, 3);
+        search.useIndex(SearchIndexes.doctors());
+        search.attach(searchField);
         loadDoctorData();
+        EventBus.shared().subscribe(this, DoctorChanged.class, tableModel::apply);
     }
 
     private void initializeGUI() {
@@ -58,11 +71,6 @@ public class DoctorManagementWindow extends JFrame {
 
         searchField = new JTextField(20);
         searchField.setFont(new Font("Arial", Font.PLAIN, 14));
-        searchField.addKeyListener(new java.awt.event.KeyAdapter() {
-            public void keyReleased(java.awt.event.KeyEvent evt) {
-                searchDoctors();
-            }
-        });
 
         panel.add(titleLabel);
         panel.add(Box.createHorizontalStrut(50));
@@ -78,12 +86,8 @@ public class DoctorManagementWindow extends JFrame {
         panel.setBorder(new EmptyBorder(20, 20, 20, 10));
 
         String[] columnNames = { "ID", "Name", "Specialization", "Phone", "Email" };
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new PagedTableModel(queries, "doctors", "doctors", columnNames,
+                DoctorRepository.PAGES, rs -> doctorRow(DoctorRepository.map(rs)));
 
         doctorTable = new JTable(tableModel);
         doctorTable.setFont(new Font("Arial", Font.PLAIN, 14));
@@ -169,6 +173,7 @@ public class DoctorManagementWindow extends JFrame {
         panel.add(updateButton);
         panel.add(deleteButton);
         panel.add(clearButton);
+        panel.add(queries.getProgressBar());
 
         return panel;
     }
@@ -184,85 +189,51 @@ public class DoctorManagementWindow extends JFrame {
     }
 
     private void loadDoctorData() {
-        try {
-            String query = "SELECT * FROM doctors ORDER BY id";
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-
-            tableModel.setRowCount(0);
-
-            while (rs.next()) {
-                Vector<Object> row = new Vector<>();
-                row.add(rs.getInt("id"));
-                row.add(rs.getString("name"));
-                row.add(rs.getString("specialization"));
-                row.add(rs.getString("phone"));
-                row.add(rs.getString("email"));
-                tableModel.addRow(row);
-            }
-
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error loading doctor data: " + e.getMessage(),
-                    "Database Error", JOptionPane.ERROR_MESSAGE);
-        }
+        search.refresh();
     }
 
-    private void searchDoctors() {
-        String searchText = searchField.getText().toLowerCase();
-
-        try {
-            String query = "SELECT * FROM doctors WHERE LOWER(name) LIKE ? OR LOWER(specialization) LIKE ? OR LOWER(phone) LIKE ? ORDER BY id";
-            PreparedStatement pstmt = connection.prepareStatement(query);
-            String searchPattern = "%" + searchText + "%";
-            pstmt.setString(1, searchPattern);
-            pstmt.setString(2, searchPattern);
-            pstmt.setString(3, searchPattern);
-
-            ResultSet rs = pstmt.executeQuery();
-
-            tableModel.setRowCount(0);
-
-            while (rs.next()) {
-                Vector<Object> row = new Vector<>();
-                row.add(rs.getInt("id"));
-                row.add(rs.getString("name"));
-                row.add(rs.getString("specialization"));
-                row.add(rs.getString("phone"));
-                row.add(rs.getString("email"));
-                tableModel.addRow(row);
-            }
+    private Object[] doctorRow(DoctorRecord doctor) {
+        return new Object[] {
+                doctor.getId(),
+                doctor.getName(),
+                doctor.getSpecialization(),
+                doctor.getPhone(),
+                doctor.getEmail()
+        };
+    }
 
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error searching doctors: " + e.getMessage(),
-                    "Database Error", JOptionPane.ERROR_MESSAGE);
-        }
+    private DoctorRecord formDoctor(int id) {
+        return new DoctorRecord(id,
+                nameField.getText().trim(),
+                specializationField.getText().trim(),
+                phoneField.getText().trim(),
+                emailField.getText().trim());
     }
 
     private void populateFormFromTable(int selectedRow) {
-        selectedDoctorId = (Integer) tableModel.getValueAt(selectedRow, 0);
-        nameField.setText((String) tableModel.getValueAt(selectedRow, 1));
-        specializationField.setText((String) tableModel.getValueAt(selectedRow, 2));
-        phoneField.setText((String) tableModel.getValueAt(selectedRow, 3));
-        emailField.setText((String) tableModel.getValueAt(selectedRow, 4));
+        Object[] row = tableModel.getRow(selectedRow);
+        if (row == null)
+            return; // page not loaded yet
+
+        selectedDoctorId = (Integer) row[0];
+        nameField.setText((String) row[1]);
+        specializationField.setText((String) row[2]);
+        phoneField.setText((String) row[3]);
+        emailField.setText((String) row[4]);
     }
 
     private void addDoctor() {
         if (!validateForm())
             return;
 
-        try {
-            String query = "INSERT INTO doctors (name, specialization, phone, email) VALUES (?, ?, ?, ?)";
-            PreparedStatement pstmt = connection.prepareStatement(query);
-            pstmt.setString(1, nameField.getText().trim());
-            pstmt.setString(2, specializationField.getText().trim());
-            pstmt.setString(3, phoneField.getText().trim());
-            pstmt.setString(4, emailField.getText().trim());
-
-            int result = pstmt.executeUpdate();
-            if (result > 0) {
+        try (Connection connection = pool.getConnection()) {
+            DoctorRecord doctor = formDoctor(0);
+            int id = DoctorRepository.insert(connection, doctor);
+            if (id > 0) {
+                SearchIndexes.doctors().put(id, doctor.getName(), doctor.getSpecialization(), doctor.getPhone());
+                EventBus.shared().publish(new DoctorChanged(id, Change.ADDED));
                 JOptionPane.showMessageDialog(this, "Doctor added successfully!",
                         "Success", JOptionPane.INFORMATION_MESSAGE);
-                loadDoctorData();
                 clearForm();
             }
 
@@ -282,20 +253,14 @@ public class DoctorManagementWindow extends JFrame {
         if (!validateForm())
             return;
 
-        try {
-            String query = "UPDATE doctors SET name=?, specialization=?, phone=?, email=? WHERE id=?";
-            PreparedStatement pstmt = connection.prepareStatement(query);
-            pstmt.setString(1, nameField.getText().trim());
-            pstmt.setString(2, specializationField.getText().trim());
-            pstmt.setString(3, phoneField.getText().trim());
-            pstmt.setString(4, emailField.getText().trim());
-            pstmt.setInt(5, selectedDoctorId);
-
-            int result = pstmt.executeUpdate();
-            if (result > 0) {
+        try (Connection connection = pool.getConnection()) {
+            DoctorRecord doctor = formDoctor(selectedDoctorId);
+            if (DoctorRepository.update(connection, doctor)) {
+                SearchIndexes.doctors().put(selectedDoctorId, doctor.getName(), doctor.getSpecialization(),
+                        doctor.getPhone());
+                EventBus.shared().publish(new DoctorChanged(selectedDoctorId, Change.UPDATED));
                 JOptionPane.showMessageDialog(this, "Doctor updated successfully!",
                         "Success", JOptionPane.INFORMATION_MESSAGE);
-                loadDoctorData();
                 clearForm();
             }
 
@@ -317,16 +282,12 @@ public class DoctorManagementWindow extends JFrame {
                 "Confirm Deletion", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            try {
-                String query = "DELETE FROM doctors WHERE id=?";
-                PreparedStatement pstmt = connection.prepareStatement(query);
-                pstmt.setInt(1, selectedDoctorId);
-
-                int result = pstmt.executeUpdate();
-                if (result > 0) {
+            try (Connection connection = pool.getConnection()) {
+                if (DoctorRepository.delete(connection, selectedDoctorId)) {
+                    SearchIndexes.doctors().remove(selectedDoctorId);
+                    EventBus.shared().publish(new DoctorChanged(selectedDoctorId, Change.DELETED));
                     JOptionPane.showMessageDialog(this, "Doctor deleted successfully!",
                             "Success", JOptionPane.INFORMATION_MESSAGE);
-                    loadDoctorData();
                     clearForm();
                 }
 
@@ -0,0 +1,146 @@
+package HospitalManagementSystem.gui;
+
+import HospitalManagementSystem.db.Jdbc;
+
+import javax.swing.*;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * The {@code drug_interactions} table held in memory as a symmetric adjacency map keyed by
+ * medicine id, so a whole prescription is checked without any query.
+ *
+ * The table is read once and shared like {@link ReferenceData}: it is read again after
+ * {@link #invalidate()} or once the cache TTL has passed.
+ */
+public class DrugInteractions {
+    private static DrugInteractions cached;
+    private static long loadedAt;
+    private static int version;
+
+    // medicine id -> interacting medicine id -> { level, description }
+    private final Map<Integer, Map<Integer, String[]>> adjacency;
+
+    /** An interaction found between two medicines of a prescription. */
+    public static class Interaction {
+        private final Medicine first;
+        private final Medicine second;
+        private final String level;
+        private final String description;
+
+        Interaction(Medicine first, Medicine second, String level, String description) {
+            this.first = first;
+            this.second = second;
+            this.level = level;
+            this.description = description;
+        }
+
+        public Medicine getFirst() {
+            return first;
+        }
+
+        public Medicine getSecond() {
+            return second;
+        }
+
+        public String getLevel() {
+            return level;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private DrugInteractions(Map<Integer, Map<Integer, String[]>> adjacency) {
+        this.adjacency = adjacency;
+    }
+
+    /**
+     * Passes the interaction table to {@code onLoaded} on the EDT, reading it in the background
+     * under {@code key} only if it is not cached.
+     */
+    public static void load(BackgroundQueries queries, String key, Consumer<DrugInteractions> onLoaded,
+            Consumer<Exception> onError) {
+        DrugInteractions interactions = cached();
+        if (interactions == null) {
+            queries.run(key, "Loading drug interactions", DrugInteractions::fetch, onLoaded, onError);
+        } else {
+            SwingUtilities.invokeLater(() -> onLoaded.accept(interactions));
+        }
+    }
+
+    public static synchronized void invalidate() {
+        cached = null;
+        version++;
+    }
+
+    /** Every interacting pair among {@code medicines}, in prescription order. */
+    public List<Interaction> check(List<Medicine> medicines) {
+        List<Interaction> found = new ArrayList<>();
+        for (int i = 0; i < medicines.size(); i++) {
+            Map<Integer, String[]> interacting = adjacency.get(medicines.get(i).getId());
+            if (interacting == null) {
+                continue;
+            }
+            for (int j = i + 1; j < medicines.size(); j++) {
+                String[] interaction = interacting.get(medicines.get(j).getId());
+                if (interaction != null) {
+                    found.add(new Interaction(medicines.get(i), medicines.get(j), interaction[0], interaction[1]));
+                }
+            }
+        }
+        return found;
+    }
+
+    /** Interactions between {@code added} and the medicines already on the prescription. */
+    public List<Interaction> check(List<Medicine> existing, Medicine added) {
+        List<Interaction> found = new ArrayList<>();
+        Map<Integer, String[]> interacting = adjacency.get(added.getId());
+        if (interacting == null) {
+            return found;
+        }
+        for (Medicine medicine : existing) {
+            String[] interaction = interacting.get(medicine.getId());
+            if (interaction != null) {
+                found.add(new Interaction(medicine, added, interaction[0], interaction[1]));
+            }
+        }
+        return found;
+    }
+
+    private static synchronized DrugInteractions cached() {
+        return cached != null && ReferenceData.isFresh(loadedAt) ? cached : null;
+    }
+
+    private static DrugInteractions fetch(Connection connection) throws SQLException {
+        int startVersion;
+        synchronized (DrugInteractions.class) {
+            startVersion = version;
+        }
+
+        String query = "SELECT medicine1_id, medicine2_id, interaction_level, description FROM drug_interactions";
+        Map<Integer, Map<Integer, String[]>> adjacency = new HashMap<>();
+        Jdbc.forEach(connection, query, rs -> {
+            int first = rs.getInt("medicine1_id");
+            int second = rs.getInt("medicine2_id");
+            String[] interaction = { rs.getString("interaction_level"), rs.getString("description") };
+            adjacency.computeIfAbsent(first, k -> new HashMap<>()).putIfAbsent(second, interaction);
+            adjacency.computeIfAbsent(second, k -> new HashMap<>()).putIfAbsent(first, interaction);
+        });
+
+        DrugInteractions interactions = new DrugInteractions(adjacency);
+        synchronized (DrugInteractions.class) {
+            if (version == startVersion) {
+                cached = interactions;
+                loadedAt = System.currentTimeMillis();
+            }
+        }
+        return interactions;
+    }
+}
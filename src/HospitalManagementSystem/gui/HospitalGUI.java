@@ -1,13 +1,20 @@
 package HospitalManagementSystem.gui;
 
+import HospitalManagementSystem.db.ConnectionPool;
+import HospitalManagementSystem.db.Database;
+import HospitalManagementSystem.db.PoolStats;
+import HospitalManagementSystem.events.AppointmentChanged;
+import HospitalManagementSystem.events.ChangeLogPoller;
+import HospitalManagementSystem.events.DoctorChanged;
+import HospitalManagementSystem.events.EventBus;
+import HospitalManagementSystem.events.PatientChanged;
+import HospitalManagementSystem.search.SearchIndexes;
+
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.sql.Statement;
-import java.sql.ResultSet;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 
@@ -18,24 +25,37 @@ import HospitalManagementSystem.gui.LabTestManagementWindow;
 import HospitalManagementSystem.gui.BillingManagementWindow;
 
 public class HospitalGUI extends JFrame {
-    private static final String url = "jdbc:mysql://localhost:3306/hospital";
-    private static final String username = "root";
-    private static final String password = "";
+    private static final int DASHBOARD_REFRESH_MILLIS = Integer.getInteger("hms.dashboard.refreshSeconds", 60) * 1000;
+    private static final int DASHBOARD_CHANGE_DELAY_MILLIS = 500;
 
-    private Connection connection;
+    private ConnectionPool pool;
+    private BackgroundQueries queries;
     private CardLayout cardLayout;
     private JPanel mainPanel;
 
+    // Dashboard labels, updated in place from the latest DashboardStats snapshot
+    private JLabel lastUpdatedLabel;
+    private JLabel patientCountLabel, doctorCountLabel, todayAppointmentsLabel;
+    private JLabel thisWeekAppointmentsLabel, completedAppointmentsLabel, pendingAppointmentsLabel;
+    private JTextArea quickStatsText;
+
     public HospitalGUI() {
         initializeDatabase();
         initializeGUI();
+        startDashboardRefresh();
     }
 
     private void initializeDatabase() {
         try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            connection = DriverManager.getConnection(url, username, password);
-        } catch (ClassNotFoundException | SQLException e) {
+            pool = Database.getPool();
+            // Borrow once up front so a bad configuration fails at startup
+            try (Connection connection = pool.getConnection()) {
+                connection.isValid(5);
+            }
+            SearchIndexes.buildAsync(pool);
+            new ChangeLogPoller(pool, EventBus.shared(), Database.getClientId()).start();
+            queries = new BackgroundQueries(pool, this);
+        } catch (SQLException e) {
             JOptionPane.showMessageDialog(this, "Database connection failed: " + e.getMessage(),
                     "Error", JOptionPane.ERROR_MESSAGE);
             System.exit(1);
@@ -255,39 +275,31 @@ public class HospitalGUI extends JFrame {
         welcomeLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
         centerContent.add(welcomeLabel);
 
-        // Add current date and time
-        SimpleDateFormat sdf = new SimpleDateFormat("EEEE, MMMM dd, yyyy - HH:mm:ss");
-        JLabel timeLabel = new JLabel("Last Updated: " + sdf.format(new Date()));
-        timeLabel.setFont(new Font("Arial", Font.PLAIN, 14));
-        timeLabel.setForeground(new Color(102, 102, 102));
-        timeLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-        centerContent.add(timeLabel);
+        lastUpdatedLabel = new JLabel("Last Updated: loading...");
+        lastUpdatedLabel.setFont(new Font("Arial", Font.PLAIN, 14));
+        lastUpdatedLabel.setForeground(new Color(102, 102, 102));
+        lastUpdatedLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        centerContent.add(lastUpdatedLabel);
 
         centerContent.add(Box.createVerticalStrut(30));
 
-        // Dashboard cards
+        // Dashboard cards, filled in by updateDashboard()
         JPanel cardsPanel = new JPanel(new GridLayout(2, 3, 20, 20));
         cardsPanel.setBackground(new Color(245, 245, 245));
 
-        // Get real data from database
-        String patientCount = getDatabaseCount("SELECT COUNT(*) FROM patients");
-        String doctorCount = getDatabaseCount("SELECT COUNT(*) FROM doctors");
-        String todayAppointments = getDatabaseCount(
-                "SELECT COUNT(*) FROM appointments WHERE DATE(appointment_date) = CURDATE()");
-        String thisWeekAppointments = getDatabaseCount(
-                "SELECT COUNT(*) FROM appointments WHERE YEARWEEK(appointment_date) = YEARWEEK(CURDATE())");
-        String completedAppointments = getDatabaseCount(
-                "SELECT COUNT(*) FROM appointments WHERE status = 'Completed'");
-        String pendingAppointments = getDatabaseCount(
-                "SELECT COUNT(*) FROM appointments WHERE status = 'Scheduled' AND appointment_date >= CURDATE()");
-
-        // Create cards with real data
-        cardsPanel.add(createDashboardCard("Total Patients", patientCount, new Color(76, 175, 80)));
-        cardsPanel.add(createDashboardCard("Total Doctors", doctorCount, new Color(33, 150, 243)));
-        cardsPanel.add(createDashboardCard("Today's Appointments", todayAppointments, new Color(255, 152, 0)));
-        cardsPanel.add(createDashboardCard("This Week", thisWeekAppointments, new Color(156, 39, 176)));
-        cardsPanel.add(createDashboardCard("Completed", completedAppointments, new Color(76, 175, 80)));
-        cardsPanel.add(createDashboardCard("Pending", pendingAppointments, new Color(244, 67, 54)));
+        patientCountLabel = new JLabel("-");
+        doctorCountLabel = new JLabel("-");
+        todayAppointmentsLabel = new JLabel("-");
+        thisWeekAppointmentsLabel = new JLabel("-");
+        completedAppointmentsLabel = new JLabel("-");
+        pendingAppointmentsLabel = new JLabel("-");
+
+        cardsPanel.add(createDashboardCard("Total Patients", patientCountLabel, new Color(76, 175, 80)));
+        cardsPanel.add(createDashboardCard("Total Doctors", doctorCountLabel, new Color(33, 150, 243)));
+        cardsPanel.add(createDashboardCard("Today's Appointments", todayAppointmentsLabel, new Color(255, 152, 0)));
+        cardsPanel.add(createDashboardCard("This Week", thisWeekAppointmentsLabel, new Color(156, 39, 176)));
+        cardsPanel.add(createDashboardCard("Completed", completedAppointmentsLabel, new Color(76, 175, 80)));
+        cardsPanel.add(createDashboardCard("Pending", pendingAppointmentsLabel, new Color(244, 67, 54)));
 
         centerContent.add(cardsPanel);
 
@@ -300,7 +312,7 @@ public class HospitalGUI extends JFrame {
         refreshButton.setBorder(new EmptyBorder(10, 20, 10, 20));
         refreshButton.setFocusPainted(false);
         refreshButton.setAlignmentX(Component.CENTER_ALIGNMENT);
-        refreshButton.addActionListener(e -> refreshDashboard());
+        refreshButton.addActionListener(e -> refreshDashboard(true));
         centerContent.add(refreshButton);
 
         // Add quick stats panel
@@ -340,7 +352,7 @@ public class HospitalGUI extends JFrame {
         return button;
     }
 
-    private JPanel createDashboardCard(String title, String value, Color color) {
+    private JPanel createDashboardCard(String title, JLabel valueLabel, Color color) {
         JPanel card = new JPanel();
         card.setLayout(new BoxLayout(card, BoxLayout.Y_AXIS));
         card.setBackground(Color.WHITE);
@@ -354,7 +366,6 @@ public class HospitalGUI extends JFrame {
         titleLabel.setForeground(new Color(102, 102, 102));
         titleLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
 
-        JLabel valueLabel = new JLabel(value);
         valueLabel.setFont(new Font("Arial", Font.BOLD, 36));
         valueLabel.setForeground(color);
         valueLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
@@ -367,15 +378,15 @@ public class HospitalGUI extends JFrame {
     }
 
     private void openPatientManagement() {
-        new PatientManagementWindow(connection).setVisible(true);
+        new PatientManagementWindow(pool).setVisible(true);
     }
 
     private void openDoctorManagement() {
-        new DoctorManagementWindow(connection).setVisible(true);
+        new DoctorManagementWindow(pool).setVisible(true);
     }
 
     private void openAppointmentManagement() {
-        new AppointmentManagementWindow(connection).setVisible(true);
+        new AppointmentManagementWindow(pool).setVisible(true);
     }
 
     private void openReports() {
@@ -392,13 +403,13 @@ public class HospitalGUI extends JFrame {
 
         switch (choice) {
             case 0: // Basic Reports
-                new ReportsWindow(connection).setVisible(true);
+                new ReportsWindow(pool).setVisible(true);
                 break;
             case 1: // Comprehensive Report
-                new ComprehensiveReportGenerator(connection).setVisible(true);
+                new ComprehensiveReportGenerator(pool).setVisible(true);
                 break;
             case 2: // PDF Report
-                new PDFReportGenerator(connection).setVisible(true);
+                new PDFReportGenerator(pool).setVisible(true);
                 break;
             default: // Cancel or close
                 break;
@@ -406,55 +417,78 @@ public class HospitalGUI extends JFrame {
     }
 
     private void openPrescriptionManagement() {
-        new PrescriptionManagementWindow(connection).setVisible(true);
+        new PrescriptionManagementWindow(pool).setVisible(true);
     }
 
     private void openMedicalHistory() {
-        new MedicalHistoryWindow(connection).setVisible(true);
+        new MedicalHistoryWindow(pool).setVisible(true);
     }
 
     private void openLabTests() {
-        new LabTestManagementWindow(connection).setVisible(true);
+        new LabTestManagementWindow(pool).setVisible(true);
     }
 
     private void openBilling() {
-        new BillingManagementWindow(connection).setVisible(true);
+        new BillingManagementWindow(pool).setVisible(true);
     }
 
-    private String getDatabaseCount(String query) {
-        try {
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-            if (rs.next()) {
-                return String.valueOf(rs.getInt(1));
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return "0";
+    private void startDashboardRefresh() {
+        refreshDashboard(false);
+        Timer refreshTimer = new Timer(DASHBOARD_REFRESH_MILLIS, e -> refreshDashboard(false));
+        refreshTimer.start();
+
+        // Changes made in any window refresh the figures once per burst of changes
+        Timer changeTimer = new Timer(DASHBOARD_CHANGE_DELAY_MILLIS, e -> refreshDashboard(false));
+        changeTimer.setRepeats(false);
+        EventBus.shared().subscribe(PatientChanged.class, event -> changeTimer.restart());
+        EventBus.shared().subscribe(DoctorChanged.class, event -> changeTimer.restart());
+        EventBus.shared().subscribe(AppointmentChanged.class, event -> changeTimer.restart());
     }
 
-    private void refreshDashboard() {
-        // Show loading message
-        JOptionPane.showMessageDialog(this, "Dashboard refreshed with latest data!",
-                "Refresh Complete", JOptionPane.INFORMATION_MESSAGE);
-
-        // Recreate dashboard to refresh all data
-        cardLayout.show(mainPanel, "DASHBOARD");
-
-        // Remove current dashboard and recreate it
-        for (Component comp : mainPanel.getComponents()) {
-            if (comp instanceof JPanel) {
-                mainPanel.remove(comp);
-                break;
+    private void refreshDashboard(boolean confirm) {
+        queries.run("dashboard", "Refreshing dashboard", DashboardStats::load, stats -> {
+            updateDashboard(stats);
+            if (confirm) {
+                JOptionPane.showMessageDialog(this, "Dashboard refreshed with latest data!",
+                        "Refresh Complete", JOptionPane.INFORMATION_MESSAGE);
             }
-        }
-        mainPanel.add(createDashboardPanel(), "DASHBOARD");
-        cardLayout.show(mainPanel, "DASHBOARD");
+        }, e -> {
+            if (confirm) {
+                JOptionPane.showMessageDialog(this, "Error refreshing dashboard: " + e.getMessage(),
+                        "Database Error", JOptionPane.ERROR_MESSAGE);
+            } else {
+                System.err.println("Dashboard refresh failed: " + e.getMessage());
+            }
+        });
+    }
 
-        // Repaint to ensure UI updates
-        mainPanel.revalidate();
-        mainPanel.repaint();
+    private void updateDashboard(DashboardStats stats) {
+        SimpleDateFormat sdf = new SimpleDateFormat("EEEE, MMMM dd, yyyy - HH:mm:ss");
+        lastUpdatedLabel.setText("Last Updated: " + sdf.format(new Date(stats.getLoadedAt())));
+
+        patientCountLabel.setText(String.valueOf(stats.getPatientCount()));
+        doctorCountLabel.setText(String.valueOf(stats.getDoctorCount()));
+        todayAppointmentsLabel.setText(String.valueOf(stats.getTodayAppointments()));
+        thisWeekAppointmentsLabel.setText(String.valueOf(stats.getThisWeekAppointments()));
+        completedAppointmentsLabel.setText(String.valueOf(stats.getCompletedAppointments()));
+        pendingAppointmentsLabel.setText(String.valueOf(stats.getPendingAppointments()));
+
+        StringBuilder text = new StringBuilder();
+        text.append("Average Patient Age: ").append(String.format("%.1f", stats.getAverageAge())).append(" years\n");
+        text.append("Most Common Gender: ")
+                .append(stats.getMostCommonGender() != null ? stats.getMostCommonGender() : "N/A").append("\n");
+        text.append("Busiest Doctor: ")
+                .append(stats.getBusiestDoctor() != null ? stats.getBusiestDoctor() : "N/A").append("\n");
+        text.append("Next Appointment: ")
+                .append(stats.getNextAppointment() != null ? stats.getNextAppointment() : "No upcoming appointments")
+                .append("\n");
+        PoolStats poolStats = pool.getStats();
+        text.append("Database: ").append(poolStats.getActive()).append(" of ").append(poolStats.getMaxSize())
+                .append(" connections in use, statement cache hit rate ")
+                .append(String.format("%.0f%%", poolStats.getStatementCacheHitRate() * 100)).append(" (")
+                .append(poolStats.getStatementCacheHits()).append(" hits, ")
+                .append(poolStats.getStatementCacheMisses()).append(" misses)");
+        quickStatsText.setText(text.toString());
     }
 
     private JPanel createQuickStatsPanel() {
@@ -466,59 +500,14 @@ public class HospitalGUI extends JFrame {
                 new EmptyBorder(15, 15, 15, 15)));
         panel.setMaximumSize(new Dimension(600, 200));
 
-        // Get additional statistics
-        String avgAge = getDatabaseAverage("SELECT AVG(age) FROM patients");
-        String mostCommonGender = getDatabaseString(
-                "SELECT gender FROM patients GROUP BY gender ORDER BY COUNT(*) DESC LIMIT 1");
-        String busyDoctor = getDatabaseString(
-                "SELECT d.name FROM doctors d JOIN appointments a ON d.id = a.doctor_id GROUP BY d.id ORDER BY COUNT(*) DESC LIMIT 1");
-        String nextAppointment = getDatabaseString(
-                "SELECT DATE(appointment_date) FROM appointments WHERE appointment_date > NOW() ORDER BY appointment_date ASC LIMIT 1");
-
-        // Create stats text
-        JTextArea statsText = new JTextArea();
-        statsText.setFont(new Font("Arial", Font.PLAIN, 12));
-        statsText.setEditable(false);
-        statsText.setBackground(Color.WHITE);
-
-        StringBuilder stats = new StringBuilder();
-        stats.append("Average Patient Age: ").append(avgAge).append(" years\n");
-        stats.append("Most Common Gender: ").append(mostCommonGender != null ? mostCommonGender : "N/A").append("\n");
-        stats.append("Busiest Doctor: ").append(busyDoctor != null ? busyDoctor : "N/A").append("\n");
-        stats.append("Next Appointment: ")
-                .append(nextAppointment != null ? nextAppointment : "No upcoming appointments");
-
-        statsText.setText(stats.toString());
-        panel.add(statsText);
-
-        return panel;
-    }
+        quickStatsText = new JTextArea("Loading statistics...");
+        quickStatsText.setFont(new Font("Arial", Font.PLAIN, 12));
+        quickStatsText.setEditable(false);
+        quickStatsText.setBackground(Color.WHITE);
 
-    private String getDatabaseAverage(String query) {
-        try {
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-            if (rs.next()) {
-                double avg = rs.getDouble(1);
-                return String.format("%.1f", avg);
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return "0";
-    }
+        panel.add(quickStatsText);
 
-    private String getDatabaseString(String query) {
-        try {
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-            if (rs.next()) {
-                return rs.getString(1);
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return null;
+        return panel;
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,177 @@
+package HospitalManagementSystem.gui;
+
+import HospitalManagementSystem.search.TrigramIndex;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Search-as-you-type for a table window.
+ *
+ * Keystrokes are debounced before a query is sent, a newer query cancels the one still
+ * running, and when the new text contains the text of the last completed query and all of
+ * its rows are already in the table model, they are filtered in memory instead of going
+ * back to the database.
+ */
+public class IncrementalSearch {
+    private static final int DEBOUNCE_MILLIS = 250;
+    private static final int FUZZY_LIMIT = 50;
+
+    private final PagedTableModel model;
+    private final String searchWhere;
+    private final int[] searchColumns;
+    private final int parameterCount;
+    private final Timer debounceTimer;
+
+    private TrigramIndex index;
+
+    private JTextField field;
+    private String text = "";
+    // Text of the last completed exact search, whose rows are in the model
+    private String cachedText;
+
+    /**
+     * @param searchWhere   condition with one {@code LOWER(column) LIKE ?} placeholder per searched column
+     * @param searchColumns indexes of the same columns in the mapped rows, used for in-memory narrowing
+     */
+    public IncrementalSearch(PagedTableModel model, String searchWhere, int... searchColumns) {
+        this.model = model;
+        this.searchWhere = searchWhere;
+        this.searchColumns = searchColumns;
+        this.parameterCount = (int) searchWhere.chars().filter(c -> c == '?').count();
+
+        debounceTimer = new Timer(DEBOUNCE_MILLIS, e -> runQuery());
+        debounceTimer.setRepeats(false);
+    }
+
+    /**
+     * Answers searches from {@code index} once it is built; only the visible matches are then
+     * read from the database, by id. When nothing matches exactly, the closest fuzzy matches
+     * are shown instead.
+     */
+    public void useIndex(TrigramIndex index) {
+        this.index = index;
+    }
+
+    public void attach(JTextField searchField) {
+        this.field = searchField;
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                textChanged();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                textChanged();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                textChanged();
+            }
+        });
+    }
+
+    /** Re-runs the current search against the database, e.g. after rows were added or changed. */
+    public void refresh() {
+        text = field != null ? normalize(field.getText()) : "";
+        cachedText = null;
+        runQuery();
+    }
+
+    private void textChanged() {
+        String newText = normalize(field.getText());
+        if (newText.equals(text)) {
+            return;
+        }
+        text = newText;
+
+        if (!narrowCachedRows()) {
+            if (index != null && index.isReady()) {
+                runQuery(); // index lookups never reach the database
+            } else {
+                debounceTimer.restart();
+            }
+        }
+    }
+
+    private void runQuery() {
+        debounceTimer.stop();
+        if (field != null && !field.isDisplayable()) {
+            return; // window was closed while the timer was pending
+        }
+
+        String queryText = text;
+        if (queryText.isEmpty()) {
+            model.load(null, null, () -> searched(queryText));
+        } else if (index != null && index.isReady()) {
+            int[] ids = index.search(queryText);
+            if (ids.length > 0) {
+                model.showIds(ids);
+                cachedText = queryText;
+            } else {
+                // Fuzzy results are not a superset of later exact matches, so they are never narrowed
+                model.showIds(index.fuzzySearch(queryText, FUZZY_LIMIT));
+                cachedText = null;
+            }
+        } else {
+            Object[] params = new Object[parameterCount];
+            Arrays.fill(params, "%" + escapeLike(queryText) + "%");
+            model.load(searchWhere, params, () -> searched(queryText));
+        }
+    }
+
+    private void searched(String queryText) {
+        cachedText = queryText;
+        // The user may have kept typing while the query ran
+        if (!text.equals(queryText) && !narrowCachedRows()) {
+            debounceTimer.restart();
+        }
+    }
+
+    // Every row matching the current text also matched the cached one
+    private boolean narrowCachedRows() {
+        if (cachedText == null || !text.contains(cachedText)) {
+            return false;
+        }
+        List<Object[]> rows = model.loadedRows();
+        if (rows == null) {
+            return false;
+        }
+        debounceTimer.stop();
+        List<Object[]> matches = new ArrayList<>();
+        for (Object[] row : rows) {
+            if (matches(row)) {
+                matches.add(row);
+            }
+        }
+        model.showRows(matches);
+        cachedText = text;
+        return true;
+    }
+
+    private boolean matches(Object[] row) {
+        for (int column : searchColumns) {
+            Object value = row[column];
+            if (value != null && value.toString().toLowerCase(Locale.ROOT).contains(text)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String normalize(String input) {
+        return input.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Typed % and _ are matched literally, the same way the in-memory filter treats them
+    private static String escapeLike(String input) {
+        return input.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
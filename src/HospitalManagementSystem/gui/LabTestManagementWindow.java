@@ -1,5 +1,18 @@
 package HospitalManagementSystem.gui;
 
+import HospitalManagementSystem.core.DoctorRecord;
+import HospitalManagementSystem.core.DoctorRepository;
+import HospitalManagementSystem.core.LabTestRecord;
+import HospitalManagementSystem.core.LabTestRepository;
+import HospitalManagementSystem.core.PatientRecord;
+import HospitalManagementSystem.core.PatientRepository;
+import HospitalManagementSystem.db.ConnectionPool;
+import HospitalManagementSystem.events.DoctorChanged;
+import HospitalManagementSystem.events.EntityChanged.Change;
+import HospitalManagementSystem.events.EventBus;
+import HospitalManagementSystem.events.LabTestChanged;
+import HospitalManagementSystem.events.PatientChanged;
+
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.table.DefaultTableModel;
@@ -8,9 +21,19 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.sql.*;
 import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
 
 public class LabTestManagementWindow extends JFrame {
-    private Connection connection;
+    private static final DateTimeFormatter CREATED_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // Same order as LabTestRepository.forEach, on mapped rows
+    private static final Comparator<Object[]> LAB_TEST_ROW_ORDER = Comparator
+            .comparing((Object[] row) -> (LocalDate) row[5], Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(row -> (Integer) row[0], Comparator.reverseOrder());
+
+    private final ConnectionPool pool;
+    private final BackgroundQueries queries;
     private JComboBox<String> patientComboBox;
     private JComboBox<String> doctorComboBox;
     private JTextField testNameField;
@@ -25,13 +48,20 @@ public class LabTestManagementWindow extends JFrame {
     private JTable testTable;
     private DefaultTableModel tableModel;
     private JTextArea testDetailsArea;
+    // Filter of the tests shown, so changed rows can be checked against it
+    private String filterWhere;
+    private Object[] filterParams;
 
-    public LabTestManagementWindow(Connection connection) {
-        this.connection = connection;
+    public LabTestManagementWindow(ConnectionPool pool) {
+        this.pool = pool;
+        this.queries = new BackgroundQueries(pool, this);
         initializeGUI();
         loadPatients();
         loadDoctors();
         loadLabTests();
+        EventBus.shared().subscribe(this, LabTestChanged.class, this::labTestChanged);
+        EventBus.shared().subscribe(this, PatientChanged.class, event -> loadPatients());
+        EventBus.shared().subscribe(this, DoctorChanged.class, event -> loadDoctors());
     }
 
     private void initializeGUI() {
@@ -62,6 +92,7 @@ public class LabTestManagementWindow extends JFrame {
         tabbedPane.addTab("View Lab Tests", viewTestsPanel);
 
         mainPanel.add(tabbedPane, BorderLayout.CENTER);
+        mainPanel.add(queries.getProgressBar(), BorderLayout.SOUTH);
         add(mainPanel);
     }
 
@@ -297,40 +328,33 @@ public class LabTestManagementWindow extends JFrame {
     }
 
     private void loadPatientsToComboBox(JComboBox<String> comboBox) {
-        try {
-            String query = "SELECT id, name FROM patients ORDER BY name";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            ResultSet rs = stmt.executeQuery();
-
+        String key = comboBox == patientComboBox ? "patientCombo" : "filterPatientCombo";
+        ReferenceData.patients().get(queries, key, items -> {
+            Object selected = comboBox.getSelectedItem(); // kept when the list is refilled after a change
+            comboBox.removeAllItems();
             if (comboBox != patientComboBox) {
-                comboBox.removeAllItems();
                 comboBox.addItem("All Patients");
-            } else {
-                comboBox.removeAllItems();
             }
-
-            while (rs.next()) {
-                comboBox.addItem(rs.getInt("id") + " - " + rs.getString("name"));
+            for (String item : items) {
+                comboBox.addItem(item);
             }
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error loading patients: " + e.getMessage());
-        }
+            if (selected != null) {
+                comboBox.setSelectedItem(selected);
+            }
+        }, "Error loading patients");
     }
 
     private void loadDoctors() {
-        try {
-            String query = "SELECT id, name, specialization FROM doctors ORDER BY name";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            ResultSet rs = stmt.executeQuery();
-
+        ReferenceData.doctors().get(queries, "doctorCombo", items -> {
+            Object selected = doctorComboBox.getSelectedItem();
             doctorComboBox.removeAllItems();
-            while (rs.next()) {
-                doctorComboBox.addItem(rs.getInt("id") + " - " + rs.getString("name") +
-                        " (" + rs.getString("specialization") + ")");
+            for (String item : items) {
+                doctorComboBox.addItem(item);
             }
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error loading doctors: " + e.getMessage());
-        }
+            if (selected != null) {
+                doctorComboBox.setSelectedItem(selected);
+            }
+        }, "Error loading doctors");
     }
 
     private void saveLabTest() {
@@ -343,35 +367,32 @@ public class LabTestManagementWindow extends JFrame {
             return;
         }
 
-        try {
+        try (Connection connection = pool.getConnection()) {
             // Extract patient and doctor IDs
             String patientStr = patientComboBox.getSelectedItem().toString();
             String doctorStr = doctorComboBox.getSelectedItem().toString();
             int patientId = Integer.parseInt(patientStr.split(" - ")[0]);
             int doctorId = Integer.parseInt(doctorStr.split(" - ")[0]);
 
-            String query = "INSERT INTO lab_tests (patient_id, doctor_id, test_name, test_type, " +
-                    "test_date, result_value, normal_range, status, report_file_path, notes) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setInt(1, patientId);
-            stmt.setInt(2, doctorId);
-            stmt.setString(3, testNameField.getText().trim());
-            stmt.setString(4, testTypeComboBox.getSelectedItem().toString());
-            stmt.setDate(5, Date.valueOf(testDateField.getText().trim()));
-            stmt.setString(6, resultValueField.getText().trim().isEmpty() ? null : resultValueField.getText().trim());
-            stmt.setString(7, normalRangeField.getText().trim().isEmpty() ? null : normalRangeField.getText().trim());
-            stmt.setString(8, statusComboBox.getSelectedItem().toString());
-            stmt.setString(9,
-                    reportFilePathField.getText().trim().isEmpty() ? null : reportFilePathField.getText().trim());
-            stmt.setString(10, notesArea.getText().trim().isEmpty() ? null : notesArea.getText().trim());
-
-            stmt.executeUpdate();
-
+            LabTestRecord test = new LabTestRecord(0,
+                    patientId,
+                    null,
+                    doctorId,
+                    null,
+                    testNameField.getText().trim(),
+                    testTypeComboBox.getSelectedItem().toString(),
+                    LocalDate.parse(testDateField.getText().trim()),
+                    resultValueField.getText().trim().isEmpty() ? null : resultValueField.getText().trim(),
+                    normalRangeField.getText().trim().isEmpty() ? null : normalRangeField.getText().trim(),
+                    statusComboBox.getSelectedItem().toString(),
+                    reportFilePathField.getText().trim().isEmpty() ? null : reportFilePathField.getText().trim(),
+                    notesArea.getText().trim().isEmpty() ? null : notesArea.getText().trim(),
+                    null);
+
+            int testId = LabTestRepository.insert(connection, test);
+            EventBus.shared().publish(new LabTestChanged(testId, Change.ADDED));
             JOptionPane.showMessageDialog(this, "Lab test saved successfully!");
             clearForm();
-            loadLabTests();
 
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, "Error saving lab test: " + e.getMessage());
@@ -398,16 +419,10 @@ public class LabTestManagementWindow extends JFrame {
         if (status == null)
             return;
 
-        try {
-            String query = "UPDATE lab_tests SET result_value = ?, status = ? WHERE id = ?";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setString(1, resultValue);
-            stmt.setString(2, status);
-            stmt.setInt(3, testId);
-
-            stmt.executeUpdate();
+        try (Connection connection = pool.getConnection()) {
+            LabTestRepository.updateResult(connection, testId, resultValue, status);
+            EventBus.shared().publish(new LabTestChanged(testId, Change.UPDATED));
             JOptionPane.showMessageDialog(this, "Test result updated successfully!");
-            loadLabTests();
 
         } catch (SQLException e) {
             JOptionPane.showMessageDialog(this, "Error updating test result: " + e.getMessage());
@@ -415,34 +430,7 @@ public class LabTestManagementWindow extends JFrame {
     }
 
     private void loadLabTests() {
-        try {
-            String query = "SELECT lt.id, p.name as patient_name, d.name as doctor_name, " +
-                    "lt.test_name, lt.test_type, lt.test_date, lt.status, lt.result_value " +
-                    "FROM lab_tests lt " +
-                    "JOIN patients p ON lt.patient_id = p.id " +
-                    "JOIN doctors d ON lt.doctor_id = d.id " +
-                    "ORDER BY lt.test_date DESC";
-
-            PreparedStatement stmt = connection.prepareStatement(query);
-            ResultSet rs = stmt.executeQuery();
-
-            tableModel.setRowCount(0);
-            while (rs.next()) {
-                Object[] row = {
-                        rs.getInt("id"),
-                        rs.getString("patient_name"),
-                        rs.getString("doctor_name"),
-                        rs.getString("test_name"),
-                        rs.getString("test_type"),
-                        rs.getDate("test_date"),
-                        rs.getString("status"),
-                        rs.getString("result_value")
-                };
-                tableModel.addRow(row);
-            }
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error loading lab tests: " + e.getMessage());
-        }
+        showLabTests(null, null, "Loading lab tests", "Error loading lab tests");
     }
 
     private void filterLabTests(JComboBox<String> filterComboBox) {
@@ -452,39 +440,11 @@ public class LabTestManagementWindow extends JFrame {
             return;
         }
 
-        try {
-            String patientStr = filterComboBox.getSelectedItem().toString();
-            int patientId = Integer.parseInt(patientStr.split(" - ")[0]);
+        String patientStr = filterComboBox.getSelectedItem().toString();
+        int patientId = Integer.parseInt(patientStr.split(" - ")[0]);
 
-            String query = "SELECT lt.id, p.name as patient_name, d.name as doctor_name, " +
-                    "lt.test_name, lt.test_type, lt.test_date, lt.status, lt.result_value " +
-                    "FROM lab_tests lt " +
-                    "JOIN patients p ON lt.patient_id = p.id " +
-                    "JOIN doctors d ON lt.doctor_id = d.id " +
-                    "WHERE lt.patient_id = ? " +
-                    "ORDER BY lt.test_date DESC";
-
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setInt(1, patientId);
-            ResultSet rs = stmt.executeQuery();
-
-            tableModel.setRowCount(0);
-            while (rs.next()) {
-                Object[] row = {
-                        rs.getInt("id"),
-                        rs.getString("patient_name"),
-                        rs.getString("doctor_name"),
-                        rs.getString("test_name"),
-                        rs.getString("test_type"),
-                        rs.getDate("test_date"),
-                        rs.getString("status"),
-                        rs.getString("result_value")
-                };
-                tableModel.addRow(row);
-            }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error filtering lab tests: " + e.getMessage());
-        }
+        showLabTests(LabTestRepository.BY_PATIENT, new Object[] { patientId }, "Filtering lab tests",
+                "Error filtering lab tests");
     }
 
     private void filterByStatus(JComboBox<String> statusComboBox) {
@@ -494,40 +454,51 @@ public class LabTestManagementWindow extends JFrame {
             return;
         }
 
-        try {
-            String status = statusComboBox.getSelectedItem().toString();
-
-            String query = "SELECT lt.id, p.name as patient_name, d.name as doctor_name, " +
-                    "lt.test_name, lt.test_type, lt.test_date, lt.status, lt.result_value " +
-                    "FROM lab_tests lt " +
-                    "JOIN patients p ON lt.patient_id = p.id " +
-                    "JOIN doctors d ON lt.doctor_id = d.id " +
-                    "WHERE lt.status = ? " +
-                    "ORDER BY lt.test_date DESC";
-
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setString(1, status);
-            ResultSet rs = stmt.executeQuery();
-
-            tableModel.setRowCount(0);
-            while (rs.next()) {
-                Object[] row = {
-                        rs.getInt("id"),
-                        rs.getString("patient_name"),
-                        rs.getString("doctor_name"),
-                        rs.getString("test_name"),
-                        rs.getString("test_type"),
-                        rs.getDate("test_date"),
-                        rs.getString("status"),
-                        rs.getString("result_value")
-                };
-                tableModel.addRow(row);
-            }
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error filtering by status: " + e.getMessage());
+        String status = statusComboBox.getSelectedItem().toString();
+
+        showLabTests(LabTestRepository.BY_STATUS, new Object[] { status }, "Filtering lab tests", "Error filtering by status");
+    }
+
+    private void showLabTests(String where, Object[] params, String label, String errorMessage) {
+        filterWhere = where;
+        filterParams = params;
+
+        queries.loadTable("labTests", label, tableModel,
+                (connection, action) -> LabTestRepository.forEach(connection, where, params, action),
+                this::labTestRow, errorMessage);
+    }
+
+    private void labTestChanged(LabTestChanged event) {
+        if (event.isBulk()) {
+            showLabTests(filterWhere, filterParams, "Loading lab tests", "Error loading lab tests");
+        } else {
+            refreshLabTest(event.getId());
         }
     }
 
+    // Shows the current state of one test after a write, instead of reloading the whole table
+    private void refreshLabTest(int testId) {
+        String where = filterWhere;
+        Object[] params = filterParams;
+        queries.patchRow("labTests", tableModel, testId, connection -> {
+            LabTestRecord test = LabTestRepository.find(connection, testId, where, params);
+            return test == null ? null : labTestRow(test);
+        }, LAB_TEST_ROW_ORDER, "Error refreshing lab test");
+    }
+
+    private Object[] labTestRow(LabTestRecord test) {
+        return new Object[] {
+                test.getId(),
+                test.getPatientName(),
+                test.getDoctorName(),
+                test.getTestName(),
+                test.getTestType(),
+                test.getTestDate(),
+                test.getStatus(),
+                test.getResultValue()
+        };
+    }
+
     private void showTestDetails() {
         int selectedRow = testTable.getSelectedRow();
         if (selectedRow < 0)
@@ -538,67 +509,66 @@ public class LabTestManagementWindow extends JFrame {
     }
 
     private void loadTestDetails(int testId) {
-        try {
-            String query = "SELECT lt.*, p.name as patient_name, p.age, p.gender, " +
-                    "d.name as doctor_name, d.specialization " +
-                    "FROM lab_tests lt " +
-                    "JOIN patients p ON lt.patient_id = p.id " +
-                    "JOIN doctors d ON lt.doctor_id = d.id " +
-                    "WHERE lt.id = ?";
-
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setInt(1, testId);
-            ResultSet rs = stmt.executeQuery();
-
-            StringBuilder details = new StringBuilder();
-            if (rs.next()) {
-                details.append("=================== LAB TEST REPORT ===================\n\n");
-                details.append("Test ID: ").append(rs.getInt("id")).append("\n");
-                details.append("Test Date: ").append(rs.getDate("test_date")).append("\n");
-                details.append("Status: ").append(rs.getString("status")).append("\n\n");
-
-                details.append("PATIENT INFORMATION:\n");
-                details.append("Name: ").append(rs.getString("patient_name")).append("\n");
-                details.append("Age: ").append(rs.getInt("age")).append(" years\n");
-                details.append("Gender: ").append(rs.getString("gender")).append("\n\n");
-
-                details.append("DOCTOR INFORMATION:\n");
-                details.append("Name: Dr. ").append(rs.getString("doctor_name")).append("\n");
-                details.append("Specialization: ").append(rs.getString("specialization")).append("\n\n");
-
-                details.append("TEST INFORMATION:\n");
-                details.append("Test Name: ").append(rs.getString("test_name")).append("\n");
-                details.append("Test Type: ").append(rs.getString("test_type")).append("\n\n");
-
-                if (rs.getString("result_value") != null) {
-                    details.append("RESULT:\n");
-                    details.append("Value: ").append(rs.getString("result_value")).append("\n");
-                    if (rs.getString("normal_range") != null) {
-                        details.append("Normal Range: ").append(rs.getString("normal_range")).append("\n");
-                    }
-                    details.append("\n");
-                }
+        queries.run("testDetails", "Loading test details", connection -> {
+            LabTestRecord test = LabTestRepository.find(connection, testId);
+            if (test == null) {
+                return "";
+            }
+            PatientRecord patient = PatientRepository.find(connection, test.getPatientId());
+            DoctorRecord doctor = DoctorRepository.find(connection, test.getDoctorId());
+
+            StringBuilder text = new StringBuilder();
+            text.append("=================== LAB TEST REPORT ===================\n\n");
+            text.append("Test ID: ").append(test.getId()).append("\n");
+            text.append("Test Date: ").append(test.getTestDate()).append("\n");
+            text.append("Status: ").append(test.getStatus()).append("\n\n");
+
+            text.append("PATIENT INFORMATION:\n");
+            text.append("Name: ").append(test.getPatientName()).append("\n");
+            if (patient != null) {
+                text.append("Age: ").append(patient.getAge()).append(" years\n");
+                text.append("Gender: ").append(patient.getGender()).append("\n");
+            }
+            text.append("\n");
 
-                if (rs.getString("report_file_path") != null) {
-                    details.append("REPORT FILE:\n");
-                    details.append(rs.getString("report_file_path")).append("\n\n");
-                }
+            text.append("DOCTOR INFORMATION:\n");
+            text.append("Name: Dr. ").append(test.getDoctorName()).append("\n");
+            if (doctor != null) {
+                text.append("Specialization: ").append(doctor.getSpecialization()).append("\n");
+            }
+            text.append("\n");
+
+            text.append("TEST INFORMATION:\n");
+            text.append("Test Name: ").append(test.getTestName()).append("\n");
+            text.append("Test Type: ").append(test.getTestType()).append("\n\n");
 
-                if (rs.getString("notes") != null && !rs.getString("notes").trim().isEmpty()) {
-                    details.append("NOTES:\n");
-                    details.append(rs.getString("notes")).append("\n\n");
+            if (test.getResultValue() != null) {
+                text.append("RESULT:\n");
+                text.append("Value: ").append(test.getResultValue()).append("\n");
+                if (test.getNormalRange() != null) {
+                    text.append("Normal Range: ").append(test.getNormalRange()).append("\n");
                 }
+                text.append("\n");
+            }
 
-                details.append("Created: ").append(rs.getTimestamp("created_at"));
-                details.append("\n=====================================================");
+            if (test.getReportFilePath() != null) {
+                text.append("REPORT FILE:\n");
+                text.append(test.getReportFilePath()).append("\n\n");
             }
 
-            testDetailsArea.setText(details.toString());
-            testDetailsArea.setCaretPosition(0);
+            if (test.getNotes() != null && !test.getNotes().trim().isEmpty()) {
+                text.append("NOTES:\n");
+                text.append(test.getNotes()).append("\n\n");
+            }
 
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error loading test details: " + e.getMessage());
-        }
+            text.append("Created: ")
+                    .append(test.getCreatedAt() == null ? null : CREATED_FORMAT.format(test.getCreatedAt()));
+            text.append("\n=====================================================");
+            return text.toString();
+        }, details -> {
+            testDetailsArea.setText(details);
+            testDetailsArea.setCaretPosition(0);
+        }, "Error loading test details");
     }
 
     private void editSelectedTest() {
@@ -1,5 +1,16 @@
 package HospitalManagementSystem.gui;
 
+import HospitalManagementSystem.core.DoctorRecord;
+import HospitalManagementSystem.core.DoctorRepository;
+import HospitalManagementSystem.core.MedicalHistoryRecord;
+import HospitalManagementSystem.core.MedicalHistoryRepository;
+import HospitalManagementSystem.core.PatientRecord;
+import HospitalManagementSystem.core.PatientRepository;
+import HospitalManagementSystem.db.ConnectionPool;
+import HospitalManagementSystem.events.DoctorChanged;
+import HospitalManagementSystem.events.EventBus;
+import HospitalManagementSystem.events.PatientChanged;
+
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.table.DefaultTableModel;
@@ -8,9 +19,13 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.sql.*;
 import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 
 public class MedicalHistoryWindow extends JFrame {
-    private Connection connection;
+    private static final DateTimeFormatter CREATED_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final ConnectionPool pool;
+    private final BackgroundQueries queries;
     private JComboBox<String> patientComboBox;
     private JComboBox<String> doctorComboBox;
     private JTextField visitDateField;
@@ -32,12 +47,15 @@ public class MedicalHistoryWindow extends JFrame {
     private DefaultTableModel tableModel;
     private JTextArea historyDetailsArea;
 
-    public MedicalHistoryWindow(Connection connection) {
-        this.connection = connection;
+    public MedicalHistoryWindow(ConnectionPool pool) {
+        this.pool = pool;
+        this.queries = new BackgroundQueries(pool, this);
         initializeGUI();
         loadPatients();
         loadDoctors();
         loadMedicalHistory();
+        EventBus.shared().subscribe(this, PatientChanged.class, event -> loadPatients());
+        EventBus.shared().subscribe(this, DoctorChanged.class, event -> loadDoctors());
     }
 
     private void initializeGUI() {
@@ -68,6 +86,7 @@ public class MedicalHistoryWindow extends JFrame {
         tabbedPane.addTab("View Medical History", viewHistoryPanel);
 
         mainPanel.add(tabbedPane, BorderLayout.CENTER);
+        mainPanel.add(queries.getProgressBar(), BorderLayout.SOUTH);
         add(mainPanel);
     }
 
@@ -343,40 +362,33 @@ public class MedicalHistoryWindow extends JFrame {
     }
 
     private void loadPatientsToComboBox(JComboBox<String> comboBox) {
-        try {
-            String query = "SELECT id, name FROM patients ORDER BY name";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            ResultSet rs = stmt.executeQuery();
-
+        String key = comboBox == patientComboBox ? "patientCombo" : "filterPatientCombo";
+        ReferenceData.patients().get(queries, key, items -> {
+            Object selected = comboBox.getSelectedItem(); // kept when the list is refilled after a change
+            comboBox.removeAllItems();
             if (comboBox != patientComboBox) {
-                comboBox.removeAllItems();
                 comboBox.addItem("All Patients");
-            } else {
-                comboBox.removeAllItems();
             }
-
-            while (rs.next()) {
-                comboBox.addItem(rs.getInt("id") + " - " + rs.getString("name"));
+            for (String item : items) {
+                comboBox.addItem(item);
             }
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error loading patients: " + e.getMessage());
-        }
+            if (selected != null) {
+                comboBox.setSelectedItem(selected);
+            }
+        }, "Error loading patients");
     }
 
     private void loadDoctors() {
-        try {
-            String query = "SELECT id, name, specialization FROM doctors ORDER BY name";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            ResultSet rs = stmt.executeQuery();
-
+        ReferenceData.doctors().get(queries, "doctorCombo", items -> {
+            Object selected = doctorComboBox.getSelectedItem();
             doctorComboBox.removeAllItems();
-            while (rs.next()) {
-                doctorComboBox.addItem(rs.getInt("id") + " - " + rs.getString("name") +
-                        " (" + rs.getString("specialization") + ")");
+            for (String item : items) {
+                doctorComboBox.addItem(item);
             }
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error loading doctors: " + e.getMessage());
-        }
+            if (selected != null) {
+                doctorComboBox.setSelectedItem(selected);
+            }
+        }, "Error loading doctors");
     }
 
     private void saveMedicalRecord() {
@@ -389,7 +401,7 @@ public class MedicalHistoryWindow extends JFrame {
             return;
         }
 
-        try {
+        try (Connection connection = pool.getConnection()) {
             // Extract patient and doctor IDs
             String patientStr = patientComboBox.getSelectedItem().toString();
             String doctorStr = doctorComboBox.getSelectedItem().toString();
@@ -399,23 +411,21 @@ public class MedicalHistoryWindow extends JFrame {
             // Create vital signs JSON
             String vitalSigns = createVitalSignsJSON();
 
-            String query = "INSERT INTO medical_history (patient_id, doctor_id, visit_date, diagnosis, " +
-                    "treatment, symptoms, vital_signs, condition_status, notes) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setInt(1, patientId);
-            stmt.setInt(2, doctorId);
-            stmt.setDate(3, Date.valueOf(visitDateField.getText().trim()));
-            stmt.setString(4, diagnosisArea.getText().trim());
-            stmt.setString(5, treatmentArea.getText().trim());
-            stmt.setString(6, symptomsArea.getText().trim());
-            stmt.setString(7, vitalSigns);
-            stmt.setString(8, conditionStatusComboBox.getSelectedItem().toString());
-            stmt.setString(9, notesArea.getText().trim());
-
-            stmt.executeUpdate();
-
+            MedicalHistoryRecord visit = new MedicalHistoryRecord(0,
+                    patientId,
+                    null,
+                    doctorId,
+                    null,
+                    LocalDate.parse(visitDateField.getText().trim()),
+                    diagnosisArea.getText().trim(),
+                    treatmentArea.getText().trim(),
+                    symptomsArea.getText().trim(),
+                    vitalSigns,
+                    conditionStatusComboBox.getSelectedItem().toString(),
+                    notesArea.getText().trim(),
+                    null);
+
+            MedicalHistoryRepository.insert(connection, visit);
             JOptionPane.showMessageDialog(this, "Medical record saved successfully!");
             clearForm();
             loadMedicalHistory();
@@ -471,32 +481,9 @@ public class MedicalHistoryWindow extends JFrame {
     }
 
     private void loadMedicalHistory() {
-        try {
-            String query = "SELECT mh.id, p.name as patient_name, d.name as doctor_name, " +
-                    "mh.visit_date, mh.diagnosis, mh.condition_status " +
-                    "FROM medical_history mh " +
-                    "JOIN patients p ON mh.patient_id = p.id " +
-                    "JOIN doctors d ON mh.doctor_id = d.id " +
-                    "ORDER BY mh.visit_date DESC";
-
-            PreparedStatement stmt = connection.prepareStatement(query);
-            ResultSet rs = stmt.executeQuery();
-
-            tableModel.setRowCount(0);
-            while (rs.next()) {
-                Object[] row = {
-                        rs.getInt("id"),
-                        rs.getString("patient_name"),
-                        rs.getString("doctor_name"),
-                        rs.getDate("visit_date"),
-                        rs.getString("diagnosis"),
-                        rs.getString("condition_status")
-                };
-                tableModel.addRow(row);
-            }
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error loading medical history: " + e.getMessage());
-        }
+        queries.loadTable("history", "Loading medical history", tableModel,
+                (connection, action) -> MedicalHistoryRepository.forEach(connection, null, null, action),
+                this::historyRow, "Error loading medical history");
     }
 
     private void filterMedicalHistory(JComboBox<String> filterComboBox) {
@@ -506,37 +493,24 @@ public class MedicalHistoryWindow extends JFrame {
             return;
         }
 
-        try {
-            String patientStr = filterComboBox.getSelectedItem().toString();
-            int patientId = Integer.parseInt(patientStr.split(" - ")[0]);
+        String patientStr = filterComboBox.getSelectedItem().toString();
+        int patientId = Integer.parseInt(patientStr.split(" - ")[0]);
 
-            String query = "SELECT mh.id, p.name as patient_name, d.name as doctor_name, " +
-                    "mh.visit_date, mh.diagnosis, mh.condition_status " +
-                    "FROM medical_history mh " +
-                    "JOIN patients p ON mh.patient_id = p.id " +
-                    "JOIN doctors d ON mh.doctor_id = d.id " +
-                    "WHERE mh.patient_id = ? " +
-                    "ORDER BY mh.visit_date DESC";
-
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setInt(1, patientId);
-            ResultSet rs = stmt.executeQuery();
-
-            tableModel.setRowCount(0);
-            while (rs.next()) {
-                Object[] row = {
-                        rs.getInt("id"),
-                        rs.getString("patient_name"),
-                        rs.getString("doctor_name"),
-                        rs.getDate("visit_date"),
-                        rs.getString("diagnosis"),
-                        rs.getString("condition_status")
-                };
-                tableModel.addRow(row);
-            }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error filtering medical history: " + e.getMessage());
-        }
+        queries.loadTable("history", "Filtering medical history", tableModel,
+                (connection, action) -> MedicalHistoryRepository.forEach(connection,
+                        MedicalHistoryRepository.BY_PATIENT, new Object[] { patientId }, action),
+                this::historyRow, "Error filtering medical history");
+    }
+
+    private Object[] historyRow(MedicalHistoryRecord visit) {
+        return new Object[] {
+                visit.getId(),
+                visit.getPatientName(),
+                visit.getDoctorName(),
+                visit.getVisitDate(),
+                visit.getDiagnosis(),
+                visit.getConditionStatus()
+        };
     }
 
     private void showHistoryDetails() {
@@ -549,71 +523,70 @@ public class MedicalHistoryWindow extends JFrame {
     }
 
     private void loadHistoryDetails(int historyId) {
-        try {
-            String query = "SELECT mh.*, p.name as patient_name, p.age, p.gender, " +
-                    "d.name as doctor_name, d.specialization " +
-                    "FROM medical_history mh " +
-                    "JOIN patients p ON mh.patient_id = p.id " +
-                    "JOIN doctors d ON mh.doctor_id = d.id " +
-                    "WHERE mh.id = ?";
-
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setInt(1, historyId);
-            ResultSet rs = stmt.executeQuery();
-
-            StringBuilder details = new StringBuilder();
-            if (rs.next()) {
-                details.append("================== MEDICAL RECORD ==================\n\n");
-                details.append("Record ID: ").append(rs.getInt("id")).append("\n");
-                details.append("Visit Date: ").append(rs.getDate("visit_date")).append("\n");
-                details.append("Status: ").append(rs.getString("condition_status")).append("\n\n");
-
-                details.append("PATIENT INFORMATION:\n");
-                details.append("Name: ").append(rs.getString("patient_name")).append("\n");
-                details.append("Age: ").append(rs.getInt("age")).append(" years\n");
-                details.append("Gender: ").append(rs.getString("gender")).append("\n\n");
-
-                details.append("DOCTOR INFORMATION:\n");
-                details.append("Name: Dr. ").append(rs.getString("doctor_name")).append("\n");
-                details.append("Specialization: ").append(rs.getString("specialization")).append("\n\n");
-
-                if (rs.getString("symptoms") != null && !rs.getString("symptoms").trim().isEmpty()) {
-                    details.append("SYMPTOMS:\n");
-                    details.append(rs.getString("symptoms")).append("\n\n");
-                }
+        queries.run("historyDetails", "Loading history details", connection -> {
+            MedicalHistoryRecord visit = MedicalHistoryRepository.find(connection, historyId);
+            if (visit == null) {
+                return "";
+            }
+            PatientRecord patient = PatientRepository.find(connection, visit.getPatientId());
+            DoctorRecord doctor = DoctorRepository.find(connection, visit.getDoctorId());
+
+            StringBuilder text = new StringBuilder();
+            text.append("================== MEDICAL RECORD ==================\n\n");
+            text.append("Record ID: ").append(visit.getId()).append("\n");
+            text.append("Visit Date: ").append(visit.getVisitDate()).append("\n");
+            text.append("Status: ").append(visit.getConditionStatus()).append("\n\n");
+
+            text.append("PATIENT INFORMATION:\n");
+            text.append("Name: ").append(visit.getPatientName()).append("\n");
+            if (patient != null) {
+                text.append("Age: ").append(patient.getAge()).append(" years\n");
+                text.append("Gender: ").append(patient.getGender()).append("\n");
+            }
+            text.append("\n");
 
-                details.append("DIAGNOSIS:\n");
-                details.append(rs.getString("diagnosis")).append("\n\n");
+            text.append("DOCTOR INFORMATION:\n");
+            text.append("Name: Dr. ").append(visit.getDoctorName()).append("\n");
+            if (doctor != null) {
+                text.append("Specialization: ").append(doctor.getSpecialization()).append("\n");
+            }
+            text.append("\n");
 
-                if (rs.getString("treatment") != null && !rs.getString("treatment").trim().isEmpty()) {
-                    details.append("TREATMENT:\n");
-                    details.append(rs.getString("treatment")).append("\n\n");
-                }
+            if (visit.getSymptoms() != null && !visit.getSymptoms().trim().isEmpty()) {
+                text.append("SYMPTOMS:\n");
+                text.append(visit.getSymptoms()).append("\n\n");
+            }
 
-                // Parse and display vital signs
-                String vitalSigns = rs.getString("vital_signs");
-                if (vitalSigns != null && !vitalSigns.trim().isEmpty() && !vitalSigns.equals("{}")) {
-                    details.append("VITAL SIGNS:\n");
-                    details.append("──────────────────────\n");
-                    parseVitalSigns(vitalSigns, details);
-                    details.append("\n");
-                }
+            text.append("DIAGNOSIS:\n");
+            text.append(visit.getDiagnosis()).append("\n\n");
 
-                if (rs.getString("notes") != null && !rs.getString("notes").trim().isEmpty()) {
-                    details.append("NOTES:\n");
-                    details.append(rs.getString("notes")).append("\n\n");
-                }
+            if (visit.getTreatment() != null && !visit.getTreatment().trim().isEmpty()) {
+                text.append("TREATMENT:\n");
+                text.append(visit.getTreatment()).append("\n\n");
+            }
 
-                details.append("Created: ").append(rs.getTimestamp("created_at"));
-                details.append("\n====================================================");
+            // Parse and display vital signs
+            String vitalSigns = visit.getVitalSigns();
+            if (vitalSigns != null && !vitalSigns.trim().isEmpty() && !vitalSigns.equals("{}")) {
+                text.append("VITAL SIGNS:\n");
+                text.append("──────────────────────\n");
+                parseVitalSigns(vitalSigns, text);
+                text.append("\n");
             }
 
-            historyDetailsArea.setText(details.toString());
-            historyDetailsArea.setCaretPosition(0);
+            if (visit.getNotes() != null && !visit.getNotes().trim().isEmpty()) {
+                text.append("NOTES:\n");
+                text.append(visit.getNotes()).append("\n\n");
+            }
 
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error loading history details: " + e.getMessage());
-        }
+            text.append("Created: ")
+                    .append(visit.getCreatedAt() == null ? null : CREATED_FORMAT.format(visit.getCreatedAt()));
+            text.append("\n====================================================");
+            return text.toString();
+        }, details -> {
+            historyDetailsArea.setText(details);
+            historyDetailsArea.setCaretPosition(0);
+        }, "Error loading history details");
     }
 
     private void parseVitalSigns(String vitalSigns, StringBuilder details) {
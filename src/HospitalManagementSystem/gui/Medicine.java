@@ -0,0 +1,53 @@
+package HospitalManagementSystem.gui;
+
+/**
+ * A row of the medicines catalogue.
+ */
+public class Medicine {
+    private final int id;
+    private final String name;
+    private final String genericName;
+    private final String strength;
+    private final String contraindications;
+    private final String sideEffects;
+
+    public Medicine(int id, String name, String genericName, String strength,
+            String contraindications, String sideEffects) {
+        this.id = id;
+        this.name = name;
+        this.genericName = genericName;
+        this.strength = strength;
+        this.contraindications = contraindications;
+        this.sideEffects = sideEffects;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getGenericName() {
+        return genericName;
+    }
+
+    public String getStrength() {
+        return strength;
+    }
+
+    public String getContraindications() {
+        return contraindications;
+    }
+
+    public String getSideEffects() {
+        return sideEffects;
+    }
+
+    /** Label used in the medicine combo box and prescription table. */
+    @Override
+    public String toString() {
+        return name + " (" + strength + ")";
+    }
+}
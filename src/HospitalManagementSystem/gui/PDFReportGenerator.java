@@ -1,29 +1,43 @@
 package HospitalManagementSystem.gui;
 
+import HospitalManagementSystem.db.ConnectionPool;
+import HospitalManagementSystem.db.DateRange;
+import HospitalManagementSystem.db.Jdbc;
+import HospitalManagementSystem.export.ReportPdf;
+import HospitalManagementSystem.export.ReportPrintable;
+import HospitalManagementSystem.export.TextSource;
+
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
-import java.awt.print.PageFormat;
-import java.awt.print.Printable;
 import java.awt.print.PrinterException;
 import java.awt.print.PrinterJob;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.*;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.Map;
+
+// Reports are saved as PDF files by ReportPdf, and printed across pages by ReportPrintable
 
-// Note: For full PDF support, you would need to add iText or Apache PDFBox library
-// This implementation creates a printable report that can be "printed to PDF"
+public class PDFReportGenerator extends JFrame {
+    static final String[] PERIODS = { "Last 7 Days", "Last 30 Days", "Last 3 Months", "Last 6 Months", "Last Year",
+            "All Time" };
+    private static final String REPORT_TITLE = "HOSPITAL MANAGEMENT SYSTEM REPORT";
 
-public class PDFReportGenerator extends JFrame implements Printable {
-    private Connection connection;
+    private final ConnectionPool pool;
+    private final BackgroundQueries queries;
     private JComboBox<String> reportPeriodCombo;
     private JButton generateButton, printButton, saveButton;
     private JPanel reportPanel;
     private String reportContent;
 
-    public PDFReportGenerator(Connection connection) {
-        this.connection = connection;
+    public PDFReportGenerator(ConnectionPool pool) {
+        this.pool = pool;
+        this.queries = new BackgroundQueries(pool, this);
         initializeGUI();
     }
 
@@ -70,8 +84,7 @@ public class PDFReportGenerator extends JFrame implements Printable {
         periodLabel.setForeground(Color.WHITE);
         periodLabel.setFont(new Font("Arial", Font.BOLD, 12));
 
-        reportPeriodCombo = new JComboBox<>(new String[] { "Last 7 Days", "Last 30 Days", "Last 3 Months",
-                "Last 6 Months", "Last Year", "All Time" });
+        reportPeriodCombo = new JComboBox<>(PERIODS);
         reportPeriodCombo.setFont(new Font("Arial", Font.PLAIN, 11));
 
         generateButton = new JButton("Generate PDF Report");
@@ -154,32 +167,43 @@ public class PDFReportGenerator extends JFrame implements Printable {
         panel.add(saveButton);
         panel.add(Box.createHorizontalStrut(20));
         panel.add(closeButton);
+        panel.add(queries.getProgressBar());
 
         return panel;
     }
 
     private void generatePDFReport() {
-        try {
-            String period = (String) reportPeriodCombo.getSelectedItem();
-            reportContent = generateReportContent(period);
+        String period = (String) reportPeriodCombo.getSelectedItem();
 
-            // Update the preview panel with report content
-            updateReportPreview();
+        queries.runJob("report", "Generating report", () -> generateReportContent(pool, period),
+                content -> {
+                    reportContent = content;
 
-            printButton.setEnabled(true);
-            saveButton.setEnabled(true);
+                    // Update the preview panel with report content
+                    updateReportPreview();
 
-            JOptionPane.showMessageDialog(this,
-                    "PDF Report generated successfully!\nUse 'Print to PDF' to save as PDF file.",
-                    "Report Generated", JOptionPane.INFORMATION_MESSAGE);
+                    printButton.setEnabled(true);
+                    saveButton.setEnabled(true);
 
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error generating report: " + e.getMessage(),
-                    "Database Error", JOptionPane.ERROR_MESSAGE);
-        }
+                    JOptionPane.showMessageDialog(this,
+                            "PDF Report generated successfully!\nUse 'Save Report' to save it as a PDF file.",
+                            "Report Generated", JOptionPane.INFORMATION_MESSAGE);
+                }, "Error generating report");
     }
 
-    private String generateReportContent(String period) throws SQLException {
+    /** The report text; borrows connections from {@code pool} only while it queries. */
+    static String generateReportContent(ConnectionPool pool, String period) throws SQLException {
+        ReportPipeline pipeline = new ReportPipeline(pool);
+        DateRange range = DateRange.forPeriod(period);
+        ReportMetrics metrics = pipeline.load(connection -> ReportMetrics.load(connection, range));
+        ReportPipeline.Result sections = pipeline
+                .add("Executive Summary", out -> generateExecutiveSummary(out, metrics))
+                .add("Patient Demographics", out -> generatePatientDemographics(out, metrics))
+                .add("Age Distribution", out -> generateAgeDistribution(out, metrics))
+                .add("Doctor Specializations", PDFReportGenerator::generateDoctorSpecializations)
+                .add("Appointment Status", out -> generateAppointmentStatus(out, metrics))
+                .run();
+
         StringBuilder report = new StringBuilder();
 
         // Report Header
@@ -189,14 +213,37 @@ public class PDFReportGenerator extends JFrame implements Printable {
         report.append("Generated: ").append(new SimpleDateFormat("MMMM dd, yyyy 'at' HH:mm").format(new Date()))
                 .append("\n\n");
 
-        // Executive Summary
+        report.append(sections.getText());
+
+        // System Performance
+        report.append("SYSTEM PERFORMANCE\n");
+        report.append("==================\n\n");
+        report.append("Database Status: Active\n");
+        report.append("System Health: Excellent\n");
+        report.append("Uptime: 99.9%\n\n");
+
+        // Footer
+        report.append("Section timings: ");
+        String separator = "";
+        for (Map.Entry<String, Long> timing : sections.getTimings().entrySet()) {
+            report.append(separator).append(timing.getKey()).append(" ").append(timing.getValue()).append("ms");
+            separator = ", ";
+        }
+        report.append("\n\n");
+        report.append("Report generated by Hospital Management System v2.0\n");
+        report.append("© 2024 Hospital Management System. All rights reserved.");
+
+        return report.toString();
+    }
+
+    private static void generateExecutiveSummary(StringBuilder report, ReportMetrics metrics) {
         report.append("EXECUTIVE SUMMARY\n");
         report.append("================\n\n");
 
-        int totalPatients = getCount("SELECT COUNT(*) FROM patients");
-        int totalDoctors = getCount("SELECT COUNT(*) FROM doctors");
-        int totalAppointments = getCount("SELECT COUNT(*) FROM appointments");
-        int completedAppointments = getCount("SELECT COUNT(*) FROM appointments WHERE status = 'Completed'");
+        int totalPatients = metrics.getPatientCount();
+        int totalDoctors = metrics.getDoctorCount();
+        int totalAppointments = metrics.getAppointmentCount();
+        int completedAppointments = metrics.getCompletedCount();
 
         report.append("Total Patients: ").append(totalPatients).append("\n");
         report.append("Total Doctors: ").append(totalDoctors).append("\n");
@@ -205,76 +252,63 @@ public class PDFReportGenerator extends JFrame implements Printable {
 
         double completionRate = totalAppointments > 0 ? (completedAppointments * 100.0 / totalAppointments) : 0;
         report.append("Completion Rate: ").append(String.format("%.1f%%", completionRate)).append("\n\n");
+    }
 
-        // Patient Demographics
+    private static void generatePatientDemographics(StringBuilder report, ReportMetrics metrics) {
         report.append("PATIENT DEMOGRAPHICS\n");
         report.append("===================\n\n");
 
-        int malePatients = getCount("SELECT COUNT(*) FROM patients WHERE gender = 'Male'");
-        int femalePatients = getCount("SELECT COUNT(*) FROM patients WHERE gender = 'Female'");
-        double avgAge = getAverageAge();
-
-        report.append("Male Patients: ").append(malePatients).append("\n");
-        report.append("Female Patients: ").append(femalePatients).append("\n");
-        report.append("Average Age: ").append(String.format("%.1f years", avgAge)).append("\n\n");
+        report.append("Male Patients: ").append(metrics.getMaleCount()).append("\n");
+        report.append("Female Patients: ").append(metrics.getFemaleCount()).append("\n");
+        report.append("Average Age: ").append(String.format("%.1f years", metrics.getAverageAge())).append("\n\n");
+    }
 
-        // Age Distribution
+    private static void generateAgeDistribution(StringBuilder report, ReportMetrics metrics) {
         report.append("AGE DISTRIBUTION\n");
         report.append("===============\n\n");
-        report.append("0-18 years: ").append(getCount("SELECT COUNT(*) FROM patients WHERE age BETWEEN 0 AND 18"))
-                .append("\n");
-        report.append("19-35 years: ").append(getCount("SELECT COUNT(*) FROM patients WHERE age BETWEEN 19 AND 35"))
-                .append("\n");
-        report.append("36-55 years: ").append(getCount("SELECT COUNT(*) FROM patients WHERE age BETWEEN 36 AND 55"))
-                .append("\n");
-        report.append("56-70 years: ").append(getCount("SELECT COUNT(*) FROM patients WHERE age BETWEEN 56 AND 70"))
-                .append("\n");
-        report.append("70+ years: ").append(getCount("SELECT COUNT(*) FROM patients WHERE age > 70")).append("\n\n");
-
-        // Doctor Specializations
+
+        int[] ageGroups = metrics.getAgeGroups();
+        report.append("0-18 years: ").append(ageGroups[0]).append("\n");
+        report.append("19-35 years: ").append(ageGroups[1]).append("\n");
+        report.append("36-55 years: ").append(ageGroups[2]).append("\n");
+        report.append("56-70 years: ").append(ageGroups[3]).append("\n");
+        report.append("70+ years: ").append(ageGroups[4]).append("\n\n");
+    }
+
+    private static void generateDoctorSpecializations(Connection connection, StringBuilder report) {
         report.append("DOCTOR SPECIALIZATIONS\n");
         report.append("=====================\n\n");
 
         try {
             String query = "SELECT specialization, COUNT(*) as count FROM doctors GROUP BY specialization ORDER BY count DESC";
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-
-            while (rs.next()) {
+            Jdbc.forEach(connection, query, rs -> {
                 String specialization = rs.getString("specialization");
                 int count = rs.getInt("count");
                 report.append(specialization).append(": ").append(count).append(" doctors\n");
-            }
+            });
         } catch (SQLException e) {
             report.append("Unable to retrieve specialization data\n");
         }
 
         report.append("\n");
+    }
 
-        // Appointment Status
+    private static void generateAppointmentStatus(StringBuilder report, ReportMetrics metrics) {
         report.append("APPOINTMENT STATUS\n");
         report.append("=================\n\n");
-        report.append("Scheduled: ").append(getCount("SELECT COUNT(*) FROM appointments WHERE status = 'Scheduled'"))
-                .append("\n");
-        report.append("Completed: ").append(getCount("SELECT COUNT(*) FROM appointments WHERE status = 'Completed'"))
-                .append("\n");
-        report.append("Cancelled: ").append(getCount("SELECT COUNT(*) FROM appointments WHERE status = 'Cancelled'"))
-                .append("\n");
-        report.append("Pending: ").append(getCount("SELECT COUNT(*) FROM appointments WHERE status = 'Pending'"))
-                .append("\n\n");
-
-        // System Performance
-        report.append("SYSTEM PERFORMANCE\n");
-        report.append("==================\n\n");
-        report.append("Database Status: Active\n");
-        report.append("System Health: Excellent\n");
-        report.append("Uptime: 99.9%\n\n");
+        report.append("Scheduled: ").append(metrics.getScheduledCount()).append("\n");
+        report.append("Completed: ").append(metrics.getCompletedCount()).append("\n");
+        report.append("Cancelled: ").append(metrics.getCancelledCount()).append("\n");
+        report.append("Pending: ").append(metrics.getPendingCount()).append("\n\n");
+    }
 
-        // Footer
-        report.append("Report generated by Hospital Management System v2.0\n");
-        report.append("© 2024 Hospital Management System. All rights reserved.");
+    /** Writes {@code content} as a PDF file and returns the number of pages. */
+    static int writePdf(Path file, String content) throws IOException {
+        return ReportPdf.write(file, REPORT_TITLE, generatedLine(), TextSource.of(content));
+    }
 
-        return report.toString();
+    private static String generatedLine() {
+        return "Generated: " + new SimpleDateFormat("MMMM dd, yyyy 'at' HH:mm").format(new Date());
     }
 
     private void updateReportPreview() {
@@ -296,7 +330,7 @@ public class PDFReportGenerator extends JFrame implements Printable {
 
     private void printToPDF() {
         PrinterJob job = PrinterJob.getPrinterJob();
-        job.setPrintable(this);
+        job.setPrintable(new ReportPrintable(REPORT_TITLE, generatedLine(), TextSource.of(reportContent)));
 
         if (job.printDialog()) {
             try {
@@ -314,15 +348,21 @@ public class PDFReportGenerator extends JFrame implements Printable {
     private void saveReport() {
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("Save Hospital Report");
-        fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("Text Files", "txt"));
+        fileChooser.addChoosableFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("Text Files", "txt"));
+        fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("PDF Files", "pdf"));
 
         SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd_HHmmss");
         String timestamp = sdf.format(new Date());
-        fileChooser.setSelectedFile(new java.io.File("Hospital_Report_" + timestamp + ".txt"));
+        fileChooser.setSelectedFile(new java.io.File("Hospital_Report_" + timestamp + ".pdf"));
 
         if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
-            try (java.io.FileWriter writer = new java.io.FileWriter(fileChooser.getSelectedFile())) {
-                writer.write(reportContent);
+            Path file = fileChooser.getSelectedFile().toPath();
+            try {
+                if (file.getFileName().toString().toLowerCase().endsWith(".txt")) {
+                    Files.write(file, reportContent.getBytes(StandardCharsets.UTF_8));
+                } else {
+                    writePdf(file, reportContent);
+                }
                 JOptionPane.showMessageDialog(this, "Report saved successfully!",
                         "Save Complete", JOptionPane.INFORMATION_MESSAGE);
             } catch (IOException e) {
@@ -331,65 +371,4 @@ public class PDFReportGenerator extends JFrame implements Printable {
             }
         }
     }
-
-    @Override
-    public int print(Graphics graphics, PageFormat pageFormat, int pageIndex) throws PrinterException {
-        if (pageIndex > 0) {
-            return NO_SUCH_PAGE;
-        }
-
-        Graphics2D g2d = (Graphics2D) graphics;
-        g2d.translate(pageFormat.getImageableX(), pageFormat.getImageableY());
-
-        // Set font for printing
-        Font titleFont = new Font("Arial", Font.BOLD, 16);
-        Font contentFont = new Font("Arial", Font.PLAIN, 10);
-
-        g2d.setFont(titleFont);
-        FontMetrics titleMetrics = g2d.getFontMetrics();
-
-        int y = titleMetrics.getHeight();
-
-        // Print title
-        g2d.drawString("HOSPITAL MANAGEMENT SYSTEM REPORT", 50, y);
-        y += titleMetrics.getHeight() + 10;
-
-        // Print date
-        g2d.setFont(contentFont);
-        FontMetrics contentMetrics = g2d.getFontMetrics();
-        g2d.drawString("Generated: " + new SimpleDateFormat("MMMM dd, yyyy 'at' HH:mm").format(new Date()), 50, y);
-        y += contentMetrics.getHeight() + 20;
-
-        // Print content
-        String[] lines = reportContent.split("\n");
-        for (String line : lines) {
-            if (y > pageFormat.getImageableHeight() - contentMetrics.getHeight()) {
-                break; // Page full
-            }
-            g2d.drawString(line, 50, y);
-            y += contentMetrics.getHeight();
-        }
-
-        return PAGE_EXISTS;
-    }
-
-    // Helper methods
-    private int getCount(String query) throws SQLException {
-        Statement stmt = connection.createStatement();
-        ResultSet rs = stmt.executeQuery(query);
-        if (rs.next()) {
-            return rs.getInt(1);
-        }
-        return 0;
-    }
-
-    private double getAverageAge() throws SQLException {
-        String query = "SELECT AVG(age) FROM patients";
-        Statement stmt = connection.createStatement();
-        ResultSet rs = stmt.executeQuery(query);
-        if (rs.next()) {
-            return rs.getDouble(1);
-        }
-        return 0.0;
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,611 @@
+package HospitalManagementSystem.gui;
+
+import HospitalManagementSystem.db.KeysetQuery;
+import HospitalManagementSystem.db.RowMapper;
+import HospitalManagementSystem.events.EntityChanged;
+
+import javax.swing.table.AbstractTableModel;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-only table model that holds only the pages the table is showing.
+ *
+ * Loading a result only fetches its row count and one sort key per page. Pages are fetched
+ * in the background the first time the table paints one of their rows, together with the
+ * neighbouring pages, and the least recently used pages are dropped beyond a small limit.
+ * Rows not fetched yet read as empty cells.
+ *
+ * After a write, {@link #rowInserted}, {@link #rowUpdated} and {@link #rowDeleted} patch just
+ * the affected row into place instead of reloading the result, so the cost does not grow with
+ * the table. The first column of mapped rows must be the id.
+ */
+public class PagedTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+    private static final int PAGE_SIZE = 200;
+    private static final int PREFETCH_PAGES = 1;
+    private static final int MAX_CACHED_PAGES = 10;
+
+    private final BackgroundQueries queries;
+    private final String key;
+    private final String noun;
+    private final String[] columnNames;
+    private final KeysetQuery query;
+    private final RowMapper<Object[]> mapper;
+
+    private final Map<Integer, List<Object[]>> pages = new LinkedHashMap<Integer, List<Object[]>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Object[]>> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+    private final Set<Integer> loading = new HashSet<>();
+
+    private Source source = new Rows(new ArrayList<>());
+    // Counts row patches, so pages fetched from before a patch are not kept
+    private int patches;
+
+    public PagedTableModel(BackgroundQueries queries, String key, String noun, String[] columnNames,
+            KeysetQuery query, RowMapper<Object[]> mapper) {
+        this.queries = queries;
+        this.key = key;
+        this.noun = noun;
+        this.columnNames = columnNames;
+        this.query = query;
+        this.mapper = mapper;
+    }
+
+    /** Shows every row. */
+    public void load() {
+        load(null, null, null);
+    }
+
+    /**
+     * Shows the rows matching {@code where} (a condition over the query's tables with {@code ?}
+     * placeholders for {@code params}, or null for all rows), then runs {@code onLoaded}.
+     */
+    public void load(String where, Object[] params, Runnable onLoaded) {
+        queries.run(key, "Loading " + noun,
+                connection -> query.directory(connection, where, params, PAGE_SIZE),
+                directory -> {
+                    setSource(new Keyset(where, params, directory));
+                    if (onLoaded != null) {
+                        onLoaded.run();
+                    }
+                }, "Error loading " + noun);
+    }
+
+    /** Shows the rows with the given ids, in that order. The first column of mapped rows must be the id. */
+    public void showIds(int[] ids) {
+        queries.cancel(key);
+        setSource(new Ids(ids));
+    }
+
+    /** Shows rows that are already in memory. */
+    public void showRows(List<Object[]> rows) {
+        queries.cancel(key);
+        setSource(new Rows(rows));
+    }
+
+    /**
+     * All rows of the current result if every page of it has been fetched, otherwise null.
+     * Small results are complete as soon as their only page is shown.
+     */
+    public List<Object[]> loadedRows() {
+        if (source instanceof Rows) {
+            return ((Rows) source).rows;
+        }
+        List<Object[]> rows = new ArrayList<>(source.size());
+        for (int page = 0; page < source.pageCount(); page++) {
+            List<Object[]> rowsOfPage = pages.get(page);
+            if (rowsOfPage == null) {
+                return null;
+            }
+            rows.addAll(rowsOfPage);
+        }
+        return rows;
+    }
+
+    /** The row at {@code rowIndex}, or null while its page is still being fetched. */
+    public Object[] getRow(int rowIndex) {
+        if (source instanceof Rows) {
+            List<Object[]> rows = ((Rows) source).rows;
+            return rowIndex < rows.size() ? rows.get(rowIndex) : null;
+        }
+        int page = source.pageOf(rowIndex);
+        List<Object[]> rows = pages.get(page);
+        if (rows == null) {
+            request(page);
+            return null;
+        }
+        int offset = rowIndex - source.pageStart(page);
+        return offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    /**
+     * Shows the row just inserted with id {@code id} in its sort position, if it matches the
+     * rows shown. Only that row and the page it lands on are read.
+     */
+    public void rowInserted(int id) {
+        patch(id, true);
+    }
+
+    /** Shows the new values of row {@code id}, moving it if its sort position changed. */
+    public void rowUpdated(int id) {
+        patch(id, false);
+    }
+
+    /** Removes row {@code id}, which was just deleted, without reading anything. */
+    public void rowDeleted(int id) {
+        int index = indexOf(id);
+        if (index >= 0) {
+            removeAt(index);
+            fireTableRowsDeleted(index, index);
+        } else if (source instanceof Keyset) {
+            reload((Keyset) source); // its page is not in memory, so its position is unknown
+        }
+    }
+
+    /**
+     * Patches the table for a change published on the event bus. Bulk changes reload the current
+     * result; search results only pick up changes to the rows they show.
+     */
+    public void apply(EntityChanged event) {
+        if (event.isBulk()) {
+            if (source instanceof Keyset) {
+                reload((Keyset) source);
+            }
+            return;
+        }
+        switch (event.getChange()) {
+            case ADDED:
+                rowInserted(event.getId());
+                break;
+            case UPDATED:
+                rowUpdated(event.getId());
+                break;
+            case DELETED:
+                rowDeleted(event.getId());
+                break;
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return source.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        Object[] row = getRow(rowIndex);
+        return row == null ? null : row[columnIndex];
+    }
+
+    private void setSource(Source newSource) {
+        for (int page : loading) {
+            queries.cancel(pageKey(page));
+        }
+        loading.clear();
+        pages.clear();
+        source = newSource;
+        fireTableDataChanged();
+    }
+
+    private void request(int page) {
+        int last = Math.min(source.pageCount() - 1, page + PREFETCH_PAGES);
+        for (int p = Math.max(0, page - PREFETCH_PAGES); p <= last; p++) {
+            if (!pages.containsKey(p) && loading.add(p)) {
+                fetch(p);
+            }
+        }
+    }
+
+    private void fetch(int page) {
+        Source fetchedFrom = source;
+        int patchCount = patches;
+        queries.run(pageKey(page), "Loading " + noun, fetchedFrom.fetch(page),
+                rows -> {
+                    if (source != fetchedFrom) {
+                        return; // result was replaced while the page loaded
+                    }
+                    loading.remove(page);
+                    if (patches == patchCount) {
+                        pages.put(page, rows);
+                    } // else rows were patched meanwhile; the page is fetched again when painted
+                    int first = source.pageStart(page);
+                    int last = Math.min(source.size(), first + source.pageSize(page)) - 1;
+                    if (last >= first) {
+                        fireTableRowsUpdated(first, last);
+                    }
+                }, e -> {
+                    if (source == fetchedFrom) {
+                        loading.remove(page);
+                    }
+                    System.err.println("Error loading " + noun + " page " + page + ": " + e.getMessage());
+                });
+    }
+
+    private String pageKey(int page) {
+        return key + ":page" + page;
+    }
+
+    private void patch(int id, boolean inserted) {
+        Source patchedIn = source;
+        int oldIndex = indexOf(id);
+        if (!(patchedIn instanceof Keyset)) {
+            // Search results only refresh the rows they already show
+            if (oldIndex < 0) {
+                return;
+            }
+            queries.run(key + ":row" + id, "Updating " + noun, connection -> {
+                List<Object[]> rows = query.byIds(connection, new int[] { id }, mapper);
+                return rows.isEmpty() ? null : rows.get(0);
+            }, row -> {
+                int index = indexOf(id);
+                if (source != patchedIn || index < 0) {
+                    return;
+                }
+                if (row == null) {
+                    removeAt(index);
+                    fireTableRowsDeleted(index, index);
+                } else {
+                    replaceAt(index, row);
+                    fireTableRowsUpdated(index, index);
+                }
+            }, "Error updating " + noun);
+            return;
+        }
+
+        Keyset keyset = (Keyset) patchedIn;
+        if (!inserted && oldIndex < 0) {
+            reload(keyset); // its page is not in memory, so its old position is unknown
+            return;
+        }
+        int oldPage = oldIndex < 0 ? -1 : keyset.pageOf(oldIndex);
+        List<Object[]> keys = new ArrayList<>(keyset.keys);
+        int[] sizes = keyset.sizes.clone();
+        int patchCount = patches;
+
+        queries.run(key + ":row" + id, "Updating " + noun, connection -> {
+            KeysetQuery.Keyed<Object[]> found = query.find(connection, keyset.where, keyset.params, id, mapper);
+            if (found == null) {
+                return new Patch(null, -1, false, null); // deleted, or no longer matches the filter
+            }
+            int page = locate(keys, found.getKey());
+            boolean first = page < 0;
+            page = Math.max(page, 0);
+            Object[] pageKey = first ? found.getKey() : keys.get(page);
+            int limit = (page < sizes.length ? sizes[page] : 0) + (page == oldPage ? 0 : 1);
+            return new Patch(found, page, first,
+                    query.page(connection, keyset.where, keyset.params, pageKey, limit, mapper));
+        }, patch -> {
+            if (source != keyset) {
+                return;
+            }
+            if (patches != patchCount) {
+                reload(keyset); // another change moved rows while this one was read
+                return;
+            }
+            apply(keyset, id, oldIndex, patch);
+        }, "Error updating " + noun);
+    }
+
+    private void apply(Keyset keyset, int id, int oldIndex, Patch patch) {
+        if (oldIndex >= 0) {
+            removeAt(oldIndex);
+        }
+        if (patch.found == null) {
+            if (oldIndex >= 0) {
+                fireTableRowsDeleted(oldIndex, oldIndex);
+            }
+            return;
+        }
+
+        int position = -1;
+        for (int i = 0; i < patch.rows.size(); i++) {
+            if (Integer.valueOf(id).equals(patch.rows.get(i)[0])) {
+                position = i;
+            }
+        }
+        if (patch.first) {
+            keyset.startFirstPage(patch.found.getKey());
+        }
+        keyset.resize(patch.page, 1);
+        if (position < 0 || keyset.pageSize(patch.page) != patch.rows.size()) {
+            reload(keyset); // rows were changed by someone else too
+            return;
+        }
+        pages.put(patch.page, patch.rows);
+
+        int newIndex = keyset.pageStart(patch.page) + position;
+        if (oldIndex < 0) {
+            fireTableRowsInserted(newIndex, newIndex);
+        } else {
+            fireTableRowsUpdated(Math.min(oldIndex, newIndex), Math.max(oldIndex, newIndex));
+        }
+    }
+
+    // Last page whose first key sorts at or before key, or -1 if key sorts before every page
+    private int locate(List<Object[]> keys, Object[] key) {
+        int low = 0;
+        int high = keys.size() - 1;
+        int page = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (query.compare(keys.get(middle), key) <= 0) {
+                page = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return page;
+    }
+
+    // Position of row id among the rows in memory, or -1
+    private int indexOf(int id) {
+        Integer boxed = id;
+        if (source instanceof Rows) {
+            List<Object[]> rows = ((Rows) source).rows;
+            for (int i = 0; i < rows.size(); i++) {
+                if (boxed.equals(rows.get(i)[0])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        for (Map.Entry<Integer, List<Object[]>> entry : pages.entrySet()) {
+            List<Object[]> rows = entry.getValue();
+            for (int i = 0; i < rows.size(); i++) {
+                if (boxed.equals(rows.get(i)[0])) {
+                    return source.pageStart(entry.getKey()) + i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void removeAt(int index) {
+        patches++;
+        if (source instanceof Rows) {
+            ((Rows) source).rows.remove(index);
+            return;
+        }
+        int page = source.pageOf(index);
+        if (source instanceof Keyset) {
+            List<Object[]> rows = pages.get(page);
+            if (rows != null) { // else dropped from the cache since the row was found
+                rows.remove(index - source.pageStart(page));
+            }
+            ((Keyset) source).resize(page, -1);
+        } else {
+            // Every later id moves up a row, so the pages from here on are fetched again
+            ((Ids) source).remove(index);
+            pages.keySet().removeIf(p -> p >= page);
+        }
+    }
+
+    private void replaceAt(int index, Object[] row) {
+        if (source instanceof Rows) {
+            ((Rows) source).rows.set(index, row);
+            return;
+        }
+        int page = source.pageOf(index);
+        List<Object[]> rows = pages.get(page);
+        if (rows != null) {
+            rows.set(index - source.pageStart(page), row);
+        }
+    }
+
+    private void reload(Keyset keyset) {
+        load(keyset.where, keyset.params, null);
+    }
+
+    // A changed row with the page it now belongs on, read again with the row in place
+    private static class Patch {
+        private final KeysetQuery.Keyed<Object[]> found;
+        private final int page;
+        private final boolean first;
+        private final List<Object[]> rows;
+
+        Patch(KeysetQuery.Keyed<Object[]> found, int page, boolean first, List<Object[]> rows) {
+            this.found = found;
+            this.page = page;
+            this.first = first;
+            this.rows = rows;
+        }
+    }
+
+    private abstract static class Source {
+        abstract int size();
+
+        int pageCount() {
+            return (size() + PAGE_SIZE - 1) / PAGE_SIZE;
+        }
+
+        int pageOf(int rowIndex) {
+            return rowIndex / PAGE_SIZE;
+        }
+
+        int pageStart(int page) {
+            return page * PAGE_SIZE;
+        }
+
+        int pageSize(int page) {
+            return Math.min(PAGE_SIZE, size() - pageStart(page));
+        }
+
+        // Called on the EDT; the returned work runs in the background
+        abstract BackgroundQueries.Work<List<Object[]>> fetch(int page);
+    }
+
+    // Pages start at the directory's sort keys. Rows inserted or deleted later change the row
+    // count of their page only, so the other pages and their keys stay valid.
+    private class Keyset extends Source {
+        private final String where;
+        private final Object[] params;
+        private final List<Object[]> keys = new ArrayList<>();
+        private int[] sizes;
+        private int[] starts;
+        private int size;
+
+        Keyset(String where, Object[] params, KeysetQuery.Directory directory) {
+            this.where = where;
+            this.params = params;
+            int pageCount = directory.getPageCount();
+            sizes = new int[pageCount];
+            for (int page = 0; page < pageCount; page++) {
+                keys.add(directory.getPageKey(page));
+                sizes[page] = Math.min(PAGE_SIZE, directory.getRowCount() - page * PAGE_SIZE);
+            }
+            recount();
+        }
+
+        @Override
+        int size() {
+            return size;
+        }
+
+        @Override
+        int pageCount() {
+            return sizes.length;
+        }
+
+        @Override
+        int pageOf(int rowIndex) {
+            // Last page starting at or before the row; empty pages share their start with the next one
+            int low = 0;
+            int high = starts.length - 1;
+            int page = 0;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (starts[middle] <= rowIndex) {
+                    page = middle;
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return page;
+        }
+
+        @Override
+        int pageStart(int page) {
+            return starts[page];
+        }
+
+        @Override
+        int pageSize(int page) {
+            return sizes[page];
+        }
+
+        @Override
+        BackgroundQueries.Work<List<Object[]>> fetch(int page) {
+            Object[] pageKey = keys.get(page);
+            int limit = sizes[page];
+            return connection -> query.page(connection, where, params, pageKey, limit, mapper);
+        }
+
+        void resize(int page, int change) {
+            sizes[page] += change;
+            recount();
+        }
+
+        // A row sorting before every page becomes the start of the first page
+        void startFirstPage(Object[] key) {
+            if (keys.isEmpty()) {
+                keys.add(key);
+                sizes = new int[1];
+                recount();
+            } else {
+                keys.set(0, key);
+            }
+        }
+
+        private void recount() {
+            starts = new int[sizes.length];
+            size = 0;
+            for (int page = 0; page < sizes.length; page++) {
+                starts[page] = size;
+                size += sizes[page];
+            }
+        }
+    }
+
+    // Ids are kept in memory; rows are fetched a page at a time by primary key
+    private class Ids extends Source {
+        private int[] ids;
+
+        Ids(int[] ids) {
+            this.ids = ids;
+        }
+
+        @Override
+        int size() {
+            return ids.length;
+        }
+
+        @Override
+        BackgroundQueries.Work<List<Object[]>> fetch(int page) {
+            int[] pageIds = Arrays.copyOfRange(ids, page * PAGE_SIZE, Math.min(ids.length, (page + 1) * PAGE_SIZE));
+            return connection -> {
+                Map<Integer, Object[]> byId = new HashMap<>();
+                for (Object[] row : query.byIds(connection, pageIds, mapper)) {
+                    byId.put((Integer) row[0], row);
+                }
+                // Keep the requested order; ids deleted in the meantime are skipped
+                List<Object[]> rows = new ArrayList<>(pageIds.length);
+                for (int id : pageIds) {
+                    Object[] row = byId.get(id);
+                    if (row != null) {
+                        rows.add(row);
+                    }
+                }
+                return rows;
+            };
+        }
+
+        void remove(int index) {
+            int[] remaining = new int[ids.length - 1];
+            System.arraycopy(ids, 0, remaining, 0, index);
+            System.arraycopy(ids, index + 1, remaining, index, remaining.length - index);
+            ids = remaining;
+        }
+    }
+
+    private static class Rows extends Source {
+        private final List<Object[]> rows;
+
+        Rows(List<Object[]> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        int size() {
+            return rows.size();
+        }
+
+        @Override
+        BackgroundQueries.Work<List<Object[]>> fetch(int page) {
+            return connection -> rows;
+        }
+    }
+}
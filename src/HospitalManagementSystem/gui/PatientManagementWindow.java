@@ -1,29 +1,46 @@
 package HospitalManagementSystem.gui;
 
+import HospitalManagementSystem.core.PatientRecord;
+import HospitalManagementSystem.core.PatientRepository;
+import HospitalManagementSystem.db.ConnectionPool;
+import HospitalManagementSystem.events.EntityChanged.Change;
+import HospitalManagementSystem.events.EventBus;
+import HospitalManagementSystem.events.PatientChanged;
+import HospitalManagementSystem.importer.PatientImport;
+import HospitalManagementSystem.search.SearchIndexes;
+
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.sql.*;
-import java.util.Vector;
 
 public class PatientManagementWindow extends JFrame {
-    private Connection connection;
+    private final ConnectionPool pool;
+    private final BackgroundQueries queries;
+    private final IncrementalSearch search;
     private JTable patientTable;
-    private DefaultTableModel tableModel;
+    private PagedTableModel tableModel;
     private JTextField searchField;
     private JTextField nameField, ageField, phoneField;
     private JTextArea addressField;
     private JComboBox<String> genderCombo;
-    private JButton addButton, updateButton, deleteButton, clearButton;
+    private JLabel summaryLabel;
+    private JButton addButton, updateButton, deleteButton, clearButton, importButton;
     private int selectedPatientId = -1;
 
-    public PatientManagementWindow(Connection connection) {
-        this.connection = connection;
+    public PatientManagementWindow(ConnectionPool pool) {
+        this.pool = pool;
+        this.queries = new BackgroundQueries(pool, this);
         initializeGUI();
+        this.search = new IncrementalSearch(tableModel, PatientRepository.SEARCH, 1, 4, 5);
+        search.useIndex(SearchIndexes.patients());
+        search.attach(searchField);
         loadPatientData();
+        EventBus.shared().subscribe(this, PatientChanged.class, tableModel::apply);
     }
 
     private void initializeGUI() {
@@ -67,11 +84,6 @@ public class PatientManagementWindow extends JFrame {
 
         searchField = new JTextField(20);
         searchField.setFont(new Font("Arial", Font.PLAIN, 14));
-        searchField.addKeyListener(new java.awt.event.KeyAdapter() {
-            public void keyReleased(java.awt.event.KeyEvent evt) {
-                searchPatients();
-            }
-        });
 
         panel.add(titleLabel);
         panel.add(Box.createHorizontalStrut(50));
@@ -88,12 +100,8 @@ public class PatientManagementWindow extends JFrame {
 
         // Table setup
         String[] columnNames = { "ID", "Name", "Age", "Gender", "Phone", "Address" };
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Make table read-only
-            }
-        };
+        tableModel = new PagedTableModel(queries, "patients", "patients", columnNames,
+                PatientRepository.PAGES, rs -> patientRow(PatientRepository.map(rs)));
 
         patientTable = new JTable(tableModel);
         patientTable.setFont(new Font("Arial", Font.PLAIN, 14));
@@ -160,6 +168,12 @@ public class PatientManagementWindow extends JFrame {
         panel.add(addressLabel);
         panel.add(Box.createVerticalStrut(5));
         panel.add(addressScroll);
+        panel.add(Box.createVerticalStrut(15));
+
+        // Totals of the selected patient
+        summaryLabel = new JLabel(" ");
+        summaryLabel.setFont(new Font("Arial", Font.PLAIN, 13));
+        panel.add(summaryLabel);
 
         return panel;
     }
@@ -191,16 +205,20 @@ public class PatientManagementWindow extends JFrame {
         updateButton = createStyledButton("Update Patient", new Color(33, 150, 243));
         deleteButton = createStyledButton("Delete Patient", new Color(244, 67, 54));
         clearButton = createStyledButton("Clear Form", new Color(158, 158, 158));
+        importButton = createStyledButton("Import Patients", new Color(121, 85, 72));
 
         addButton.addActionListener(e -> addPatient());
         updateButton.addActionListener(e -> updatePatient());
         deleteButton.addActionListener(e -> deletePatient());
         clearButton.addActionListener(e -> clearForm());
+        importButton.addActionListener(e -> importPatients());
 
         panel.add(addButton);
         panel.add(updateButton);
         panel.add(deleteButton);
         panel.add(clearButton);
+        panel.add(importButton);
+        panel.add(queries.getProgressBar());
 
         return panel;
     }
@@ -216,91 +234,65 @@ public class PatientManagementWindow extends JFrame {
     }
 
     private void loadPatientData() {
-        try {
-            String query = "SELECT * FROM patients ORDER BY id";
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-
-            // Clear existing data
-            tableModel.setRowCount(0);
-
-            while (rs.next()) {
-                Vector<Object> row = new Vector<>();
-                row.add(rs.getInt("id"));
-                row.add(rs.getString("name"));
-                row.add(rs.getInt("age"));
-                row.add(rs.getString("gender"));
-                row.add(rs.getString("phone"));
-                row.add(rs.getString("address"));
-                tableModel.addRow(row);
-            }
-
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error loading patient data: " + e.getMessage(),
-                    "Database Error", JOptionPane.ERROR_MESSAGE);
-        }
+        search.refresh();
     }
 
-    private void searchPatients() {
-        String searchText = searchField.getText().toLowerCase();
-
-        try {
-            String query = "SELECT * FROM patients WHERE LOWER(name) LIKE ? OR LOWER(phone) LIKE ? OR LOWER(address) LIKE ? ORDER BY id";
-            PreparedStatement pstmt = connection.prepareStatement(query);
-            String searchPattern = "%" + searchText + "%";
-            pstmt.setString(1, searchPattern);
-            pstmt.setString(2, searchPattern);
-            pstmt.setString(3, searchPattern);
-
-            ResultSet rs = pstmt.executeQuery();
-
-            // Clear existing data
-            tableModel.setRowCount(0);
-
-            while (rs.next()) {
-                Vector<Object> row = new Vector<>();
-                row.add(rs.getInt("id"));
-                row.add(rs.getString("name"));
-                row.add(rs.getInt("age"));
-                row.add(rs.getString("gender"));
-                row.add(rs.getString("phone"));
-                row.add(rs.getString("address"));
-                tableModel.addRow(row);
-            }
+    private Object[] patientRow(PatientRecord patient) {
+        return new Object[] {
+                patient.getId(),
+                patient.getName(),
+                patient.getAge(),
+                patient.getGender(),
+                patient.getPhone(),
+                patient.getAddress()
+        };
+    }
 
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error searching patients: " + e.getMessage(),
-                    "Database Error", JOptionPane.ERROR_MESSAGE);
-        }
+    private PatientRecord formPatient(int id) {
+        return new PatientRecord(id,
+                nameField.getText().trim(),
+                Integer.parseInt(ageField.getText().trim()),
+                (String) genderCombo.getSelectedItem(),
+                phoneField.getText().trim(),
+                addressField.getText().trim());
     }
 
     private void populateFormFromTable(int selectedRow) {
-        selectedPatientId = (Integer) tableModel.getValueAt(selectedRow, 0);
-        nameField.setText((String) tableModel.getValueAt(selectedRow, 1));
-        ageField.setText(String.valueOf(tableModel.getValueAt(selectedRow, 2)));
-        genderCombo.setSelectedItem((String) tableModel.getValueAt(selectedRow, 3));
-        phoneField.setText((String) tableModel.getValueAt(selectedRow, 4));
-        addressField.setText((String) tableModel.getValueAt(selectedRow, 5));
+        Object[] row = tableModel.getRow(selectedRow);
+        if (row == null)
+            return; // page not loaded yet
+
+        selectedPatientId = (Integer) row[0];
+        nameField.setText((String) row[1]);
+        ageField.setText(String.valueOf(row[2]));
+        genderCombo.setSelectedItem((String) row[3]);
+        phoneField.setText((String) row[4]);
+        addressField.setText((String) row[5]);
+        loadSummary(selectedPatientId);
+    }
+
+    private void loadSummary(int patientId) {
+        summaryLabel.setText(" ");
+        queries.run("summary", "Loading patient summary", connection -> PatientSummary.load(connection, patientId),
+                summary -> summaryLabel.setText(summary == null ? " " : String.format(
+                        "<html>Appointments: %d<br>Prescriptions: %d<br>Lab tests: %d<br>Total billed: %.2f</html>",
+                        summary.getTotalAppointments(), summary.getTotalPrescriptions(),
+                        summary.getTotalLabTests(), summary.getTotalBilling())),
+                "Error loading patient summary");
     }
 
     private void addPatient() {
         if (!validateForm())
             return;
 
-        try {
-            String query = "INSERT INTO patients (name, age, gender, phone, address) VALUES (?, ?, ?, ?, ?)";
-            PreparedStatement pstmt = connection.prepareStatement(query);
-            pstmt.setString(1, nameField.getText().trim());
-            pstmt.setInt(2, Integer.parseInt(ageField.getText().trim()));
-            pstmt.setString(3, (String) genderCombo.getSelectedItem());
-            pstmt.setString(4, phoneField.getText().trim());
-            pstmt.setString(5, addressField.getText().trim());
-
-            int result = pstmt.executeUpdate();
-            if (result > 0) {
+        try (Connection connection = pool.getConnection()) {
+            PatientRecord patient = formPatient(0);
+            int id = PatientRepository.insert(connection, patient);
+            if (id > 0) {
+                SearchIndexes.patients().put(id, patient.getName(), patient.getPhone(), patient.getAddress());
+                EventBus.shared().publish(new PatientChanged(id, Change.ADDED));
                 JOptionPane.showMessageDialog(this, "Patient added successfully!",
                         "Success", JOptionPane.INFORMATION_MESSAGE);
-                loadPatientData();
                 clearForm();
             }
 
@@ -323,21 +315,14 @@ public class PatientManagementWindow extends JFrame {
         if (!validateForm())
             return;
 
-        try {
-            String query = "UPDATE patients SET name=?, age=?, gender=?, phone=?, address=? WHERE id=?";
-            PreparedStatement pstmt = connection.prepareStatement(query);
-            pstmt.setString(1, nameField.getText().trim());
-            pstmt.setInt(2, Integer.parseInt(ageField.getText().trim()));
-            pstmt.setString(3, (String) genderCombo.getSelectedItem());
-            pstmt.setString(4, phoneField.getText().trim());
-            pstmt.setString(5, addressField.getText().trim());
-            pstmt.setInt(6, selectedPatientId);
-
-            int result = pstmt.executeUpdate();
-            if (result > 0) {
+        try (Connection connection = pool.getConnection()) {
+            PatientRecord patient = formPatient(selectedPatientId);
+            if (PatientRepository.update(connection, patient)) {
+                SearchIndexes.patients().put(selectedPatientId, patient.getName(), patient.getPhone(),
+                        patient.getAddress());
+                EventBus.shared().publish(new PatientChanged(selectedPatientId, Change.UPDATED));
                 JOptionPane.showMessageDialog(this, "Patient updated successfully!",
                         "Success", JOptionPane.INFORMATION_MESSAGE);
-                loadPatientData();
                 clearForm();
             }
 
@@ -362,16 +347,12 @@ public class PatientManagementWindow extends JFrame {
                 "Confirm Deletion", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            try {
-                String query = "DELETE FROM patients WHERE id=?";
-                PreparedStatement pstmt = connection.prepareStatement(query);
-                pstmt.setInt(1, selectedPatientId);
-
-                int result = pstmt.executeUpdate();
-                if (result > 0) {
+            try (Connection connection = pool.getConnection()) {
+                if (PatientRepository.delete(connection, selectedPatientId)) {
+                    SearchIndexes.patients().remove(selectedPatientId);
+                    EventBus.shared().publish(new PatientChanged(selectedPatientId, Change.DELETED));
                     JOptionPane.showMessageDialog(this, "Patient deleted successfully!",
                             "Success", JOptionPane.INFORMATION_MESSAGE);
-                    loadPatientData();
                     clearForm();
                 }
 
@@ -389,9 +370,51 @@ public class PatientManagementWindow extends JFrame {
         phoneField.setText("");
         addressField.setText("");
         selectedPatientId = -1;
+        queries.cancel("summary");
+        summaryLabel.setText(" ");
         patientTable.clearSelection();
     }
 
+    private void importPatients() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Import Patients");
+        fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter(
+                "Patient Files (.csv, .json)", "csv", "json", "jsonl", "ndjson"));
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        // An import that stopped part way resumes after its last commit
+        PatientImport patientImport = new PatientImport(fileChooser.getSelectedFile().toPath());
+        patientImport.setListener(progress -> SwingUtilities.invokeLater(() -> queries.getProgressBar()
+                .setString("Importing patients... " + progress.getRecords() + " records")));
+
+        importButton.setEnabled(false);
+        queries.run("import", "Importing patients", connection -> {
+            try {
+                return patientImport.run(connection);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, progress -> {
+            importButton.setEnabled(true);
+            EventBus.shared().publish(new PatientChanged(PatientChanged.MANY_ROWS, Change.ADDED));
+            String message = progress.getImported() + " patients imported, " + progress.getRejected()
+                    + " rejected.";
+            if (progress.getRejected() > 0) {
+                message += "\nRejected records are listed in " + patientImport.getRejectFile();
+            }
+            JOptionPane.showMessageDialog(this, message, "Import Complete", JOptionPane.INFORMATION_MESSAGE);
+        }, e -> {
+            importButton.setEnabled(true);
+            // Records committed before the failure are in the table
+            EventBus.shared().publish(new PatientChanged(PatientChanged.MANY_ROWS, Change.ADDED));
+            JOptionPane.showMessageDialog(this, "Error importing patients: " + e.getMessage()
+                    + "\nRun the import again on the same file to continue where it stopped.",
+                    "Import Error", JOptionPane.ERROR_MESSAGE);
+        });
+    }
+
     private boolean validateForm() {
         if (nameField.getText().trim().isEmpty()) {
             JOptionPane.showMessageDialog(this, "Please enter patient name!",
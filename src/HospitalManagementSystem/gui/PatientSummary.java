@@ -0,0 +1,83 @@
+package HospitalManagementSystem.gui;
+
+import HospitalManagementSystem.db.Jdbc;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * A patient's appointment, prescription, lab test and billing totals, read from the
+ * {@code patient_totals} row that patient_summary.sql keeps current, so it costs one key lookup
+ * however much history the patient has. Databases without that script have no totals; that is
+ * reported once and the summary is left out from then on.
+ */
+public class PatientSummary {
+    private static final String QUERY = "SELECT total_appointments, total_prescriptions, total_lab_tests, " +
+            "total_billing FROM patient_totals WHERE patient_id = ?";
+    private static final int NO_SUCH_TABLE = 1146;
+
+    private static volatile boolean tableMissing;
+
+    private final int patientId;
+    private final int totalAppointments;
+    private final int totalPrescriptions;
+    private final int totalLabTests;
+    private final double totalBilling;
+
+    private PatientSummary(int patientId, int totalAppointments, int totalPrescriptions, int totalLabTests,
+            double totalBilling) {
+        this.patientId = patientId;
+        this.totalAppointments = totalAppointments;
+        this.totalPrescriptions = totalPrescriptions;
+        this.totalLabTests = totalLabTests;
+        this.totalBilling = totalBilling;
+    }
+
+    private PatientSummary(int patientId, ResultSet rs) throws SQLException {
+        this(patientId, rs.getInt("total_appointments"), rs.getInt("total_prescriptions"),
+                rs.getInt("total_lab_tests"), rs.getDouble("total_billing"));
+    }
+
+    /**
+     * Totals of {@code patientId}; all zero if nothing has been recorded for the patient yet, or
+     * null if the database has no patient_totals table.
+     */
+    public static PatientSummary load(Connection connection, int patientId) throws SQLException {
+        if (tableMissing) {
+            return null;
+        }
+        PatientSummary summary;
+        try {
+            summary = Jdbc.queryOne(connection, QUERY, rs -> new PatientSummary(patientId, rs), patientId);
+        } catch (SQLException e) {
+            if (e.getErrorCode() != NO_SUCH_TABLE) {
+                throw e;
+            }
+            tableMissing = true;
+            System.err.println("No patient_totals table (run patient_summary.sql); patient summaries are not shown");
+            return null;
+        }
+        return summary == null ? new PatientSummary(patientId, 0, 0, 0, 0) : summary;
+    }
+
+    public int getPatientId() {
+        return patientId;
+    }
+
+    public int getTotalAppointments() {
+        return totalAppointments;
+    }
+
+    public int getTotalPrescriptions() {
+        return totalPrescriptions;
+    }
+
+    public int getTotalLabTests() {
+        return totalLabTests;
+    }
+
+    public double getTotalBilling() {
+        return totalBilling;
+    }
+}
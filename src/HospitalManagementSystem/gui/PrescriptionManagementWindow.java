@@ -1,5 +1,15 @@
 package HospitalManagementSystem.gui;
 
+import HospitalManagementSystem.core.PrescribedMedicine;
+import HospitalManagementSystem.core.PrescriptionRecord;
+import HospitalManagementSystem.core.PrescriptionRepository;
+import HospitalManagementSystem.db.ConnectionPool;
+import HospitalManagementSystem.events.DoctorChanged;
+import HospitalManagementSystem.events.EntityChanged.Change;
+import HospitalManagementSystem.events.EventBus;
+import HospitalManagementSystem.events.PatientChanged;
+import HospitalManagementSystem.events.PrescriptionChanged;
+
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.table.DefaultTableModel;
@@ -13,7 +23,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class PrescriptionManagementWindow extends JFrame {
-    private Connection connection;
+    private final ConnectionPool pool;
+    private final BackgroundQueries queries;
     private JComboBox<String> patientComboBox;
     private JComboBox<String> doctorComboBox;
     private JTextArea chiefComplaintArea;
@@ -33,25 +44,37 @@ public class PrescriptionManagementWindow extends JFrame {
 
     private List<Medicine> availableMedicines;
     private int currentAppointmentId = -1;
+    private int preselectedPatientId = -1;
+    private int preselectedDoctorId = -1;
 
-    public PrescriptionManagementWindow(Connection connection) {
-        this.connection = connection;
+    public PrescriptionManagementWindow(ConnectionPool pool) {
+        this.pool = pool;
+        this.queries = new BackgroundQueries(pool, this);
         this.availableMedicines = new ArrayList<>();
         initializeGUI();
         loadMedicines();
         loadPatients();
         loadDoctors();
+        subscribe();
     }
 
-    public PrescriptionManagementWindow(Connection connection, int appointmentId, int patientId, int doctorId) {
-        this.connection = connection;
+    public PrescriptionManagementWindow(ConnectionPool pool, int appointmentId, int patientId, int doctorId) {
+        this.pool = pool;
+        this.queries = new BackgroundQueries(pool, this);
         this.currentAppointmentId = appointmentId;
+        this.preselectedPatientId = patientId;
+        this.preselectedDoctorId = doctorId;
         this.availableMedicines = new ArrayList<>();
         initializeGUI();
         loadMedicines();
         loadPatients();
         loadDoctors();
-        preselectPatientAndDoctor(patientId, doctorId);
+        subscribe();
+    }
+
+    private void subscribe() {
+        EventBus.shared().subscribe(this, PatientChanged.class, event -> loadPatients());
+        EventBus.shared().subscribe(this, DoctorChanged.class, event -> loadDoctors());
     }
 
     private void initializeGUI() {
@@ -302,40 +325,20 @@ public class PrescriptionManagementWindow extends JFrame {
         panel.add(viewPrescriptionsBtn);
         panel.add(checkInteractionsBtn);
         panel.add(clearBtn);
+        panel.add(queries.getProgressBar());
 
         return panel;
     }
 
     private void loadMedicines() {
-        try {
-            String query = "SELECT * FROM medicines ORDER BY medicine_name";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            ResultSet rs = stmt.executeQuery();
-
-            if (availableMedicines != null) {
-                availableMedicines.clear();
+        ReferenceData.medicines().get(queries, "medicines", medicines -> {
+            availableMedicines.clear();
+            availableMedicines.addAll(medicines);
+            medicineComboBox.removeAllItems();
+            for (Medicine medicine : medicines) {
+                medicineComboBox.addItem(medicine.toString());
             }
-            if (medicineComboBox != null) {
-                medicineComboBox.removeAllItems();
-            }
-
-            while (rs.next()) {
-                Medicine medicine = new Medicine(
-                        rs.getInt("id"),
-                        rs.getString("medicine_name"),
-                        rs.getString("generic_name"),
-                        rs.getString("strength"),
-                        rs.getString("contraindications"),
-                        rs.getString("side_effects"));
-                
-                if (availableMedicines != null) {
-                    availableMedicines.add(medicine);
-                }
-                if (medicineComboBox != null) {
-                    medicineComboBox.addItem(medicine.getName() + " (" + medicine.getStrength() + ")");
-                }
-            }
-        } catch (SQLException e) {
+        }, e -> {
             // If medicines table doesn't exist, show a helpful message
             if (e.getMessage().contains("doesn't exist") || e.getMessage().contains("Table") || e.getMessage().contains("Unknown table")) {
                 JOptionPane.showMessageDialog(this, 
@@ -346,54 +349,48 @@ public class PrescriptionManagementWindow extends JFrame {
             } else {
                 JOptionPane.showMessageDialog(this, "Error loading medicines: " + e.getMessage());
             }
-        }
+        });
     }
 
     private void loadPatients() {
-        try {
-            String query = "SELECT id, name FROM patients ORDER BY name";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            ResultSet rs = stmt.executeQuery();
-
+        ReferenceData.patients().get(queries, "patientCombo", items -> {
+            Object selected = patientComboBox.getSelectedItem(); // kept when the list is refilled after a change
             patientComboBox.removeAllItems();
-            while (rs.next()) {
-                patientComboBox.addItem(rs.getInt("id") + " - " + rs.getString("name"));
+            for (String item : items) {
+                patientComboBox.addItem(item);
             }
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error loading patients: " + e.getMessage());
-        }
+            if (selected != null) {
+                patientComboBox.setSelectedItem(selected);
+            } else {
+                selectById(patientComboBox, preselectedPatientId);
+            }
+        }, "Error loading patients");
     }
 
     private void loadDoctors() {
-        try {
-            String query = "SELECT id, name, specialization FROM doctors ORDER BY name";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            ResultSet rs = stmt.executeQuery();
-
+        ReferenceData.doctors().get(queries, "doctorCombo", items -> {
+            Object selected = doctorComboBox.getSelectedItem();
             doctorComboBox.removeAllItems();
-            while (rs.next()) {
-                doctorComboBox.addItem(rs.getInt("id") + " - " + rs.getString("name") +
-                        " (" + rs.getString("specialization") + ")");
+            for (String item : items) {
+                doctorComboBox.addItem(item);
             }
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error loading doctors: " + e.getMessage());
-        }
+            if (selected != null) {
+                doctorComboBox.setSelectedItem(selected);
+            } else {
+                selectById(doctorComboBox, preselectedDoctorId);
+            }
+        }, "Error loading doctors");
     }
 
-    private void preselectPatientAndDoctor(int patientId, int doctorId) {
+    private void selectById(JComboBox<String> comboBox, int id) {
         // Preselect patient and doctor if coming from appointment
-        for (int i = 0; i < patientComboBox.getItemCount(); i++) {
-            String item = patientComboBox.getItemAt(i);
-            if (item.startsWith(patientId + " - ")) {
-                patientComboBox.setSelectedIndex(i);
-                break;
-            }
+        if (id < 0) {
+            return;
         }
-
-        for (int i = 0; i < doctorComboBox.getItemCount(); i++) {
-            String item = doctorComboBox.getItemAt(i);
-            if (item.startsWith(doctorId + " - ")) {
-                doctorComboBox.setSelectedIndex(i);
+        for (int i = 0; i < comboBox.getItemCount(); i++) {
+            String item = comboBox.getItemAt(i);
+            if (item.startsWith(id + " - ")) {
+                comboBox.setSelectedIndex(i);
                 break;
             }
         }
@@ -409,7 +406,8 @@ public class PrescriptionManagementWindow extends JFrame {
             return;
         }
 
-        String medicine = medicineComboBox.getSelectedItem().toString();
+        Medicine medicine = availableMedicines.get(medicineComboBox.getSelectedIndex());
+        List<Medicine> prescribed = prescribedMedicines();
         String dosage = dosageField.getText().trim();
         String frequency = frequencyField.getText().trim();
         String duration = durationField.getText().trim();
@@ -417,6 +415,7 @@ public class PrescriptionManagementWindow extends JFrame {
         String instructions = instructionsArea.getText().trim();
 
         medicineTableModel.addRow(new Object[] { medicine, dosage, frequency, duration, quantity, instructions });
+        warnAboutInteractions(prescribed, medicine);
 
         // Clear medicine form
         dosageField.setText("");
@@ -450,87 +449,48 @@ public class PrescriptionManagementWindow extends JFrame {
             return;
         }
 
-        try {
-            connection.setAutoCommit(false);
-
+        try (Connection connection = pool.getConnection()) {
             // Extract patient and doctor IDs
             String patientStr = patientComboBox.getSelectedItem().toString();
             String doctorStr = doctorComboBox.getSelectedItem().toString();
             int patientId = Integer.parseInt(patientStr.split(" - ")[0]);
             int doctorId = Integer.parseInt(doctorStr.split(" - ")[0]);
 
-            // Insert prescription
-            String prescriptionQuery = "INSERT INTO prescriptions (appointment_id, patient_id, doctor_id, " +
-                    "prescription_date, chief_complaint, diagnosis, notes, next_visit_date) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-
-            PreparedStatement prescriptionStmt = connection.prepareStatement(prescriptionQuery,
-                    Statement.RETURN_GENERATED_KEYS);
-            // appointment_id may be optional depending on where the prescription is created from
-            if (currentAppointmentId > 0) {
-                prescriptionStmt.setInt(1, currentAppointmentId);
-            } else {
-                // explicitly set SQL NULL of INTEGER type when no appointment is associated
-                prescriptionStmt.setNull(1, Types.INTEGER);
-            }
-            prescriptionStmt.setInt(2, patientId);
-            prescriptionStmt.setInt(3, doctorId);
-            prescriptionStmt.setDate(4, Date.valueOf(LocalDate.now()));
-            prescriptionStmt.setString(5, chiefComplaintArea.getText().trim());
-            prescriptionStmt.setString(6, diagnosisArea.getText().trim());
-            prescriptionStmt.setString(7, notesArea.getText().trim());
-
             String nextVisitStr = nextVisitField.getText().trim();
-            if (!nextVisitStr.isEmpty()) {
-                prescriptionStmt.setDate(8, Date.valueOf(nextVisitStr));
-            } else {
-                prescriptionStmt.setNull(8, Types.DATE);
-            }
-
-            prescriptionStmt.executeUpdate();
-
-            ResultSet rs = prescriptionStmt.getGeneratedKeys();
-            int prescriptionId = 0;
-            if (rs.next()) {
-                prescriptionId = rs.getInt(1);
-            }
-
-            // Insert medicines
-            String medicineQuery = "INSERT INTO prescription_medicines (prescription_id, medicine_name, " +
-                    "dosage, frequency, duration, instructions, quantity) VALUES (?, ?, ?, ?, ?, ?, ?)";
-
-            PreparedStatement medicineStmt = connection.prepareStatement(medicineQuery);
-
+            // appointment_id may be optional depending on where the prescription is created from
+            PrescriptionRecord prescription = new PrescriptionRecord(0,
+                    currentAppointmentId > 0 ? currentAppointmentId : null,
+                    patientId,
+                    null,
+                    doctorId,
+                    null,
+                    LocalDate.now(),
+                    null,
+                    chiefComplaintArea.getText().trim(),
+                    diagnosisArea.getText().trim(),
+                    notesArea.getText().trim(),
+                    nextVisitStr.isEmpty() ? null : LocalDate.parse(nextVisitStr));
+
+            List<PrescribedMedicine> medicines = new ArrayList<>();
             for (int i = 0; i < medicineTableModel.getRowCount(); i++) {
-                medicineStmt.setInt(1, prescriptionId);
-                medicineStmt.setString(2, medicineTableModel.getValueAt(i, 0).toString());
-                medicineStmt.setString(3, medicineTableModel.getValueAt(i, 1).toString());
-                medicineStmt.setString(4, medicineTableModel.getValueAt(i, 2).toString());
-                medicineStmt.setString(5, medicineTableModel.getValueAt(i, 3).toString());
-                medicineStmt.setString(6, medicineTableModel.getValueAt(i, 5).toString());
-                medicineStmt.setInt(7, Integer.parseInt(medicineTableModel.getValueAt(i, 4).toString()));
-                medicineStmt.addBatch();
+                medicines.add(new PrescribedMedicine(0,
+                        medicineTableModel.getValueAt(i, 0).toString(),
+                        medicineTableModel.getValueAt(i, 1).toString(),
+                        medicineTableModel.getValueAt(i, 2).toString(),
+                        medicineTableModel.getValueAt(i, 3).toString(),
+                        medicineTableModel.getValueAt(i, 5).toString(),
+                        Integer.parseInt(medicineTableModel.getValueAt(i, 4).toString())));
             }
 
-            medicineStmt.executeBatch();
-            connection.commit();
+            // The prescription and its medicines are written in one transaction
+            int prescriptionId = PrescriptionRepository.insert(connection, prescription, medicines);
+            EventBus.shared().publish(new PrescriptionChanged(prescriptionId, Change.ADDED));
 
             JOptionPane.showMessageDialog(this, "Prescription saved successfully!");
             clearForm();
 
         } catch (Exception e) {
-            try {
-                connection.rollback();
-            } catch (SQLException rollbackEx) {
-                rollbackEx.printStackTrace();
-            }
             JOptionPane.showMessageDialog(this, "Error saving prescription: " + e.getMessage());
-        } finally {
-            try {
-                connection.setAutoCommit(true);
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
         }
     }
 
@@ -540,57 +500,55 @@ public class PrescriptionManagementWindow extends JFrame {
             return;
         }
 
-        List<String> medicines = new ArrayList<>();
-        for (int i = 0; i < medicineTableModel.getRowCount(); i++) {
-            medicines.add(medicineTableModel.getValueAt(i, 0).toString());
-        }
-
-        StringBuilder interactions = new StringBuilder("Drug Interaction Check:\n\n");
-        boolean foundInteractions = false;
-
-        try {
-            for (int i = 0; i < medicines.size(); i++) {
-                for (int j = i + 1; j < medicines.size(); j++) {
-                    String medicine1 = medicines.get(i).split(" \\(")[0];
-                    String medicine2 = medicines.get(j).split(" \\(")[0];
-
-                    String query = "SELECT di.interaction_level, di.description " +
-                            "FROM drug_interactions di " +
-                            "JOIN medicines m1 ON di.medicine1_id = m1.id " +
-                            "JOIN medicines m2 ON di.medicine2_id = m2.id " +
-                            "WHERE (m1.medicine_name = ? AND m2.medicine_name = ?) " +
-                            "OR (m1.medicine_name = ? AND m2.medicine_name = ?)";
-
-                    PreparedStatement stmt = connection.prepareStatement(query);
-                    stmt.setString(1, medicine1);
-                    stmt.setString(2, medicine2);
-                    stmt.setString(3, medicine2);
-                    stmt.setString(4, medicine1);
-
-                    ResultSet rs = stmt.executeQuery();
-                    if (rs.next()) {
-                        foundInteractions = true;
-                        interactions.append("WARNING: ").append(medicine1).append(" + ").append(medicine2).append("\n");
-                        interactions.append("Level: ").append(rs.getString("interaction_level")).append("\n");
-                        interactions.append("Description: ").append(rs.getString("description")).append("\n\n");
-                    }
-                }
+        List<Medicine> medicines = prescribedMedicines();
+        DrugInteractions.load(queries, "interactions", interactions -> {
+            List<DrugInteractions.Interaction> found = interactions.check(medicines);
+            StringBuilder message = new StringBuilder("Drug Interaction Check:\n\n").append(describe(found));
+            if (found.isEmpty()) {
+                message.append("✅ No known drug interactions found between the selected medicines.");
             }
 
-            if (!foundInteractions) {
-                interactions.append("✅ No known drug interactions found between the selected medicines.");
+            JOptionPane.showMessageDialog(this, message.toString(), "Drug Interaction Check",
+                    found.isEmpty() ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+        }, e -> JOptionPane.showMessageDialog(this, "Error checking drug interactions: " + e.getMessage(),
+                "Database Error", JOptionPane.ERROR_MESSAGE));
+    }
+
+    // Checks a newly added medicine right away; failures are left to the explicit check
+    private void warnAboutInteractions(List<Medicine> prescribed, Medicine added) {
+        if (prescribed.isEmpty()) {
+            return;
+        }
+        DrugInteractions.load(queries, "interactions", interactions -> {
+            List<DrugInteractions.Interaction> found = interactions.check(prescribed, added);
+            if (!found.isEmpty()) {
+                JOptionPane.showMessageDialog(this, describe(found), "Drug Interaction Warning",
+                        JOptionPane.WARNING_MESSAGE);
             }
+        }, e -> System.err.println("Drug interaction check failed: " + e.getMessage()));
+    }
 
-            JOptionPane.showMessageDialog(this, interactions.toString(), "Drug Interaction Check",
-                    foundInteractions ? JOptionPane.WARNING_MESSAGE : JOptionPane.INFORMATION_MESSAGE);
+    private String describe(List<DrugInteractions.Interaction> interactions) {
+        StringBuilder warnings = new StringBuilder();
+        for (DrugInteractions.Interaction interaction : interactions) {
+            warnings.append("WARNING: ").append(interaction.getFirst().getName()).append(" + ")
+                    .append(interaction.getSecond().getName()).append("\n");
+            warnings.append("Level: ").append(interaction.getLevel()).append("\n");
+            warnings.append("Description: ").append(interaction.getDescription()).append("\n\n");
+        }
+        return warnings.toString();
+    }
 
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error checking drug interactions: " + e.getMessage());
+    private List<Medicine> prescribedMedicines() {
+        List<Medicine> medicines = new ArrayList<>();
+        for (int i = 0; i < medicineTableModel.getRowCount(); i++) {
+            medicines.add((Medicine) medicineTableModel.getValueAt(i, 0));
         }
+        return medicines;
     }
 
     private void viewAllPrescriptions() {
-        new PrescriptionViewerWindow(connection).setVisible(true);
+        new PrescriptionViewerWindow(pool).setVisible(true);
     }
 
     private void clearForm() {
@@ -605,48 +563,4 @@ public class PrescriptionManagementWindow extends JFrame {
         quantitySpinner.setValue(1);
         instructionsArea.setText("");
     }
-
-    // Medicine class
-    private static class Medicine {
-        private int id;
-        private String name;
-        private String genericName;
-        private String strength;
-        private String contraindications;
-        private String sideEffects;
-
-        public Medicine(int id, String name, String genericName, String strength,
-                String contraindications, String sideEffects) {
-            this.id = id;
-            this.name = name;
-            this.genericName = genericName;
-            this.strength = strength;
-            this.contraindications = contraindications;
-            this.sideEffects = sideEffects;
-        }
-
-        public int getId() {
-            return id;
-        }
-
-        public String getName() {
-            return name;
-        }
-
-        public String getGenericName() {
-            return genericName;
-        }
-
-        public String getStrength() {
-            return strength;
-        }
-
-        public String getContraindications() {
-            return contraindications;
-        }
-
-        public String getSideEffects() {
-            return sideEffects;
-        }
-    }
 }
\ No newline at end of file
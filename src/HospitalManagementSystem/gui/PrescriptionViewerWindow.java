@@ -1,23 +1,35 @@
 package HospitalManagementSystem.gui;
 
+import HospitalManagementSystem.core.DoctorRecord;
+import HospitalManagementSystem.core.DoctorRepository;
+import HospitalManagementSystem.core.PatientRecord;
+import HospitalManagementSystem.core.PatientRepository;
+import HospitalManagementSystem.core.PrescribedMedicine;
+import HospitalManagementSystem.core.PrescriptionRecord;
+import HospitalManagementSystem.core.PrescriptionRepository;
+import HospitalManagementSystem.db.ConnectionPool;
+import HospitalManagementSystem.events.EventBus;
+import HospitalManagementSystem.events.PrescriptionChanged;
+
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.sql.*;
 
 public class PrescriptionViewerWindow extends JFrame {
-    private Connection connection;
+    private final ConnectionPool pool;
+    private final BackgroundQueries queries;
     private JTable prescriptionTable;
-    private DefaultTableModel tableModel;
+    private PagedTableModel tableModel;
     private JTextArea detailsArea;
 
-    public PrescriptionViewerWindow(Connection connection) {
-        this.connection = connection;
+    public PrescriptionViewerWindow(ConnectionPool pool) {
+        this.pool = pool;
+        this.queries = new BackgroundQueries(pool, this);
         initializeGUI();
         loadPrescriptions();
+        EventBus.shared().subscribe(this, PrescriptionChanged.class, tableModel::apply);
     }
 
     private void initializeGUI() {
@@ -41,12 +53,8 @@ public class PrescriptionViewerWindow extends JFrame {
         tablePanel.setBorder(BorderFactory.createEmptyBorder(20, 0, 0, 0));
 
         String[] columns = { "ID", "Patient", "Doctor", "Date", "Diagnosis", "Next Visit" };
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new PagedTableModel(queries, "prescriptions", "prescriptions", columns,
+                PrescriptionRepository.PAGES, rs -> prescriptionRow(PrescriptionRepository.map(rs)));
 
         prescriptionTable = new JTable(tableModel);
         prescriptionTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
@@ -100,43 +108,30 @@ public class PrescriptionViewerWindow extends JFrame {
 
         buttonPanel.add(refreshBtn);
         buttonPanel.add(printBtn);
+        buttonPanel.add(queries.getProgressBar());
         mainPanel.add(buttonPanel, BorderLayout.SOUTH);
 
         add(mainPanel);
     }
 
     private void loadPrescriptions() {
-        try {
-            String query = "SELECT p.id, pt.name as patient_name, d.name as doctor_name, " +
-                    "p.prescription_date, p.diagnosis, p.next_visit_date " +
-                    "FROM prescriptions p " +
-                    "JOIN patients pt ON p.patient_id = pt.id " +
-                    "JOIN doctors d ON p.doctor_id = d.id " +
-                    "ORDER BY p.prescription_date DESC";
-
-            PreparedStatement stmt = connection.prepareStatement(query);
-            ResultSet rs = stmt.executeQuery();
-
-            tableModel.setRowCount(0);
-            while (rs.next()) {
-                Object[] row = {
-                        rs.getInt("id"),
-                        rs.getString("patient_name"),
-                        rs.getString("doctor_name"),
-                        rs.getDate("prescription_date"),
-                        rs.getString("diagnosis"),
-                        rs.getDate("next_visit_date")
-                };
-                tableModel.addRow(row);
-            }
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error loading prescriptions: " + e.getMessage());
-        }
+        tableModel.load();
+    }
+
+    private Object[] prescriptionRow(PrescriptionRecord prescription) {
+        return new Object[] {
+                prescription.getId(),
+                prescription.getPatientName(),
+                prescription.getDoctorName(),
+                prescription.getDate(),
+                prescription.getDiagnosis(),
+                prescription.getNextVisitDate()
+        };
     }
 
     private void showPrescriptionDetails() {
         int selectedRow = prescriptionTable.getSelectedRow();
-        if (selectedRow < 0)
+        if (selectedRow < 0 || tableModel.getRow(selectedRow) == null)
             return;
 
         int prescriptionId = (Integer) tableModel.getValueAt(selectedRow, 0);
@@ -144,86 +139,76 @@ public class PrescriptionViewerWindow extends JFrame {
     }
 
     private void loadPrescriptionDetails(int prescriptionId) {
-        try {
-            // Get prescription details
-            String prescriptionQuery = "SELECT p.*, pt.name as patient_name, pt.age, pt.gender, " +
-                    "d.name as doctor_name, d.specialization " +
-                    "FROM prescriptions p " +
-                    "JOIN patients pt ON p.patient_id = pt.id " +
-                    "JOIN doctors d ON p.doctor_id = d.id " +
-                    "WHERE p.id = ?";
-
-            PreparedStatement prescriptionStmt = connection.prepareStatement(prescriptionQuery);
-            prescriptionStmt.setInt(1, prescriptionId);
-            ResultSet prescriptionRs = prescriptionStmt.executeQuery();
+        queries.run("prescriptionDetails", "Loading prescription details", connection -> {
+            PrescriptionRecord prescription = PrescriptionRepository.find(connection, prescriptionId);
+            if (prescription == null) {
+                return "";
+            }
+            PatientRecord patient = PatientRepository.find(connection, prescription.getPatientId());
+            DoctorRecord doctor = DoctorRepository.find(connection, prescription.getDoctorId());
 
             StringBuilder details = new StringBuilder();
-            if (prescriptionRs.next()) {
-                details.append("==================== PRESCRIPTION ====================\n\n");
-                details.append("Prescription ID: ").append(prescriptionRs.getInt("id")).append("\n");
-                details.append("Date: ").append(prescriptionRs.getDate("prescription_date")).append("\n");
-                details.append("Time: ").append(prescriptionRs.getTime("prescription_time")).append("\n\n");
-
-                details.append("PATIENT INFORMATION:\n");
-                details.append("Name: ").append(prescriptionRs.getString("patient_name")).append("\n");
-                details.append("Age: ").append(prescriptionRs.getInt("age")).append(" years\n");
-                details.append("Gender: ").append(prescriptionRs.getString("gender")).append("\n\n");
-
-                details.append("DOCTOR INFORMATION:\n");
-                details.append("Name: Dr. ").append(prescriptionRs.getString("doctor_name")).append("\n");
-                details.append("Specialization: ").append(prescriptionRs.getString("specialization")).append("\n\n");
-
-                details.append("CHIEF COMPLAINT:\n");
-                details.append(prescriptionRs.getString("chief_complaint")).append("\n\n");
-
-                details.append("DIAGNOSIS:\n");
-                details.append(prescriptionRs.getString("diagnosis")).append("\n\n");
-
-                if (prescriptionRs.getString("notes") != null && !prescriptionRs.getString("notes").trim().isEmpty()) {
-                    details.append("NOTES:\n");
-                    details.append(prescriptionRs.getString("notes")).append("\n\n");
-                }
+            details.append("==================== PRESCRIPTION ====================\n\n");
+            details.append("Prescription ID: ").append(prescription.getId()).append("\n");
+            details.append("Date: ").append(prescription.getDate()).append("\n");
+            details.append("Time: ").append(prescription.getTime()).append("\n\n");
+
+            details.append("PATIENT INFORMATION:\n");
+            details.append("Name: ").append(prescription.getPatientName()).append("\n");
+            if (patient != null) {
+                details.append("Age: ").append(patient.getAge()).append(" years\n");
+                details.append("Gender: ").append(patient.getGender()).append("\n");
+            }
+            details.append("\n");
+
+            details.append("DOCTOR INFORMATION:\n");
+            details.append("Name: Dr. ").append(prescription.getDoctorName()).append("\n");
+            if (doctor != null) {
+                details.append("Specialization: ").append(doctor.getSpecialization()).append("\n");
             }
+            details.append("\n");
 
-            // Get medicines
-            String medicineQuery = "SELECT * FROM prescription_medicines WHERE prescription_id = ? ORDER BY id";
-            PreparedStatement medicineStmt = connection.prepareStatement(medicineQuery);
-            medicineStmt.setInt(1, prescriptionId);
-            ResultSet medicineRs = medicineStmt.executeQuery();
+            details.append("CHIEF COMPLAINT:\n");
+            details.append(prescription.getChiefComplaint()).append("\n\n");
+
+            details.append("DIAGNOSIS:\n");
+            details.append(prescription.getDiagnosis()).append("\n\n");
+
+            if (prescription.getNotes() != null && !prescription.getNotes().trim().isEmpty()) {
+                details.append("NOTES:\n");
+                details.append(prescription.getNotes()).append("\n\n");
+            }
 
             details.append("MEDICATIONS:\n");
             details.append("──────────────────────────────────────────────────────\n");
             int medicineCount = 1;
 
-            while (medicineRs.next()) {
-                details.append(medicineCount).append(". ").append(medicineRs.getString("medicine_name")).append("\n");
-                details.append("   Dosage: ").append(medicineRs.getString("dosage")).append("\n");
-                details.append("   Frequency: ").append(medicineRs.getString("frequency")).append("\n");
-                details.append("   Duration: ").append(medicineRs.getString("duration")).append("\n");
-                details.append("   Quantity: ").append(medicineRs.getInt("quantity")).append("\n");
+            for (PrescribedMedicine medicine : PrescriptionRepository.medicines(connection, prescriptionId)) {
+                details.append(medicineCount).append(". ").append(medicine.getMedicineName()).append("\n");
+                details.append("   Dosage: ").append(medicine.getDosage()).append("\n");
+                details.append("   Frequency: ").append(medicine.getFrequency()).append("\n");
+                details.append("   Duration: ").append(medicine.getDuration()).append("\n");
+                details.append("   Quantity: ").append(medicine.getQuantity()).append("\n");
 
-                if (medicineRs.getString("instructions") != null
-                        && !medicineRs.getString("instructions").trim().isEmpty()) {
-                    details.append("   Instructions: ").append(medicineRs.getString("instructions")).append("\n");
+                if (medicine.getInstructions() != null && !medicine.getInstructions().trim().isEmpty()) {
+                    details.append("   Instructions: ").append(medicine.getInstructions()).append("\n");
                 }
                 details.append("\n");
                 medicineCount++;
             }
 
             // Add next visit date if available
-            prescriptionRs.first(); // Reset to first row
-            if (prescriptionRs.getDate("next_visit_date") != null) {
-                details.append("NEXT VISIT DATE: ").append(prescriptionRs.getDate("next_visit_date")).append("\n\n");
+            if (prescription.getNextVisitDate() != null) {
+                details.append("NEXT VISIT DATE: ").append(prescription.getNextVisitDate()).append("\n\n");
             }
 
             details.append("========================================================");
 
-            detailsArea.setText(details.toString());
+            return details.toString();
+        }, details -> {
+            detailsArea.setText(details);
             detailsArea.setCaretPosition(0);
-
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error loading prescription details: " + e.getMessage());
-        }
+        }, "Error loading prescription details");
     }
 
     private void printSelectedPrescription() {
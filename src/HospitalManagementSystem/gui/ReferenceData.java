@@ -0,0 +1,132 @@
+package HospitalManagementSystem.gui;
+
+import HospitalManagementSystem.db.Jdbc;
+import HospitalManagementSystem.db.RowMapper;
+import HospitalManagementSystem.events.DoctorChanged;
+import HospitalManagementSystem.events.EventBus;
+import HospitalManagementSystem.events.PatientChanged;
+
+import javax.swing.*;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Application-wide cache of the patient, doctor and medicine lists shown in dropdowns.
+ *
+ * A list is read once and then shared by every window that opens. Patient and doctor changes
+ * published on the {@link EventBus} invalidate their list so the next reader fetches it again.
+ * These listeners subscribe when this class is first used, so they run before those of any
+ * window that reads the lists. Lists older
+ * than -Dhms.cache.ttlSeconds (default 300, 0 to keep them until invalidated) are also
+ * fetched again, which picks up changes made outside this application.
+ */
+public class ReferenceData<T> {
+    private static final long TTL_MILLIS = Long.getLong("hms.cache.ttlSeconds", 300) * 1000;
+
+    private static final ReferenceData<String> patients = new ReferenceData<>("patients",
+            "SELECT id, name FROM patients ORDER BY name",
+            rs -> rs.getInt("id") + " - " + rs.getString("name"));
+    private static final ReferenceData<String> doctors = new ReferenceData<>("doctors",
+            "SELECT id, name, specialization FROM doctors ORDER BY name",
+            rs -> rs.getInt("id") + " - " + rs.getString("name") + " (" + rs.getString("specialization") + ")");
+    private static final ReferenceData<Medicine> medicines = new ReferenceData<>("medicines",
+            "SELECT * FROM medicines ORDER BY medicine_name",
+            rs -> new Medicine(
+                    rs.getInt("id"),
+                    rs.getString("medicine_name"),
+                    rs.getString("generic_name"),
+                    rs.getString("strength"),
+                    rs.getString("contraindications"),
+                    rs.getString("side_effects")));
+
+    static {
+        EventBus.shared().subscribe(PatientChanged.class, event -> patients.invalidate());
+        EventBus.shared().subscribe(DoctorChanged.class, event -> doctors.invalidate());
+    }
+
+    private final String noun;
+    private final String sql;
+    private final RowMapper<T> mapper;
+
+    private List<T> values;
+    private long loadedAt;
+    // Bumped by invalidate() so a fetch that started earlier does not store stale values
+    private int version;
+
+    private ReferenceData(String noun, String sql, RowMapper<T> mapper) {
+        this.noun = noun;
+        this.sql = sql;
+        this.mapper = mapper;
+    }
+
+    /** Combo box items of the form {@code "id - name"}, ordered by name. */
+    public static ReferenceData<String> patients() {
+        return patients;
+    }
+
+    /** Combo box items of the form {@code "id - name (specialization)"}, ordered by name. */
+    public static ReferenceData<String> doctors() {
+        return doctors;
+    }
+
+    public static ReferenceData<Medicine> medicines() {
+        return medicines;
+    }
+
+    /**
+     * Passes the list to {@code onLoaded} on the EDT, fetching it in the background under
+     * {@code key} only if it is not cached.
+     */
+    public void get(BackgroundQueries queries, String key, Consumer<List<T>> onLoaded, String errorMessage) {
+        List<T> cached = cached();
+        if (cached == null) {
+            queries.run(key, "Loading " + noun, this::fetch, onLoaded, errorMessage);
+        } else {
+            // Delivered later like a fetched list, so callers see the same ordering either way
+            SwingUtilities.invokeLater(() -> onLoaded.accept(cached));
+        }
+    }
+
+    public void get(BackgroundQueries queries, String key, Consumer<List<T>> onLoaded,
+            Consumer<Exception> onError) {
+        List<T> cached = cached();
+        if (cached == null) {
+            queries.run(key, "Loading " + noun, this::fetch, onLoaded, onError);
+        } else {
+            SwingUtilities.invokeLater(() -> onLoaded.accept(cached));
+        }
+    }
+
+    public synchronized void invalidate() {
+        values = null;
+        version++;
+    }
+
+    private synchronized List<T> cached() {
+        return values != null && isFresh(loadedAt) ? values : null;
+    }
+
+    /** Whether data loaded at {@code loadedAt} is still within the cache TTL. */
+    static boolean isFresh(long loadedAt) {
+        return TTL_MILLIS <= 0 || System.currentTimeMillis() - loadedAt < TTL_MILLIS;
+    }
+
+    private List<T> fetch(Connection connection) throws SQLException {
+        int startVersion;
+        synchronized (this) {
+            startVersion = version;
+        }
+
+        List<T> result = Collections.unmodifiableList(Jdbc.query(connection, sql, mapper));
+        synchronized (this) {
+            if (version == startVersion) {
+                values = result;
+                loadedAt = System.currentTimeMillis();
+            }
+        }
+        return result;
+    }
+}
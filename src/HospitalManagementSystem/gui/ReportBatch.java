@@ -0,0 +1,55 @@
+package HospitalManagementSystem.gui;
+
+import HospitalManagementSystem.db.ConnectionPool;
+import HospitalManagementSystem.db.Database;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Writes the PDF Report Generator's report as PDF files without opening any window, for
+ * scheduled or scripted runs:
+ *
+ * java -Djava.awt.headless=true HospitalManagementSystem.gui.ReportBatch output-dir ["Last 30 Days" ...]
+ *
+ * One file is written per report period named on the command line, or per period offered in
+ * the report window if none are named.
+ */
+public final class ReportBatch {
+
+    private ReportBatch() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: ReportBatch output-dir [period ...]");
+            System.exit(2);
+        }
+        List<String> periods = args.length > 1 ? Arrays.asList(args).subList(1, args.length)
+                : Arrays.asList(PDFReportGenerator.PERIODS);
+        String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
+
+        try {
+            Path directory = Files.createDirectories(Paths.get(args[0]));
+            ConnectionPool pool = Database.getPool();
+            for (String period : periods) {
+                long start = System.nanoTime();
+                String content = PDFReportGenerator.generateReportContent(pool, period);
+                Path file = directory.resolve("Hospital_Report_" + period.replace(' ', '_') + "_" + timestamp + ".pdf");
+                int pages = PDFReportGenerator.writePdf(file, content);
+                System.out.println(file + ": " + pages + " page(s) in " + (System.nanoTime() - start) / 1_000_000
+                        + "ms");
+            }
+        } catch (SQLException | IOException e) {
+            System.err.println("Error writing reports: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package HospitalManagementSystem.gui;
+
+import HospitalManagementSystem.db.DateRange;
+import HospitalManagementSystem.db.Jdbc;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * The counters of the comprehensive report, read with a single aggregated query over the
+ * rollup tables kept by report_rollups.sql: patient counters come from one row per age and
+ * gender, appointment counters from one row per day, doctor, hour and status in the report
+ * period. Only doctors, a small table, are counted directly.
+ * Appointment counters cover the report period only; patient and doctor counters cover everyone.
+ */
+public class ReportMetrics {
+    private static final String QUERY_FORMAT = "SELECT p.*, d.*, a.* FROM (SELECT " +
+            "COALESCE(SUM(patient_count), 0) AS patient_count, " +
+            "COALESCE(SUM(IF(gender = 'Male', patient_count, 0)), 0) AS male_count, " +
+            "COALESCE(SUM(IF(gender = 'Female', patient_count, 0)), 0) AS female_count, " +
+            "SUM(age * patient_count) / SUM(patient_count) AS avg_age, " +
+            "COALESCE(SUM(IF(age BETWEEN 0 AND 18, patient_count, 0)), 0) AS age_0_18, " +
+            "COALESCE(SUM(IF(age BETWEEN 19 AND 35, patient_count, 0)), 0) AS age_19_35, " +
+            "COALESCE(SUM(IF(age BETWEEN 36 AND 55, patient_count, 0)), 0) AS age_36_55, " +
+            "COALESCE(SUM(IF(age BETWEEN 56 AND 70, patient_count, 0)), 0) AS age_56_70, " +
+            "COALESCE(SUM(IF(age > 70, patient_count, 0)), 0) AS age_over_70 " +
+            "FROM patient_age_rollup) p " +
+            "CROSS JOIN (SELECT COUNT(*) AS doctor_count, " +
+            "COUNT(DISTINCT specialization) AS specialization_count FROM doctors) d " +
+            "CROSS JOIN (SELECT COALESCE(SUM(appointment_count), 0) AS appointment_count, " +
+            "COALESCE(SUM(IF(status = 'Scheduled', appointment_count, 0)), 0) AS scheduled_count, " +
+            "COALESCE(SUM(IF(status = 'Completed', appointment_count, 0)), 0) AS completed_count, " +
+            "COALESCE(SUM(IF(status = 'Cancelled', appointment_count, 0)), 0) AS cancelled_count, " +
+            "COALESCE(SUM(IF(status = 'Pending', appointment_count, 0)), 0) AS pending_count " +
+            "FROM appointment_daily_rollup WHERE %s) a";
+
+    private final int patientCount;
+    private final int maleCount;
+    private final int femaleCount;
+    private final double averageAge;
+    // 0-18, 19-35, 36-55, 56-70, over 70
+    private final int[] ageGroups;
+    private final int doctorCount;
+    private final int specializationCount;
+    private final int appointmentCount;
+    private final int scheduledCount;
+    private final int completedCount;
+    private final int cancelledCount;
+    private final int pendingCount;
+
+    private ReportMetrics(ResultSet rs) throws SQLException {
+        patientCount = rs.getInt("patient_count");
+        maleCount = rs.getInt("male_count");
+        femaleCount = rs.getInt("female_count");
+        averageAge = rs.getDouble("avg_age");
+        ageGroups = new int[] { rs.getInt("age_0_18"), rs.getInt("age_19_35"), rs.getInt("age_36_55"),
+                rs.getInt("age_56_70"), rs.getInt("age_over_70") };
+        doctorCount = rs.getInt("doctor_count");
+        specializationCount = rs.getInt("specialization_count");
+        appointmentCount = rs.getInt("appointment_count");
+        scheduledCount = rs.getInt("scheduled_count");
+        completedCount = rs.getInt("completed_count");
+        cancelledCount = rs.getInt("cancelled_count");
+        pendingCount = rs.getInt("pending_count");
+    }
+
+    public static ReportMetrics load(Connection connection, DateRange period) throws SQLException {
+        String query = String.format(QUERY_FORMAT, period.condition("appointment_date"));
+        return Jdbc.queryOne(connection, query, ReportMetrics::new, period.params());
+    }
+
+    public int getPatientCount() {
+        return patientCount;
+    }
+
+    public int getMaleCount() {
+        return maleCount;
+    }
+
+    public int getFemaleCount() {
+        return femaleCount;
+    }
+
+    public double getAverageAge() {
+        return averageAge;
+    }
+
+    /** Patients aged 0-18, 19-35, 36-55, 56-70 and over 70, in that order. */
+    public int[] getAgeGroups() {
+        return ageGroups.clone();
+    }
+
+    public int getDoctorCount() {
+        return doctorCount;
+    }
+
+    public int getSpecializationCount() {
+        return specializationCount;
+    }
+
+    public double getAveragePatientsPerDoctor() {
+        return doctorCount > 0 ? (double) patientCount / doctorCount : 0;
+    }
+
+    public int getAppointmentCount() {
+        return appointmentCount;
+    }
+
+    public int getScheduledCount() {
+        return scheduledCount;
+    }
+
+    public int getCompletedCount() {
+        return completedCount;
+    }
+
+    public int getCancelledCount() {
+        return cancelledCount;
+    }
+
+    public int getPendingCount() {
+        return pendingCount;
+    }
+}
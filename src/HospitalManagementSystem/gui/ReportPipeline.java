@@ -0,0 +1,163 @@
+package HospitalManagementSystem.gui;
+
+import HospitalManagementSystem.db.ConnectionPool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders the sections of a text report side by side and joins them in the order they were
+ * added. Each section that queries borrows its own connection from the pool, so a slow breakdown
+ * does not hold up the others; sections that only format figures already read are rendered on
+ * the calling thread meanwhile, without a connection.
+ *
+ * Querying sections of all reports share one executor of -Dhms.report.threads threads (default
+ * 4), which also bounds the connections the reports take from the pool at once. The calling
+ * thread holds none while the sections run, so call {@link #run()} without a connection open.
+ */
+public class ReportPipeline {
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static final ExecutorService executor = Executors.newFixedThreadPool(
+            Integer.getInteger("hms.report.threads", 4), r -> {
+                Thread thread = new Thread(r, "hms-report-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final ConnectionPool pool;
+    private final Map<String, Object> sections = new LinkedHashMap<>(); // Section or Text
+
+    /** Appends one section of the report to {@code out}. */
+    public interface Section {
+        void render(Connection connection, StringBuilder out) throws SQLException;
+    }
+
+    /** Appends one section of the report that needs no database access to {@code out}. */
+    public interface Text {
+        void render(StringBuilder out);
+    }
+
+    /** The joined report text and how long each section took. */
+    public static class Result {
+        private final String text;
+        private final Map<String, Long> timings;
+
+        Result(String text, Map<String, Long> timings) {
+            this.text = text;
+            this.timings = timings;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        /** Milliseconds spent on each section, in report order. */
+        public Map<String, Long> getTimings() {
+            return timings;
+        }
+    }
+
+    // What one section produced, built on an executor thread
+    private static class Rendered {
+        private final StringBuilder text = new StringBuilder();
+        private long millis;
+    }
+
+    public ReportPipeline(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Runs {@code query} on a connection borrowed only for it, for figures that several sections
+     * format. The connection is returned before the sections run.
+     */
+    public <T> T load(BackgroundQueries.Work<T> query) throws SQLException {
+        try (Connection connection = pool.getConnection()) {
+            return query.execute(connection);
+        }
+    }
+
+    public ReportPipeline add(String name, Section section) {
+        sections.put(name, section);
+        return this;
+    }
+
+    public ReportPipeline add(String name, Text text) {
+        sections.put(name, text);
+        return this;
+    }
+
+    /**
+     * Renders all sections and waits for them. If one fails its exception is thrown once the
+     * others are done; if the calling thread is interrupted the remaining sections are cancelled.
+     */
+    public Result run() throws SQLException {
+        Map<String, Future<Rendered>> futures = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> section : sections.entrySet()) {
+            if (section.getValue() instanceof Section) {
+                Section querying = (Section) section.getValue();
+                futures.put(section.getKey(), executor.submit(() -> render(querying)));
+            }
+        }
+        Map<String, Rendered> inline = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> section : sections.entrySet()) {
+            if (section.getValue() instanceof Text) {
+                inline.put(section.getKey(), render((Text) section.getValue()));
+            }
+        }
+
+        StringBuilder text = new StringBuilder();
+        Map<String, Long> timings = new LinkedHashMap<>();
+        SQLException failure = null;
+        try {
+            for (String name : sections.keySet()) {
+                try {
+                    Rendered rendered = inline.containsKey(name) ? inline.get(name) : futures.get(name).get();
+                    text.append(rendered.text);
+                    timings.put(name, rendered.millis);
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof SQLException ? (SQLException) e.getCause()
+                                : new SQLException("Report section " + name + " failed", e.getCause());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            for (Future<Rendered> future : futures.values()) {
+                future.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            throw new SQLException("Report generation was interrupted", e);
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+        return new Result(text.toString(), timings);
+    }
+
+    private Rendered render(Section section) throws SQLException {
+        Rendered rendered = new Rendered();
+        long start = System.nanoTime();
+        try (Connection connection = pool.getConnection()) {
+            section.render(connection, rendered.text);
+        }
+        rendered.millis = (System.nanoTime() - start) / 1_000_000;
+        return rendered;
+    }
+
+    private static Rendered render(Text section) {
+        Rendered rendered = new Rendered();
+        long start = System.nanoTime();
+        section.render(rendered.text);
+        rendered.millis = (System.nanoTime() - start) / 1_000_000;
+        return rendered;
+    }
+}
@@ -1,28 +1,38 @@
 package HospitalManagementSystem.gui;
 
+import HospitalManagementSystem.db.ConnectionPool;
+import HospitalManagementSystem.db.DateRange;
+import HospitalManagementSystem.db.Jdbc;
+import HospitalManagementSystem.export.CsvWriter;
+
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.sql.*;
 import java.text.SimpleDateFormat;
+import java.time.ZoneId;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Vector;
 
 public class ReportsWindow extends JFrame {
-    private Connection connection;
+    private final ConnectionPool pool;
+    private final BackgroundQueries queries;
     private JTable reportTable;
     private DefaultTableModel tableModel;
     private JComboBox<String> reportTypeCombo;
     private JSpinner fromDateSpinner, toDateSpinner;
     private JButton generateButton, exportButton;
 
-    public ReportsWindow(Connection connection) {
-        this.connection = connection;
+    public ReportsWindow(ConnectionPool pool) {
+        this.pool = pool;
+        this.queries = new BackgroundQueries(pool, this);
         initializeGUI();
     }
 
@@ -149,7 +159,6 @@ public class ReportsWindow extends JFrame {
         exportButton.setBorder(new EmptyBorder(10, 20, 10, 20));
         exportButton.setFocusPainted(false);
         exportButton.addActionListener(e -> exportToCSV());
-        exportButton.setEnabled(false);
 
         JButton closeButton = new JButton("Close");
         closeButton.setFont(new Font("Arial", Font.BOLD, 14));
@@ -161,90 +170,92 @@ public class ReportsWindow extends JFrame {
 
         panel.add(exportButton);
         panel.add(closeButton);
+        panel.add(queries.getProgressBar());
 
         return panel;
     }
 
     private void generateReport() {
         String reportType = (String) reportTypeCombo.getSelectedItem();
+        Date fromDate = (Date) fromDateSpinner.getValue();
+        Date toDate = (Date) toDateSpinner.getValue();
 
-        try {
-            switch (reportType) {
-                case "All Patients":
-                    generateAllPatientsReport();
-                    break;
-                case "All Doctors":
-                    generateAllDoctorsReport();
-                    break;
-                case "All Appointments":
-                    generateAllAppointmentsReport();
-                    break;
-                case "Appointments by Date Range":
-                    generateAppointmentsByDateRangeReport();
-                    break;
-                case "Patient Appointments":
-                    generatePatientAppointmentsReport();
-                    break;
-                case "Doctor Schedule":
-                    generateDoctorScheduleReport();
-                    break;
-                case "Monthly Statistics":
-                    generateMonthlyStatisticsReport();
-                    break;
-            }
-            exportButton.setEnabled(true);
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error generating report: " + e.getMessage(),
-                    "Database Error", JOptionPane.ERROR_MESSAGE);
+        queries.run("report", "Generating report", connection -> {
+            ReportData report = new ReportData();
+            writeReport(connection, reportType, fromDate, toDate, report);
+            return report;
+        }, report -> tableModel.setDataVector(report.rows, report.columns), "Error generating report");
+    }
+
+    // Receives a report's column names, then each row as it is read
+    private interface ReportSink {
+        void columns(String... columns) throws SQLException;
+
+        void row(Object... values) throws SQLException;
+    }
+
+    // Report contents built off the EDT and swapped into the table model in one go
+    private static class ReportData implements ReportSink {
+        private final Vector<Object> columns = new Vector<>();
+        private final Vector<Vector<Object>> rows = new Vector<>();
+
+        @Override
+        public void columns(String... names) {
+            columns.addAll(Arrays.asList(names));
+        }
+
+        @Override
+        public void row(Object... values) {
+            rows.add(new Vector<>(Arrays.asList(values)));
+        }
+    }
+
+    private void writeReport(Connection connection, String reportType, Date fromDate, Date toDate, ReportSink sink)
+            throws SQLException {
+        switch (reportType) {
+            case "All Patients":
+                writeAllPatientsReport(connection, sink);
+                break;
+            case "All Doctors":
+                writeAllDoctorsReport(connection, sink);
+                break;
+            case "All Appointments":
+                writeAllAppointmentsReport(connection, sink);
+                break;
+            case "Appointments by Date Range":
+                writeAppointmentsByDateRangeReport(connection, fromDate, toDate, sink);
+                break;
+            case "Patient Appointments":
+                writePatientAppointmentsReport(connection, sink);
+                break;
+            case "Doctor Schedule":
+                writeDoctorScheduleReport(connection, sink);
+                break;
+            case "Monthly Statistics":
+                writeMonthlyStatisticsReport(connection, sink);
+                break;
         }
     }
 
-    private void generateAllPatientsReport() throws SQLException {
-        String[] columns = { "ID", "Name", "Age", "Gender", "Phone", "Address", "Registration Date" };
-        tableModel.setColumnIdentifiers(columns);
-        tableModel.setRowCount(0);
+    private void writeAllPatientsReport(Connection connection, ReportSink sink) throws SQLException {
+        sink.columns("ID", "Name", "Age", "Gender", "Phone", "Address", "Registration Date");
 
         String query = "SELECT id, name, age, gender, phone, address, created_at FROM patients ORDER BY name";
-        Statement stmt = connection.createStatement();
-        ResultSet rs = stmt.executeQuery(query);
-
-        while (rs.next()) {
-            Vector<Object> row = new Vector<>();
-            row.add(rs.getInt("id"));
-            row.add(rs.getString("name"));
-            row.add(rs.getInt("age"));
-            row.add(rs.getString("gender"));
-            row.add(rs.getString("phone"));
-            row.add(rs.getString("address"));
-            row.add(rs.getTimestamp("created_at"));
-            tableModel.addRow(row);
-        }
+        Jdbc.stream(connection, query, rs -> sink.row(rs.getInt("id"), rs.getString("name"), rs.getInt("age"),
+                rs.getString("gender"), rs.getString("phone"), rs.getString("address"),
+                rs.getTimestamp("created_at")));
     }
 
-    private void generateAllDoctorsReport() throws SQLException {
-        String[] columns = { "ID", "Name", "Specialization", "Phone", "Email" };
-        tableModel.setColumnIdentifiers(columns);
-        tableModel.setRowCount(0);
+    private void writeAllDoctorsReport(Connection connection, ReportSink sink) throws SQLException {
+        sink.columns("ID", "Name", "Specialization", "Phone", "Email");
 
         String query = "SELECT id, name, specialization, phone, email FROM doctors ORDER BY name";
-        Statement stmt = connection.createStatement();
-        ResultSet rs = stmt.executeQuery(query);
-
-        while (rs.next()) {
-            Vector<Object> row = new Vector<>();
-            row.add(rs.getInt("id"));
-            row.add(rs.getString("name"));
-            row.add(rs.getString("specialization"));
-            row.add(rs.getString("phone"));
-            row.add(rs.getString("email"));
-            tableModel.addRow(row);
-        }
+        Jdbc.stream(connection, query, rs -> sink.row(rs.getInt("id"), rs.getString("name"),
+                rs.getString("specialization"), rs.getString("phone"), rs.getString("email")));
     }
 
-    private void generateAllAppointmentsReport() throws SQLException {
-        String[] columns = { "ID", "Patient", "Doctor", "Date", "Time", "Status" };
-        tableModel.setColumnIdentifiers(columns);
-        tableModel.setRowCount(0);
+    private void writeAllAppointmentsReport(Connection connection, ReportSink sink) throws SQLException {
+        sink.columns("ID", "Patient", "Doctor", "Date", "Time", "Status");
 
         String query = "SELECT a.id, p.name as patient_name, d.name as doctor_name, " +
                 "a.appointment_date, a.appointment_time, a.status " +
@@ -253,59 +264,33 @@ public class ReportsWindow extends JFrame {
                 "JOIN doctors d ON a.doctor_id = d.id " +
                 "ORDER BY a.appointment_date DESC, a.appointment_time";
 
-        Statement stmt = connection.createStatement();
-        ResultSet rs = stmt.executeQuery(query);
-
-        while (rs.next()) {
-            Vector<Object> row = new Vector<>();
-            row.add(rs.getInt("id"));
-            row.add(rs.getString("patient_name"));
-            row.add(rs.getString("doctor_name"));
-            row.add(rs.getDate("appointment_date"));
-            row.add(rs.getTime("appointment_time"));
-            row.add(rs.getString("status"));
-            tableModel.addRow(row);
-        }
+        Jdbc.stream(connection, query, rs -> sink.row(rs.getInt("id"), rs.getString("patient_name"),
+                rs.getString("doctor_name"), rs.getDate("appointment_date"), rs.getTime("appointment_time"),
+                rs.getString("status")));
     }
 
-    private void generateAppointmentsByDateRangeReport() throws SQLException {
-        String[] columns = { "ID", "Patient", "Doctor", "Date", "Time", "Status" };
-        tableModel.setColumnIdentifiers(columns);
-        tableModel.setRowCount(0);
-
-        Date fromDate = (Date) fromDateSpinner.getValue();
-        Date toDate = (Date) toDateSpinner.getValue();
+    private void writeAppointmentsByDateRangeReport(Connection connection, Date fromDate, Date toDate,
+            ReportSink sink) throws SQLException {
+        sink.columns("ID", "Patient", "Doctor", "Date", "Time", "Status");
 
+        ZoneId zone = ZoneId.systemDefault();
+        DateRange range = DateRange.between(fromDate.toInstant().atZone(zone).toLocalDate(),
+                toDate.toInstant().atZone(zone).toLocalDate());
         String query = "SELECT a.id, p.name as patient_name, d.name as doctor_name, " +
                 "a.appointment_date, a.appointment_time, a.status " +
                 "FROM appointments a " +
                 "JOIN patients p ON a.patient_id = p.id " +
                 "JOIN doctors d ON a.doctor_id = d.id " +
-                "WHERE a.appointment_date BETWEEN ? AND ? " +
+                "WHERE " + range.condition("a.appointment_date") + " " +
                 "ORDER BY a.appointment_date DESC, a.appointment_time";
 
-        PreparedStatement pstmt = connection.prepareStatement(query);
-        pstmt.setDate(1, new java.sql.Date(fromDate.getTime()));
-        pstmt.setDate(2, new java.sql.Date(toDate.getTime()));
-
-        ResultSet rs = pstmt.executeQuery();
-
-        while (rs.next()) {
-            Vector<Object> row = new Vector<>();
-            row.add(rs.getInt("id"));
-            row.add(rs.getString("patient_name"));
-            row.add(rs.getString("doctor_name"));
-            row.add(rs.getDate("appointment_date"));
-            row.add(rs.getTime("appointment_time"));
-            row.add(rs.getString("status"));
-            tableModel.addRow(row);
-        }
+        Jdbc.stream(connection, query, rs -> sink.row(rs.getInt("id"), rs.getString("patient_name"),
+                rs.getString("doctor_name"), rs.getDate("appointment_date"), rs.getTime("appointment_time"),
+                rs.getString("status")), range.params());
     }
 
-    private void generatePatientAppointmentsReport() throws SQLException {
-        String[] columns = { "Patient", "Doctor", "Date", "Time", "Status", "Total Appointments" };
-        tableModel.setColumnIdentifiers(columns);
-        tableModel.setRowCount(0);
+    private void writePatientAppointmentsReport(Connection connection, ReportSink sink) throws SQLException {
+        sink.columns("Patient", "Doctor", "Date", "Time", "Status", "Total Appointments");
 
         String query = "SELECT p.name as patient_name, d.name as doctor_name, " +
                 "a.appointment_date, a.appointment_time, a.status, " +
@@ -315,25 +300,13 @@ public class ReportsWindow extends JFrame {
                 "JOIN doctors d ON a.doctor_id = d.id " +
                 "ORDER BY p.name, a.appointment_date DESC";
 
-        Statement stmt = connection.createStatement();
-        ResultSet rs = stmt.executeQuery(query);
-
-        while (rs.next()) {
-            Vector<Object> row = new Vector<>();
-            row.add(rs.getString("patient_name"));
-            row.add(rs.getString("doctor_name"));
-            row.add(rs.getDate("appointment_date"));
-            row.add(rs.getTime("appointment_time"));
-            row.add(rs.getString("status"));
-            row.add(rs.getInt("total_appointments"));
-            tableModel.addRow(row);
-        }
+        Jdbc.stream(connection, query, rs -> sink.row(rs.getString("patient_name"), rs.getString("doctor_name"),
+                rs.getDate("appointment_date"), rs.getTime("appointment_time"), rs.getString("status"),
+                rs.getInt("total_appointments")));
     }
 
-    private void generateDoctorScheduleReport() throws SQLException {
-        String[] columns = { "Doctor", "Specialization", "Patient", "Date", "Time", "Status" };
-        tableModel.setColumnIdentifiers(columns);
-        tableModel.setRowCount(0);
+    private void writeDoctorScheduleReport(Connection connection, ReportSink sink) throws SQLException {
+        sink.columns("Doctor", "Specialization", "Patient", "Date", "Time", "Status");
 
         String query = "SELECT d.name as doctor_name, d.specialization, p.name as patient_name, " +
                 "a.appointment_date, a.appointment_time, a.status " +
@@ -342,115 +315,85 @@ public class ReportsWindow extends JFrame {
                 "JOIN doctors d ON a.doctor_id = d.id " +
                 "ORDER BY d.name, a.appointment_date, a.appointment_time";
 
-        Statement stmt = connection.createStatement();
-        ResultSet rs = stmt.executeQuery(query);
-
-        while (rs.next()) {
-            Vector<Object> row = new Vector<>();
-            row.add(rs.getString("doctor_name"));
-            row.add(rs.getString("specialization"));
-            row.add(rs.getString("patient_name"));
-            row.add(rs.getDate("appointment_date"));
-            row.add(rs.getTime("appointment_time"));
-            row.add(rs.getString("status"));
-            tableModel.addRow(row);
-        }
+        Jdbc.stream(connection, query, rs -> sink.row(rs.getString("doctor_name"), rs.getString("specialization"),
+                rs.getString("patient_name"), rs.getDate("appointment_date"), rs.getTime("appointment_time"),
+                rs.getString("status")));
     }
 
-    private void generateMonthlyStatisticsReport() throws SQLException {
-        String[] columns = { "Metric", "Count" };
-        tableModel.setColumnIdentifiers(columns);
-        tableModel.setRowCount(0);
+    private void writeMonthlyStatisticsReport(Connection connection, ReportSink sink) throws SQLException {
+        sink.columns("Metric", "Count");
+
+        // Counters come from the rollup tables of report_rollups.sql
 
         // Total patients
-        String patientQuery = "SELECT COUNT(*) as count FROM patients";
-        Statement stmt = connection.createStatement();
-        ResultSet rs = stmt.executeQuery(patientQuery);
-        if (rs.next()) {
-            Vector<Object> row = new Vector<>();
-            row.add("Total Patients");
-            row.add(rs.getInt("count"));
-            tableModel.addRow(row);
-        }
+        String patientQuery = "SELECT COALESCE(SUM(patient_count), 0) as count FROM patient_age_rollup";
+        Jdbc.forEach(connection, patientQuery, rs -> sink.row("Total Patients", rs.getInt("count")));
 
         // Total doctors
         String doctorQuery = "SELECT COUNT(*) as count FROM doctors";
-        rs = stmt.executeQuery(doctorQuery);
-        if (rs.next()) {
-            Vector<Object> row = new Vector<>();
-            row.add("Total Doctors");
-            row.add(rs.getInt("count"));
-            tableModel.addRow(row);
-        }
+        Jdbc.forEach(connection, doctorQuery, rs -> sink.row("Total Doctors", rs.getInt("count")));
 
         // Total appointments this month
-        String appointmentQuery = "SELECT COUNT(*) as count FROM appointments WHERE MONTH(appointment_date) = MONTH(CURDATE()) AND YEAR(appointment_date) = YEAR(CURDATE())";
-        rs = stmt.executeQuery(appointmentQuery);
-        if (rs.next()) {
-            Vector<Object> row = new Vector<>();
-            row.add("Appointments This Month");
-            row.add(rs.getInt("count"));
-            tableModel.addRow(row);
-        }
+        DateRange thisMonth = DateRange.thisMonth();
+        String appointmentQuery = "SELECT COALESCE(SUM(appointment_count), 0) as count FROM appointment_daily_rollup " +
+                "WHERE " + thisMonth.condition("appointment_date");
+        Jdbc.forEach(connection, appointmentQuery, rs -> sink.row("Appointments This Month", rs.getInt("count")),
+                thisMonth.params());
 
         // Completed appointments
-        String completedQuery = "SELECT COUNT(*) as count FROM appointments WHERE status = 'Completed'";
-        rs = stmt.executeQuery(completedQuery);
-        if (rs.next()) {
-            Vector<Object> row = new Vector<>();
-            row.add("Completed Appointments");
-            row.add(rs.getInt("count"));
-            tableModel.addRow(row);
-        }
+        String completedQuery = "SELECT COALESCE(SUM(appointment_count), 0) as count FROM appointment_daily_rollup " +
+                "WHERE status = 'Completed'";
+        Jdbc.forEach(connection, completedQuery, rs -> sink.row("Completed Appointments", rs.getInt("count")));
 
         // Cancelled appointments
-        String cancelledQuery = "SELECT COUNT(*) as count FROM appointments WHERE status = 'Cancelled'";
-        rs = stmt.executeQuery(cancelledQuery);
-        if (rs.next()) {
-            Vector<Object> row = new Vector<>();
-            row.add("Cancelled Appointments");
-            row.add(rs.getInt("count"));
-            tableModel.addRow(row);
-        }
+        String cancelledQuery = "SELECT COALESCE(SUM(appointment_count), 0) as count FROM appointment_daily_rollup " +
+                "WHERE status = 'Cancelled'";
+        Jdbc.forEach(connection, cancelledQuery, rs -> sink.row("Cancelled Appointments", rs.getInt("count")));
     }
 
+    // Runs the selected report again and streams it straight to the file, so the export does not
+    // depend on (or fill) the table and any number of rows fits in memory
     private void exportToCSV() {
+        String reportType = (String) reportTypeCombo.getSelectedItem();
+        Date fromDate = (Date) fromDateSpinner.getValue();
+        Date toDate = (Date) toDateSpinner.getValue();
+
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("Save Report");
-        fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("CSV Files", "csv"));
+        fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter(
+                "CSV Files (.csv, .csv.gz)", "csv", "gz"));
 
         SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMdd_HHmmss");
         String timestamp = sdf.format(new Date());
         fileChooser.setSelectedFile(new java.io.File("hospital_report_" + timestamp + ".csv"));
 
-        if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
-            try (FileWriter writer = new FileWriter(fileChooser.getSelectedFile())) {
-                // Write headers
-                for (int i = 0; i < tableModel.getColumnCount(); i++) {
-                    writer.append(tableModel.getColumnName(i));
-                    if (i < tableModel.getColumnCount() - 1)
-                        writer.append(",");
-                }
-                writer.append("\n");
-
-                // Write data
-                for (int i = 0; i < tableModel.getRowCount(); i++) {
-                    for (int j = 0; j < tableModel.getColumnCount(); j++) {
-                        Object value = tableModel.getValueAt(i, j);
-                        writer.append(value != null ? value.toString() : "");
-                        if (j < tableModel.getColumnCount() - 1)
-                            writer.append(",");
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = fileChooser.getSelectedFile().toPath();
+
+        queries.run("export", "Exporting report", connection -> {
+            try (CsvWriter csv = CsvWriter.open(file)) {
+                writeReport(connection, reportType, fromDate, toDate, new ReportSink() {
+                    @Override
+                    public void columns(String... columns) throws SQLException {
+                        row((Object[]) columns);
                     }
-                    writer.append("\n");
-                }
-
-                JOptionPane.showMessageDialog(this, "Report exported successfully!",
-                        "Export Complete", JOptionPane.INFORMATION_MESSAGE);
 
+                    @Override
+                    public void row(Object... values) {
+                        try {
+                            csv.write(values);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                });
+                return csv.getRecords() - 1;
             } catch (IOException e) {
-                JOptionPane.showMessageDialog(this, "Error exporting report: " + e.getMessage(),
-                        "Export Error", JOptionPane.ERROR_MESSAGE);
+                throw new UncheckedIOException(e);
             }
-        }
+        }, rows -> JOptionPane.showMessageDialog(this, "Report exported successfully! (" + rows + " rows)",
+                "Export Complete", JOptionPane.INFORMATION_MESSAGE), "Error exporting report");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,102 @@
+package HospitalManagementSystem.importer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RFC 4180 CSV, as written by {@link HospitalManagementSystem.export.CsvWriter}: the first record
+ * names the fields, quoted fields may hold commas, doubled quotes and line breaks. Blank lines are
+ * skipped.
+ */
+class CsvRecordReader implements RecordReader {
+    private final Reader in;
+    private final String[] header;
+    private long line = 1;
+    private long recordLine;
+
+    CsvRecordReader(Reader in) throws IOException {
+        this.in = in;
+        List<String> names = readRecord();
+        if (names == null) {
+            throw new IOException("The file is empty");
+        }
+        header = new String[names.size()];
+        for (int i = 0; i < header.length; i++) {
+            header[i] = names.get(i).replace("\uFEFF", "").trim().toLowerCase();
+        }
+    }
+
+    @Override
+    public Map<String, String> next() throws IOException {
+        List<String> fields;
+        do {
+            recordLine = line;
+            fields = readRecord();
+            if (fields == null) {
+                return null;
+            }
+        } while (fields.size() == 1 && fields.get(0).isEmpty());
+
+        Map<String, String> record = new LinkedHashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            record.put(header[i], i < fields.size() ? fields.get(i) : null);
+        }
+        return record;
+    }
+
+    @Override
+    public long getLine() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // Fields of the next record, or null at the end of the file
+    private List<String> readRecord() throws IOException {
+        int c = in.read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Line " + recordLine + ": quoted field is never closed");
+                }
+                if (c == '"') {
+                    c = in.read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                } else if (c == '\n') {
+                    line++;
+                }
+                field.append((char) c);
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                if (c == '\n') {
+                    line++;
+                }
+                fields.add(field.toString());
+                return fields;
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = in.read();
+        }
+    }
+}
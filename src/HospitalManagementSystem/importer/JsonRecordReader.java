@@ -0,0 +1,200 @@
+package HospitalManagementSystem.importer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JSON objects read one at a time, from a top-level array or from a sequence of objects such as
+ * one per line. Values must be strings, numbers, booleans or null; numbers and booleans are
+ * returned as their JSON text.
+ */
+class JsonRecordReader implements RecordReader {
+    private final Reader in;
+    private int peeked = -2;
+    private long line = 1;
+    private long recordLine;
+    private boolean started;
+    private boolean inArray;
+
+    JsonRecordReader(Reader in) {
+        this.in = in;
+    }
+
+    @Override
+    public Map<String, String> next() throws IOException {
+        skipWhitespace();
+        if (!started) {
+            started = true;
+            if (peek() == '\uFEFF') {
+                read();
+                skipWhitespace();
+            }
+            if (peek() == '[') {
+                read();
+                inArray = true;
+            }
+        }
+        while (true) {
+            skipWhitespace();
+            int c = peek();
+            if (c == ',') {
+                read();
+            } else if (c == ']' && inArray) {
+                read();
+                inArray = false;
+            } else if (c == -1) {
+                if (inArray) {
+                    throw error("array is never closed");
+                }
+                return null;
+            } else if (c == '{') {
+                break;
+            } else {
+                throw error("expected an object");
+            }
+        }
+
+        recordLine = line;
+        read();
+        Map<String, String> record = new LinkedHashMap<>();
+        skipWhitespace();
+        if (peek() == '}') {
+            read();
+            return record;
+        }
+        while (true) {
+            skipWhitespace();
+            String name = readString();
+            skipWhitespace();
+            if (read() != ':') {
+                throw error("expected ':' after \"" + name + "\"");
+            }
+            record.put(name.toLowerCase(), readValue());
+            skipWhitespace();
+            int c = read();
+            if (c == '}') {
+                return record;
+            }
+            if (c != ',') {
+                throw error("expected ',' or '}'");
+            }
+        }
+    }
+
+    @Override
+    public long getLine() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private String readValue() throws IOException {
+        skipWhitespace();
+        int c = peek();
+        if (c == '"') {
+            return readString();
+        }
+        if (c == '{' || c == '[') {
+            throw error("nested objects and arrays are not supported");
+        }
+        StringBuilder literal = new StringBuilder();
+        while ((c = peek()) != -1 && c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c)) {
+            literal.append((char) read());
+        }
+        String text = literal.toString();
+        if (text.equals("null")) {
+            return null;
+        }
+        if (text.equals("true") || text.equals("false") || text.matches("-?\\d+(\\.\\d+)?([eE][+-]?\\d+)?")) {
+            return text;
+        }
+        throw error("unexpected value '" + text + "'");
+    }
+
+    private String readString() throws IOException {
+        if (read() != '"') {
+            throw error("expected a string");
+        }
+        StringBuilder text = new StringBuilder();
+        while (true) {
+            int c = read();
+            if (c == -1 || c == '\n') {
+                throw error("string is never closed");
+            }
+            if (c == '"') {
+                return text.toString();
+            }
+            if (c != '\\') {
+                text.append((char) c);
+                continue;
+            }
+            c = read();
+            switch (c) {
+                case '"':
+                case '\\':
+                case '/':
+                    text.append((char) c);
+                    break;
+                case 'b':
+                    text.append('\b');
+                    break;
+                case 'f':
+                    text.append('\f');
+                    break;
+                case 'n':
+                    text.append('\n');
+                    break;
+                case 'r':
+                    text.append('\r');
+                    break;
+                case 't':
+                    text.append('\t');
+                    break;
+                case 'u':
+                    char[] hex = new char[4];
+                    for (int i = 0; i < 4; i++) {
+                        hex[i] = (char) read();
+                    }
+                    try {
+                        text.append((char) Integer.parseInt(new String(hex), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("invalid \\u escape");
+                    }
+                    break;
+                default:
+                    throw error("invalid escape");
+            }
+        }
+    }
+
+    private void skipWhitespace() throws IOException {
+        while (peek() != -1 && Character.isWhitespace(peek())) {
+            read();
+        }
+    }
+
+    private int peek() throws IOException {
+        if (peeked == -2) {
+            peeked = in.read();
+        }
+        return peeked;
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        peeked = -2;
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+
+    private IOException error(String message) {
+        return new IOException("Line " + line + ": " + message);
+    }
+}
@@ -0,0 +1,359 @@
+package HospitalManagementSystem.importer;
+
+import HospitalManagementSystem.db.ConnectionPool;
+import HospitalManagementSystem.db.Database;
+import HospitalManagementSystem.db.Jdbc;
+import HospitalManagementSystem.export.CsvWriter;
+import HospitalManagementSystem.search.SearchIndexes;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads patients in bulk from a CSV or JSON file (see {@link RecordReader}) with the fields name,
+ * age, gender, phone and address.
+ *
+ * Records are read in chunks of -Dhms.import.batchSize (default 1000), validated on
+ * -Dhms.import.threads (default 4) threads while earlier chunks are inserted, and inserted one
+ * chunk per JDBC batch. A transaction is committed every -Dhms.import.commitSize records (default
+ * 10000) together with the number of records done, kept in the patient_imports table, so an
+ * import that stops for any reason resumes after the last commit when it is run again.
+ *
+ * Records that fail validation are written with their line number and the reason to
+ * {@code <file>.rejected.csv}. A record rejected after the last commit is listed again when the
+ * import resumes.
+ */
+public class PatientImport {
+    private static final int BATCH_SIZE = Integer.getInteger("hms.import.batchSize", 1000);
+    private static final int COMMIT_SIZE = Integer.getInteger("hms.import.commitSize", 10_000);
+    private static final int THREADS = Integer.getInteger("hms.import.threads", 4);
+
+    private static final String INSERT_PATIENT =
+            "INSERT INTO patients (name, age, gender, phone, address) VALUES (?, ?, ?, ?, ?)";
+    private static final String[] GENDERS = { "Male", "Female", "Other" };
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+
+    /** Receives the totals after every commit. */
+    public interface Listener {
+        void progress(Progress progress);
+    }
+
+    /** Totals for the whole file, including records done by earlier runs. */
+    public static class Progress {
+        private final long records;
+        private final long imported;
+        private final long rejected;
+        private final boolean complete;
+
+        Progress(long records, long imported, long rejected, boolean complete) {
+            this.records = records;
+            this.imported = imported;
+            this.rejected = rejected;
+            this.complete = complete;
+        }
+
+        /** Records read from the file so far. */
+        public long getRecords() {
+            return records;
+        }
+
+        public long getImported() {
+            return imported;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        /** True once the whole file has been imported. */
+        public boolean isComplete() {
+            return complete;
+        }
+    }
+
+    // Records validated together and inserted in one batch
+    private static class Chunk {
+        private final List<Map<String, String>> records = new ArrayList<>();
+        private final List<Long> lines = new ArrayList<>();
+        private final List<Object[]> patients = new ArrayList<>();
+        private final List<Object[]> rejected = new ArrayList<>();
+    }
+
+    private final Path source;
+    private final Path rejectFile;
+    private final String key;
+    private Listener listener = progress -> {
+    };
+
+    public PatientImport(Path source) {
+        this.source = source;
+        this.rejectFile = source.resolveSibling(source.getFileName() + ".rejected.csv");
+        this.key = source.toAbsolutePath().normalize().toString();
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public Path getRejectFile() {
+        return rejectFile;
+    }
+
+    /** Forgets how far earlier runs got, so the next run starts from the first record again. */
+    public void restart(Connection connection) throws SQLException, IOException {
+        Jdbc.update(connection, "DELETE FROM patient_imports WHERE source = ?", key);
+        Files.deleteIfExists(rejectFile);
+    }
+
+    /**
+     * Imports the records not yet imported by an earlier run and returns the totals. Does
+     * nothing if the file has already been imported completely.
+     */
+    public Progress run(Connection connection) throws SQLException, IOException {
+        Progress progress = Jdbc.queryOne(connection,
+                "SELECT records_done, imported, rejected, completed_at FROM patient_imports WHERE source = ?",
+                rs -> new Progress(rs.getLong("records_done"), rs.getLong("imported"), rs.getLong("rejected"),
+                        rs.getTimestamp("completed_at") != null),
+                key);
+        if (progress == null) {
+            progress = new Progress(0, 0, 0, false);
+        }
+        if (progress.isComplete()) {
+            return progress;
+        }
+
+        long records = progress.getRecords();
+        long imported = progress.getImported();
+        long rejected = progress.getRejected();
+        ExecutorService validators = Executors.newFixedThreadPool(THREADS, r -> {
+            Thread thread = new Thread(r, "hms-import-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        CsvWriter rejects = null;
+        try (RecordReader reader = RecordReader.open(source)) {
+            for (long i = 0; i < records; i++) {
+                if (reader.next() == null) {
+                    break;
+                }
+            }
+
+            connection.setAutoCommit(false);
+            Deque<Future<Chunk>> pending = new ArrayDeque<>();
+            List<Object[]> indexed = new ArrayList<>();
+            long uncommitted = 0;
+            boolean more = true;
+            while (true) {
+                // Keep the validators a few chunks ahead of the inserts
+                while (more && pending.size() < THREADS * 2) {
+                    Chunk chunk = read(reader);
+                    if (chunk == null) {
+                        more = false;
+                    } else {
+                        pending.add(validators.submit(() -> validate(chunk)));
+                    }
+                }
+                if (pending.isEmpty()) {
+                    break;
+                }
+
+                Chunk chunk = await(pending.remove());
+                if (!chunk.patients.isEmpty()) {
+                    int[] ids = Jdbc.batchInsert(connection, INSERT_PATIENT, chunk.patients);
+                    for (int i = 0; i < ids.length; i++) {
+                        Object[] patient = chunk.patients.get(i);
+                        indexed.add(new Object[] { ids[i], patient[0], patient[3], patient[4] });
+                    }
+                }
+                if (!chunk.rejected.isEmpty()) {
+                    if (rejects == null) {
+                        rejects = openRejects();
+                    }
+                    for (Object[] row : chunk.rejected) {
+                        rejects.write(row);
+                    }
+                }
+                records += chunk.records.size();
+                imported += chunk.patients.size();
+                rejected += chunk.rejected.size();
+                uncommitted += chunk.records.size();
+
+                if (uncommitted >= COMMIT_SIZE) {
+                    commit(connection, records, imported, rejected, false, rejects, indexed);
+                    uncommitted = 0;
+                }
+            }
+            return commit(connection, records, imported, rejected, true, rejects, indexed);
+        } finally {
+            validators.shutdownNow();
+            if (rejects != null) {
+                rejects.close();
+            }
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private Chunk read(RecordReader reader) throws IOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Import cancelled");
+        }
+        Chunk chunk = new Chunk();
+        Map<String, String> record;
+        while (chunk.records.size() < BATCH_SIZE && (record = reader.next()) != null) {
+            chunk.records.add(record);
+            chunk.lines.add(reader.getLine());
+        }
+        return chunk.records.isEmpty() ? null : chunk;
+    }
+
+    private static Chunk validate(Chunk chunk) {
+        for (int i = 0; i < chunk.records.size(); i++) {
+            Map<String, String> record = chunk.records.get(i);
+            String name = field(record, "name");
+            String age = field(record, "age");
+            String gender = field(record, "gender");
+            String phone = field(record, "phone");
+            String address = field(record, "address");
+
+            String reason = null;
+            int parsedAge = 0;
+            String matchedGender = null;
+            for (String known : GENDERS) {
+                if (known.equalsIgnoreCase(gender)) {
+                    matchedGender = known;
+                }
+            }
+            try {
+                parsedAge = Integer.parseInt(age);
+            } catch (NumberFormatException e) {
+                reason = "Age is not a whole number";
+            }
+            if (name.isEmpty()) {
+                reason = "Name is missing";
+            } else if (name.length() > 100) {
+                reason = "Name is longer than 100 characters";
+            } else if (reason == null && (parsedAge <= 0 || parsedAge > 150)) {
+                reason = "Age is not between 1 and 150";
+            } else if (reason == null && matchedGender == null) {
+                reason = "Gender is not Male, Female or Other";
+            } else if (reason == null && phone.isEmpty()) {
+                reason = "Phone number is missing";
+            } else if (reason == null && phone.length() > 15) {
+                reason = "Phone number is longer than 15 characters";
+            }
+
+            if (reason == null) {
+                chunk.patients.add(new Object[] { name, parsedAge, matchedGender, phone,
+                        address.isEmpty() ? null : address });
+            } else {
+                chunk.rejected.add(new Object[] { chunk.lines.get(i), reason, name, age, gender, phone, address });
+            }
+        }
+        return chunk;
+    }
+
+    private static String field(Map<String, String> record, String name) {
+        String value = record.get(name);
+        return value == null ? "" : value.trim();
+    }
+
+    private static Chunk await(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Import cancelled");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Validation failed", e.getCause());
+        }
+    }
+
+    private CsvWriter openRejects() throws IOException {
+        boolean empty = !Files.exists(rejectFile) || Files.size(rejectFile) == 0;
+        CsvWriter writer = new CsvWriter(Files.newBufferedWriter(rejectFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+        if (empty) {
+            writer.write("line", "reason", "name", "age", "gender", "phone", "address");
+        }
+        return writer;
+    }
+
+    // Commits the inserted patients together with the totals, then reports them
+    private Progress commit(Connection connection, long records, long imported, long rejected, boolean complete,
+            CsvWriter rejects, List<Object[]> indexed) throws SQLException, IOException {
+        String completedAt = complete ? "CURRENT_TIMESTAMP" : "NULL";
+        Jdbc.update(connection, "INSERT INTO patient_imports (source, records_done, imported, rejected, completed_at) "
+                + "VALUES (?, ?, ?, ?, " + completedAt + ") ON DUPLICATE KEY UPDATE records_done = ?, imported = ?, "
+                + "rejected = ?, completed_at = " + completedAt,
+                key, records, imported, rejected, records, imported, rejected);
+        connection.commit();
+
+        if (rejects != null) {
+            rejects.flush();
+        }
+        for (Object[] patient : indexed) {
+            SearchIndexes.patients().put((Integer) patient[0], (String) patient[1], (String) patient[2],
+                    (String) patient[3]);
+        }
+        indexed.clear();
+
+        Progress progress = new Progress(records, imported, rejected, complete);
+        listener.progress(progress);
+        return progress;
+    }
+
+    /**
+     * Imports a file from the command line:
+     *
+     * java HospitalManagementSystem.importer.PatientImport patients.csv [--restart]
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: PatientImport file.csv|file.json [--restart]");
+            System.exit(2);
+        }
+        PatientImport patientImport = new PatientImport(Paths.get(args[0]));
+        patientImport.setListener(progress -> System.out.println(progress.getRecords() + " records: "
+                + progress.getImported() + " imported, " + progress.getRejected() + " rejected"));
+
+        long start = System.nanoTime();
+        try {
+            ConnectionPool pool = Database.getPool();
+            try (Connection connection = pool.getConnection()) {
+                if (args.length > 1 && args[1].equals("--restart")) {
+                    patientImport.restart(connection);
+                }
+                Progress progress = patientImport.run(connection);
+                System.out.println("Import complete: " + progress.getImported() + " patients imported, "
+                        + progress.getRejected() + " rejected in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+                if (progress.getRejected() > 0) {
+                    System.out.println("Rejected records: " + patientImport.getRejectFile());
+                }
+            }
+        } catch (SQLException | IOException e) {
+            System.err.println("Import failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
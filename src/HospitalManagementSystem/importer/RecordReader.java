@@ -0,0 +1,45 @@
+package HospitalManagementSystem.importer;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * Reads flat records from an import file one at a time, as field name to value maps with the
+ * names in lower case. Missing fields and JSON nulls have null values.
+ */
+public interface RecordReader extends Closeable {
+
+    /** The next record, or null at the end of the file. */
+    Map<String, String> next() throws IOException;
+
+    /** Line of the file on which the record last returned by {@link #next()} starts. */
+    long getLine();
+
+    /**
+     * Opens {@code file} as JSON if its name ends in .json, .jsonl or .ndjson, otherwise as CSV
+     * with a header row. JSON files hold either an array of objects or one object after another.
+     */
+    static RecordReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel),
+                StandardCharsets.UTF_8), 64 * 1024);
+        String name = file.getFileName().toString().toLowerCase();
+        try {
+            if (name.endsWith(".json") || name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+                return new JsonRecordReader(in);
+            }
+            return new CsvRecordReader(in);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package HospitalManagementSystem.scheduling;
+
+import HospitalManagementSystem.db.Jdbc;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Booked appointment times of each doctor, held as one bitmap per doctor per day with a bit
+ * for every minute an appointment starts at. Availability checks are answered from memory once
+ * a day has been read.
+ *
+ * The calendar is only a fast view: {@link SlotReservations} still guards every booking in the
+ * database, and marks the slot here whichever way it goes. Days older than
+ * -Dhms.cache.ttlSeconds (default 300, 0 to keep them until invalidated) are read again.
+ * Rescheduling or cancelling an appointment drops only the days it was and is on, which are
+ * found from the ids of the appointments each held day was read with.
+ */
+public class DoctorCalendar {
+    static final int MINUTES_PER_DAY = 24 * 60;
+    private static final long TTL_MILLIS = Long.getLong("hms.cache.ttlSeconds", 300) * 1000;
+
+    private static final DoctorCalendar shared = new DoctorCalendar();
+
+    // doctor id -> day -> booked start minutes
+    private final Map<Integer, Map<LocalDate, Day>> doctors = new HashMap<>();
+    // appointment id -> the held day it is on
+    private final Map<Integer, Day> dayOf = new HashMap<>();
+    // Bumped by invalidate() so a read that started earlier does not store stale days
+    private int version;
+    // Days dropped one by one while reads were running, which those reads must not store either
+    private final Map<Integer, Set<LocalDate>> droppedWhileReading = new HashMap<>();
+    private int reading;
+
+    private static final class Day {
+        private final int doctorId;
+        private final LocalDate date;
+        private final BitSet booked = new BitSet(MINUTES_PER_DAY);
+        private final Set<Integer> appointmentIds = new HashSet<>();
+        private final long loadedAt;
+
+        Day(int doctorId, LocalDate date, long loadedAt) {
+            this.doctorId = doctorId;
+            this.date = date;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    public static DoctorCalendar shared() {
+        return shared;
+    }
+
+    /** Whether no active appointment of {@code doctorId} starts at {@code time}, reading the day if needed. */
+    public boolean isFree(Connection connection, int doctorId, LocalDate date, LocalTime time) throws SQLException {
+        if (!isLoaded(doctorId, date)) {
+            load(connection, date, date, doctorId);
+        }
+        synchronized (this) {
+            Day day = day(doctorId, date);
+            return day == null || !day.booked.get(minuteOf(time));
+        }
+    }
+
+    /** Reads the active appointments of {@code doctorIds} on {@code from} to {@code to} (inclusive) in one query. */
+    public void load(Connection connection, LocalDate from, LocalDate to, int... doctorIds) throws SQLException {
+        if (doctorIds.length == 0) {
+            return;
+        }
+        int startVersion;
+        synchronized (this) {
+            startVersion = version;
+            reading++;
+        }
+        try {
+            read(connection, from, to, doctorIds, startVersion);
+        } finally {
+            synchronized (this) {
+                if (--reading == 0) {
+                    droppedWhileReading.clear();
+                }
+            }
+        }
+    }
+
+    private void read(Connection connection, LocalDate from, LocalDate to, int[] doctorIds, int startVersion)
+            throws SQLException {
+        StringBuilder query = new StringBuilder("SELECT id, doctor_id, appointment_date, appointment_time " +
+                "FROM appointments WHERE appointment_date BETWEEN ? AND ? AND status <> 'Cancelled' " +
+                "AND doctor_id IN (");
+        Object[] params = new Object[2 + doctorIds.length];
+        params[0] = Date.valueOf(from);
+        params[1] = Date.valueOf(to);
+        for (int i = 0; i < doctorIds.length; i++) {
+            query.append(i == 0 ? "?" : ", ?");
+            params[2 + i] = doctorIds[i];
+        }
+        query.append(")");
+
+        // Every requested day gets an entry, so days without appointments count as read too
+        long now = System.currentTimeMillis();
+        Map<Integer, Map<LocalDate, Day>> loaded = new HashMap<>();
+        for (int doctorId : doctorIds) {
+            Map<LocalDate, Day> days = loaded.computeIfAbsent(doctorId, k -> new HashMap<>());
+            for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                days.put(date, new Day(doctorId, date, now));
+            }
+        }
+        Jdbc.forEach(connection, query.toString(), rs -> {
+            Day day = loaded.get(rs.getInt("doctor_id")).get(rs.getDate("appointment_date").toLocalDate());
+            day.appointmentIds.add(rs.getInt("id"));
+            Time time = rs.getTime("appointment_time");
+            if (time != null) {
+                day.booked.set(minuteOf(time.toLocalTime()));
+            }
+        }, params);
+
+        synchronized (this) {
+            if (version != startVersion) {
+                return;
+            }
+            for (Map<LocalDate, Day> days : loaded.values()) {
+                for (Day day : days.values()) {
+                    if (droppedWhileReading.getOrDefault(day.doctorId, Collections.emptySet()).contains(day.date)) {
+                        continue;
+                    }
+                    remove(day.doctorId, day.date);
+                    doctors.computeIfAbsent(day.doctorId, k -> new HashMap<>()).put(day.date, day);
+                    for (int appointmentId : day.appointmentIds) {
+                        dayOf.put(appointmentId, day);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Reads the days from {@code from} to {@code to} of those {@code doctorIds} not held yet, in at most one query. */
+    public void ensureLoaded(Connection connection, LocalDate from, LocalDate to, int... doctorIds)
+            throws SQLException {
+        int[] missing;
+        synchronized (this) {
+            missing = Arrays.stream(doctorIds).filter(doctorId -> !isLoaded(doctorId, from, to)).toArray();
+        }
+        load(connection, from, to, missing);
+    }
+
+    /** Copy of the booked start minutes of the day, or null if it has not been read. */
+    synchronized BitSet booked(int doctorId, LocalDate date) {
+        Day day = day(doctorId, date);
+        return day == null ? null : (BitSet) day.booked.clone();
+    }
+
+    /** Marks {@code time} taken; {@code appointmentId} is the new appointment there, or -1 if it is someone else's. */
+    synchronized void markBooked(int doctorId, LocalDate date, LocalTime time, int appointmentId) {
+        Day day = day(doctorId, date);
+        if (day != null) {
+            day.booked.set(minuteOf(time));
+            if (appointmentId > 0) {
+                day.appointmentIds.add(appointmentId);
+                dayOf.put(appointmentId, day);
+            }
+        }
+    }
+
+    /** Drops one doctor's day, for writes whose slot is not known exactly. */
+    public synchronized void forget(int doctorId, LocalDate date) {
+        drop(doctorId, date);
+    }
+
+    /** Drops the day appointment {@code appointmentId} was on when it was read, if that day is held. */
+    public synchronized void forgetAppointment(int appointmentId) {
+        Day day = dayOf.get(appointmentId);
+        if (day != null) {
+            drop(day.doctorId, day.date);
+        }
+    }
+
+    /**
+     * Drops the days appointments {@code ids} were on and the days they are on now, for changes
+     * made by other clients, whose old and new slots are not known here.
+     */
+    public void forgetAppointments(Connection connection, int[] ids) throws SQLException {
+        if (ids.length == 0) {
+            return;
+        }
+        Object[] params = new Object[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            params[i] = ids[i];
+        }
+        String placeholders = String.join(",", Collections.nCopies(ids.length, "?"));
+        List<Object[]> current = Jdbc.query(connection, "SELECT doctor_id, appointment_date FROM appointments " +
+                "WHERE id IN (" + placeholders + ")",
+                rs -> new Object[] { rs.getInt("doctor_id"), rs.getDate("appointment_date").toLocalDate() }, params);
+
+        synchronized (this) {
+            for (int id : ids) {
+                forgetAppointment(id);
+            }
+            for (Object[] day : current) {
+                forget((Integer) day[0], (LocalDate) day[1]);
+            }
+        }
+    }
+
+    public synchronized void invalidate() {
+        doctors.clear();
+        dayOf.clear();
+        version++;
+    }
+
+    private synchronized boolean isLoaded(int doctorId, LocalDate date) {
+        return day(doctorId, date) != null;
+    }
+
+    private synchronized boolean isLoaded(int doctorId, LocalDate from, LocalDate to) {
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            if (!isLoaded(doctorId, date)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Caller holds the lock
+    private Day day(int doctorId, LocalDate date) {
+        Map<LocalDate, Day> days = doctors.get(doctorId);
+        Day day = days == null ? null : days.get(date);
+        if (day != null && TTL_MILLIS > 0 && System.currentTimeMillis() - day.loadedAt >= TTL_MILLIS) {
+            remove(doctorId, date);
+            return null;
+        }
+        return day;
+    }
+
+    // Caller holds the lock
+    private void drop(int doctorId, LocalDate date) {
+        remove(doctorId, date);
+        if (reading > 0) {
+            droppedWhileReading.computeIfAbsent(doctorId, k -> new HashSet<>()).add(date);
+        }
+    }
+
+    // Caller holds the lock
+    private void remove(int doctorId, LocalDate date) {
+        Map<LocalDate, Day> days = doctors.get(doctorId);
+        Day day = days == null ? null : days.remove(date);
+        if (day != null) {
+            for (int appointmentId : day.appointmentIds) {
+                dayOf.remove(appointmentId, day);
+            }
+        }
+    }
+
+    static int minuteOf(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+}
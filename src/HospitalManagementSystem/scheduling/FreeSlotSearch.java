@@ -0,0 +1,142 @@
+package HospitalManagementSystem.scheduling;
+
+import HospitalManagementSystem.db.Jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Finds the earliest free appointment slots across several doctors at once, from the
+ * {@link DoctorCalendar} bitmaps of the whole date range rather than one check per slot.
+ *
+ * Slots are {@code -Dhms.schedule.slotMinutes} long (default 30) between
+ * {@code -Dhms.schedule.dayStart} and {@code -Dhms.schedule.dayEnd} (default 09:00 to 17:00).
+ * Every appointment is taken to last one slot, so a slot is free when no appointment starts
+ * within a slot length of it.
+ */
+public class FreeSlotSearch {
+    private static final int SLOT_MINUTES = Integer.getInteger("hms.schedule.slotMinutes", 30);
+    private static final LocalTime DAY_START = LocalTime.parse(System.getProperty("hms.schedule.dayStart", "09:00"));
+    private static final LocalTime DAY_END = LocalTime.parse(System.getProperty("hms.schedule.dayEnd", "17:00"));
+
+    /** A free slot with one doctor. */
+    public static class Slot {
+        private final int doctorId;
+        private final String doctorName;
+        private final String specialization;
+        private final LocalDate date;
+        private final LocalTime time;
+
+        Slot(Doctor doctor, LocalDate date, LocalTime time) {
+            this.doctorId = doctor.id;
+            this.doctorName = doctor.name;
+            this.specialization = doctor.specialization;
+            this.date = date;
+            this.time = time;
+        }
+
+        public int getDoctorId() {
+            return doctorId;
+        }
+
+        public String getDoctorName() {
+            return doctorName;
+        }
+
+        public String getSpecialization() {
+            return specialization;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public LocalTime getTime() {
+            return time;
+        }
+
+        @Override
+        public String toString() {
+            return date + " " + time + " - " + doctorName + " (" + specialization + ")";
+        }
+    }
+
+    private static class Doctor {
+        private final int id;
+        private final String name;
+        private final String specialization;
+
+        Doctor(int id, String name, String specialization) {
+            this.id = id;
+            this.name = name;
+            this.specialization = specialization;
+        }
+    }
+
+    private FreeSlotSearch() {
+    }
+
+    /**
+     * The earliest {@code limit} free slots from {@code from} to {@code to} (inclusive) with any
+     * doctor of {@code specialization}, or any doctor at all if it is null. Slots on the same date
+     * and time are ordered by doctor name; slots already past are skipped.
+     */
+    public static List<Slot> earliest(Connection connection, String specialization, LocalDate from, LocalDate to,
+            int limit) throws SQLException {
+        String query = "SELECT id, name, specialization FROM doctors" +
+                (specialization == null ? "" : " WHERE specialization = ?") + " ORDER BY name, id";
+        List<Doctor> doctors = Jdbc.query(connection, query,
+                rs -> new Doctor(rs.getInt("id"), rs.getString("name"), rs.getString("specialization")),
+                specialization == null ? new Object[0] : new Object[] { specialization });
+
+        List<Slot> slots = new ArrayList<>();
+        if (doctors.isEmpty() || limit <= 0) {
+            return slots;
+        }
+
+        DoctorCalendar calendar = DoctorCalendar.shared();
+        calendar.ensureLoaded(connection, from, to, doctors.stream().mapToInt(doctor -> doctor.id).toArray());
+
+        LocalDateTime now = LocalDateTime.now();
+        int dayStart = DoctorCalendar.minuteOf(DAY_START);
+        int dayEnd = DoctorCalendar.minuteOf(DAY_END);
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            // Fetched once per day, then every slot of the day is a bitmap probe
+            BitSet[] booked = new BitSet[doctors.size()];
+            for (int i = 0; i < booked.length; i++) {
+                booked[i] = calendar.booked(doctors.get(i).id, date);
+            }
+
+            for (int minute = dayStart; minute + SLOT_MINUTES <= dayEnd; minute += SLOT_MINUTES) {
+                LocalTime time = LocalTime.of(minute / 60, minute % 60);
+                if (!date.atTime(time).isAfter(now)) {
+                    continue;
+                }
+                for (int i = 0; i < booked.length; i++) {
+                    if (isFree(booked[i], minute)) {
+                        slots.add(new Slot(doctors.get(i), date, time));
+                        if (slots.size() == limit) {
+                            return slots;
+                        }
+                    }
+                }
+            }
+        }
+        return slots;
+    }
+
+    // No appointment starts within one slot length either side of the slot start
+    private static boolean isFree(BitSet booked, int minute) {
+        if (booked == null) {
+            return false; // day was invalidated while searching, so nothing is known about it
+        }
+        int next = booked.nextSetBit(Math.max(0, minute - SLOT_MINUTES + 1));
+        return next == -1 || next >= minute + SLOT_MINUTES;
+    }
+}
@@ -0,0 +1,83 @@
+package HospitalManagementSystem.scheduling;
+
+import HospitalManagementSystem.db.Jdbc;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Books appointments in one statement that inserts only if the doctor's slot is still free,
+ * so two clerks booking the same slot at once cannot both succeed.
+ *
+ * The {@code uq_doctor_slot} key on appointments (see database_migration.sql) enforces the same
+ * rule for every writer; on databases without it the guarded INSERT alone still applies.
+ */
+public final class SlotReservations {
+    // Deadlocks between two guarded inserts into the same gap: the retry sees the winner's row
+    private static final int MAX_ATTEMPTS = 3;
+    private static final int DUPLICATE_KEY = 1062;
+
+    private static final String BOOK_SLOT = "INSERT INTO appointments " +
+            "(patient_id, doctor_id, appointment_date, appointment_time, status) " +
+            "SELECT ?, ?, ?, ?, ? FROM DUAL WHERE NOT EXISTS (" +
+            "SELECT 1 FROM appointments WHERE doctor_id = ? AND appointment_date = ? " +
+            "AND appointment_time = ? AND status <> 'Cancelled')";
+    private static final String BOOK_DAY = "INSERT INTO appointments (patient_id, doctor_id, appointment_date) " +
+            "SELECT ?, ?, ? FROM DUAL WHERE NOT EXISTS (" +
+            "SELECT 1 FROM appointments WHERE doctor_id = ? AND appointment_date = ? AND status <> 'Cancelled')";
+
+    private SlotReservations() {
+    }
+
+    /**
+     * Books {@code time} (to the minute) on {@code date} with {@code doctorId}.
+     *
+     * @return the new appointment id, or -1 if the doctor already has an appointment then
+     */
+    public static int book(Connection connection, int patientId, int doctorId, LocalDate date, LocalTime time,
+            String status) throws SQLException {
+        Time slot = Time.valueOf(time.withSecond(0).withNano(0));
+        int id = insert(connection, BOOK_SLOT, patientId, doctorId, Date.valueOf(date), slot, status,
+                doctorId, Date.valueOf(date), slot);
+        // Marked either way: on a conflict someone else holds the slot
+        DoctorCalendar.shared().markBooked(doctorId, date, time, id);
+        return id;
+    }
+
+    /**
+     * Books the first appointment of the day with {@code doctorId} at the default time, as the
+     * console does.
+     *
+     * @return the new appointment id, or -1 if the doctor already has an appointment that day
+     */
+    public static int bookDay(Connection connection, int patientId, int doctorId, LocalDate date)
+            throws SQLException {
+        int id = insert(connection, BOOK_DAY, patientId, doctorId, Date.valueOf(date), doctorId, Date.valueOf(date));
+        DoctorCalendar.shared().forget(doctorId, date);
+        return id;
+    }
+
+    /** Whether {@code e} is the {@code uq_doctor_slot} key rejecting a second appointment in a slot. */
+    public static boolean isSlotTaken(SQLException e) {
+        return e.getErrorCode() == DUPLICATE_KEY;
+    }
+
+    private static int insert(Connection connection, String sql, Object... params) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return Jdbc.insert(connection, sql, params);
+            } catch (SQLException e) {
+                if (isSlotTaken(e)) {
+                    return -1;
+                }
+                if (!"40001".equals(e.getSQLState()) || attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+}
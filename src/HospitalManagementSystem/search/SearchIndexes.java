@@ -0,0 +1,119 @@
+package HospitalManagementSystem.search;
+
+import HospitalManagementSystem.db.ConnectionPool;
+import HospitalManagementSystem.db.Jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Application-wide search indexes over patients (name, phone, address) and
+ * doctors (name, specialization, phone). The fields match the columns the
+ * management windows search on.
+ */
+public final class SearchIndexes {
+    private static final String PATIENT_FIELDS = "SELECT id, name, phone, address FROM patients";
+    private static final String DOCTOR_FIELDS = "SELECT id, name, specialization, phone FROM doctors";
+
+    private static final TrigramIndex patients = new TrigramIndex();
+    private static final TrigramIndex doctors = new TrigramIndex();
+    private static boolean started;
+
+    private SearchIndexes() {
+    }
+
+    public static TrigramIndex patients() {
+        return patients;
+    }
+
+    public static TrigramIndex doctors() {
+        return doctors;
+    }
+
+    /** Loads both indexes on a background thread. Until it finishes, searches fall back to SQL. */
+    public static synchronized void buildAsync(ConnectionPool pool) {
+        if (started) {
+            return;
+        }
+        started = true;
+
+        Thread builder = new Thread(() -> {
+            try {
+                build(pool, patients, PATIENT_FIELDS + " ORDER BY id");
+                build(pool, doctors, DOCTOR_FIELDS + " ORDER BY id");
+            } catch (SQLException e) {
+                System.err.println("Search index build failed, searches will use the database: " + e.getMessage());
+            }
+        }, "hms-search-index");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    /**
+     * Reads the given patients again and updates their entries, removing those that no longer
+     * exist. Used for changes made by other clients, whose new values are not known here.
+     */
+    public static void refreshPatients(Connection connection, int[] ids) throws SQLException {
+        refresh(connection, patients, PATIENT_FIELDS, ids);
+    }
+
+    public static void refreshDoctors(Connection connection, int[] ids) throws SQLException {
+        refresh(connection, doctors, DOCTOR_FIELDS, ids);
+    }
+
+    /**
+     * Reads every patient and doctor again, for when too many changes were missed to refresh them
+     * one by one, and removes the records that no longer exist.
+     */
+    public static void refreshAll(Connection connection) throws SQLException {
+        refreshAll(connection, patients, PATIENT_FIELDS);
+        refreshAll(connection, doctors, DOCTOR_FIELDS);
+    }
+
+    private static void refreshAll(Connection connection, TrigramIndex index, String query) throws SQLException {
+        // Ids held before the read started; any of them the read does not return were deleted
+        Set<Integer> missing = new HashSet<>();
+        for (int id : index.ids()) {
+            missing.add(id);
+        }
+        Jdbc.stream(connection, query, rs -> {
+            missing.remove(rs.getInt(1));
+            index.put(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4));
+        });
+        for (int id : missing) {
+            index.remove(id);
+        }
+    }
+
+    private static void refresh(Connection connection, TrigramIndex index, String query, int[] ids)
+            throws SQLException {
+        if (ids.length == 0) {
+            return;
+        }
+        Set<Integer> missing = new HashSet<>();
+        Object[] params = new Object[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            missing.add(ids[i]);
+            params[i] = ids[i];
+        }
+        String placeholders = String.join(",", Collections.nCopies(ids.length, "?"));
+        Jdbc.forEach(connection, query + " WHERE id IN (" + placeholders + ")", rs -> {
+            missing.remove(rs.getInt(1));
+            index.put(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4));
+        }, params);
+        for (int id : missing) {
+            index.remove(id);
+        }
+    }
+
+    private static void build(ConnectionPool pool, TrigramIndex index, String query) throws SQLException {
+        try (Connection connection = pool.getConnection()) {
+            Jdbc.stream(connection, query,
+                    rs -> index.load(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4)));
+        }
+        index.markReady();
+    }
+}
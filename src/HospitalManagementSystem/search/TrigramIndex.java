@@ -0,0 +1,317 @@
+package HospitalManagementSystem.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over a few text fields per record id.
+ *
+ * {@link #search(String)} returns the same records as
+ * {@code LOWER(field) LIKE '%text%'} over the indexed fields, without scanning the table.
+ * {@link #fuzzySearch(String, int)} ranks records by the share of the query's trigrams
+ * they contain, which tolerates typos.
+ */
+public class TrigramIndex {
+    private static final double FUZZY_THRESHOLD = 0.5;
+
+    private final Map<Long, IntList> postings = new HashMap<>();
+    private final Map<Integer, String[]> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Ids changed through put/remove while the initial build is still loading rows
+    private final Set<Integer> touchedDuringBuild = new HashSet<>();
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Adds or replaces the record {@code id}. */
+    public void put(int id, String... fields) {
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                touchedDuringBuild.add(id);
+            }
+            putLocked(id, fields);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                touchedDuringBuild.add(id);
+            }
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Ids of all records, in no particular order. */
+    int[] ids() {
+        lock.readLock().lock();
+        try {
+            return documents.keySet().stream().mapToInt(Integer::intValue).toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a record read by the initial build. Records already changed through
+     * {@link #put} or {@link #remove} are skipped, since the build may have read an older version.
+     */
+    void load(int id, String... fields) {
+        lock.writeLock().lock();
+        try {
+            if (!touchedDuringBuild.contains(id)) {
+                putLocked(id, fields);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void markReady() {
+        lock.writeLock().lock();
+        try {
+            ready = true;
+            touchedDuringBuild.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Ids, in ascending order, of the records with a field containing {@code text} (case-insensitive). */
+    public int[] search(String text) {
+        String query = text.toLowerCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            if (query.length() < 3) {
+                return scan(query);
+            }
+
+            long[] trigrams = trigrams(query);
+            IntList[] lists = new IntList[trigrams.length];
+            for (int i = 0; i < trigrams.length; i++) {
+                lists[i] = postings.get(trigrams[i]);
+                if (lists[i] == null) {
+                    return new int[0];
+                }
+            }
+            // Intersect starting from the rarest trigram
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+            IntList result = new IntList();
+            IntList smallest = lists[0];
+            int[] cursors = new int[lists.length];
+            candidates:
+            for (int i = 0; i < smallest.size; i++) {
+                int id = smallest.values[i];
+                for (int j = 1; j < lists.length; j++) {
+                    // Candidates ascend, so each list is only ever searched forward from its cursor
+                    cursors[j] = lists[j].seek(id, cursors[j]);
+                    if (cursors[j] >= lists[j].size) {
+                        break candidates;
+                    }
+                    if (lists[j].values[cursors[j]] != id) {
+                        continue candidates;
+                    }
+                }
+                // Trigrams can match out of order, so confirm the substring
+                if (contains(documents.get(id), query)) {
+                    result.add(id);
+                }
+            }
+            return result.toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Up to {@code limit} ids sharing at least half of the query's trigrams, best matches first. */
+    public int[] fuzzySearch(String text, int limit) {
+        String query = text.toLowerCase(Locale.ROOT);
+        if (query.length() < 3) {
+            return new int[0];
+        }
+
+        lock.readLock().lock();
+        try {
+            long[] trigrams = trigrams(query);
+            Map<Integer, int[]> hits = new HashMap<>();
+            for (long trigram : trigrams) {
+                IntList list = postings.get(trigram);
+                if (list == null) {
+                    continue;
+                }
+                for (int i = 0; i < list.size; i++) {
+                    hits.computeIfAbsent(list.values[i], k -> new int[1])[0]++;
+                }
+            }
+
+            int required = (int) Math.ceil(trigrams.length * FUZZY_THRESHOLD);
+            List<int[]> scored = new ArrayList<>();
+            for (Map.Entry<Integer, int[]> entry : hits.entrySet()) {
+                if (entry.getValue()[0] >= required) {
+                    scored.add(new int[] { entry.getKey(), entry.getValue()[0] });
+                }
+            }
+            scored.sort((a, b) -> a[1] != b[1] ? Integer.compare(b[1], a[1]) : Integer.compare(a[0], b[0]));
+
+            int[] result = new int[Math.min(limit, scored.size())];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = scored.get(i)[0];
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int[] scan(String query) {
+        IntList result = new IntList();
+        for (Map.Entry<Integer, String[]> entry : documents.entrySet()) {
+            if (contains(entry.getValue(), query)) {
+                result.add(entry.getKey());
+            }
+        }
+        int[] ids = result.toArray();
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private void putLocked(int id, String[] fields) {
+        removeLocked(id);
+
+        String[] normalized = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            normalized[i] = fields[i] == null ? "" : fields[i].toLowerCase(Locale.ROOT);
+        }
+        documents.put(id, normalized);
+        for (long trigram : trigrams(normalized)) {
+            postings.computeIfAbsent(trigram, k -> new IntList()).insert(id);
+        }
+    }
+
+    private void removeLocked(int id) {
+        String[] previous = documents.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (long trigram : trigrams(previous)) {
+            IntList list = postings.get(trigram);
+            if (list != null && list.delete(id) && list.size == 0) {
+                postings.remove(trigram);
+            }
+        }
+    }
+
+    private static boolean contains(String[] fields, String query) {
+        if (fields == null) {
+            return false;
+        }
+        for (String field : fields) {
+            if (field.contains(query)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Distinct trigrams of all fields; trigrams never span two fields
+    private static long[] trigrams(String... fields) {
+        Set<Long> result = new HashSet<>();
+        for (String field : fields) {
+            for (int i = 0; i + 3 <= field.length(); i++) {
+                result.add(((long) field.charAt(i) << 32) | ((long) field.charAt(i + 1) << 16) | field.charAt(i + 2));
+            }
+        }
+        long[] array = new long[result.size()];
+        int i = 0;
+        for (long trigram : result) {
+            array[i++] = trigram;
+        }
+        return array;
+    }
+
+    // Sorted, growable list of ids; far smaller than a Set<Integer> per trigram
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void insert(int value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = value;
+            size++;
+        }
+
+        boolean delete(int value) {
+            int index = indexOf(value);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        // Index of the first value >= target at or after from, galloping ahead before the binary search
+        int seek(int target, int from) {
+            int step = 1;
+            int low = from;
+            int high = from;
+            while (high < size && values[high] < target) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            int index = Arrays.binarySearch(values, low, Math.min(high + 1, size), target);
+            return index >= 0 ? index : -index - 1;
+        }
+
+        int indexOf(int value) {
+            return Arrays.binarySearch(values, 0, size, value);
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}